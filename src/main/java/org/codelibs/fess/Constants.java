@@ -218,6 +218,10 @@ public class Constants extends CoreLibConstants {
 
     public static final String DATA_INDEX_SIZE = "DataIndexSize";
 
+    public static final String DATA_STORE_ROW_SIZE = "DataStoreRowSize";
+
+    public static final String DATA_STORE_ROWS_PER_SECOND = "DataStoreRowsPerSecond";
+
     public static final String SESSION_ID = "sessionId";
 
     public static final String CRAWLING_INFO_ID = "crawlingInfoId";
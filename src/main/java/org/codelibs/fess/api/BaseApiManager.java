@@ -15,9 +15,10 @@
  */
 package org.codelibs.fess.api;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
-import java.io.PrintWriter;
+import java.io.Writer;
 import java.util.Locale;
 
 import javax.servlet.http.HttpServletResponse;
@@ -29,6 +30,8 @@ import org.lastaflute.web.util.LaResponseUtil;
 
 public abstract class BaseApiManager implements WebApiManager {
 
+    protected static final int RESPONSE_BUFFER_SIZE = 8192;
+
     protected String pathPrefix;
 
     protected enum FormatType {
@@ -67,6 +70,14 @@ public abstract class BaseApiManager implements WebApiManager {
     }
 
     public static void write(final String text, final String contentType, final String encoding) {
+        write(out -> {
+            if (text != null) {
+                out.write(text);
+            }
+        }, contentType, encoding);
+    }
+
+    public static void write(final ResponseBodyWriter bodyWriter, final String contentType, final String encoding) {
         final StringBuilder buf = new StringBuilder(50);
         if (contentType == null) {
             buf.append("text/plain");
@@ -87,11 +98,16 @@ public abstract class BaseApiManager implements WebApiManager {
         buf.append(enc);
         final HttpServletResponse response = LaResponseUtil.getResponse();
         response.setContentType(buf.toString());
-        try (PrintWriter out = new PrintWriter(new OutputStreamWriter(response.getOutputStream(), enc))) {
-            out.print(text);
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), enc), RESPONSE_BUFFER_SIZE)) {
+            bodyWriter.write(out);
         } catch (final IOException e) {
             throw new IORuntimeException(e);
         }
     }
 
+    @FunctionalInterface
+    public interface ResponseBodyWriter {
+        void write(Writer out) throws IOException;
+    }
+
 }
\ No newline at end of file
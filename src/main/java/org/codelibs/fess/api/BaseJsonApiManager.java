@@ -18,7 +18,9 @@ package org.codelibs.fess.api;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
-import java.text.SimpleDateFormat;
+import java.io.Writer;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
@@ -28,6 +30,7 @@ import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.lang3.StringEscapeUtils;
 import org.codelibs.core.CoreLibConstants;
+import org.codelibs.core.exception.IORuntimeException;
 import org.codelibs.core.lang.StringUtil;
 import org.codelibs.fess.Constants;
 import org.codelibs.fess.exception.InvalidAccessTokenException;
@@ -36,6 +39,9 @@ import org.lastaflute.web.util.LaResponseUtil;
 
 public abstract class BaseJsonApiManager extends BaseApiManager {
 
+    protected static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern(CoreLibConstants.DATE_FORMAT_ISO_8601_EXTEND,
+            Locale.ROOT);
+
     protected void writeJsonResponse(final int status, final String body, final Throwable t) {
         if (t == null) {
             writeJsonResponse(status, body, (String) null);
@@ -65,36 +71,40 @@ public abstract class BaseJsonApiManager extends BaseApiManager {
     }
 
     protected void writeJsonResponse(final int status, final String body, final String errMsg) {
+        streamJsonResponse(status, StringUtil.isNotBlank(body) ? out -> out.write(body) : null, errMsg);
+    }
+
+    protected void streamJsonResponse(final int status, final ResponseBodyWriter body, final String errMsg) {
         final String callback = LaRequestUtil.getRequest().getParameter("callback");
         final boolean isJsonp = StringUtil.isNotBlank(callback);
 
-        final StringBuilder buf = new StringBuilder(1000);
-        if (isJsonp) {
-            buf.append(escapeCallbackName(callback));
-            buf.append('(');
-        }
-        buf.append("{\"response\":");
-        buf.append("{\"version\":");
-        buf.append(Constants.WEB_API_VERSION);
-        buf.append(',');
-        buf.append("\"status\":");
-        buf.append(status);
-        if (status == 0) {
-            if (StringUtil.isNotBlank(body)) {
-                buf.append(',');
-                buf.append(body);
+        write(out -> {
+            if (isJsonp) {
+                out.write(escapeCallbackName(callback));
+                out.write('(');
             }
-        } else {
-            buf.append(',');
-            buf.append("\"message\":");
-            buf.append(escapeJson(errMsg));
-        }
-        buf.append('}');
-        buf.append('}');
-        if (isJsonp) {
-            buf.append(')');
-        }
-        write(buf.toString(), "text/javascript+json", Constants.UTF_8);
+            out.write("{\"response\":");
+            out.write("{\"version\":");
+            out.write(Constants.WEB_API_VERSION);
+            out.write(',');
+            out.write("\"status\":");
+            out.write(Integer.toString(status));
+            if (status == 0) {
+                if (body != null) {
+                    out.write(',');
+                    body.write(out);
+                }
+            } else {
+                out.write(',');
+                out.write("\"message\":");
+                writeJson(out, errMsg);
+            }
+            out.write('}');
+            out.write('}');
+            if (isJsonp) {
+                out.write(')');
+            }
+        }, "text/javascript+json", Constants.UTF_8);
 
     }
 
@@ -103,44 +113,59 @@ public abstract class BaseJsonApiManager extends BaseApiManager {
     }
 
     protected String escapeJson(final Object obj) {
-        if (obj == null) {
-            return "null";
+        final StringWriter out = new StringWriter(255);
+        try {
+            writeJson(out, obj);
+        } catch (final IOException e) {
+            throw new IORuntimeException(e);
         }
+        return out.toString();
+    }
 
-        final StringBuilder buf = new StringBuilder(255);
-        if (obj instanceof List<?>) {
-            buf.append('[');
+    protected void writeJson(final Writer out, final Object obj) throws IOException {
+        if (obj == null) {
+            out.write("null");
+        } else if (obj instanceof List<?>) {
+            out.write('[');
             boolean first = true;
             for (final Object child : (List<?>) obj) {
                 if (first) {
                     first = false;
                 } else {
-                    buf.append(',');
+                    out.write(',');
                 }
-                buf.append(escapeJson(child));
+                writeJson(out, child);
             }
-            buf.append(']');
+            out.write(']');
         } else if (obj instanceof Map<?, ?>) {
-            buf.append('{');
+            out.write('{');
             boolean first = true;
             for (final Map.Entry<?, ?> entry : ((Map<?, ?>) obj).entrySet()) {
                 if (first) {
                     first = false;
                 } else {
-                    buf.append(',');
+                    out.write(',');
                 }
-                buf.append(escapeJson(entry.getKey())).append(':').append(escapeJson(entry.getValue()));
+                writeJson(out, entry.getKey());
+                out.write(':');
+                writeJson(out, entry.getValue());
             }
-            buf.append('}');
+            out.write('}');
         } else if (obj instanceof Number) {
-            buf.append(obj);
+            out.write(obj.toString());
         } else if (obj instanceof Date) {
-            final SimpleDateFormat sdf = new SimpleDateFormat(CoreLibConstants.DATE_FORMAT_ISO_8601_EXTEND, Locale.ROOT);
-            buf.append('\"').append(StringEscapeUtils.escapeJson(sdf.format(obj))).append('\"');
+            out.write('\"');
+            StringEscapeUtils.ESCAPE_JSON.translate(formatDate((Date) obj), out);
+            out.write('\"');
         } else {
-            buf.append('\"').append(StringEscapeUtils.escapeJson(obj.toString())).append('\"');
+            out.write('\"');
+            StringEscapeUtils.ESCAPE_JSON.translate(obj.toString(), out);
+            out.write('\"');
         }
-        return buf.toString();
+    }
+
+    protected String formatDate(final Date date) {
+        return DATE_FORMATTER.format(date.toInstant().atZone(ZoneId.systemDefault()));
     }
 
 }
@@ -16,9 +16,12 @@
 package org.codelibs.fess.api.gsa;
 
 import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.net.URLDecoder;
 import java.net.URLEncoder;
-import java.text.SimpleDateFormat;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -39,6 +42,7 @@ import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.lang3.StringEscapeUtils;
 import org.codelibs.core.CoreLibConstants;
+import org.codelibs.core.exception.IORuntimeException;
 import org.codelibs.core.lang.StringUtil;
 import org.codelibs.fess.Constants;
 import org.codelibs.fess.api.BaseApiManager;
@@ -65,6 +69,10 @@ public class GsaApiManager extends BaseApiManager implements WebApiManager {
 
     private static final String GSA_META_SUFFIX = "_s";
 
+    private static final Pattern CHARSET_PATTERN = Pattern.compile(".*;\\s*charset=(.+)");
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern(CoreLibConstants.DATE_FORMAT_ISO_8601_EXTEND);
+
     @Override
     public boolean matches(final HttpServletRequest request) {
         if (!ComponentUtil.getFessConfig().isWebApiGsa()) {
@@ -95,7 +103,7 @@ public class GsaApiManager extends BaseApiManager implements WebApiManager {
         int status = 0;
         String errMsg = StringUtil.EMPTY;
         String query = null;
-        final StringBuilder buf = new StringBuilder(1000); // TODO replace response stream
+        ResponseBodyWriter body = null;
         request.setAttribute(Constants.SEARCH_LOG_ACCESS_TYPE, Constants.SEARCH_LOG_ACCESS_TYPE_XML);
         boolean xmlDtd = false;
         try {
@@ -138,124 +146,135 @@ public class GsaApiManager extends BaseApiManager implements WebApiManager {
                 endNumber = allRecordCount;
             }
 
-            buf.append("<Q>");
-            buf.append(escapeXml(query));
-            buf.append("</Q>");
-            buf.append("<TM>");
-            buf.append(execTime);
-            buf.append("</TM>");
-            for (final Entry<String, String[]> entry : request.getParameterMap().entrySet()) {
-                final String[] values = entry.getValue();
-                if (values == null) {
-                    continue;
-                }
-                final String key = entry.getKey();
-                for (final String value : values) {
-                    buf.append("<PARAM name=\"");
-                    buf.append(key);
-                    buf.append("\" value=\"");
-                    buf.append(value);
-                    buf.append("\" original_value=\"");
-                    buf.append(URLEncoder.encode(value, Constants.UTF_8));
-                    buf.append("\"/>");
+            // documents are converted before the response is started so that errors are still reported as a message
+            final List<GsaResult> resultList = new ArrayList<>(documentItems.size());
+            for (final Map<String, Object> document : documentItems) {
+                final String url = (String) document.remove("url");
+                document.put("UE", url);
+                document.put("U", URLDecoder.decode(url, Constants.UTF_8));
+                document.put("T", document.remove("title"));
+                final float score = Float.parseFloat((String) document.remove("boost"));
+                document.put("RK", (int) (score * 10));
+                document.put("S", ((String) document.remove("content_description")).replaceAll("<(/*)em>", "<$1b>"));
+                document.put("LANG", document.remove("lang"));
+                final long size = Long.parseLong((String) document.get("content_length")) / 1000;
+                final Object docId = document.get("doc_id");
+                String charset = (String) document.get("charset_s");
+                if (StringUtil.isBlank(charset)) {
+                    charset = (String) document.get("contentType_s");
+                    if (StringUtil.isNotBlank(charset)) {
+                        final Matcher m = CHARSET_PATTERN.matcher(charset);
+                        charset = m.matches() ? m.group(1) : null;
+                    }
                 }
+                resultList.add(new GsaResult(document, size, docId, charset));
             }
-            buf.append("<PARAM name=\"ie\" value=\"");
-            buf.append(ie);
-            buf.append("\" original_value=\"");
-            buf.append(URLEncoder.encode(ie, Constants.UTF_8));
-            buf.append("\"/>");
-            buf.append("<PARAM name=\"oe\" value=\"");
-            buf.append(oe);
-            buf.append("\" original_value=\"");
-            buf.append(URLEncoder.encode(ie, Constants.UTF_8));
-            buf.append("\"/>");
-            buf.append("<PARAM name=\"ip\" value=\"");
-            buf.append(ip);
-            buf.append("\" original_value=\"");
-            buf.append(URLEncoder.encode(ie, Constants.UTF_8));
-            buf.append("\"/>");
-            if (!documentItems.isEmpty()) {
-                buf.append("<RES SN=\"");
-                buf.append(startNumber);
-                buf.append("\" EN=\"");
-                buf.append(endNumber);
-                buf.append("\">");
-                buf.append("<M>");
-                buf.append(allRecordCount);
-                buf.append("</M>");
-                if (endNumber < allRecordCount) {
-                    buf.append("<NB>");
-                    buf.append("<NU>");
-                    buf.append(escapeXml(uriQueryString.replaceFirst("start=([^&]+)", "start=" + endNumber)));
-                    buf.append("</NU>");
-                    buf.append("</NB>");
+
+            final long firstNumber = startNumber;
+            final long lastNumber = endNumber;
+            body = out -> {
+                out.write("<Q>");
+                writeXml(out, params.getQuery());
+                out.write("</Q>");
+                out.write("<TM>");
+                out.write(execTime);
+                out.write("</TM>");
+                for (final Entry<String, String[]> entry : request.getParameterMap().entrySet()) {
+                    final String[] values = entry.getValue();
+                    if (values == null) {
+                        continue;
+                    }
+                    final String key = entry.getKey();
+                    for (final String value : values) {
+                        out.write("<PARAM name=\"");
+                        out.write(key);
+                        out.write("\" value=\"");
+                        out.write(value);
+                        out.write("\" original_value=\"");
+                        out.write(URLEncoder.encode(value, Constants.UTF_8));
+                        out.write("\"/>");
+                    }
                 }
-                long recordNumber = startNumber;
-                for (final Map<String, Object> document : documentItems) {
-                    buf.append("<R N=\"");
-                    buf.append(recordNumber);
-                    buf.append("\">");
-                    final String url = (String) document.remove("url");
-                    document.put("UE", url);
-                    document.put("U", URLDecoder.decode(url, Constants.UTF_8));
-                    document.put("T", document.remove("title"));
-                    final float score = Float.parseFloat((String) document.remove("boost"));
-                    document.put("RK", (int) (score * 10));
-                    document.put("S", ((String) document.remove("content_description")).replaceAll("<(/*)em>", "<$1b>"));
-                    document.put("LANG", document.remove("lang"));
-                    for (final Map.Entry<String, Object> entry : document.entrySet()) {
-                        final String name = entry.getKey();
-                        if (StringUtil.isNotBlank(name) && entry.getValue() != null
-                                && ComponentUtil.getQueryHelper().isApiResponseField(name)) {
-                            if (name.startsWith(gsaMetaPrefix)) {
-                                final String tagName = name.replaceAll("^" + gsaMetaPrefix, "").replaceAll(GSA_META_SUFFIX + "\\z", "");
-                                if (getFields != null && getFields.contains(tagName)) {
-                                    buf.append("<MT N=\"");
-                                    buf.append(tagName);
-                                    buf.append("\" V=\"");
-                                    buf.append(escapeXml(entry.getValue().toString()));
-                                    buf.append("\"/>");
+                out.write("<PARAM name=\"ie\" value=\"");
+                out.write(ie);
+                out.write("\" original_value=\"");
+                out.write(URLEncoder.encode(ie, Constants.UTF_8));
+                out.write("\"/>");
+                out.write("<PARAM name=\"oe\" value=\"");
+                out.write(oe);
+                out.write("\" original_value=\"");
+                out.write(URLEncoder.encode(ie, Constants.UTF_8));
+                out.write("\"/>");
+                out.write("<PARAM name=\"ip\" value=\"");
+                out.write(ip);
+                out.write("\" original_value=\"");
+                out.write(URLEncoder.encode(ie, Constants.UTF_8));
+                out.write("\"/>");
+                if (!resultList.isEmpty()) {
+                    out.write("<RES SN=\"");
+                    out.write(Long.toString(firstNumber));
+                    out.write("\" EN=\"");
+                    out.write(Long.toString(lastNumber));
+                    out.write("\">");
+                    out.write("<M>");
+                    out.write(Long.toString(allRecordCount));
+                    out.write("</M>");
+                    if (lastNumber < allRecordCount) {
+                        out.write("<NB>");
+                        out.write("<NU>");
+                        writeXml(out, uriQueryString.replaceFirst("start=([^&]+)", "start=" + lastNumber));
+                        out.write("</NU>");
+                        out.write("</NB>");
+                    }
+                    long recordNumber = firstNumber;
+                    for (final GsaResult result : resultList) {
+                        out.write("<R N=\"");
+                        out.write(Long.toString(recordNumber));
+                        out.write("\">");
+                        for (final Map.Entry<String, Object> entry : result.document.entrySet()) {
+                            final String name = entry.getKey();
+                            if (StringUtil.isNotBlank(name) && entry.getValue() != null
+                                    && ComponentUtil.getQueryHelper().isApiResponseField(name)) {
+                                if (name.startsWith(gsaMetaPrefix)) {
+                                    final String tagName =
+                                            name.replaceAll("^" + gsaMetaPrefix, "").replaceAll(GSA_META_SUFFIX + "\\z", "");
+                                    if (getFields != null && getFields.contains(tagName)) {
+                                        out.write("<MT N=\"");
+                                        out.write(tagName);
+                                        out.write("\" V=\"");
+                                        writeXml(out, entry.getValue().toString());
+                                        out.write("\"/>");
+                                    }
+                                } else {
+                                    final String tagName = name;
+                                    out.write('<');
+                                    out.write(tagName);
+                                    out.write('>');
+                                    writeXml(out, entry.getValue());
+                                    out.write("</");
+                                    out.write(tagName);
+                                    out.write('>');
                                 }
-                            } else {
-                                final String tagName = name;
-                                buf.append('<');
-                                buf.append(tagName);
-                                buf.append('>');
-                                buf.append(escapeXml(entry.getValue()));
-                                buf.append("</");
-                                buf.append(tagName);
-                                buf.append('>');
                             }
                         }
-                    }
-                    buf.append("<HAS>");
-                    buf.append("<L/>");
-                    buf.append("<C SZ=\"");
-                    buf.append(Long.parseLong((String) document.remove("content_length")) / 1000);
-                    buf.append("k\" CID=\"");
-                    buf.append(document.remove("doc_id"));
-                    buf.append("\" ENC=\"");
-                    String charset = (String) document.remove("charset_s");
-                    if (StringUtil.isNotBlank(charset)) {
-                        buf.append(charset);
-                    } else {
-                        charset = (String) document.remove("contentType_s");
-                        if (StringUtil.isNotBlank(charset)) {
-                            final Matcher m = Pattern.compile(".*;\\s*charset=(.+)").matcher(charset);
-                            if (m.matches()) {
-                                charset = m.group(1);
-                                buf.append(charset);
-                            }
+                        out.write("<HAS>");
+                        out.write("<L/>");
+                        out.write("<C SZ=\"");
+                        out.write(Long.toString(result.size));
+                        out.write("k\" CID=\"");
+                        out.write(String.valueOf(result.docId));
+                        out.write("\" ENC=\"");
+                        if (result.charset != null) {
+                            out.write(result.charset);
                         }
+                        out.write("\"/>");
+                        out.write("</HAS>");
+                        out.write("</R>");
+                        recordNumber++;
                     }
-                    buf.append("\"/>");
-                    buf.append("</HAS>");
-                    buf.append("</R>");
-                    recordNumber++;
+                    out.write("</RES>");
                 }
-                buf.append("</RES>");
-            }
+            };
         } catch (final Exception e) {
             status = 1;
             errMsg = e.getMessage();
@@ -272,56 +291,90 @@ public class GsaApiManager extends BaseApiManager implements WebApiManager {
             }
         }
 
-        writeXmlResponse(status, xmlDtd, buf.toString(), errMsg);
+        streamXmlResponse(status, xmlDtd, body, errMsg);
     }
 
     protected void writeXmlResponse(final int status, final boolean xmlDtd, final String body, final String errMsg) {
-        final StringBuilder buf = new StringBuilder(1000);
-        buf.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>");
-        if (xmlDtd) {
-            buf.append("<!DOCTYPE GSP SYSTEM \"google.dtd\">");
-        }
-        buf.append("<GSP VER=\"");
-        buf.append(Constants.GSA_API_VERSION);
-        buf.append("\">");
-        //        buf.append("<status>");
-        //        buf.append(status);
-        //        buf.append("</status>");
-        if (status == 0) {
-            buf.append(body);
-        } else {
-            buf.append("<message>");
-            buf.append(escapeXml(errMsg));
-            buf.append("</message>");
-        }
-        buf.append("</GSP>");
-        write(buf.toString(), "text/xml", Constants.UTF_8);
+        streamXmlResponse(status, xmlDtd, StringUtil.isNotEmpty(body) ? out -> out.write(body) : null, errMsg);
+    }
+
+    protected void streamXmlResponse(final int status, final boolean xmlDtd, final ResponseBodyWriter body, final String errMsg) {
+        write(out -> {
+            out.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>");
+            if (xmlDtd) {
+                out.write("<!DOCTYPE GSP SYSTEM \"google.dtd\">");
+            }
+            out.write("<GSP VER=\"");
+            out.write(Constants.GSA_API_VERSION);
+            out.write("\">");
+            //        out.write("<status>");
+            //        out.write(status);
+            //        out.write("</status>");
+            if (status == 0) {
+                if (body != null) {
+                    body.write(out);
+                }
+            } else {
+                out.write("<message>");
+                writeXml(out, errMsg);
+                out.write("</message>");
+            }
+            out.write("</GSP>");
+        }, "text/xml", Constants.UTF_8);
 
     }
 
     protected String escapeXml(final Object obj) {
-        final StringBuilder buf = new StringBuilder(255);
+        final StringWriter out = new StringWriter(255);
+        try {
+            writeXml(out, obj);
+        } catch (final IOException e) {
+            throw new IORuntimeException(e);
+        }
+        return out.toString();
+    }
+
+    protected void writeXml(final Writer out, final Object obj) throws IOException {
         if (obj instanceof List<?>) {
-            buf.append("<list>");
+            out.write("<list>");
             for (final Object child : (List<?>) obj) {
-                buf.append("<item>").append(escapeXml(child)).append("</item>");
+                out.write("<item>");
+                writeXml(out, child);
+                out.write("</item>");
             }
-            buf.append("</list>");
+            out.write("</list>");
         } else if (obj instanceof Map<?, ?>) {
-            buf.append("<data>");
+            out.write("<data>");
             for (final Map.Entry<?, ?> entry : ((Map<?, ?>) obj).entrySet()) {
-
-                buf.append("<name>").append(escapeXml(entry.getKey())).append("</name><value>").append(escapeXml(entry.getValue()))
-                        .append("</value>");
+                out.write("<name>");
+                writeXml(out, entry.getKey());
+                out.write("</name><value>");
+                writeXml(out, entry.getValue());
+                out.write("</value>");
             }
-            buf.append("</data>");
+            out.write("</data>");
         } else if (obj instanceof Date) {
-            final SimpleDateFormat sdf = new SimpleDateFormat(CoreLibConstants.DATE_FORMAT_ISO_8601_EXTEND);
-            buf.append(StringEscapeUtils.escapeXml10(sdf.format(obj)));
+            StringEscapeUtils.ESCAPE_XML10.translate(DATE_FORMATTER.format(((Date) obj).toInstant().atZone(ZoneId.systemDefault())), out);
         } else if (obj != null) {
-            buf.append(StringEscapeUtils.escapeXml10(obj.toString()));
+            StringEscapeUtils.ESCAPE_XML10.translate(obj.toString(), out);
+        }
+    }
+
+    protected static class GsaResult {
+        protected final Map<String, Object> document;
+
+        protected final long size;
+
+        protected final Object docId;
+
+        protected final String charset;
+
+        protected GsaResult(final Map<String, Object> document, final long size, final Object docId, final String charset) {
+            this.document = document;
+            this.size = size;
+            this.docId = docId;
+            this.charset = charset;
         }
-        return buf.toString();
     }
 
     public String getXmlPathPrefix() {
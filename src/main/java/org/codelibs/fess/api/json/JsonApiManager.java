@@ -18,6 +18,8 @@ package org.codelibs.fess.api.json;
 import static org.codelibs.core.stream.StreamUtil.stream;
 
 import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.net.URLDecoder;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -137,141 +139,138 @@ public class JsonApiManager extends BaseJsonApiManager {
 
         int status = 0;
         Exception err = null;
-        String query = null;
-        final StringBuilder buf = new StringBuilder(1000); // TODO replace response stream
+        final SearchRenderData data = new SearchRenderData();
+        final JsonRequestParams params = new JsonRequestParams(request, fessConfig);
         request.setAttribute(Constants.SEARCH_LOG_ACCESS_TYPE, Constants.SEARCH_LOG_ACCESS_TYPE_JSON);
         try {
-            final SearchRenderData data = new SearchRenderData();
-            final JsonRequestParams params = new JsonRequestParams(request, fessConfig);
-            query = params.getQuery();
-            request.setAttribute(Constants.REQUEST_QUERIES, query);
+            request.setAttribute(Constants.REQUEST_QUERIES, params.getQuery());
             searchService.search(params, data, OptionalThing.empty());
-            final String execTime = data.getExecTime();
-            final String queryTime = Long.toString(data.getQueryTime());
-            final String pageSize = Integer.toString(data.getPageSize());
-            final String currentPageNumber = Integer.toString(data.getCurrentPageNumber());
-            final String allRecordCount = Long.toString(data.getAllRecordCount());
-            final String allPageCount = Integer.toString(data.getAllPageCount());
-            final List<Map<String, Object>> documentItems = data.getDocumentItems();
-            final FacetResponse facetResponse = data.getFacetResponse();
-            final GeoInfo geoInfo = params.getGeoInfo();
-
-            buf.append("\"q\":");
-            buf.append(escapeJson(query));
-            buf.append(",\"exec_time\":");
-            buf.append(execTime);
-            buf.append(",\"query_time\":");
-            buf.append(queryTime);
-            buf.append(',');
-            buf.append("\"page_size\":");
-            buf.append(pageSize);
-            buf.append(',');
-            buf.append("\"page_number\":");
-            buf.append(currentPageNumber);
-            buf.append(',');
-            buf.append("\"record_count\":");
-            buf.append(allRecordCount);
-            buf.append(',');
-            buf.append("\"page_count\":");
-            buf.append(allPageCount);
-            if (!documentItems.isEmpty()) {
-                buf.append(',');
-                buf.append("\"result\":[");
+        } catch (final Exception e) {
+            status = 1;
+            err = e;
+            if (logger.isDebugEnabled()) {
+                logger.debug("Failed to process a search request.", e);
+            }
+        }
+
+        if (err != null) {
+            writeJsonResponse(status, null, err);
+        } else {
+            streamJsonResponse(status, out -> writeSearchResult(out, params, data), null);
+        }
+
+    }
+
+    protected void writeSearchResult(final Writer out, final JsonRequestParams params, final SearchRenderData data) throws IOException {
+        final List<Map<String, Object>> documentItems = data.getDocumentItems();
+        final FacetResponse facetResponse = data.getFacetResponse();
+        final GeoInfo geoInfo = params.getGeoInfo();
+
+        out.write("\"q\":");
+        writeJson(out, params.getQuery());
+        out.write(",\"exec_time\":");
+        out.write(data.getExecTime());
+        out.write(",\"query_time\":");
+        out.write(Long.toString(data.getQueryTime()));
+        out.write(',');
+        out.write("\"page_size\":");
+        out.write(Integer.toString(data.getPageSize()));
+        out.write(',');
+        out.write("\"page_number\":");
+        out.write(Integer.toString(data.getCurrentPageNumber()));
+        out.write(',');
+        out.write("\"record_count\":");
+        out.write(Long.toString(data.getAllRecordCount()));
+        out.write(',');
+        out.write("\"page_count\":");
+        out.write(Integer.toString(data.getAllPageCount()));
+        if (!documentItems.isEmpty()) {
+            out.write(',');
+            out.write("\"result\":[");
+            boolean first1 = true;
+            for (final Map<String, Object> document : documentItems) {
+                if (!first1) {
+                    out.write(',');
+                } else {
+                    first1 = false;
+                }
+                out.write('{');
+                boolean first2 = true;
+                for (final Map.Entry<String, Object> entry : document.entrySet()) {
+                    final String name = entry.getKey();
+                    if (StringUtil.isNotBlank(name) && entry.getValue() != null && ComponentUtil.getQueryHelper().isApiResponseField(name)) {
+                        if (!first2) {
+                            out.write(',');
+                        } else {
+                            first2 = false;
+                        }
+                        writeJson(out, name);
+                        out.write(':');
+                        writeJson(out, entry.getValue());
+                    }
+                }
+                out.write('}');
+            }
+            out.write(']');
+        }
+        if (facetResponse != null && facetResponse.hasFacetResponse()) {
+            // facet field
+            if (facetResponse.getFieldList() != null) {
+                out.write(',');
+                out.write("\"facet_field\":[");
                 boolean first1 = true;
-                for (final Map<String, Object> document : documentItems) {
+                for (final Field field : facetResponse.getFieldList()) {
                     if (!first1) {
-                        buf.append(',');
+                        out.write(',');
                     } else {
                         first1 = false;
                     }
-                    buf.append('{');
+                    out.write("{\"name\":");
+                    writeJson(out, field.getName());
+                    out.write(",\"result\":[");
                     boolean first2 = true;
-                    for (final Map.Entry<String, Object> entry : document.entrySet()) {
-                        final String name = entry.getKey();
-                        if (StringUtil.isNotBlank(name) && entry.getValue() != null
-                                && ComponentUtil.getQueryHelper().isApiResponseField(name)) {
-                            if (!first2) {
-                                buf.append(',');
-                            } else {
-                                first2 = false;
-                            }
-                            buf.append(escapeJson(name));
-                            buf.append(':');
-                            buf.append(escapeJson(entry.getValue()));
-                        }
-                    }
-                    buf.append('}');
-                }
-                buf.append(']');
-            }
-            if (facetResponse != null && facetResponse.hasFacetResponse()) {
-                // facet field
-                if (facetResponse.getFieldList() != null) {
-                    buf.append(',');
-                    buf.append("\"facet_field\":[");
-                    boolean first1 = true;
-                    for (final Field field : facetResponse.getFieldList()) {
-                        if (!first1) {
-                            buf.append(',');
+                    for (final Map.Entry<String, Long> entry : field.getValueCountMap().entrySet()) {
+                        if (!first2) {
+                            out.write(',');
                         } else {
-                            first1 = false;
+                            first2 = false;
                         }
-                        buf.append("{\"name\":");
-                        buf.append(escapeJson(field.getName()));
-                        buf.append(",\"result\":[");
-                        boolean first2 = true;
-                        for (final Map.Entry<String, Long> entry : field.getValueCountMap().entrySet()) {
-                            if (!first2) {
-                                buf.append(',');
-                            } else {
-                                first2 = false;
-                            }
-                            buf.append("{\"value\":");
-                            buf.append(escapeJson(entry.getKey()));
-                            buf.append(",\"count\":");
-                            buf.append(entry.getValue());
-                            buf.append('}');
-                        }
-                        buf.append(']');
-                        buf.append('}');
+                        out.write("{\"value\":");
+                        writeJson(out, entry.getKey());
+                        out.write(",\"count\":");
+                        writeJson(out, entry.getValue());
+                        out.write('}');
                     }
-                    buf.append(']');
+                    out.write(']');
+                    out.write('}');
                 }
-                // facet q
-                if (facetResponse.getQueryCountMap() != null) {
-                    buf.append(',');
-                    buf.append("\"facet_query\":[");
-                    boolean first1 = true;
-                    for (final Map.Entry<String, Long> entry : facetResponse.getQueryCountMap().entrySet()) {
-                        if (!first1) {
-                            buf.append(',');
-                        } else {
-                            first1 = false;
-                        }
-                        buf.append("{\"value\":");
-                        buf.append(escapeJson(entry.getKey()));
-                        buf.append(",\"count\":");
-                        buf.append(entry.getValue());
-                        buf.append('}');
+                out.write(']');
+            }
+            // facet q
+            if (facetResponse.getQueryCountMap() != null) {
+                out.write(',');
+                out.write("\"facet_query\":[");
+                boolean first1 = true;
+                for (final Map.Entry<String, Long> entry : facetResponse.getQueryCountMap().entrySet()) {
+                    if (!first1) {
+                        out.write(',');
+                    } else {
+                        first1 = false;
                     }
-                    buf.append(']');
-                }
-                if (geoInfo != null && geoInfo.toQueryBuilder() != null) {
-                    buf.append(',');
-                    buf.append("\"geo\":");
-                    buf.append(toGeoRequestString(geoInfo));
+                    out.write("{\"value\":");
+                    writeJson(out, entry.getKey());
+                    out.write(",\"count\":");
+                    writeJson(out, entry.getValue());
+                    out.write('}');
                 }
+                out.write(']');
             }
-        } catch (final Exception e) {
-            status = 1;
-            err = e;
-            if (logger.isDebugEnabled()) {
-                logger.debug("Failed to process a search request.", e);
+            if (geoInfo != null && geoInfo.toQueryBuilder() != null) {
+                out.write(',');
+                out.write("\"geo\":");
+                out.write(toGeoRequestString(geoInfo));
             }
         }
-
-        writeJsonResponse(status, buf.toString(), err);
-
     }
 
     protected String toGeoRequestString(final GeoInfo geoInfo) {
@@ -286,40 +285,39 @@ public class JsonApiManager extends BaseJsonApiManager {
     protected void processLabelRequest(final HttpServletRequest request, final HttpServletResponse response, final FilterChain chain) {
         final LabelTypeHelper labelTypeHelper = ComponentUtil.getLabelTypeHelper();
 
-        int status = 0;
-        Exception err = null;
-        final StringBuilder buf = new StringBuilder(255); // TODO replace response stream
+        final List<Map<String, String>> labelTypeItems;
         try {
-            final List<Map<String, String>> labelTypeItems = labelTypeHelper.getLabelTypeItemList(SearchRequestType.JSON);
-            buf.append("\"record_count\":");
-            buf.append(labelTypeItems.size());
+            labelTypeItems = labelTypeHelper.getLabelTypeItemList(SearchRequestType.JSON);
+        } catch (final Exception e) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Failed to process a label request.", e);
+            }
+            writeJsonResponse(1, null, e);
+            return;
+        }
+
+        streamJsonResponse(0, out -> {
+            out.write("\"record_count\":");
+            out.write(Integer.toString(labelTypeItems.size()));
             if (!labelTypeItems.isEmpty()) {
-                buf.append(',');
-                buf.append("\"result\":[");
+                out.write(',');
+                out.write("\"result\":[");
                 boolean first1 = true;
                 for (final Map<String, String> labelMap : labelTypeItems) {
                     if (!first1) {
-                        buf.append(',');
+                        out.write(',');
                     } else {
                         first1 = false;
                     }
-                    buf.append("{\"label\":");
-                    buf.append(escapeJson(labelMap.get(Constants.ITEM_LABEL)));
-                    buf.append(", \"value\":");
-                    buf.append(escapeJson(labelMap.get(Constants.ITEM_VALUE)));
-                    buf.append('}');
+                    out.write("{\"label\":");
+                    writeJson(out, labelMap.get(Constants.ITEM_LABEL));
+                    out.write(", \"value\":");
+                    writeJson(out, labelMap.get(Constants.ITEM_VALUE));
+                    out.write('}');
                 }
-                buf.append(']');
-            }
-        } catch (final Exception e) {
-            status = 1;
-            err = e;
-            if (logger.isDebugEnabled()) {
-                logger.debug("Failed to process a label request.", e);
+                out.write(']');
             }
-        }
-
-        writeJsonResponse(status, buf.toString(), err);
+        }, null);
 
     }
 
@@ -336,36 +334,36 @@ public class JsonApiManager extends BaseJsonApiManager {
 
         final PopularWordHelper popularWordHelper = ComponentUtil.getPopularWordHelper();
 
-        int status = 0;
-        Exception err = null;
-        final StringBuilder buf = new StringBuilder(255); // TODO replace response stream
+        final List<String> popularWordList;
         try {
-            final List<String> popularWordList = popularWordHelper.getWordList(SearchRequestType.JSON, seed, tags, null, fields, excludes);
-
-            buf.append("\"result\":[");
-            boolean first1 = true;
-            for (final String word : popularWordList) {
-                if (!first1) {
-                    buf.append(',');
-                } else {
-                    first1 = false;
-                }
-                buf.append(escapeJson(word));
-            }
-            buf.append(']');
+            popularWordList = popularWordHelper.getWordList(SearchRequestType.JSON, seed, tags, null, fields, excludes);
         } catch (final Exception e) {
+            int status;
             if (e instanceof WebApiException) {
                 status = ((WebApiException) e).getStatusCode();
             } else {
                 status = 1;
             }
-            err = e;
             if (logger.isDebugEnabled()) {
                 logger.debug("Failed to process a popularWord request.", e);
             }
+            writeJsonResponse(status, null, e);
+            return;
         }
 
-        writeJsonResponse(status, buf.toString(), err);
+        streamJsonResponse(0, out -> {
+            out.write("\"result\":[");
+            boolean first1 = true;
+            for (final String word : popularWordList) {
+                if (!first1) {
+                    out.write(',');
+                } else {
+                    first1 = false;
+                }
+                writeJson(out, word);
+            }
+            out.write(']');
+        }, null);
 
     }
 
@@ -424,7 +422,7 @@ public class JsonApiManager extends BaseJsonApiManager {
 
                         final String id = DocumentUtil.getValue(doc, fessConfig.getIndexFieldId(), String.class);
                         searchService.update(id, builder -> {
-                            final Script script = new Script("ctx._source." + fessConfig.getIndexFieldFavoriteCount() + "+=1");
+                            final Script script = searchService.createIncrementScript(fessConfig.getIndexFieldFavoriteCount(), 1);
                             builder.setScript(script);
                             final Map<String, Object> upsertMap = new HashMap<>();
                             upsertMap.put(fessConfig.getIndexFieldFavoriteCount(), 1);
@@ -503,19 +501,20 @@ public class JsonApiManager extends BaseJsonApiManager {
                 }
             }
 
-            final StringBuilder buf = new StringBuilder(255); // TODO replace response stream
-            buf.append("\"num\":").append(docIdList.size());
+            final StringWriter out = new StringWriter(255);
+            out.write("\"num\":");
+            out.write(Integer.toString(docIdList.size()));
             if (!docIdList.isEmpty()) {
-                buf.append(", \"doc_ids\":[");
+                out.write(", \"doc_ids\":[");
                 for (int i = 0; i < docIdList.size(); i++) {
                     if (i > 0) {
-                        buf.append(',');
+                        out.write(',');
                     }
-                    buf.append(escapeJson(docIdList.get(i)));
+                    writeJson(out, docIdList.get(i));
                 }
-                buf.append(']');
+                out.write(']');
             }
-            body = buf.toString();
+            body = out.toString();
         } catch (final Exception e) {
             if (e instanceof WebApiException) {
                 status = ((WebApiException) e).getStatusCode();
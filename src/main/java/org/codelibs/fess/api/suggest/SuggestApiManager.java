@@ -15,9 +15,10 @@
  */
 package org.codelibs.fess.api.suggest;
 
-import static org.codelibs.core.stream.StreamUtil.stream;
-
 import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
@@ -26,7 +27,6 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-import org.apache.commons.lang3.StringEscapeUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.codelibs.core.lang.StringUtil;
 import org.codelibs.fess.api.BaseJsonApiManager;
@@ -39,7 +39,6 @@ import org.codelibs.fess.exception.InvalidAccessTokenException;
 import org.codelibs.fess.helper.RoleQueryHelper;
 import org.codelibs.fess.helper.SuggestHelper;
 import org.codelibs.fess.suggest.entity.SuggestItem;
-import org.codelibs.fess.suggest.request.suggest.SuggestRequestBuilder;
 import org.codelibs.fess.suggest.request.suggest.SuggestResponse;
 import org.codelibs.fess.util.ComponentUtil;
 import org.slf4j.Logger;
@@ -63,7 +62,7 @@ public class SuggestApiManager extends BaseJsonApiManager {
             ServletException {
         int status = 0;
         String errMsg = StringUtil.EMPTY;
-        final StringBuilder buf = new StringBuilder(255); // TODO replace response stream
+        SuggestResponse suggestResponse = null;
         final RoleQueryHelper roleQueryHelper = ComponentUtil.getRoleQueryHelper();
         final SearchService searchService = ComponentUtil.getComponent(SearchService.class);
 
@@ -72,74 +71,19 @@ public class SuggestApiManager extends BaseJsonApiManager {
             final String[] langs = searchService.getLanguages(request, parameter);
 
             final SuggestHelper suggestHelper = ComponentUtil.getSuggestHelper();
-            final SuggestRequestBuilder builder = suggestHelper.suggester().suggest();
-            builder.setQuery(parameter.getQuery());
-            stream(parameter.getSuggestFields()).of(stream -> stream.forEach(builder::addField));
-            roleQueryHelper.build(SearchRequestType.SUGGEST).stream().forEach(builder::addRole);
-            builder.setSize(parameter.getNum());
-            stream(langs).of(stream -> stream.forEach(builder::addLang));
-
-            builder.addKind(SuggestItem.Kind.USER.toString());
+            final List<String> kindList = new ArrayList<>();
+            kindList.add(SuggestItem.Kind.USER.toString());
             if (ComponentUtil.getFessConfig().isSuggestSearchLog()) {
-                builder.addKind(SuggestItem.Kind.QUERY.toString());
+                kindList.add(SuggestItem.Kind.QUERY.toString());
             }
             if (ComponentUtil.getFessConfig().isSuggestDocuments()) {
-                builder.addKind(SuggestItem.Kind.DOCUMENT.toString());
+                kindList.add(SuggestItem.Kind.DOCUMENT.toString());
             }
 
-            final SuggestResponse suggestResponse = builder.execute().getResponse();
-
-            buf.append("\"result\":{");
-            buf.append("\"took\":\"").append(suggestResponse.getTookMs()).append('\"');
-
-            buf.append(",\"total\":\"").append(suggestResponse.getTotal()).append('\"');
-
-            buf.append(",\"num\":\"").append(suggestResponse.getNum()).append('\"');
-
-            if (!suggestResponse.getItems().isEmpty()) {
-                buf.append(",\"hits\":[");
-
-                boolean first = true;
-                for (final SuggestItem item : suggestResponse.getItems()) {
-                    if (!first) {
-                        buf.append(',');
-                    }
-                    first = false;
-
-                    buf.append("{\"text\":\"").append(StringEscapeUtils.escapeJson(item.getText())).append('\"');
-                    buf.append(",\"tags\":[");
-                    for (int i = 0; i < item.getTags().length; i++) {
-                        if (i > 0) {
-                            buf.append(',');
-                        }
-                        buf.append('\"').append(StringEscapeUtils.escapeJson(item.getTags()[i])).append('\"');
-                    }
-                    buf.append(']');
-
-                    buf.append(",\"roles\":[");
-                    for (int i = 0; i < item.getRoles().length; i++) {
-                        if (i > 0) {
-                            buf.append(',');
-                        }
-                        buf.append('\"').append(StringEscapeUtils.escapeJson(item.getRoles()[i])).append('\"');
-                    }
-                    buf.append(']');
-
-                    buf.append(",\"fields\":[");
-                    for (int i = 0; i < item.getFields().length; i++) {
-                        if (i > 0) {
-                            buf.append(',');
-                        }
-                        buf.append('\"').append(StringEscapeUtils.escapeJson(item.getFields()[i])).append('\"');
-                    }
-                    buf.append(']');
-
-                    buf.append('}');
-                }
-                buf.append(']');
-            }
-
-            buf.append('}');
+            suggestResponse =
+                    suggestHelper.suggest(parameter.getQuery(), parameter.getSuggestFields(),
+                            roleQueryHelper.build(SearchRequestType.SUGGEST), langs, kindList.toArray(new String[kindList.size()]),
+                            parameter.getNum());
         } catch (final Exception e) {
             status = 1;
             errMsg = e.getMessage();
@@ -156,7 +100,63 @@ public class SuggestApiManager extends BaseJsonApiManager {
             }
         }
 
-        writeJsonResponse(status, buf.toString(), errMsg);
+        if (suggestResponse != null) {
+            final SuggestResponse result = suggestResponse;
+            streamJsonResponse(status, out -> writeSuggestResponse(out, result), errMsg);
+        } else {
+            writeJsonResponse(status, null, errMsg);
+        }
+    }
+
+    protected void writeSuggestResponse(final Writer out, final SuggestResponse suggestResponse) throws IOException {
+        out.write("\"result\":{");
+        out.write("\"took\":\"");
+        out.write(String.valueOf(suggestResponse.getTookMs()));
+        out.write('\"');
+
+        out.write(",\"total\":\"");
+        out.write(String.valueOf(suggestResponse.getTotal()));
+        out.write('\"');
+
+        out.write(",\"num\":\"");
+        out.write(String.valueOf(suggestResponse.getNum()));
+        out.write('\"');
+
+        if (!suggestResponse.getItems().isEmpty()) {
+            out.write(",\"hits\":[");
+
+            boolean first = true;
+            for (final SuggestItem item : suggestResponse.getItems()) {
+                if (!first) {
+                    out.write(',');
+                }
+                first = false;
+
+                out.write("{\"text\":");
+                writeJson(out, item.getText());
+                out.write(",\"tags\":");
+                writeJsonArray(out, item.getTags());
+                out.write(",\"roles\":");
+                writeJsonArray(out, item.getRoles());
+                out.write(",\"fields\":");
+                writeJsonArray(out, item.getFields());
+                out.write('}');
+            }
+            out.write(']');
+        }
+
+        out.write('}');
+    }
+
+    protected void writeJsonArray(final Writer out, final String[] values) throws IOException {
+        out.write('[');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            writeJson(out, values[i]);
+        }
+        out.write(']');
     }
 
     protected static class RequestParameter implements SearchRequestParams {
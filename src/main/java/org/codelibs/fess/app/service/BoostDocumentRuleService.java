@@ -26,6 +26,7 @@ import org.codelibs.fess.es.config.cbean.BoostDocumentRuleCB;
 import org.codelibs.fess.es.config.exbhv.BoostDocumentRuleBhv;
 import org.codelibs.fess.es.config.exentity.BoostDocumentRule;
 import org.codelibs.fess.mylasta.direction.FessConfig;
+import org.codelibs.fess.util.GroovyUtil;
 import org.dbflute.cbean.result.PagingResultBean;
 import org.dbflute.optional.OptionalEntity;
 
@@ -58,12 +59,14 @@ public class BoostDocumentRuleService {
     public void store(final BoostDocumentRule boostDocumentRule) {
 
         boostDocumentRuleBhv.insertOrUpdate(boostDocumentRule, op -> op.setRefresh(true));
+        GroovyUtil.clearCache();
 
     }
 
     public void delete(final BoostDocumentRule boostDocumentRule) {
 
         boostDocumentRuleBhv.delete(boostDocumentRule, op -> op.setRefresh(true));
+        GroovyUtil.clearCache();
 
     }
 
@@ -29,6 +29,8 @@ import org.codelibs.fess.es.config.exbhv.DataConfigToLabelBhv;
 import org.codelibs.fess.es.config.exentity.DataConfig;
 import org.codelibs.fess.es.config.exentity.DataConfigToLabel;
 import org.codelibs.fess.mylasta.direction.FessConfig;
+import org.codelibs.fess.util.ComponentUtil;
+import org.codelibs.fess.util.GroovyUtil;
 import org.dbflute.cbean.result.PagingResultBean;
 import org.dbflute.optional.OptionalEntity;
 
@@ -72,6 +74,9 @@ public class DataConfigService {
             cb.query().setDataConfigId_Equal(dataConfigId);
         });
 
+        GroovyUtil.clearCache();
+
+        ComponentUtil.getCrawlingConfigHelper().clearCrawlerClientFactoryCache();
     }
 
     public List<DataConfig> getAllDataConfigList() {
@@ -176,6 +181,10 @@ public class DataConfigService {
                 });
             }
         }
+
+        GroovyUtil.clearCache();
+
+        ComponentUtil.getCrawlingConfigHelper().clearCrawlerClientFactoryCache();
     }
 
     protected void setupListCondition(final DataConfigCB cb, final DataConfigPager dataConfigPager) {
@@ -26,6 +26,7 @@ import org.codelibs.fess.es.config.cbean.FileAuthenticationCB;
 import org.codelibs.fess.es.config.exbhv.FileAuthenticationBhv;
 import org.codelibs.fess.es.config.exentity.FileAuthentication;
 import org.codelibs.fess.mylasta.direction.FessConfig;
+import org.codelibs.fess.util.ComponentUtil;
 import org.dbflute.cbean.result.PagingResultBean;
 import org.dbflute.optional.OptionalEntity;
 
@@ -63,6 +64,7 @@ public class FileAuthenticationService {
             op.setRefresh(true);
         });
 
+        ComponentUtil.getCrawlingConfigHelper().clearCrawlerClientFactoryCache();
     }
 
     public void delete(final FileAuthentication fileAuthentication) {
@@ -71,6 +73,7 @@ public class FileAuthenticationService {
             op.setRefresh(true);
         });
 
+        ComponentUtil.getCrawlingConfigHelper().clearCrawlerClientFactoryCache();
     }
 
     protected void setupListCondition(final FileAuthenticationCB cb, final FileAuthPager fileAuthenticationPager) {
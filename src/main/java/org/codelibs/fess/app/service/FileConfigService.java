@@ -30,6 +30,7 @@ import org.codelibs.fess.es.config.exbhv.FileConfigToLabelBhv;
 import org.codelibs.fess.es.config.exentity.FileConfig;
 import org.codelibs.fess.es.config.exentity.FileConfigToLabel;
 import org.codelibs.fess.mylasta.direction.FessConfig;
+import org.codelibs.fess.util.ComponentUtil;
 import org.dbflute.cbean.result.PagingResultBean;
 import org.dbflute.optional.OptionalEntity;
 
@@ -78,6 +79,8 @@ public class FileConfigService {
         fileAuthenticationBhv.queryDelete(cb -> {
             cb.query().setFileConfigId_Equal(fileConfigId);
         });
+
+        ComponentUtil.getCrawlingConfigHelper().clearCrawlerClientFactoryCache();
     }
 
     public List<FileConfig> getAllFileConfigList() {
@@ -181,6 +184,8 @@ public class FileConfigService {
                 });
             }
         }
+
+        ComponentUtil.getCrawlingConfigHelper().clearCrawlerClientFactoryCache();
     }
 
     protected void setupListCondition(final FileConfigCB cb, final FileConfigPager fileConfigPager) {
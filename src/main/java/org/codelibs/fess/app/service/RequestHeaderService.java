@@ -26,6 +26,7 @@ import org.codelibs.fess.es.config.cbean.RequestHeaderCB;
 import org.codelibs.fess.es.config.exbhv.RequestHeaderBhv;
 import org.codelibs.fess.es.config.exentity.RequestHeader;
 import org.codelibs.fess.mylasta.direction.FessConfig;
+import org.codelibs.fess.util.ComponentUtil;
 import org.dbflute.cbean.result.PagingResultBean;
 import org.dbflute.optional.OptionalEntity;
 
@@ -63,6 +64,7 @@ public class RequestHeaderService {
             op.setRefresh(true);
         });
 
+        ComponentUtil.getCrawlingConfigHelper().clearCrawlerClientFactoryCache();
     }
 
     public void delete(final RequestHeader requestHeader) {
@@ -71,6 +73,7 @@ public class RequestHeaderService {
             op.setRefresh(true);
         });
 
+        ComponentUtil.getCrawlingConfigHelper().clearCrawlerClientFactoryCache();
     }
 
     protected void setupListCondition(final RequestHeaderCB cb, final ReqHeaderPager requestHeaderPager) {
@@ -16,15 +16,22 @@
 package org.codelibs.fess.app.service;
 
 import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
 
@@ -33,10 +40,12 @@ import org.codelibs.fess.Constants;
 import org.codelibs.fess.entity.QueryContext;
 import org.codelibs.fess.entity.SearchRenderData;
 import org.codelibs.fess.entity.SearchRequestParams;
+import org.codelibs.fess.entity.SearchRequestParams.SearchRequestType;
 import org.codelibs.fess.es.client.FessEsClient;
 import org.codelibs.fess.es.client.FessEsClient.SearchConditionBuilder;
 import org.codelibs.fess.es.client.FessEsClientException;
 import org.codelibs.fess.helper.QueryHelper;
+import org.codelibs.fess.helper.RoleQueryHelper;
 import org.codelibs.fess.helper.SystemHelper;
 import org.codelibs.fess.mylasta.action.FessUserBean;
 import org.codelibs.fess.mylasta.direction.FessConfig;
@@ -47,18 +56,33 @@ import org.dbflute.optional.OptionalEntity;
 import org.dbflute.optional.OptionalThing;
 import org.dbflute.util.DfTypeUtil;
 import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.admin.indices.stats.CommonStats;
 import org.elasticsearch.action.bulk.BulkRequestBuilder;
 import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.update.UpdateRequestBuilder;
 import org.elasticsearch.action.update.UpdateResponse;
 import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.script.Script;
+import org.elasticsearch.script.ScriptService.ScriptType;
 import org.lastaflute.taglib.function.LaFunctions;
+import org.lastaflute.web.util.LaRequestUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 
 public class SearchService {
 
     // ===================================================================================
     //                                                                            Constant
     //
+    private static final Logger logger = LoggerFactory.getLogger(SearchService.class);
+
+    protected static final String INCREMENT_SCRIPT_PARAM = "count";
+
+    protected static final Pattern WHITESPACE_PATTERN = Pattern.compile("\\s+");
 
     // ===================================================================================
     //                                                                           Attribute
@@ -76,6 +100,23 @@ public class SearchService {
     @Resource
     protected QueryHelper queryHelper;
 
+    protected Cache<String, CachedSearchResult> searchResultCache;
+
+    protected volatile long indexStatsCheckTime = 0;
+
+    protected volatile String indexStatsValue;
+
+    @PostConstruct
+    public void init() {
+        if (fessConfig.isQueryResultCacheEnabled()) {
+            searchResultCache =
+                    CacheBuilder.newBuilder().maximumWeight(fessConfig.getQueryResultCacheMaxSizeAsInteger().longValue())
+                            .weigher((final String key, final CachedSearchResult value) -> key.length() * 2 + value.getSize())
+                            .expireAfterWrite(fessConfig.getQueryResultCacheExpireAsInteger().longValue(), TimeUnit.SECONDS)
+                            .recordStats().build();
+        }
+    }
+
     // ===================================================================================
     //                                                                              Method
     //                                                                      ==============
@@ -92,21 +133,31 @@ public class SearchService {
         final int pageStart = params.getStartPosition();
         final int pageSize = params.getPageSize();
         final String sortField = params.getSort();
-        final List<Map<String, Object>> documentItems =
-                fessEsClient.search(
-                        fessConfig.getIndexDocumentSearchIndex(),
-                        fessConfig.getIndexDocumentType(),
-                        searchRequestBuilder -> {
-                            fessConfig.processSearchPreference(searchRequestBuilder, userBean);
-                            return SearchConditionBuilder.builder(searchRequestBuilder)
-                                    .query(StringUtil.isBlank(sortField) ? query : query + " sort:" + sortField).offset(pageStart)
-                                    .size(pageSize).facetInfo(params.getFacetInfo()).geoInfo(params.getGeoInfo())
-                                    .responseFields(queryHelper.getResponseFields()).searchRequestType(params.getType()).build();
-                        }, (searchRequestBuilder, execTime, searchResponse) -> {
-                            final QueryResponseList queryResponseList = ComponentUtil.getQueryResponseList();
-                            queryResponseList.init(searchResponse, pageStart, pageSize);
-                            return queryResponseList;
-                        });
+        final List<Map<String, Object>> documentItems;
+        final String cacheKey = getSearchResultCacheKey(params, query, sortField, pageStart, pageSize);
+        final CachedSearchResult cachedResult = cacheKey != null ? searchResultCache.getIfPresent(cacheKey) : null;
+        if (cachedResult != null) {
+            documentItems = cachedResult.restore();
+        } else {
+            documentItems =
+                    fessEsClient.search(
+                            fessConfig.getIndexDocumentSearchIndex(),
+                            fessConfig.getIndexDocumentType(),
+                            searchRequestBuilder -> {
+                                fessConfig.processSearchPreference(searchRequestBuilder, userBean);
+                                return SearchConditionBuilder.builder(searchRequestBuilder)
+                                        .query(StringUtil.isBlank(sortField) ? query : query + " sort:" + sortField).offset(pageStart)
+                                        .size(pageSize).facetInfo(params.getFacetInfo()).geoInfo(params.getGeoInfo())
+                                        .responseFields(queryHelper.getResponseFields()).searchRequestType(params.getType()).build();
+                            }, (searchRequestBuilder, execTime, searchResponse) -> {
+                                final QueryResponseList queryResponseList = ComponentUtil.getQueryResponseList();
+                                queryResponseList.init(searchResponse, pageStart, pageSize);
+                                return queryResponseList;
+                            });
+            if (cacheKey != null) {
+                putSearchResult(cacheKey, params, (QueryResponseList) documentItems);
+            }
+        }
         data.setDocumentItems(documentItems);
 
         // search
@@ -159,6 +210,94 @@ public class SearchService {
         }
     }
 
+    protected String getSearchResultCacheKey(final SearchRequestParams params, final String query, final String sortField,
+            final int pageStart, final int pageSize) {
+        if (searchResultCache == null || params.getType() == SearchRequestType.ADMIN_SEARCH) {
+            return null;
+        }
+
+        checkIndexChanges();
+
+        final StringBuilder buf = new StringBuilder(query.length() + 200);
+        buf.append(params.getType().name()).append('\n');
+        buf.append(WHITESPACE_PATTERN.matcher(query.trim()).replaceAll(" ")).append('\n');
+        buf.append(StringUtil.isBlank(sortField) ? StringUtil.EMPTY : sortField).append('\n');
+        buf.append(pageStart).append('\n').append(pageSize).append('\n');
+        if (params.getFacetInfo() != null) {
+            buf.append(params.getFacetInfo().toString());
+        }
+        buf.append('\n');
+        if (params.getGeoInfo() != null && params.getGeoInfo().toQueryBuilder() != null) {
+            buf.append(params.getGeoInfo().toQueryBuilder().toString());
+        }
+        buf.append('\n');
+        queryHelper.getQueryLanguages().ifPresent(langs -> buf.append(String.join(",", langs)));
+        buf.append('\n');
+        final RoleQueryHelper roleQueryHelper = ComponentUtil.getRoleQueryHelper();
+        if (roleQueryHelper != null) {
+            buf.append(roleQueryHelper.build(params.getType()).stream().sorted().collect(Collectors.joining(",")));
+        }
+        return buf.toString();
+    }
+
+    protected void putSearchResult(final String cacheKey, final SearchRequestParams params, final QueryResponseList queryResponseList) {
+        if (queryResponseList.isPartialResults()) {
+            return;
+        }
+        searchResultCache.put(cacheKey, new CachedSearchResult(params, queryResponseList));
+    }
+
+    /**
+     * Clears the result cache if documents in the search index are updated.
+     * Indexing and refresh counts are checked at most once per query.result.cache.check.interval,
+     * so updates from the crawler process are detected as well.
+     */
+    protected void checkIndexChanges() {
+        final long now = System.currentTimeMillis();
+        if (now - indexStatsCheckTime < fessConfig.getQueryResultCacheCheckIntervalAsInteger().longValue()) {
+            return;
+        }
+        indexStatsCheckTime = now;
+
+        try {
+            final CommonStats stats =
+                    fessEsClient.admin().indices().prepareStats(fessConfig.getIndexDocumentSearchIndex()).clear().setIndexing(true)
+                            .setRefresh(true).execute().actionGet(fessConfig.getIndexSearchTimeout()).getTotal();
+            final String value =
+                    stats.getIndexing().getTotal().getIndexCount() + ":" + stats.getIndexing().getTotal().getDeleteCount() + ":"
+                            + stats.getRefresh().getTotal();
+            if (!value.equals(indexStatsValue)) {
+                if (indexStatsValue != null) {
+                    clearSearchResultCache();
+                }
+                indexStatsValue = value;
+            }
+        } catch (final Exception e) {
+            logger.warn("Failed to check index stats.", e);
+            clearSearchResultCache();
+        }
+    }
+
+    public void clearSearchResultCache() {
+        if (searchResultCache != null) {
+            searchResultCache.invalidateAll();
+        }
+    }
+
+    public CacheStats getSearchResultCacheStats() {
+        if (searchResultCache == null) {
+            return new CacheStats(0, 0, 0, 0, 0, 0);
+        }
+        return searchResultCache.stats();
+    }
+
+    public long getSearchResultCacheSize() {
+        if (searchResultCache == null) {
+            return 0;
+        }
+        return searchResultCache.size();
+    }
+
     public int deleteByQuery(final HttpServletRequest request, final SearchRequestParams params) {
 
         final String query =
@@ -167,6 +306,7 @@ public class SearchService {
         final QueryContext queryContext = queryHelper.build(params.getType(), query, context -> {
             context.skipRoleQuery();
         });
+        clearSearchResultCache();
         return fessEsClient.deleteByQuery(fessConfig.getIndexDocumentUpdateIndex(), fessConfig.getIndexDocumentType(),
                 queryContext.getQueryBuilder());
     }
@@ -233,10 +373,12 @@ public class SearchService {
     }
 
     public boolean update(final String id, final String field, final Object value) {
+        clearSearchResultCache();
         return fessEsClient.update(fessConfig.getIndexDocumentUpdateIndex(), fessConfig.getIndexDocumentType(), id, field, value);
     }
 
     public boolean update(final String id, final Consumer<UpdateRequestBuilder> builderLambda) {
+        clearSearchResultCache();
         try {
             final UpdateRequestBuilder builder =
                     fessEsClient.prepareUpdate(fessConfig.getIndexDocumentUpdateIndex(), fessConfig.getIndexDocumentType(), id);
@@ -249,6 +391,7 @@ public class SearchService {
     }
 
     public boolean bulkUpdate(final Consumer<BulkRequestBuilder> consumer) {
+        clearSearchResultCache();
         final BulkRequestBuilder builder = fessEsClient.prepareBulk();
         consumer.accept(builder);
         try {
@@ -262,4 +405,81 @@ public class SearchService {
             throw new FessEsClientException("Failed to update bulk data.", e);
         }
     }
+
+    public Script createIncrementScript(final String field, final long count) {
+        // the script source is the same for any count, so elasticsearch compiles it once per field
+        final Map<String, Object> params = new HashMap<>();
+        params.put(INCREMENT_SCRIPT_PARAM, count);
+        return new Script("ctx._source." + field + "+=" + INCREMENT_SCRIPT_PARAM, ScriptType.INLINE, null, params);
+    }
+
+    protected static class CachedSearchResult {
+        private final QueryResponseList queryResponseList;
+
+        private final Set<String> highlightQueries;
+
+        private final Map<String, List<String>> fieldLogMap;
+
+        private final int size;
+
+        @SuppressWarnings("unchecked")
+        protected CachedSearchResult(final SearchRequestParams params, final QueryResponseList queryResponseList) {
+            this.queryResponseList = new QueryResponseList();
+            this.queryResponseList.init(queryResponseList);
+            final Set<String> highlightQueries = (Set<String>) params.getAttribute(Constants.HIGHLIGHT_QUERIES);
+            this.highlightQueries = highlightQueries != null ? new HashSet<>(highlightQueries) : null;
+            final Map<String, List<String>> fieldLogMap = (Map<String, List<String>>) params.getAttribute(Constants.FIELD_LOGS);
+            if (fieldLogMap != null) {
+                this.fieldLogMap = new HashMap<>();
+                fieldLogMap.entrySet().forEach(e -> this.fieldLogMap.put(e.getKey(), new ArrayList<>(e.getValue())));
+            } else {
+                this.fieldLogMap = null;
+            }
+            size = estimateSize();
+        }
+
+        protected QueryResponseList restore() {
+            final QueryResponseList responseList = ComponentUtil.getQueryResponseList();
+            responseList.init(queryResponseList);
+            LaRequestUtil.getOptionalRequest().ifPresent(request -> {
+                if (highlightQueries != null) {
+                    request.setAttribute(Constants.HIGHLIGHT_QUERIES, new HashSet<>(highlightQueries));
+                }
+                if (fieldLogMap != null) {
+                    @SuppressWarnings("unchecked")
+                    Map<String, List<String>> requestFieldLogMap = (Map<String, List<String>>) request.getAttribute(Constants.FIELD_LOGS);
+                    if (requestFieldLogMap == null) {
+                        requestFieldLogMap = new HashMap<>();
+                        request.setAttribute(Constants.FIELD_LOGS, requestFieldLogMap);
+                    }
+                    for (final Map.Entry<String, List<String>> entry : fieldLogMap.entrySet()) {
+                        requestFieldLogMap.computeIfAbsent(entry.getKey(), k -> new ArrayList<>()).addAll(entry.getValue());
+                    }
+                }
+            });
+            return responseList;
+        }
+
+        private int estimateSize() {
+            long total = 1024;
+            for (final Map<String, Object> doc : queryResponseList) {
+                for (final Map.Entry<String, Object> entry : doc.entrySet()) {
+                    total += 64 + entry.getKey().length() * 2;
+                    final Object value = entry.getValue();
+                    if (value instanceof CharSequence) {
+                        total += ((CharSequence) value).length() * 2;
+                    } else if (value instanceof Collection) {
+                        total += ((Collection<?>) value).stream().mapToLong(o -> o != null ? o.toString().length() * 2 + 32 : 0).sum();
+                    } else {
+                        total += 16;
+                    }
+                }
+            }
+            return (int) Math.min(total, Integer.MAX_VALUE);
+        }
+
+        protected int getSize() {
+            return size;
+        }
+    }
 }
@@ -26,6 +26,7 @@ import org.codelibs.fess.es.config.cbean.WebAuthenticationCB;
 import org.codelibs.fess.es.config.exbhv.WebAuthenticationBhv;
 import org.codelibs.fess.es.config.exentity.WebAuthentication;
 import org.codelibs.fess.mylasta.direction.FessConfig;
+import org.codelibs.fess.util.ComponentUtil;
 import org.dbflute.cbean.result.PagingResultBean;
 import org.dbflute.optional.OptionalEntity;
 
@@ -63,6 +64,7 @@ public class WebAuthenticationService {
             op.setRefresh(true);
         });
 
+        ComponentUtil.getCrawlingConfigHelper().clearCrawlerClientFactoryCache();
     }
 
     public void delete(final WebAuthentication webAuthentication) {
@@ -71,6 +73,7 @@ public class WebAuthenticationService {
             op.setRefresh(true);
         });
 
+        ComponentUtil.getCrawlingConfigHelper().clearCrawlerClientFactoryCache();
     }
 
     protected void setupListCondition(final WebAuthenticationCB cb, final WebAuthPager webAuthenticationPager) {
@@ -31,6 +31,7 @@ import org.codelibs.fess.es.config.exbhv.WebConfigToLabelBhv;
 import org.codelibs.fess.es.config.exentity.WebConfig;
 import org.codelibs.fess.es.config.exentity.WebConfigToLabel;
 import org.codelibs.fess.mylasta.direction.FessConfig;
+import org.codelibs.fess.util.ComponentUtil;
 import org.dbflute.cbean.result.PagingResultBean;
 import org.dbflute.optional.OptionalEntity;
 
@@ -86,6 +87,8 @@ public class WebConfigService {
         requestHeaderBhv.queryDelete(cb -> {
             cb.query().setWebConfigId_Equal(webConfigId);
         });
+
+        ComponentUtil.getCrawlingConfigHelper().clearCrawlerClientFactoryCache();
     }
 
     public List<WebConfig> getAllWebConfigList() {
@@ -190,6 +193,8 @@ public class WebConfigService {
                 });
             }
         }
+
+        ComponentUtil.getCrawlingConfigHelper().clearCrawlerClientFactoryCache();
     }
 
     protected void setupListCondition(final WebConfigCB cb, final WebConfigPager webConfigPager) {
@@ -169,7 +169,7 @@ public class AdminKeymatchAction extends FessAdminAction {
                     try {
                         keyMatchService.store(entity);
                         saveInfo(messages -> messages.addSuccessCrudCreateCrudTable(GLOBAL));
-                        ComponentUtil.getKeyMatchHelper().update();
+                        ComponentUtil.getKeyMatchHelper().updateChanged();
                     } catch (final Exception e) {
                         throwValidationError(messages -> messages.addErrorsCrudFailedToCreateCrudTable(GLOBAL, buildThrowableMessage(e)),
                                 () -> asEditHtml());
@@ -190,7 +190,7 @@ public class AdminKeymatchAction extends FessAdminAction {
                     try {
                         keyMatchService.store(entity);
                         saveInfo(messages -> messages.addSuccessCrudUpdateCrudTable(GLOBAL));
-                        ComponentUtil.getKeyMatchHelper().update();
+                        ComponentUtil.getKeyMatchHelper().updateChanged();
                     } catch (final Exception e) {
                         throwValidationError(messages -> messages.addErrorsCrudFailedToUpdateCrudTable(GLOBAL, buildThrowableMessage(e)),
                                 () -> asEditHtml());
@@ -214,7 +214,7 @@ public class AdminKeymatchAction extends FessAdminAction {
                             try {
                                 keyMatchService.delete(entity);
                                 saveInfo(messages -> messages.addSuccessCrudDeleteCrudTable(GLOBAL));
-                                ComponentUtil.getKeyMatchHelper().update();
+                                ComponentUtil.getKeyMatchHelper().updateChanged();
                             } catch (final Exception e) {
                                 throwValidationError(
                                         messages -> messages.addErrorsCrudFailedToDeleteCrudTable(GLOBAL, buildThrowableMessage(e)),
@@ -25,13 +25,19 @@ import javax.annotation.Resource;
 import org.codelibs.core.lang.StringUtil;
 import org.codelibs.core.misc.DynamicProperties;
 import org.codelibs.fess.Constants;
+import org.codelibs.fess.app.service.SearchService;
 import org.codelibs.fess.app.web.base.FessAdminAction;
+import org.codelibs.fess.helper.QueryHelper;
+import org.codelibs.fess.helper.SearchLogHelper;
+import org.codelibs.fess.util.ComponentUtil;
 import org.codelibs.fess.util.RenderDataUtil;
 import org.lastaflute.web.Execute;
 import org.lastaflute.web.response.HtmlResponse;
 import org.lastaflute.web.response.render.RenderData;
 import org.lastaflute.web.ruts.process.ActionRuntime;
 
+import com.google.common.cache.CacheStats;
+
 /**
  * @author Keiichi Watanabe
  */
@@ -43,6 +49,12 @@ public class AdminSysteminfoAction extends FessAdminAction {
     @Resource
     protected DynamicProperties systemProperties;
 
+    @Resource
+    protected QueryHelper queryHelper;
+
+    @Resource
+    protected SearchService searchService;
+
     private static final String[] bugReportLabels = { "file.separator", "file.encoding", "java.runtime.version", "java.vm.info",
             "java.vm.name", "java.vm.vendor", "java.vm.version", "os.arch", "os.name", "os.version", "user.country", "user.language",
             "user.timezone" };
@@ -66,6 +78,8 @@ public class AdminSysteminfoAction extends FessAdminAction {
             registerPropItems(data);
             registerFessPropItems(data);
             registerBugReportItems(data);
+            registerCacheItems(data);
+            registerSearchLogItems(data);
         });
     }
 
@@ -112,6 +126,33 @@ public class AdminSysteminfoAction extends FessAdminAction {
         RenderDataUtil.register(data, "bugReportItems", itemList);
     }
 
+    protected void registerCacheItems(final RenderData data) {
+        final List<Map<String, String>> itemList = new ArrayList<>();
+        addCacheStatsItems(itemList, "query.cache", queryHelper.getQueryCacheStats(), queryHelper.getQueryCacheSize());
+        addCacheStatsItems(itemList, "query.result.cache", searchService.getSearchResultCacheStats(),
+                searchService.getSearchResultCacheSize());
+        RenderDataUtil.register(data, "cacheItems", itemList);
+    }
+
+    protected void registerSearchLogItems(final RenderData data) {
+        final SearchLogHelper searchLogHelper = ComponentUtil.getSearchLogHelper();
+        final List<Map<String, String>> itemList = new ArrayList<>();
+        itemList.add(createItem("search.log.queue.depth", searchLogHelper.getSearchLogQueueDepth()));
+        itemList.add(createItem("search.log.dropped.count", searchLogHelper.getDroppedSearchLogCount()));
+        itemList.add(createItem("search.log.flush.count", searchLogHelper.getSearchLogFlushCount()));
+        itemList.add(createItem("search.log.flush.time.avg", searchLogHelper.getAverageSearchLogFlushTime() + "ms"));
+        itemList.add(createItem("search.log.flush.time.max", searchLogHelper.getMaxSearchLogFlushTime() + "ms"));
+        RenderDataUtil.register(data, "searchLogItems", itemList);
+    }
+
+    protected void addCacheStatsItems(final List<Map<String, String>> itemList, final String name, final CacheStats stats, final long size) {
+        itemList.add(createItem(name + ".size", size));
+        itemList.add(createItem(name + ".hit.count", stats.hitCount()));
+        itemList.add(createItem(name + ".miss.count", stats.missCount()));
+        itemList.add(createItem(name + ".hit.rate", String.format("%.3f", stats.hitRate())));
+        itemList.add(createItem(name + ".eviction.count", stats.evictionCount()));
+    }
+
     private boolean isBugReportTarget(final Object key) {
         if ("snapshot.path".equals(key) || "label.value".equals(key)) {
             return false;
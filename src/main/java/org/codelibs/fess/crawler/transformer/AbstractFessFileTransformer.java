@@ -30,7 +30,6 @@ import java.util.Set;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.tika.metadata.HttpHeaders;
 import org.apache.tika.metadata.TikaMetadataKeys;
-import org.codelibs.core.io.SerializeUtil;
 import org.codelibs.core.lang.StringUtil;
 import org.codelibs.core.misc.Pair;
 import org.codelibs.fess.Constants;
@@ -58,6 +57,7 @@ import org.codelibs.fess.helper.SambaHelper;
 import org.codelibs.fess.helper.SystemHelper;
 import org.codelibs.fess.mylasta.direction.FessConfig;
 import org.codelibs.fess.util.ComponentUtil;
+import org.codelibs.fess.util.DocumentDataUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -83,7 +83,8 @@ public abstract class AbstractFessFileTransformer extends AbstractTransformer im
         final ResultData resultData = new ResultData();
         resultData.setTransformerName(getName());
         try {
-            resultData.setData(SerializeUtil.fromObjectToBinary(generateData(responseData)));
+            resultData.setData(DocumentDataUtil.toBinary(generateData(responseData),
+                    ComponentUtil.getCrawlingConfigHelper().get(responseData.getSessionId())));
         } catch (final Exception e) {
             throw new CrawlingAccessException("Could not serialize object", e);
         }
@@ -423,7 +424,7 @@ public abstract class AbstractFessFileTransformer extends AbstractTransformer im
         final byte[] data = accessResultData.getData();
         if (data != null) {
             try {
-                return SerializeUtil.fromBinaryToObject(data);
+                return DocumentDataUtil.fromBinary(data);
             } catch (final Exception e) {
                 throw new CrawlerSystemException("Could not create an instanced from bytes.", e);
             }
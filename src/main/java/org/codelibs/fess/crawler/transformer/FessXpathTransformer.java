@@ -36,7 +36,6 @@ import javax.xml.transform.TransformerException;
 
 import org.apache.xpath.objects.XObject;
 import org.codelibs.core.io.InputStreamUtil;
-import org.codelibs.core.io.SerializeUtil;
 import org.codelibs.core.lang.StringUtil;
 import org.codelibs.core.misc.ValueHolder;
 import org.codelibs.fess.Constants;
@@ -64,6 +63,7 @@ import org.codelibs.fess.helper.PathMappingHelper;
 import org.codelibs.fess.helper.SystemHelper;
 import org.codelibs.fess.mylasta.direction.FessConfig;
 import org.codelibs.fess.util.ComponentUtil;
+import org.codelibs.fess.util.DocumentDataUtil;
 import org.codelibs.fess.util.PrunedTag;
 import org.cyberneko.html.parsers.DOMParser;
 import org.slf4j.Logger;
@@ -171,7 +171,8 @@ public class FessXpathTransformer extends XpathTransformer implements FessTransf
         putAdditionalData(dataMap, responseData, document);
 
         try {
-            resultData.setData(SerializeUtil.fromObjectToBinary(dataMap));
+            resultData.setData(DocumentDataUtil.toBinary(dataMap,
+                    ComponentUtil.getCrawlingConfigHelper().get(responseData.getSessionId())));
         } catch (final Exception e) {
             throw new CrawlingAccessException("Could not serialize object: " + responseData.getUrl(), e);
         }
@@ -604,7 +605,7 @@ public class FessXpathTransformer extends XpathTransformer implements FessTransf
         final byte[] data = accessResultData.getData();
         if (data != null) {
             try {
-                return SerializeUtil.fromBinaryToObject(data);
+                return DocumentDataUtil.fromBinary(data);
             } catch (final Exception e) {
                 throw new CrawlerSystemException("Could not create an instanced from bytes.", e);
             }
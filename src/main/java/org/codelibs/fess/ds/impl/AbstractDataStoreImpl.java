@@ -22,12 +22,18 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.codelibs.core.lang.StringUtil;
 import org.codelibs.fess.Constants;
 import org.codelibs.fess.ds.DataStore;
 import org.codelibs.fess.ds.IndexUpdateCallback;
 import org.codelibs.fess.es.config.exentity.DataConfig;
+import org.codelibs.fess.exception.DataStoreException;
 import org.codelibs.fess.helper.CrawlingInfoHelper;
 import org.codelibs.fess.helper.SystemHelper;
 import org.codelibs.fess.mylasta.direction.FessConfig;
@@ -132,6 +138,59 @@ public abstract class AbstractDataStoreImpl implements DataStore {
         return readInterval;
     }
 
+    protected int getIntParam(final Map<String, String> paramMap, final String name, final int defaultValue) {
+        final String value = paramMap.get(name);
+        if (StringUtil.isNotBlank(value)) {
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (final NumberFormatException e) {
+                logger.warn(name + " is not int value: " + value);
+            }
+        }
+        return defaultValue;
+    }
+
+    protected ExecutorService newExecutorService(final int threadSize, final String name) {
+        final String prefix = Thread.currentThread().getName() + "-" + name + "-";
+        final AtomicInteger threadCount = new AtomicInteger(0);
+        return Executors.newFixedThreadPool(threadSize, r -> {
+            final Thread thread = new Thread(r, prefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    protected void waitFor(final List<? extends Future<?>> futureList, final String errorMessage) {
+        waitFor(futureList, errorMessage, null);
+    }
+
+    protected void waitFor(final List<? extends Future<?>> futureList, final String errorMessage, final Runnable errorHandler) {
+        // waits for all tasks and throws the first failure
+        DataStoreException error = null;
+        for (final Future<?> future : futureList) {
+            try {
+                future.get();
+            } catch (final ExecutionException e) {
+                if (errorHandler != null) {
+                    errorHandler.run();
+                }
+                if (error == null) {
+                    final Throwable cause = e.getCause();
+                    error = cause instanceof DataStoreException ? (DataStoreException) cause : new DataStoreException(errorMessage, cause);
+                }
+            } catch (final InterruptedException e) {
+                if (errorHandler != null) {
+                    errorHandler.run();
+                }
+                Thread.currentThread().interrupt();
+                throw new DataStoreException(errorMessage, e);
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
     protected void sleep(final long interval) {
         try {
             Thread.sleep(interval);
@@ -20,13 +20,25 @@ import static org.codelibs.core.stream.StreamUtil.stream;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.regex.Pattern;
 
 import org.apache.commons.io.IOUtils;
@@ -80,8 +92,16 @@ public class CsvDataStoreImpl extends AbstractDataStoreImpl {
 
     protected static final String CSV_DIRS_PARAM = "directories";
 
+    protected static final String READ_THREADS_PARAM = "numOfReadThreads";
+
+    protected static final String CHUNK_SIZE_PARAM = "chunkSize";
+
     protected static final String CELL_PREFIX = "cell";
 
+    protected static final long DEFAULT_CHUNK_SIZE = 64L * 1024L * 1024L;
+
+    protected static final long MAX_CHUNK_SIZE = 1024L * 1024L * 1024L;
+
     public String[] csvFileSuffixs = new String[] { ".csv", ".tsv" };
 
     protected List<File> getCsvFileList(final Map<String, String> paramMap) {
@@ -152,6 +172,22 @@ public class CsvDataStoreImpl extends AbstractDataStoreImpl {
         }
     }
 
+    protected int getReadThreadSize(final Map<String, String> paramMap) {
+        return Math.max(1, getIntParam(paramMap, READ_THREADS_PARAM, 1));
+    }
+
+    protected long getChunkSize(final Map<String, String> paramMap) {
+        final String value = paramMap.get(CHUNK_SIZE_PARAM);
+        if (StringUtil.isNotBlank(value)) {
+            try {
+                return Math.min(MAX_CHUNK_SIZE, Math.max(1L, Long.parseLong(value.trim())));
+            } catch (final NumberFormatException e) {
+                logger.warn(CHUNK_SIZE_PARAM + " is not long value: " + value);
+            }
+        }
+        return DEFAULT_CHUNK_SIZE;
+    }
+
     @Override
     protected void storeData(final DataConfig dataConfig, final IndexUpdateCallback callback, final Map<String, String> paramMap,
             final Map<String, String> scriptMap, final Map<String, Object> defaultDataMap) {
@@ -168,9 +204,30 @@ public class CsvDataStoreImpl extends AbstractDataStoreImpl {
         final boolean hasHeaderLine = hasHeaderLine(paramMap);
         final CsvConfig csvConfig = buildCsvConfig(paramMap);
 
-        for (final File csvFile : csvFileList) {
-            processCsv(dataConfig, callback, paramMap, scriptMap, defaultDataMap, csvConfig, csvFile, readInterval, csvFileEncoding,
-                    hasHeaderLine);
+        final int threadSize = getReadThreadSize(paramMap);
+        if (threadSize <= 1) {
+            for (final File csvFile : csvFileList) {
+                processCsv(dataConfig, callback, paramMap, scriptMap, defaultDataMap, csvConfig, csvFile, readInterval, csvFileEncoding,
+                        hasHeaderLine);
+            }
+            return;
+        }
+
+        // files and chunks of large files share one pool
+        final ExecutorService executorService = newExecutorService(threadSize, "csv");
+        try {
+            final List<Future<?>> futureList = new ArrayList<>();
+            for (final File csvFile : csvFileList) {
+                if (!alive) {
+                    break;
+                }
+                final CsvFileContext context =
+                        new CsvFileContext(dataConfig, callback, paramMap, scriptMap, defaultDataMap, csvFile, readInterval);
+                futureList.addAll(submitCsv(executorService, context, csvConfig, csvFileEncoding, hasHeaderLine));
+            }
+            waitFor(futureList, "Failed to crawl data when reading csv file.");
+        } finally {
+            executorService.shutdownNow();
         }
     }
 
@@ -178,6 +235,7 @@ public class CsvDataStoreImpl extends AbstractDataStoreImpl {
             final Map<String, String> scriptMap, final Map<String, Object> defaultDataMap, final CsvConfig csvConfig, final File csvFile,
             final long readInterval, final String csvFileEncoding, final boolean hasHeaderLine) {
         logger.info("Loading " + csvFile.getAbsolutePath());
+        final CsvFileContext context = new CsvFileContext(dataConfig, callback, paramMap, scriptMap, defaultDataMap, csvFile, readInterval);
         CsvReader csvReader = null;
         try {
             csvReader = new CsvReader(new BufferedReader(new InputStreamReader(new FileInputStream(csvFile), csvFileEncoding)), csvConfig);
@@ -185,110 +243,379 @@ public class CsvDataStoreImpl extends AbstractDataStoreImpl {
             if (hasHeaderLine) {
                 headerList = csvReader.readValues();
             }
-            List<String> list;
-            boolean loop = true;
-            while ((list = csvReader.readValues()) != null && loop && alive) {
-                final Map<String, Object> dataMap = new HashMap<>();
-                dataMap.putAll(defaultDataMap);
-                final Map<String, Object> resultMap = new LinkedHashMap<>();
-                resultMap.putAll(paramMap);
-                resultMap.put("csvfile", csvFile.getAbsolutePath());
-                resultMap.put("csvfilename", csvFile.getName());
-                resultMap.put("crawlingConfig", dataConfig);
-                boolean foundValues = false;
-                for (int i = 0; i < list.size(); i++) {
-                    String key = null;
-                    String value = list.get(i);
-                    if (value == null) {
-                        value = StringUtil.EMPTY;
-                    }
-                    if (StringUtil.isNotBlank(value)) {
-                        foundValues = true;
-                    }
-                    if (headerList != null && headerList.size() > i) {
-                        key = headerList.get(i);
-                        if (StringUtil.isNotBlank(key)) {
-                            resultMap.put(key, value);
-                        }
-                    }
-                    key = CELL_PREFIX + Integer.toString(i + 1);
-                    resultMap.put(key, value);
+            context.bindColumns(headerList);
+            processRecords(context, csvReader, csvFile.getAbsolutePath() + ":");
+        } catch (final Exception e) {
+            throw new DataStoreException("Failed to crawl data when reading csv file.", e);
+        } finally {
+            IOUtils.closeQuietly(csvReader);
+        }
+    }
+
+    protected List<Future<?>> submitCsv(final ExecutorService executorService, final CsvFileContext context, final CsvConfig csvConfig,
+            final String csvFileEncoding, final boolean hasHeaderLine) {
+        final File csvFile = context.csvFile;
+        final long chunkSize = getChunkSize(context.paramMap);
+        if (csvFile.length() <= chunkSize || !csvConfig.isQuoteDisabled() || !isLineAligned(csvFileEncoding)) {
+            return Collections.singletonList(executorService.submit(() -> {
+                if (alive) {
+                    processCsv(context.dataConfig, context.callback, context.paramMap, context.scriptMap, context.defaultDataMap,
+                            csvConfig, csvFile, context.readInterval, csvFileEncoding, hasHeaderLine);
                 }
-                if (!foundValues) {
-                    logger.debug("No data in line: {}", resultMap);
-                    continue;
+            }));
+        }
+
+        final List<Long> offsetList;
+        try (FileChannel channel = FileChannel.open(csvFile.toPath(), StandardOpenOption.READ)) {
+            offsetList = getChunkOffsetList(channel, chunkSize);
+        } catch (final IOException e) {
+            throw new DataStoreException("Failed to crawl data when reading csv file.", e);
+        }
+        logger.info("Loading " + csvFile.getAbsolutePath() + " in " + (offsetList.size() - 1) + " chunks");
+        if (logger.isDebugEnabled()) {
+            logger.debug("Chunks of " + csvFile.getAbsolutePath() + ": " + offsetList);
+        }
+
+        // the header is bound before any chunk is read
+        context.bindColumns(hasHeaderLine ? readHeader(csvFile, csvConfig, csvFileEncoding) : null);
+
+        final CsvConfig chunkCsvConfig = buildCsvConfig(context.paramMap);
+        // skipLines is applied to the beginning of the file only
+        chunkCsvConfig.setSkipLines(0);
+        final List<Future<?>> futureList = new ArrayList<>();
+        for (int i = 0; i < offsetList.size() - 1; i++) {
+            final long offset = offsetList.get(i);
+            final long length = offsetList.get(i + 1) - offset;
+            final boolean firstChunk = i == 0;
+            final String urlPrefix = firstChunk ? csvFile.getAbsolutePath() + ":" : csvFile.getAbsolutePath() + "@" + offset + ":";
+            futureList.add(executorService.submit(() -> {
+                if (alive && context.running) {
+                    processCsvChunk(context, firstChunk ? csvConfig : chunkCsvConfig, csvFileEncoding, offset, length, firstChunk
+                            && hasHeaderLine, urlPrefix);
                 }
+                return null;
+            }));
+        }
+        return futureList;
+    }
 
-                if (logger.isDebugEnabled()) {
-                    for (final Map.Entry<String, Object> entry : resultMap.entrySet()) {
-                        logger.debug(entry.getKey() + "=" + entry.getValue());
-                    }
+    protected List<String> readHeader(final File csvFile, final CsvConfig csvConfig, final String csvFileEncoding) {
+        try (CsvReader csvReader =
+                new CsvReader(new BufferedReader(new InputStreamReader(new FileInputStream(csvFile), csvFileEncoding)), csvConfig)) {
+            return csvReader.readValues();
+        } catch (final IOException e) {
+            throw new DataStoreException("Failed to read a header line of " + csvFile.getAbsolutePath(), e);
+        }
+    }
+
+    protected void processCsvChunk(final CsvFileContext context, final CsvConfig csvConfig, final String csvFileEncoding, final long offset,
+            final long length, final boolean skipHeaderLine, final String urlPrefix) throws IOException {
+        // mapped in the task, so that only chunks being read are mapped
+        try (FileChannel channel = FileChannel.open(context.csvFile.toPath(), StandardOpenOption.READ)) {
+            final MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, offset, length);
+            try (CsvReader csvReader =
+                    new CsvReader(new BufferedReader(new InputStreamReader(new ByteBufferInputStream(buffer), csvFileEncoding)), csvConfig)) {
+                if (skipHeaderLine) {
+                    csvReader.readValues();
                 }
+                processRecords(context, csvReader, urlPrefix);
+            }
+        }
+    }
 
-                final Map<String, Object> crawlingContext = new HashMap<>();
-                crawlingContext.put("doc", dataMap);
-                resultMap.put("crawlingContext", crawlingContext);
-                for (final Map.Entry<String, String> entry : scriptMap.entrySet()) {
-                    final Object convertValue = convertValue(entry.getValue(), resultMap);
-                    if (convertValue != null) {
-                        dataMap.put(entry.getKey(), convertValue);
+    protected boolean isLineAligned(final String csvFileEncoding) {
+        // a chunk can start after any LF byte only if LF is a single byte which is never a part of another character
+        try {
+            final byte[] lf = "\n".getBytes(csvFileEncoding);
+            return lf.length == 1 && lf[0] == '\n';
+        } catch (final Exception e) {
+            logger.warn("Unknown encoding: " + csvFileEncoding, e);
+            return false;
+        }
+    }
+
+    protected List<Long> getChunkOffsetList(final FileChannel channel, final long chunkSize) throws IOException {
+        final long fileSize = channel.size();
+        final List<Long> offsetList = new ArrayList<>();
+        offsetList.add(0L);
+        final ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long position = chunkSize;
+        while (position < fileSize) {
+            // move the boundary to the byte after the next LF
+            long boundary = -1;
+            while (boundary < 0 && position < fileSize) {
+                buffer.clear();
+                final int length = channel.read(buffer, position);
+                if (length <= 0) {
+                    break;
+                }
+                for (int i = 0; i < length; i++) {
+                    if (buffer.get(i) == '\n') {
+                        boundary = position + i + 1;
+                        break;
                     }
                 }
+                if (boundary < 0) {
+                    position += length;
+                }
+            }
+            if (boundary < 0 || boundary >= fileSize) {
+                break;
+            }
+            offsetList.add(boundary);
+            position = boundary + chunkSize;
+        }
+        offsetList.add(fileSize);
+        return offsetList;
+    }
+
+    protected void processRecords(final CsvFileContext context, final CsvReader csvReader, final String urlPrefix) throws IOException {
+        final DataConfig dataConfig = context.dataConfig;
+        final Map<String, String> paramMap = context.paramMap;
+        List<String> list;
+        while ((list = csvReader.readValues()) != null && context.running && alive) {
+            final Map<String, Object> dataMap = new HashMap<>();
+            dataMap.putAll(context.defaultDataMap);
+            boolean foundValues = false;
+            for (final String value : list) {
+                if (StringUtil.isNotBlank(value)) {
+                    foundValues = true;
+                    break;
+                }
+            }
+            final CsvRecordMap resultMap = new CsvRecordMap(context, list);
+            if (!foundValues) {
+                logger.debug("No data in line: {}", resultMap);
+                continue;
+            }
 
-                if (logger.isDebugEnabled()) {
-                    for (final Map.Entry<String, Object> entry : dataMap.entrySet()) {
-                        logger.debug(entry.getKey() + "=" + entry.getValue());
+            if (logger.isDebugEnabled()) {
+                for (final Map.Entry<String, Object> entry : resultMap.entrySet()) {
+                    logger.debug(entry.getKey() + "=" + entry.getValue());
+                }
+            }
+
+            final Map<String, Object> crawlingContext = new HashMap<>();
+            crawlingContext.put("doc", dataMap);
+            resultMap.put("crawlingContext", crawlingContext);
+            for (final Map.Entry<String, String> entry : context.scriptMap.entrySet()) {
+                final Object convertValue = convertValue(entry.getValue(), resultMap);
+                if (convertValue != null) {
+                    dataMap.put(entry.getKey(), convertValue);
+                }
+            }
+
+            if (logger.isDebugEnabled()) {
+                for (final Map.Entry<String, Object> entry : dataMap.entrySet()) {
+                    logger.debug(entry.getKey() + "=" + entry.getValue());
+                }
+            }
+
+            try {
+                context.callback.store(paramMap, dataMap);
+            } catch (final CrawlingAccessException e) {
+                logger.warn("Crawling Access Exception at : " + dataMap, e);
+
+                Throwable target = e;
+                if (target instanceof MultipleCrawlingAccessException) {
+                    final Throwable[] causes = ((MultipleCrawlingAccessException) target).getCauses();
+                    if (causes.length > 0) {
+                        target = causes[causes.length - 1];
                     }
                 }
 
-                try {
-                    callback.store(paramMap, dataMap);
-                } catch (final CrawlingAccessException e) {
-                    logger.warn("Crawling Access Exception at : " + dataMap, e);
-
-                    Throwable target = e;
-                    if (target instanceof MultipleCrawlingAccessException) {
-                        final Throwable[] causes = ((MultipleCrawlingAccessException) target).getCauses();
-                        if (causes.length > 0) {
-                            target = causes[causes.length - 1];
-                        }
+                String errorName;
+                final Throwable cause = target.getCause();
+                if (cause != null) {
+                    errorName = cause.getClass().getCanonicalName();
+                } else {
+                    errorName = target.getClass().getCanonicalName();
+                }
+
+                String url;
+                if (target instanceof DataStoreCrawlingException) {
+                    final DataStoreCrawlingException dce = (DataStoreCrawlingException) target;
+                    url = dce.getUrl();
+                    if (dce.aborted()) {
+                        context.running = false;
                     }
+                } else {
+                    url = urlPrefix + csvReader.getLineNumber();
+                }
+                final FailureUrlService failureUrlService = ComponentUtil.getComponent(FailureUrlService.class);
+                failureUrlService.store(dataConfig, errorName, url, target);
+            } catch (final Throwable t) {
+                logger.warn("Crawling Access Exception at : " + dataMap, t);
+                final String url = urlPrefix + csvReader.getLineNumber();
+                final FailureUrlService failureUrlService = ComponentUtil.getComponent(FailureUrlService.class);
+                failureUrlService.store(dataConfig, t.getClass().getCanonicalName(), url, t);
+            }
+
+            if (context.readInterval > 0) {
+                sleep(context.readInterval);
+            }
+        }
+    }
+
+    protected static class CsvFileContext {
+        protected final DataConfig dataConfig;
+
+        protected final IndexUpdateCallback callback;
+
+        protected final Map<String, String> paramMap;
+
+        protected final Map<String, String> scriptMap;
 
-                    String errorName;
-                    final Throwable cause = target.getCause();
-                    if (cause != null) {
-                        errorName = cause.getClass().getCanonicalName();
-                    } else {
-                        errorName = target.getClass().getCanonicalName();
+        protected final Map<String, Object> defaultDataMap;
+
+        protected final File csvFile;
+
+        protected final long readInterval;
+
+        protected final Map<String, Object> fileMap = new LinkedHashMap<>();
+
+        protected final Map<String, Integer> columnMap = new LinkedHashMap<>();
+
+        protected volatile boolean running = true;
+
+        protected CsvFileContext(final DataConfig dataConfig, final IndexUpdateCallback callback, final Map<String, String> paramMap,
+                final Map<String, String> scriptMap, final Map<String, Object> defaultDataMap, final File csvFile, final long readInterval) {
+            this.dataConfig = dataConfig;
+            this.callback = callback;
+            this.paramMap = paramMap;
+            this.scriptMap = scriptMap;
+            this.defaultDataMap = defaultDataMap;
+            this.csvFile = csvFile;
+            this.readInterval = readInterval;
+            fileMap.putAll(paramMap);
+            fileMap.put("csvfile", csvFile.getAbsolutePath());
+            fileMap.put("csvfilename", csvFile.getName());
+            fileMap.put("crawlingConfig", dataConfig);
+        }
+
+        protected void bindColumns(final List<String> headerList) {
+            columnMap.clear();
+            if (headerList != null) {
+                for (int i = 0; i < headerList.size(); i++) {
+                    final String key = headerList.get(i);
+                    if (StringUtil.isNotBlank(key)) {
+                        columnMap.put(key, i);
                     }
+                }
+            }
+        }
 
-                    String url;
-                    if (target instanceof DataStoreCrawlingException) {
-                        final DataStoreCrawlingException dce = (DataStoreCrawlingException) target;
-                        url = dce.getUrl();
-                        if (dce.aborted()) {
-                            loop = false;
-                        }
-                    } else {
-                        url = csvFile.getAbsolutePath() + ":" + csvReader.getLineNumber();
+        protected Integer getColumnIndex(final Object key, final int size) {
+            if (key instanceof String && ((String) key).startsWith(CELL_PREFIX)) {
+                try {
+                    final int cell = Integer.parseInt(((String) key).substring(CELL_PREFIX.length()));
+                    if (cell > 0 && cell <= size && key.equals(CELL_PREFIX + cell)) {
+                        return cell - 1;
                     }
-                    final FailureUrlService failureUrlService = ComponentUtil.getComponent(FailureUrlService.class);
-                    failureUrlService.store(dataConfig, errorName, url, target);
-                } catch (final Throwable t) {
-                    logger.warn("Crawling Access Exception at : " + dataMap, t);
-                    final String url = csvFile.getAbsolutePath() + ":" + csvReader.getLineNumber();
-                    final FailureUrlService failureUrlService = ComponentUtil.getComponent(FailureUrlService.class);
-                    failureUrlService.store(dataConfig, t.getClass().getCanonicalName(), url, t);
+                } catch (final NumberFormatException e) {
+                    // not a cell
                 }
+            }
+            final Integer index = columnMap.get(key);
+            return index != null && index < size ? index : null;
+        }
+    }
+
+    /**
+     * A view of a record over the values shared by the file,
+     * so that the parameters are not copied for each line.
+     */
+    protected static class CsvRecordMap extends AbstractMap<String, Object> {
+        protected final CsvFileContext context;
 
-                if (readInterval > 0) {
-                    sleep(readInterval);
+        protected final List<String> values;
+
+        protected Map<String, Object> extraMap;
+
+        protected CsvRecordMap(final CsvFileContext context, final List<String> values) {
+            this.context = context;
+            this.values = values;
+        }
+
+        @Override
+        public Object get(final Object key) {
+            if (extraMap != null && extraMap.containsKey(key)) {
+                return extraMap.get(key);
+            }
+            final Integer index = context.getColumnIndex(key, values.size());
+            if (index != null) {
+                return getValue(index);
+            }
+            return context.fileMap.get(key);
+        }
+
+        @Override
+        public boolean containsKey(final Object key) {
+            return extraMap != null && extraMap.containsKey(key) || context.getColumnIndex(key, values.size()) != null
+                    || context.fileMap.containsKey(key);
+        }
+
+        @Override
+        public Object put(final String key, final Object value) {
+            if (extraMap == null) {
+                extraMap = new HashMap<>();
+            }
+            final Object old = get(key);
+            extraMap.put(key, value);
+            return old;
+        }
+
+        @Override
+        public Set<Map.Entry<String, Object>> entrySet() {
+            final Map<String, Object> map = new LinkedHashMap<>(context.fileMap);
+            for (final Map.Entry<String, Integer> entry : context.columnMap.entrySet()) {
+                if (entry.getValue() < values.size()) {
+                    map.put(entry.getKey(), getValue(entry.getValue()));
                 }
             }
-        } catch (final Exception e) {
-            throw new DataStoreException("Failed to crawl data when reading csv file.", e);
-        } finally {
-            IOUtils.closeQuietly(csvReader);
+            for (int i = 0; i < values.size(); i++) {
+                map.put(CELL_PREFIX + Integer.toString(i + 1), getValue(i));
+            }
+            if (extraMap != null) {
+                map.putAll(extraMap);
+            }
+            return Collections.unmodifiableMap(map).entrySet();
+        }
+
+        protected String getValue(final int index) {
+            final String value = values.get(index);
+            return value != null ? value : StringUtil.EMPTY;
+        }
+    }
+
+    protected static class ByteBufferInputStream extends InputStream {
+        protected final ByteBuffer buffer;
+
+        protected ByteBufferInputStream(final ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(final byte[] bytes, final int off, final int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            final int length = Math.min(len, buffer.remaining());
+            buffer.get(bytes, off, length);
+            return length;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
         }
     }
 
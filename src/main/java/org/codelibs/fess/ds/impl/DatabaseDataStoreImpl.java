@@ -17,16 +17,28 @@ package org.codelibs.fess.ds.impl;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.codelibs.core.lang.StringUtil;
+import org.codelibs.fess.Constants;
 import org.codelibs.fess.app.service.FailureUrlService;
 import org.codelibs.fess.crawler.exception.CrawlingAccessException;
 import org.codelibs.fess.crawler.exception.MultipleCrawlingAccessException;
@@ -34,7 +46,7 @@ import org.codelibs.fess.ds.IndexUpdateCallback;
 import org.codelibs.fess.es.config.exentity.DataConfig;
 import org.codelibs.fess.exception.DataStoreCrawlingException;
 import org.codelibs.fess.exception.DataStoreException;
-import org.codelibs.fess.exception.FessSystemException;
+import org.codelibs.fess.helper.CrawlingInfoHelper;
 import org.codelibs.fess.util.ComponentUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -52,6 +64,22 @@ public class DatabaseDataStoreImpl extends AbstractDataStoreImpl {
 
     private static final String DRIVER_PARAM = "driver";
 
+    private static final String FETCH_SIZE_PARAM = "fetch.size";
+
+    private static final String STREAMING_PARAM = "streaming";
+
+    private static final String PARTITION_COLUMN_PARAM = "partition.column";
+
+    private static final String PARTITION_COUNT_PARAM = "partition.count";
+
+    private static final String PARTITION_THREADS_PARAM = "partition.threads";
+
+    private static final String QUEUE_SIZE_PARAM = "queue.size";
+
+    private static final int DEFAULT_FETCH_SIZE = 1000;
+
+    private static final int DEFAULT_QUEUE_SIZE = 1000;
+
     protected String getDriverClass(final Map<String, String> paramMap) {
         final String driverName = paramMap.get(DRIVER_PARAM);
         if (StringUtil.isBlank(driverName)) {
@@ -80,143 +108,395 @@ public class DatabaseDataStoreImpl extends AbstractDataStoreImpl {
         return sql;
     }
 
+    protected Connection getConnection(final Map<String, String> paramMap) throws ClassNotFoundException, SQLException {
+        Class.forName(getDriverClass(paramMap));
+
+        final String jdbcUrl = getUrl(paramMap);
+        final String username = getUsername(paramMap);
+        final String password = getPassword(paramMap);
+        final Connection con;
+        if (StringUtil.isNotEmpty(username)) {
+            con = DriverManager.getConnection(jdbcUrl, username, password);
+        } else {
+            con = DriverManager.getConnection(jdbcUrl);
+        }
+        if (Constants.TRUE.equalsIgnoreCase(paramMap.get(STREAMING_PARAM))) {
+            // most drivers (e.g. PostgreSQL) use a cursor only outside of auto-commit mode
+            con.setAutoCommit(false);
+        }
+        return con;
+    }
+
+    protected void prepareStatement(final Statement stmt, final Map<String, String> paramMap) throws SQLException {
+        int fetchSize = getIntParam(paramMap, FETCH_SIZE_PARAM, DEFAULT_FETCH_SIZE);
+        if (Constants.TRUE.equalsIgnoreCase(paramMap.get(STREAMING_PARAM))) {
+            final String jdbcUrl = getUrl(paramMap);
+            if (jdbcUrl != null && (jdbcUrl.startsWith("jdbc:mysql:") || jdbcUrl.startsWith("jdbc:mariadb:"))) {
+                // MySQL streams rows one by one only with this special value
+                fetchSize = Integer.MIN_VALUE;
+            }
+        }
+        if (fetchSize != 0) {
+            stmt.setFetchSize(fetchSize);
+        }
+    }
+
     @Override
     protected void storeData(final DataConfig config, final IndexUpdateCallback callback, final Map<String, String> paramMap,
             final Map<String, String> scriptMap, final Map<String, Object> defaultDataMap) {
 
-        final long readInterval = getReadInterval(paramMap);
+        final long startTime = System.currentTimeMillis();
+        final String sql = getSql(paramMap);
+        final int threadSize = Math.max(1, getIntParam(paramMap, Constants.NUM_OF_THREADS, 1));
+        final String partitionColumn = paramMap.get(PARTITION_COLUMN_PARAM);
+        final int partitionCount = StringUtil.isNotBlank(partitionColumn) ? Math.max(1, getIntParam(paramMap, PARTITION_COUNT_PARAM, 1)) : 0;
 
-        Connection con = null;
-        Statement stmt = null;
-        ResultSet rs = null;
+        final RowProcessor processor = new RowProcessor(config, callback, paramMap, scriptMap, defaultDataMap, sql);
         try {
-            Class.forName(getDriverClass(paramMap));
-
-            final String jdbcUrl = getUrl(paramMap);
-            final String username = getUsername(paramMap);
-            final String password = getPassword(paramMap);
-            if (StringUtil.isNotEmpty(username)) {
-                con = DriverManager.getConnection(jdbcUrl, username, password);
+            if (threadSize == 1 && partitionCount == 0) {
+                readRows(paramMap, sql, Collections.emptyList(), processor, processor::process);
             } else {
-                con = DriverManager.getConnection(jdbcUrl);
+                storeDataInParallel(paramMap, sql, partitionColumn, partitionCount, threadSize, processor);
             }
+        } catch (final DataStoreException e) {
+            throw e;
+        } catch (final Exception e) {
+            throw new DataStoreException("Failed to crawl data in DB.", e);
+        } finally {
+            storeStats(config, processor.getRowCount(), System.currentTimeMillis() - startTime);
+        }
+    }
 
-            final String sql = getSql(paramMap);
-            stmt = con.createStatement();
-            rs = stmt.executeQuery(sql); // SQL generated by an administrator
-            boolean loop = true;
-            while (rs.next() && loop && alive) {
-                final Map<String, Object> dataMap = new HashMap<>();
-                dataMap.putAll(defaultDataMap);
-                final Map<String, Object> crawlingContext = new HashMap<>();
-                crawlingContext.put("doc", dataMap);
-                for (final Map.Entry<String, String> entry : scriptMap.entrySet()) {
-                    final Object convertValue =
-                            convertValue(entry.getValue(), new ResultSetParamMap(config, crawlingContext, rs, paramMap));
-                    if (convertValue != null) {
-                        dataMap.put(entry.getKey(), convertValue);
-                    }
-                }
+    protected void storeDataInParallel(final Map<String, String> paramMap, final String sql, final String partitionColumn,
+            final int partitionCount, final int threadSize, final RowProcessor processor) throws Exception {
+        final List<Partition> partitionList;
+        if (partitionCount > 0) {
+            partitionList = getPartitionList(paramMap, sql, partitionColumn, partitionCount);
+        } else {
+            partitionList = Collections.singletonList(new Partition(sql, Collections.emptyList()));
+        }
 
-                try {
-                    callback.store(paramMap, dataMap);
-                } catch (final CrawlingAccessException e) {
-                    logger.warn("Crawling Access Exception at : " + dataMap, e);
-
-                    Throwable target = e;
-                    if (target instanceof MultipleCrawlingAccessException) {
-                        final Throwable[] causes = ((MultipleCrawlingAccessException) target).getCauses();
-                        if (causes.length > 0) {
-                            target = causes[causes.length - 1];
+        final BlockingQueue<ResultSetRow> rowQueue =
+                new ArrayBlockingQueue<>(Math.max(threadSize, getIntParam(paramMap, QUEUE_SIZE_PARAM, DEFAULT_QUEUE_SIZE)));
+        // each reader holds its own connection, so partitions wait for a free reader
+        final int readerSize = Math.min(partitionList.size(), Math.max(1, getIntParam(paramMap, PARTITION_THREADS_PARAM, threadSize)));
+        final ExecutorService executorService = newExecutorService(readerSize + threadSize, "db");
+        try {
+            final List<Future<?>> workerList = new ArrayList<>();
+            for (int i = 0; i < threadSize; i++) {
+                workerList.add(executorService.submit(() -> {
+                    try {
+                        while (true) {
+                            final ResultSetRow row = rowQueue.take();
+                            if (row == ResultSetRow.EOF) {
+                                break;
+                            }
+                            if (processor.isRunning()) {
+                                processor.process(row);
+                            }
                         }
+                    } catch (final RuntimeException e) {
+                        // readers must not wait for a queue nobody drains
+                        processor.stop();
+                        throw e;
                     }
+                    return null;
+                }));
+            }
 
-                    String errorName;
-                    final Throwable cause = target.getCause();
-                    if (cause != null) {
-                        errorName = cause.getClass().getCanonicalName();
-                    } else {
-                        errorName = target.getClass().getCanonicalName();
-                    }
+            final List<Future<?>> readerList = new ArrayList<>();
+            for (final Partition partition : partitionList) {
+                readerList.add(executorService.submit(() -> {
+                    readRows(paramMap, partition.sql, partition.params, processor, row -> {
+                        while (processor.isRunning() && !rowQueue.offer(row, 1, TimeUnit.SECONDS)) {
+                            // wait for the workers
+                        }
+                    });
+                    return null;
+                }));
+            }
 
-                    String url;
-                    if (target instanceof DataStoreCrawlingException) {
-                        final DataStoreCrawlingException dce = (DataStoreCrawlingException) target;
-                        url = dce.getUrl();
-                        if (dce.aborted()) {
-                            loop = false;
+            DataStoreException error = null;
+            try {
+                waitFor(readerList, "Failed to crawl data in DB.", processor::stop);
+            } catch (final DataStoreException e) {
+                error = e;
+            }
+            if (!processor.isRunning()) {
+                rowQueue.clear();
+            }
+            for (int i = 0; i < threadSize; i++) {
+                rowQueue.put(ResultSetRow.EOF);
+            }
+            try {
+                waitFor(workerList, "Failed to crawl data in DB.");
+            } catch (final DataStoreException e) {
+                if (error == null) {
+                    error = e;
+                }
+            }
+            if (error != null) {
+                throw error;
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    protected List<Partition> getPartitionList(final Map<String, String> paramMap, final String sql, final String partitionColumn,
+            final int partitionCount) throws ClassNotFoundException, SQLException {
+        final String baseSql = "SELECT * FROM (" + sql + ") fess_partition WHERE " + partitionColumn;
+        final List<Partition> partitionList = new ArrayList<>();
+        try (Connection con = getConnection(paramMap)) {
+            boolean completed = false;
+            try (Statement stmt = con.createStatement();
+                    ResultSet rs =
+                            stmt.executeQuery("SELECT MIN(" + partitionColumn + "), MAX(" + partitionColumn + ") FROM (" + sql
+                                    + ") fess_partition")) {
+                if (rs.next() && rs.getObject(1) != null) {
+                    final Object minValue = rs.getObject(1);
+                    final Object maxValue = rs.getObject(2);
+                    if (!(minValue instanceof Number) || !(maxValue instanceof Number)) {
+                        throw new DataStoreException(PARTITION_COLUMN_PARAM + " is not a numeric column: " + partitionColumn);
+                    }
+                    final long min = (long) Math.floor(((Number) minValue).doubleValue());
+                    final long max = (long) Math.floor(((Number) maxValue).doubleValue());
+                    final long step = Math.max(1L, (max - min) / partitionCount + 1);
+                    for (int i = 0; i < partitionCount; i++) {
+                        final long lower = min + step * i;
+                        if (lower > max) {
+                            break;
+                        }
+                        if (i == partitionCount - 1 || lower + step > max) {
+                            partitionList.add(new Partition(baseSql + " >= ?", Collections.singletonList(lower)));
+                            break;
                         }
-                    } else {
-                        url = sql + ":" + rs.getRow();
+                        partitionList.add(new Partition(baseSql + " >= ? AND " + partitionColumn + " < ?", Arrays.asList(lower, lower
+                                + step)));
                     }
-                    final FailureUrlService failureUrlService = ComponentUtil.getComponent(FailureUrlService.class);
-                    failureUrlService.store(config, errorName, url, target);
-                } catch (final Throwable t) {
-                    logger.warn("Crawling Access Exception at : " + dataMap, t);
-                    final String url = sql + ":" + rs.getRow();
-                    final FailureUrlService failureUrlService = ComponentUtil.getComponent(FailureUrlService.class);
-                    failureUrlService.store(config, t.getClass().getCanonicalName(), url, t);
                 }
+                completed = true;
+            } finally {
+                endTransaction(con, completed);
+            }
+        }
+        partitionList.add(new Partition(baseSql + " IS NULL", Collections.emptyList()));
+        if (logger.isDebugEnabled()) {
+            logger.debug("Partitions: " + partitionList);
+        }
+        return partitionList;
+    }
 
-                if (readInterval > 0) {
-                    sleep(readInterval);
+    protected void readRows(final Map<String, String> paramMap, final String sql, final List<Object> params,
+            final RowProcessor processor, final RowConsumer consumer) throws Exception {
+        try (Connection con = getConnection(paramMap)) {
+            boolean completed = false;
+            try (PreparedStatement stmt = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                prepareStatement(stmt, paramMap);
+                for (int i = 0; i < params.size(); i++) {
+                    stmt.setObject(i + 1, params.get(i));
+                }
+                try (ResultSet rs = stmt.executeQuery()) { // SQL generated by an administrator
+                    final ResultSetMetaData metaData = rs.getMetaData();
+                    final String[] labels = new String[metaData.getColumnCount()];
+                    for (int i = 0; i < labels.length; i++) {
+                        labels[i] = metaData.getColumnLabel(i + 1);
+                    }
+                    while (processor.isRunning() && alive && rs.next()) {
+                        consumer.accept(new ResultSetRow(rs, labels, processor.nextRowNumber()));
+                    }
                 }
+                completed = true;
+            } finally {
+                endTransaction(con, completed);
             }
-        } catch (final Exception e) {
-            throw new DataStoreException("Failed to crawl data in DB.", e);
-        } finally {
+        }
+    }
+
+    protected void endTransaction(final Connection con, final boolean completed) throws SQLException {
+        // the streaming mode reads rows in a transaction
+        if (con.getAutoCommit()) {
+            return;
+        }
+        if (completed) {
+            con.commit();
+        } else {
             try {
-                if (rs != null) {
-                    rs.close();
-                }
+                con.rollback();
             } catch (final SQLException e) {
-                logger.warn("Failed to close a result set.", e);
-            } finally {
+                logger.warn("Failed to roll back a transaction.", e);
+            }
+        }
+    }
+
+    protected void storeStats(final DataConfig config, final long rowCount, final long time) {
+        final long rowsPerSecond = time > 0 ? rowCount * 1000L / time : rowCount;
+        if (logger.isInfoEnabled()) {
+            logger.info("[" + config.getName() + "] Read " + rowCount + " rows in " + time + "ms (" + rowsPerSecond + " rows/sec)");
+        }
+        final CrawlingInfoHelper crawlingInfoHelper = ComponentUtil.getCrawlingInfoHelper();
+        crawlingInfoHelper.putToInfoMap(Constants.DATA_STORE_ROW_SIZE + "." + config.getId(), Long.toString(rowCount));
+        crawlingInfoHelper.putToInfoMap(Constants.DATA_STORE_ROWS_PER_SECOND + "." + config.getId(), Long.toString(rowsPerSecond));
+    }
+
+    protected interface RowConsumer {
+        void accept(ResultSetRow row) throws Exception;
+    }
+
+    protected static class Partition {
+        protected final String sql;
+
+        protected final List<Object> params;
+
+        protected Partition(final String sql, final List<Object> params) {
+            this.sql = sql;
+            this.params = params;
+        }
+
+        @Override
+        public String toString() {
+            return sql + " " + params;
+        }
+    }
+
+    protected static class ResultSetRow {
+        protected static final ResultSetRow EOF = new ResultSetRow(Collections.emptyMap(), 0);
+
+        protected final Map<String, Object> values;
+
+        protected final long rowNumber;
+
+        protected ResultSetRow(final Map<String, Object> values, final long rowNumber) {
+            this.values = values;
+            this.rowNumber = rowNumber;
+        }
+
+        protected ResultSetRow(final ResultSet resultSet, final String[] labels, final long rowNumber) {
+            this(new HashMap<>(labels.length * 2), rowNumber);
+            for (int i = 0; i < labels.length; i++) {
                 try {
-                    if (stmt != null) {
-                        stmt.close();
-                    }
+                    values.put(labels[i], resultSet.getString(i + 1));
                 } catch (final SQLException e) {
-                    logger.warn("Failed to close a statement.", e);
-                } finally {
-                    try {
-                        if (con != null) {
-                            con.close();
-                        }
-                    } catch (final SQLException e) {
-                        logger.warn("Failed to close a db connection.", e);
+                    logger.warn("Failed to parse data in a result set. The column is " + (i + 1) + ".", e);
+                }
+            }
+        }
+    }
+
+    protected class RowProcessor {
+        protected final DataConfig config;
+
+        protected final IndexUpdateCallback callback;
+
+        protected final Map<String, String> paramMap;
+
+        protected final Map<String, String> scriptMap;
+
+        protected final Map<String, Object> defaultDataMap;
+
+        protected final String sql;
+
+        protected final long readInterval;
+
+        protected final AtomicLong rowCount = new AtomicLong(0);
+
+        protected volatile boolean running = true;
+
+        protected RowProcessor(final DataConfig config, final IndexUpdateCallback callback, final Map<String, String> paramMap,
+                final Map<String, String> scriptMap, final Map<String, Object> defaultDataMap, final String sql) {
+            this.config = config;
+            this.callback = callback;
+            this.paramMap = paramMap;
+            this.scriptMap = scriptMap;
+            this.defaultDataMap = defaultDataMap;
+            this.sql = sql;
+            this.readInterval = getReadInterval(paramMap);
+        }
+
+        protected boolean isRunning() {
+            return running && alive;
+        }
+
+        protected void stop() {
+            running = false;
+        }
+
+        protected long nextRowNumber() {
+            return rowCount.incrementAndGet();
+        }
+
+        protected long getRowCount() {
+            return rowCount.get();
+        }
+
+        protected void process(final ResultSetRow row) {
+            final Map<String, Object> dataMap = new HashMap<>();
+            dataMap.putAll(defaultDataMap);
+            final Map<String, Object> crawlingContext = new HashMap<>();
+            crawlingContext.put("doc", dataMap);
+            final ResultSetParamMap resultSetParamMap = new ResultSetParamMap(config, crawlingContext, row.values, paramMap);
+            for (final Map.Entry<String, String> entry : scriptMap.entrySet()) {
+                final Object convertValue = convertValue(entry.getValue(), resultSetParamMap);
+                if (convertValue != null) {
+                    dataMap.put(entry.getKey(), convertValue);
+                }
+            }
+
+            try {
+                callback.store(paramMap, dataMap);
+            } catch (final CrawlingAccessException e) {
+                logger.warn("Crawling Access Exception at : " + dataMap, e);
+
+                Throwable target = e;
+                if (target instanceof MultipleCrawlingAccessException) {
+                    final Throwable[] causes = ((MultipleCrawlingAccessException) target).getCauses();
+                    if (causes.length > 0) {
+                        target = causes[causes.length - 1];
+                    }
+                }
+
+                String errorName;
+                final Throwable cause = target.getCause();
+                if (cause != null) {
+                    errorName = cause.getClass().getCanonicalName();
+                } else {
+                    errorName = target.getClass().getCanonicalName();
+                }
+
+                String url;
+                if (target instanceof DataStoreCrawlingException) {
+                    final DataStoreCrawlingException dce = (DataStoreCrawlingException) target;
+                    url = dce.getUrl();
+                    if (dce.aborted()) {
+                        stop();
                     }
+                } else {
+                    url = sql + ":" + row.rowNumber;
                 }
+                final FailureUrlService failureUrlService = ComponentUtil.getComponent(FailureUrlService.class);
+                failureUrlService.store(config, errorName, url, target);
+            } catch (final Throwable t) {
+                logger.warn("Crawling Access Exception at : " + dataMap, t);
+                final String url = sql + ":" + row.rowNumber;
+                final FailureUrlService failureUrlService = ComponentUtil.getComponent(FailureUrlService.class);
+                failureUrlService.store(config, t.getClass().getCanonicalName(), url, t);
             }
 
+            if (readInterval > 0) {
+                sleep(readInterval);
+            }
         }
     }
 
     protected static class ResultSetParamMap implements Map<String, Object> {
         private final Map<String, Object> paramMap = new HashMap<>();
 
-        public ResultSetParamMap(final DataConfig config, final Map<String, Object> crawlingContext, final ResultSet resultSet,
+        public ResultSetParamMap(final DataConfig config, final Map<String, Object> crawlingContext, final Map<String, Object> rowMap,
                 final Map<String, String> paramMap) {
             this.paramMap.putAll(paramMap);
             this.paramMap.put("crawlingConfig", config);
             this.paramMap.put("crawlingContext", crawlingContext);
-
-            try {
-                final ResultSetMetaData metaData = resultSet.getMetaData();
-                final int columnCount = metaData.getColumnCount();
-                for (int i = 0; i < columnCount; i++) {
-                    try {
-                        final String label = metaData.getColumnLabel(i + 1);
-                        final String value = resultSet.getString(i + 1);
-                        this.paramMap.put(label, value);
-                    } catch (final SQLException e) {
-                        logger.warn("Failed to parse data in a result set. The column is " + (i + 1) + ".", e);
-                    }
-                }
-            } catch (final Exception e) {
-                throw new FessSystemException("Failed to access meta data.", e);
-            }
-
+            this.paramMap.putAll(rowMap);
         }
 
         @Override
@@ -18,9 +18,15 @@ package org.codelibs.fess.ds.impl;
 import static org.codelibs.core.stream.StreamUtil.split;
 
 import java.net.InetAddress;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 import org.codelibs.core.lang.StringUtil;
@@ -33,6 +39,7 @@ import org.codelibs.fess.es.config.exentity.DataConfig;
 import org.codelibs.fess.exception.DataStoreCrawlingException;
 import org.codelibs.fess.exception.DataStoreException;
 import org.codelibs.fess.util.ComponentUtil;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsResponse;
 import org.elasticsearch.action.bulk.BulkRequestBuilder;
 import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.search.SearchRequestBuilder;
@@ -67,8 +74,14 @@ public class EsDataStoreImpl extends AbstractDataStoreImpl {
 
     private static final String SETTINGS_PREFIX = "settings.";
 
+    private static final String SLICES = "slices";
+
+    private static final String MAX_INFLIGHT_SLICES = "max.inflight.slices";
+
     private static final Logger logger = LoggerFactory.getLogger(EsDataStoreImpl.class);
 
+    public long progressLogInterval = 60 * 1000L;// 1min
+
     @Override
     protected void storeData(final DataConfig dataConfig, final IndexUpdateCallback callback, final Map<String, String> paramMap,
             final Map<String, String> scriptMap, final Map<String, Object> defaultDataMap) {
@@ -111,13 +124,84 @@ public class EsDataStoreImpl extends AbstractDataStoreImpl {
     protected void processData(final DataConfig dataConfig, final IndexUpdateCallback callback, final Map<String, String> paramMap,
             final Map<String, String> scriptMap, final Map<String, Object> defaultDataMap, final long readInterval, final Client client) {
 
-        final boolean deleteProcessedDoc = paramMap.getOrDefault("delete.processed.doc", Constants.FALSE).equalsIgnoreCase(Constants.TRUE);
         final String[] indices;
         if (paramMap.containsKey(INDEX)) {
             indices = paramMap.get(INDEX).trim().split(",");
         } else {
             indices = new String[] { "_all" };
         }
+        final String timeout = paramMap.containsKey(TIMEOUT) ? paramMap.get(TIMEOUT).trim() : "1m";
+        final String preference = paramMap.containsKey(PREFERENCE) ? paramMap.get(PREFERENCE).trim() : Constants.SEARCH_PREFERENCE_PRIMARY;
+        final AtomicBoolean running = new AtomicBoolean(true);
+
+        int sliceSize = getIntParam(paramMap, SLICES, 1);
+        int shardSize = 1;
+        if (sliceSize > 1) {
+            if (preference.contains("_shards:")) {
+                logger.warn("Ignored " + SLICES + " because " + PREFERENCE + " specifies shards: " + preference);
+                sliceSize = 1;
+            } else {
+                shardSize = getShardSize(client, indices, timeout);
+                if (sliceSize > shardSize) {
+                    logger.info("Reduced " + SLICES + " from " + sliceSize + " to the number of shards: " + shardSize);
+                    sliceSize = shardSize;
+                }
+            }
+        }
+        if (sliceSize <= 1) {
+            processSlice(dataConfig, callback, paramMap, scriptMap, defaultDataMap, readInterval, client, indices, preference,
+                    new SliceInfo(0, 1), running);
+            return;
+        }
+
+        // ES 2.x has no sliced scroll, so each slice scrolls over its own set of shards
+        final int inflightSize = Math.max(1, Math.min(sliceSize, getIntParam(paramMap, MAX_INFLIGHT_SLICES, sliceSize)));
+        logger.info("Reading " + String.join(",", indices) + " in " + sliceSize + " slices, " + inflightSize + " at a time.");
+
+        final ExecutorService executorService = newExecutorService(inflightSize, "slice");
+        try {
+            final List<Future<?>> futureList = new ArrayList<>();
+            for (int i = 0; i < sliceSize; i++) {
+                final StringBuilder buf = new StringBuilder("_shards:");
+                for (int shard = i; shard < shardSize; shard += sliceSize) {
+                    if (shard != i) {
+                        buf.append(',');
+                    }
+                    buf.append(shard);
+                }
+                if (StringUtil.isNotBlank(preference)) {
+                    buf.append(';').append(preference);
+                }
+                final String slicePreference = buf.toString();
+                final SliceInfo sliceInfo = new SliceInfo(i, sliceSize);
+                futureList.add(executorService.submit(() -> {
+                    if (running.get() && alive) {
+                        processSlice(dataConfig, callback, paramMap, scriptMap, defaultDataMap, readInterval, client, indices,
+                                slicePreference, sliceInfo, running);
+                    }
+                }));
+            }
+
+            waitFor(futureList, "Failed to crawl data when acessing elasticsearch.", () -> running.set(false));
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    protected int getShardSize(final Client client, final String[] indices, final String timeout) {
+        int shardSize = 1;
+        final GetSettingsResponse response = client.admin().indices().prepareGetSettings(indices).execute().actionGet(timeout);
+        for (final Iterator<Settings> it = response.getIndexToSettings().valuesIt(); it.hasNext();) {
+            shardSize = Math.max(shardSize, it.next().getAsInt("index.number_of_shards", 1).intValue());
+        }
+        return shardSize;
+    }
+
+    protected void processSlice(final DataConfig dataConfig, final IndexUpdateCallback callback, final Map<String, String> paramMap,
+            final Map<String, String> scriptMap, final Map<String, Object> defaultDataMap, final long readInterval, final Client client,
+            final String[] indices, final String preference, final SliceInfo sliceInfo, final AtomicBoolean running) {
+
+        final boolean deleteProcessedDoc = paramMap.getOrDefault("delete.processed.doc", Constants.FALSE).equalsIgnoreCase(Constants.TRUE);
         final String scroll = paramMap.containsKey(SCROLL) ? paramMap.get(SCROLL).trim() : "1m";
         final String timeout = paramMap.containsKey(TIMEOUT) ? paramMap.get(TIMEOUT).trim() : "1m";
         final SearchRequestBuilder builder = client.prepareSearch(indices);
@@ -132,99 +216,28 @@ public class EsDataStoreImpl extends AbstractDataStoreImpl {
         }
         builder.setQuery(paramMap.containsKey(QUERY) ? paramMap.get(QUERY).trim() : "{\"query\":{\"match_all\":{}}}");
         builder.setScroll(scroll);
-        builder.setPreference(paramMap.containsKey(PREFERENCE) ? paramMap.get(PREFERENCE).trim() : Constants.SEARCH_PREFERENCE_PRIMARY);
+        builder.setPreference(preference);
+        String scrollId = null;
         try {
             SearchResponse response = builder.execute().actionGet(timeout);
+            sliceInfo.totalHits = response.getHits().getTotalHits();
 
-            String scrollId = response.getScrollId();
+            scrollId = response.getScrollId();
             while (scrollId != null) {
                 final SearchHits searchHits = response.getHits();
                 final SearchHit[] hits = searchHits.getHits();
                 if (hits.length == 0) {
-                    scrollId = null;
                     break;
                 }
 
-                boolean loop = true;
                 final BulkRequestBuilder bulkRequest = deleteProcessedDoc ? client.prepareBulk() : null;
                 for (final SearchHit hit : hits) {
-                    if (!alive || !loop) {
+                    if (!alive || !running.get()) {
                         break;
                     }
 
-                    final Map<String, Object> dataMap = new HashMap<>();
-                    dataMap.putAll(defaultDataMap);
-                    final Map<String, Object> resultMap = new LinkedHashMap<>();
-                    resultMap.putAll(paramMap);
-                    resultMap.put("index", hit.getIndex());
-                    resultMap.put("type", hit.getType());
-                    resultMap.put("id", hit.getId());
-                    resultMap.put("version", Long.valueOf(hit.getVersion()));
-                    resultMap.put("hit", hit);
-                    resultMap.put("source", hit.getSource());
-                    resultMap.put("crawlingConfig", dataConfig);
-
-                    if (logger.isDebugEnabled()) {
-                        for (final Map.Entry<String, Object> entry : resultMap.entrySet()) {
-                            logger.debug(entry.getKey() + "=" + entry.getValue());
-                        }
-                    }
-
-                    final Map<String, Object> crawlingContext = new HashMap<>();
-                    crawlingContext.put("doc", dataMap);
-                    resultMap.put("crawlingContext", crawlingContext);
-                    for (final Map.Entry<String, String> entry : scriptMap.entrySet()) {
-                        final Object convertValue = convertValue(entry.getValue(), resultMap);
-                        if (convertValue != null) {
-                            dataMap.put(entry.getKey(), convertValue);
-                        }
-                    }
-
-                    if (logger.isDebugEnabled()) {
-                        for (final Map.Entry<String, Object> entry : dataMap.entrySet()) {
-                            logger.debug(entry.getKey() + "=" + entry.getValue());
-                        }
-                    }
-
-                    try {
-                        callback.store(paramMap, dataMap);
-                    } catch (final CrawlingAccessException e) {
-                        logger.warn("Crawling Access Exception at : " + dataMap, e);
-
-                        Throwable target = e;
-                        if (target instanceof MultipleCrawlingAccessException) {
-                            final Throwable[] causes = ((MultipleCrawlingAccessException) target).getCauses();
-                            if (causes.length > 0) {
-                                target = causes[causes.length - 1];
-                            }
-                        }
-
-                        String errorName;
-                        final Throwable cause = target.getCause();
-                        if (cause != null) {
-                            errorName = cause.getClass().getCanonicalName();
-                        } else {
-                            errorName = target.getClass().getCanonicalName();
-                        }
-
-                        String url;
-                        if (target instanceof DataStoreCrawlingException) {
-                            final DataStoreCrawlingException dce = (DataStoreCrawlingException) target;
-                            url = dce.getUrl();
-                            if (dce.aborted()) {
-                                loop = false;
-                            }
-                        } else {
-                            url = hit.getIndex() + "/" + hit.getType() + "/" + hit.getId();
-                        }
-                        final FailureUrlService failureUrlService = ComponentUtil.getComponent(FailureUrlService.class);
-                        failureUrlService.store(dataConfig, errorName, url, target);
-                    } catch (final Throwable t) {
-                        logger.warn("Crawling Access Exception at : " + dataMap, t);
-                        final String url = hit.getIndex() + "/" + hit.getType() + "/" + hit.getId();
-                        final FailureUrlService failureUrlService = ComponentUtil.getComponent(FailureUrlService.class);
-                        failureUrlService.store(dataConfig, t.getClass().getCanonicalName(), url, t);
-                    }
+                    processHit(dataConfig, callback, paramMap, scriptMap, defaultDataMap, hit, running);
+                    sliceInfo.processed++;
 
                     if (bulkRequest != null) {
                         bulkRequest.add(client.prepareDelete(hit.getIndex(), hit.getType(), hit.getId()));
@@ -242,14 +255,133 @@ public class EsDataStoreImpl extends AbstractDataStoreImpl {
                     }
                 }
 
-                if (!alive) {
+                if (!alive || !running.get()) {
                     break;
                 }
+                sliceInfo.logProgress(false);
                 response = client.prepareSearchScroll(scrollId).setScroll(scroll).execute().actionGet(timeout);
                 scrollId = response.getScrollId();
             }
+            sliceInfo.logProgress(true);
         } catch (final Exception e) {
             throw new DataStoreException("Failed to crawl data when acessing elasticsearch.", e);
+        } finally {
+            if (scrollId != null) {
+                try {
+                    client.prepareClearScroll().addScrollId(scrollId).execute().actionGet(timeout);
+                } catch (final Exception e) {
+                    logger.warn("Failed to clear the scroll context: " + scrollId, e);
+                }
+            }
+        }
+    }
+
+    protected void processHit(final DataConfig dataConfig, final IndexUpdateCallback callback, final Map<String, String> paramMap,
+            final Map<String, String> scriptMap, final Map<String, Object> defaultDataMap, final SearchHit hit, final AtomicBoolean running) {
+        final Map<String, Object> dataMap = new HashMap<>();
+        dataMap.putAll(defaultDataMap);
+        final Map<String, Object> resultMap = new LinkedHashMap<>();
+        resultMap.putAll(paramMap);
+        resultMap.put("index", hit.getIndex());
+        resultMap.put("type", hit.getType());
+        resultMap.put("id", hit.getId());
+        resultMap.put("version", Long.valueOf(hit.getVersion()));
+        resultMap.put("hit", hit);
+        resultMap.put("source", hit.getSource());
+        resultMap.put("crawlingConfig", dataConfig);
+
+        if (logger.isDebugEnabled()) {
+            for (final Map.Entry<String, Object> entry : resultMap.entrySet()) {
+                logger.debug(entry.getKey() + "=" + entry.getValue());
+            }
+        }
+
+        final Map<String, Object> crawlingContext = new HashMap<>();
+        crawlingContext.put("doc", dataMap);
+        resultMap.put("crawlingContext", crawlingContext);
+        for (final Map.Entry<String, String> entry : scriptMap.entrySet()) {
+            final Object convertValue = convertValue(entry.getValue(), resultMap);
+            if (convertValue != null) {
+                dataMap.put(entry.getKey(), convertValue);
+            }
+        }
+
+        if (logger.isDebugEnabled()) {
+            for (final Map.Entry<String, Object> entry : dataMap.entrySet()) {
+                logger.debug(entry.getKey() + "=" + entry.getValue());
+            }
+        }
+
+        try {
+            callback.store(paramMap, dataMap);
+        } catch (final CrawlingAccessException e) {
+            logger.warn("Crawling Access Exception at : " + dataMap, e);
+
+            Throwable target = e;
+            if (target instanceof MultipleCrawlingAccessException) {
+                final Throwable[] causes = ((MultipleCrawlingAccessException) target).getCauses();
+                if (causes.length > 0) {
+                    target = causes[causes.length - 1];
+                }
+            }
+
+            String errorName;
+            final Throwable cause = target.getCause();
+            if (cause != null) {
+                errorName = cause.getClass().getCanonicalName();
+            } else {
+                errorName = target.getClass().getCanonicalName();
+            }
+
+            String url;
+            if (target instanceof DataStoreCrawlingException) {
+                final DataStoreCrawlingException dce = (DataStoreCrawlingException) target;
+                url = dce.getUrl();
+                if (dce.aborted()) {
+                    running.set(false);
+                }
+            } else {
+                url = hit.getIndex() + "/" + hit.getType() + "/" + hit.getId();
+            }
+            final FailureUrlService failureUrlService = ComponentUtil.getComponent(FailureUrlService.class);
+            failureUrlService.store(dataConfig, errorName, url, target);
+        } catch (final Throwable t) {
+            logger.warn("Crawling Access Exception at : " + dataMap, t);
+            final String url = hit.getIndex() + "/" + hit.getType() + "/" + hit.getId();
+            final FailureUrlService failureUrlService = ComponentUtil.getComponent(FailureUrlService.class);
+            failureUrlService.store(dataConfig, t.getClass().getCanonicalName(), url, t);
+        }
+    }
+
+    protected class SliceInfo {
+        protected final int slice;
+
+        protected final int sliceSize;
+
+        protected final long startTime = System.currentTimeMillis();
+
+        protected long lastLogTime = startTime;
+
+        protected long totalHits;
+
+        protected long processed;
+
+        protected SliceInfo(final int slice, final int sliceSize) {
+            this.slice = slice;
+            this.sliceSize = sliceSize;
+        }
+
+        protected void logProgress(final boolean finished) {
+            final long now = System.currentTimeMillis();
+            if (!finished && now - lastLogTime < progressLogInterval) {
+                return;
+            }
+            lastLogTime = now;
+            if (logger.isInfoEnabled()) {
+                final long time = now - startTime;
+                logger.info("[slice " + (slice + 1) + "/" + sliceSize + "] " + (finished ? "Finished: " : "Processing: ") + processed + "/"
+                        + totalHits + " docs in " + time + "ms (" + (time > 0 ? processed * 1000L / time : processed) + " docs/sec)");
+            }
         }
     }
 
@@ -26,7 +26,6 @@ import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
-import org.codelibs.core.io.SerializeUtil;
 import org.codelibs.fess.Constants;
 import org.codelibs.fess.crawler.builder.RequestDataBuilder;
 import org.codelibs.fess.crawler.client.CrawlerClient;
@@ -46,6 +45,7 @@ import org.codelibs.fess.exception.DataStoreCrawlingException;
 import org.codelibs.fess.helper.IndexingHelper;
 import org.codelibs.fess.mylasta.direction.FessConfig;
 import org.codelibs.fess.util.ComponentUtil;
+import org.codelibs.fess.util.DocumentDataUtil;
 import org.lastaflute.di.core.SingletonLaContainer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -57,7 +57,7 @@ public class FileListIndexUpdateCallbackImpl implements IndexUpdateCallback {
 
     protected CrawlerClientFactory crawlerClientFactory;
 
-    protected List<String> deleteUrlList = new ArrayList<>(100);
+    protected final List<String> deleteUrlList = new ArrayList<>(100);
 
     protected int maxDeleteDocumentCacheSize = 100;
 
@@ -105,28 +105,27 @@ public class FileListIndexUpdateCallbackImpl implements IndexUpdateCallback {
 
     protected void addDocument(final Map<String, String> paramMap, final Map<String, Object> dataMap) {
         final FessConfig fessConfig = ComponentUtil.getFessConfig();
-        synchronized (indexUpdateCallback) {
-            // required check
-            if (!dataMap.containsKey(fessConfig.getIndexFieldUrl()) || dataMap.get(fessConfig.getIndexFieldUrl()) == null) {
-                logger.warn("Could not add a doc. Invalid data: " + dataMap);
-                return;
-            }
+        // required check
+        if (!dataMap.containsKey(fessConfig.getIndexFieldUrl()) || dataMap.get(fessConfig.getIndexFieldUrl()) == null) {
+            logger.warn("Could not add a doc. Invalid data: " + dataMap);
+            return;
+        }
 
-            final String url = dataMap.get(fessConfig.getIndexFieldUrl()).toString();
-            final CrawlerClient client = crawlerClientFactory.getClient(url);
-            if (client == null) {
-                logger.warn("CrawlerClient is null. Data: " + dataMap);
-                return;
-            }
+        final String url = dataMap.get(fessConfig.getIndexFieldUrl()).toString();
+        final CrawlerClient client = crawlerClientFactory.getClient(url);
+        if (client == null) {
+            logger.warn("CrawlerClient is null. Data: " + dataMap);
+            return;
+        }
 
-            String processingUrl = url;
-            for (int i = 0; i < maxRedirectCount; i++) {
-                processingUrl = processRequest(paramMap, dataMap, processingUrl, client);
-                if (processingUrl == null) {
-                    break;
-                }
-                dataMap.put(fessConfig.getIndexFieldUrl(), processingUrl);
+        // fetched and transformed in parallel; indexUpdateCallback buffers documents thread-safely
+        String processingUrl = url;
+        for (int i = 0; i < maxRedirectCount; i++) {
+            processingUrl = processRequest(paramMap, dataMap, processingUrl, client);
+            if (processingUrl == null) {
+                break;
             }
+            dataMap.put(fessConfig.getIndexFieldUrl(), processingUrl);
         }
     }
 
@@ -158,7 +157,7 @@ public class FileListIndexUpdateCallbackImpl implements IndexUpdateCallback {
                     if (data != null) {
                         try {
                             @SuppressWarnings("unchecked")
-                            final Map<String, Object> responseDataMap = (Map<String, Object>) SerializeUtil.fromBinaryToObject(data);
+                            final Map<String, Object> responseDataMap = (Map<String, Object>) DocumentDataUtil.fromBinary(data);
                             dataMap.putAll(responseDataMap);
                         } catch (final Exception e) {
                             throw new CrawlerSystemException("Could not create an instance from bytes.", e);
@@ -203,14 +202,15 @@ public class FileListIndexUpdateCallbackImpl implements IndexUpdateCallback {
             return false;
         }
 
-        synchronized (indexUpdateCallback) {
+        final List<String> urlList;
+        synchronized (deleteUrlList) {
             deleteUrlList.add(dataMap.get(fessConfig.getIndexFieldUrl()).toString());
-
-            if (deleteUrlList.size() >= maxDeleteDocumentCacheSize) {
-                deleteDocuments();
+            if (deleteUrlList.size() < maxDeleteDocumentCacheSize) {
+                return true;
             }
-
+            urlList = takeDeleteUrlList();
         }
+        deleteDocuments(urlList);
         return true;
     }
 
@@ -230,22 +230,29 @@ public class FileListIndexUpdateCallbackImpl implements IndexUpdateCallback {
             executor.shutdownNow();
         }
 
-        if (!deleteUrlList.isEmpty()) {
-            deleteDocuments();
+        final List<String> urlList;
+        synchronized (deleteUrlList) {
+            urlList = takeDeleteUrlList();
+        }
+        if (!urlList.isEmpty()) {
+            deleteDocuments(urlList);
         }
         indexUpdateCallback.commit();
     }
 
-    protected void deleteDocuments() {
+    protected List<String> takeDeleteUrlList() {
+        final List<String> urlList = new ArrayList<>(deleteUrlList);
+        deleteUrlList.clear();
+        return urlList;
+    }
+
+    protected void deleteDocuments(final List<String> urlList) {
         final FessEsClient fessEsClient = ComponentUtil.getFessEsClient();
         final IndexingHelper indexingHelper = ComponentUtil.getIndexingHelper();
-        for (final String url : deleteUrlList) {
-            indexingHelper.deleteDocumentByUrl(fessEsClient, url);
-        }
+        final int count = indexingHelper.deleteDocumentsByUrl(fessEsClient, urlList);
         if (logger.isDebugEnabled()) {
-            logger.debug("Deleted " + deleteUrlList);
+            logger.debug("Deleted " + count + " docs for " + urlList);
         }
-        deleteUrlList.clear();
     }
 
     @Override
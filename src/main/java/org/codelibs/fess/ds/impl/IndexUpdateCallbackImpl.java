@@ -15,8 +15,17 @@
  */
 package org.codelibs.fess.ds.impl;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 
 import javax.annotation.PostConstruct;
 
@@ -31,23 +40,57 @@ import org.codelibs.fess.mylasta.direction.FessConfig;
 import org.codelibs.fess.util.ComponentUtil;
 import org.codelibs.fess.util.DocList;
 import org.codelibs.fess.util.DocumentUtil;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.bulk.BulkResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class IndexUpdateCallbackImpl implements IndexUpdateCallback {
     private static final Logger logger = LoggerFactory.getLogger(IndexUpdateCallbackImpl.class);
 
-    protected AtomicLong documentSize = new AtomicLong(0);
+    protected final AtomicLong documentSize = new AtomicLong(0);
 
-    protected volatile long executeTime = 0;
+    // time spent by store() on preparing and buffering documents, not including waits for bulk requests
+    protected final AtomicLong executeTime = new AtomicLong(0);
 
-    protected final DocList docList = new DocList();
+    protected DocList[] docLists;
 
     protected long maxDocumentRequestSize;
 
+    // limit of the estimated UTF-8 bytes of documents in bulk requests that are not finished yet
+    protected long maxInflightRequestSize;
+
+    protected ThreadPoolExecutor sendExecutor;
+
+    protected final Object sendLock = new Object();
+
+    protected int pendingSendCount = 0;
+
+    protected long inflightRequestSize = 0;
+
+    protected final AtomicReference<Throwable> sendFailure = new AtomicReference<>();
+
     @PostConstruct
     public void init() {
-        maxDocumentRequestSize = ComponentUtil.getFessConfig().getIndexerDataMaxDocumentRequestSizeAsInteger().longValue();
+        final FessConfig fessConfig = ComponentUtil.getFessConfig();
+        maxDocumentRequestSize = fessConfig.getIndexerDataMaxDocumentRequestSizeAsInteger().longValue();
+        maxInflightRequestSize = fessConfig.getIndexerDataMaxInflightRequestSizeAsLong().longValue();
+
+        final int stripeSize = Math.max(1, fessConfig.getIndexerDataBufferStripeSizeAsInteger().intValue());
+        docLists = new DocList[stripeSize];
+        for (int i = 0; i < stripeSize; i++) {
+            docLists[i] = new DocList();
+        }
+
+        final int threadSize = Math.max(1, fessConfig.getIndexerDataSenderThreadSizeAsInteger().intValue());
+        final AtomicInteger threadCount = new AtomicInteger(0);
+        sendExecutor = new ThreadPoolExecutor(threadSize, threadSize, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            final Thread thread = new Thread(r, "IndexUpdateSender-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // a prototype instance is never destroyed, so idle senders go away by themselves
+        sendExecutor.allowCoreThreadTimeOut(true);
     }
 
     /* (non-Javadoc)
@@ -57,7 +100,6 @@ public class IndexUpdateCallbackImpl implements IndexUpdateCallback {
     public void store(final Map<String, String> paramMap, final Map<String, Object> dataMap) {
         final long startTime = System.currentTimeMillis();
         final FessConfig fessConfig = ComponentUtil.getFessConfig();
-        final FessEsClient fessEsClient = ComponentUtil.getFessEsClient();
 
         if (logger.isDebugEnabled()) {
             logger.debug("Adding " + dataMap);
@@ -69,58 +111,218 @@ public class IndexUpdateCallbackImpl implements IndexUpdateCallback {
             throw new DataStoreException("url is null. dataMap=" + dataMap);
         }
 
-        final IndexingHelper indexingHelper = ComponentUtil.getIndexingHelper();
         final CrawlingInfoHelper crawlingInfoHelper = ComponentUtil.getCrawlingInfoHelper();
         dataMap.put(fessConfig.getIndexFieldId(), crawlingInfoHelper.generateId(dataMap));
 
-        final String url = dataMap.get(fessConfig.getIndexFieldUrl()).toString();
-
-        if (fessConfig.getIndexerClickCountEnabledAsBoolean()) {
-            addClickCountField(dataMap, url, fessConfig.getIndexFieldClickCount());
-        }
-
-        if (fessConfig.getIndexerFavoriteCountEnabledAsBoolean()) {
-            addFavoriteCountField(dataMap, url, fessConfig.getIndexFieldFavoriteCount());
-        }
-
         if (!dataMap.containsKey(fessConfig.getIndexFieldDocId())) {
             final SystemHelper systemHelper = ComponentUtil.getSystemHelper();
             dataMap.put(fessConfig.getIndexFieldDocId(), systemHelper.generateDocId(dataMap));
         }
 
+        final Long contentLength = DocumentUtil.getValue(dataMap, fessConfig.getIndexFieldContentLength(), Long.class);
+        final DocList docList = getDocList();
+        DocList sendingDocList = null;
         synchronized (docList) {
             docList.add(dataMap);
             if (logger.isDebugEnabled()) {
                 logger.debug("Added the document. " + "The number of a document cache is " + docList.size() + ".");
             }
 
-            final Long contentLength = DocumentUtil.getValue(dataMap, fessConfig.getIndexFieldContentLength(), Long.class);
             if (contentLength != null) {
                 docList.addContentSize(contentLength.longValue());
                 if (docList.getContentSize() >= maxDocumentRequestSize) {
-                    indexingHelper.sendDocuments(fessEsClient, docList);
+                    sendingDocList = takeDocList(docList);
                 }
             } else if (docList.size() >= fessConfig.getIndexerDataMaxDocumentCacheSizeAsInteger().intValue()) {
-                indexingHelper.sendDocuments(fessEsClient, docList);
+                sendingDocList = takeDocList(docList);
             }
-            executeTime += System.currentTimeMillis() - startTime;
         }
 
-        documentSize.getAndIncrement();
+        executeTime.addAndGet(System.currentTimeMillis() - startTime);
+
+        if (sendingDocList != null) {
+            sendDocuments(sendingDocList);
+        }
+
+        final long size = documentSize.incrementAndGet();
 
         if (logger.isDebugEnabled()) {
-            logger.debug("The number of an added document is " + documentSize.get() + ".");
+            logger.debug("The number of an added document is " + size + ".");
         }
 
     }
 
     @Override
     public void commit() {
-        synchronized (docList) {
-            if (!docList.isEmpty()) {
-                final IndexingHelper indexingHelper = ComponentUtil.getIndexingHelper();
-                final FessEsClient fessEsClient = ComponentUtil.getFessEsClient();
-                indexingHelper.sendDocuments(fessEsClient, docList);
+        for (final DocList docList : docLists) {
+            final DocList sendingDocList;
+            synchronized (docList) {
+                sendingDocList = takeDocList(docList);
+            }
+            if (!sendingDocList.isEmpty()) {
+                sendDocuments(sendingDocList);
+            }
+        }
+        waitForSentDocuments();
+    }
+
+    protected DocList getDocList() {
+        // a data store thread keeps using the same buffer, so threads rarely contend on a lock
+        return docLists[(int) (Thread.currentThread().getId() % docLists.length)];
+    }
+
+    protected DocList takeDocList(final DocList docList) {
+        final DocList sendingDocList = new DocList();
+        sendingDocList.addAll(docList);
+        sendingDocList.addContentSize(docList.getContentSize());
+        sendingDocList.addProcessingTime(docList.getProcessingTime());
+        docList.clear();
+        return sendingDocList;
+    }
+
+    protected void sendDocuments(final DocList sendingDocList) {
+        final long requestSize = getRequestSize(sendingDocList);
+        synchronized (sendLock) {
+            // one request is always accepted, even if it exceeds the limit by itself
+            while (pendingSendCount > 0 && inflightRequestSize + requestSize > maxInflightRequestSize) {
+                try {
+                    sendLock.wait(1000L);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new DataStoreException("Interrupted while waiting for " + pendingSendCount + " bulk requests.", e);
+                }
+            }
+            pendingSendCount++;
+            inflightRequestSize += requestSize;
+        }
+
+        try {
+            sendExecutor.execute(() -> {
+                try {
+                    addCountFields(sendingDocList);
+                    final IndexingHelper indexingHelper = ComponentUtil.getIndexingHelper();
+                    final FessEsClient fessEsClient = ComponentUtil.getFessEsClient();
+                    indexingHelper.sendDocumentsAsync(fessEsClient, sendingDocList, new ActionListener<BulkResponse>() {
+                        @Override
+                        public void onResponse(final BulkResponse response) {
+                            finishSending(requestSize);
+                        }
+
+                        @Override
+                        public void onFailure(final Throwable e) {
+                            logger.warn("Failed to send documents.", e);
+                            sendFailure.compareAndSet(null, e);
+                            finishSending(requestSize);
+                        }
+                    });
+                } catch (final Exception e) {
+                    logger.warn("Failed to send documents.", e);
+                    sendFailure.compareAndSet(null, e);
+                    finishSending(requestSize);
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            logger.warn("Failed to send documents.", e);
+            sendFailure.compareAndSet(null, e);
+            finishSending(requestSize);
+        }
+    }
+
+    protected void finishSending(final long requestSize) {
+        synchronized (sendLock) {
+            pendingSendCount--;
+            inflightRequestSize -= requestSize;
+            sendLock.notifyAll();
+        }
+    }
+
+    protected void waitForSentDocuments() {
+        synchronized (sendLock) {
+            while (pendingSendCount > 0) {
+                try {
+                    sendLock.wait(1000L);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new DataStoreException("Interrupted while waiting for " + pendingSendCount + " bulk requests.", e);
+                }
+            }
+        }
+        final Throwable t = sendFailure.getAndSet(null);
+        if (t != null) {
+            throw new DataStoreException("Failed to send documents.", t);
+        }
+    }
+
+    protected long getRequestSize(final DocList docList) {
+        long size = 0;
+        for (final Map<String, Object> doc : docList) {
+            for (final Object value : doc.values()) {
+                size += getValueSize(value);
+            }
+        }
+        return size;
+    }
+
+    protected long getValueSize(final Object value) {
+        if (value instanceof CharSequence) {
+            return getUtf8Length((CharSequence) value);
+        } else if (value instanceof Collection) {
+            long size = 0;
+            for (final Object obj : (Collection<?>) value) {
+                size += getValueSize(obj);
+            }
+            return size;
+        } else if (value instanceof Object[]) {
+            long size = 0;
+            for (final Object obj : (Object[]) value) {
+                size += getValueSize(obj);
+            }
+            return size;
+        }
+        return 8;
+    }
+
+    protected long getUtf8Length(final CharSequence value) {
+        final int length = value.length();
+        long size = length;
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            if (c >= 0x800) {
+                // a surrogate pair is 4 bytes in total
+                size += Character.isSurrogate(c) ? 1 : 2;
+            } else if (c >= 0x80) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    protected void addCountFields(final DocList docList) {
+        final FessConfig fessConfig = ComponentUtil.getFessConfig();
+        final boolean clickCountEnabled = fessConfig.getIndexerClickCountEnabledAsBoolean();
+        final boolean favoriteCountEnabled = fessConfig.getIndexerFavoriteCountEnabledAsBoolean();
+        if (!clickCountEnabled && !favoriteCountEnabled) {
+            return;
+        }
+
+        final List<String> urlList =
+                docList.stream().map(doc -> doc.get(fessConfig.getIndexFieldUrl()).toString()).collect(Collectors.toList());
+        final SearchLogHelper searchLogHelper = ComponentUtil.getSearchLogHelper();
+        if (clickCountEnabled) {
+            searchLogHelper.loadClickCounts(urlList);
+        }
+        if (favoriteCountEnabled) {
+            searchLogHelper.loadFavoriteCounts(urlList);
+        }
+
+        for (int i = 0; i < docList.size(); i++) {
+            final Map<String, Object> doc = docList.get(i);
+            final String url = urlList.get(i);
+            if (clickCountEnabled) {
+                addClickCountField(doc, url, fessConfig.getIndexFieldClickCount());
+            }
+            if (favoriteCountEnabled) {
+                addFavoriteCountField(doc, url, fessConfig.getIndexFieldFavoriteCount());
             }
         }
     }
@@ -150,7 +352,7 @@ public class IndexUpdateCallbackImpl implements IndexUpdateCallback {
 
     @Override
     public long getExecuteTime() {
-        return executeTime;
+        return executeTime.get();
     }
 
 }
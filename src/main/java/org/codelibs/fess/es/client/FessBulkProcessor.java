@@ -0,0 +1,331 @@
+/*
+ * Copyright 2012-2016 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.es.client;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.elasticsearch.ElasticsearchTimeoutException;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.bulk.BackoffPolicy;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends bulk requests asynchronously.
+ * A list of requests is split by the number of actions and the estimated size,
+ * at most concurrentRequests bulk requests are in flight at the same time,
+ * and items rejected by a full bulk queue are retried with exponential backoff.
+ * A caller which needs to wait for its requests tracks them by its listener.
+ */
+public class FessBulkProcessor {
+    private static final Logger logger = LoggerFactory.getLogger(FessBulkProcessor.class);
+
+    protected final Client client;
+
+    protected final int concurrentRequests;
+
+    protected final int bulkActions;
+
+    protected final long bulkSize;
+
+    protected final BackoffPolicy backoffPolicy;
+
+    protected final Semaphore semaphore;
+
+    protected final TimeValue acquireTimeout;
+
+    protected final AtomicInteger pendingCount = new AtomicInteger();
+
+    protected final Object pendingLock = new Object();
+
+    protected final ScheduledExecutorService scheduler;
+
+    protected final AtomicLong requestCount = new AtomicLong();
+
+    protected final AtomicLong retryCount = new AtomicLong();
+
+    protected final AtomicLong failureCount = new AtomicLong();
+
+    public FessBulkProcessor(final Client client, final int concurrentRequests, final int bulkActions, final long bulkSize,
+            final TimeValue initialDelay, final int maxRetries, final TimeValue acquireTimeout) {
+        this.client = client;
+        this.concurrentRequests = concurrentRequests > 0 ? concurrentRequests : 1;
+        this.bulkActions = bulkActions;
+        this.bulkSize = bulkSize;
+        backoffPolicy = BackoffPolicy.exponentialBackoff(initialDelay, maxRetries);
+        semaphore = new Semaphore(this.concurrentRequests);
+        this.acquireTimeout = acquireTimeout;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, "FessBulkProcessor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Sends the requests and notifies the listener when all of them are completed.
+     * This method blocks only while the number of in-flight bulk requests reaches the limit,
+     * and fails the listener if no request finishes within the acquire timeout.
+     *
+     * @param requests The index/delete requests.
+     * @param listener The listener called with the merged response or the first failure.
+     */
+    public void execute(@SuppressWarnings("rawtypes") final List<ActionRequest> requests, final ActionListener<BulkResponse> listener) {
+        final List<BulkRequest> bulkRequestList = new ArrayList<>();
+        BulkRequest bulkRequest = new BulkRequest();
+        for (@SuppressWarnings("rawtypes")
+        final ActionRequest request : requests) {
+            bulkRequest.add(request);
+            if ((bulkActions > 0 && bulkRequest.numberOfActions() >= bulkActions)
+                    || (bulkSize > 0 && bulkRequest.estimatedSizeInBytes() >= bulkSize)) {
+                bulkRequestList.add(bulkRequest);
+                bulkRequest = new BulkRequest();
+            }
+        }
+        if (bulkRequest.numberOfActions() > 0) {
+            bulkRequestList.add(bulkRequest);
+        }
+
+        if (bulkRequestList.isEmpty()) {
+            listener.onResponse(new BulkResponse(new BulkItemResponse[0], 0));
+            return;
+        }
+
+        final ResponseCollector collector = new ResponseCollector(bulkRequestList.size(), listener);
+        for (int i = 0; i < bulkRequestList.size(); i++) {
+            final int position = i;
+            try {
+                if (!semaphore.tryAcquire(acquireTimeout.millis(), TimeUnit.MILLISECONDS)) {
+                    failureCount.incrementAndGet();
+                    collector.onFailure(new ElasticsearchTimeoutException("No bulk request slot is available in " + acquireTimeout));
+                    return;
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                collector.onFailure(e);
+                return;
+            }
+            requestCount.incrementAndGet();
+            pendingCount.incrementAndGet();
+            send(bulkRequestList.get(i), backoffPolicy.iterator(), new ActionListener<BulkResponse>() {
+                @Override
+                public void onResponse(final BulkResponse response) {
+                    finishRequest();
+                    collector.onResponse(position, response);
+                }
+
+                @Override
+                public void onFailure(final Throwable e) {
+                    finishRequest();
+                    failureCount.incrementAndGet();
+                    collector.onFailure(e);
+                }
+            });
+        }
+    }
+
+    protected void finishRequest() {
+        semaphore.release();
+        if (pendingCount.decrementAndGet() == 0) {
+            synchronized (pendingLock) {
+                pendingLock.notifyAll();
+            }
+        }
+    }
+
+    protected void send(final BulkRequest bulkRequest, final Iterator<TimeValue> backoff, final ActionListener<BulkResponse> listener) {
+        client.bulk(bulkRequest, new ActionListener<BulkResponse>() {
+            @Override
+            public void onResponse(final BulkResponse response) {
+                if (!response.hasFailures() || !backoff.hasNext()) {
+                    listener.onResponse(response);
+                    return;
+                }
+
+                final BulkItemResponse[] items = response.getItems();
+                final BulkRequest retryRequest = new BulkRequest();
+                final List<Integer> retryPositionList = new ArrayList<>();
+                for (int i = 0; i < items.length; i++) {
+                    if (items[i].isFailed() && isRejected(items[i].getFailure().getCause())) {
+                        retryRequest.add(bulkRequest.requests().get(i));
+                        retryPositionList.add(i);
+                    }
+                }
+                if (retryPositionList.isEmpty()) {
+                    listener.onResponse(response);
+                    return;
+                }
+
+                final TimeValue delay = backoff.next();
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Retry " + retryPositionList.size() + " rejected items after " + delay);
+                }
+                retryCount.incrementAndGet();
+                schedule(delay, () -> send(retryRequest, backoff, new ActionListener<BulkResponse>() {
+                    @Override
+                    public void onResponse(final BulkResponse retryResponse) {
+                        final BulkItemResponse[] mergedItems = items.clone();
+                        final BulkItemResponse[] retryItems = retryResponse.getItems();
+                        for (int i = 0; i < retryItems.length && i < retryPositionList.size(); i++) {
+                            mergedItems[retryPositionList.get(i)] = retryItems[i];
+                        }
+                        listener.onResponse(new BulkResponse(mergedItems, response.getTookInMillis() + retryResponse.getTookInMillis()));
+                    }
+
+                    @Override
+                    public void onFailure(final Throwable e) {
+                        listener.onFailure(e);
+                    }
+                }), listener);
+            }
+
+            @Override
+            public void onFailure(final Throwable e) {
+                if (isRejected(e) && backoff.hasNext()) {
+                    final TimeValue delay = backoff.next();
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Retry a rejected bulk request after " + delay);
+                    }
+                    retryCount.incrementAndGet();
+                    schedule(delay, () -> send(bulkRequest, backoff, listener), listener);
+                } else {
+                    listener.onFailure(e);
+                }
+            }
+        });
+    }
+
+    protected void schedule(final TimeValue delay, final Runnable task, final ActionListener<BulkResponse> listener) {
+        try {
+            scheduler.schedule(task, delay.millis(), TimeUnit.MILLISECONDS);
+        } catch (final Exception e) {
+            listener.onFailure(e);
+        }
+    }
+
+    protected boolean isRejected(final Throwable t) {
+        return t != null && ExceptionsHelper.unwrapCause(t) instanceof EsRejectedExecutionException;
+    }
+
+    /**
+     * Waits until no bulk request of any caller is in flight, e.g. on shutdown.
+     * This method does not hold permits, so it never delays other senders.
+     *
+     * @param timeout The maximum time to wait.
+     * @param unit The time unit of the timeout.
+     * @return true if all requests are completed.
+     */
+    public boolean awaitCompletion(final long timeout, final TimeUnit unit) {
+        final long deadline = System.currentTimeMillis() + unit.toMillis(timeout);
+        synchronized (pendingLock) {
+            while (pendingCount.get() > 0) {
+                final long waitTime = deadline - System.currentTimeMillis();
+                if (waitTime <= 0) {
+                    return false;
+                }
+                try {
+                    pendingLock.wait(waitTime);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    public void close() {
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(10, TimeUnit.SECONDS)) {
+                scheduler.shutdownNow();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            scheduler.shutdownNow();
+        }
+    }
+
+    public int getInflightRequestCount() {
+        return pendingCount.get();
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+
+    protected static class ResponseCollector {
+        private final BulkResponse[] responses;
+
+        private final AtomicInteger remaining;
+
+        private final AtomicBoolean failed = new AtomicBoolean(false);
+
+        private final ActionListener<BulkResponse> listener;
+
+        protected ResponseCollector(final int size, final ActionListener<BulkResponse> listener) {
+            responses = new BulkResponse[size];
+            remaining = new AtomicInteger(size);
+            this.listener = listener;
+        }
+
+        protected void onResponse(final int position, final BulkResponse response) {
+            responses[position] = response;
+            if (remaining.decrementAndGet() == 0 && !failed.get()) {
+                final List<BulkItemResponse> itemList = new ArrayList<>();
+                long tookInMillis = 0;
+                for (final BulkResponse r : responses) {
+                    for (final BulkItemResponse item : r.getItems()) {
+                        itemList.add(item);
+                    }
+                    tookInMillis = Math.max(tookInMillis, r.getTookInMillis());
+                }
+                listener.onResponse(new BulkResponse(itemList.toArray(new BulkItemResponse[itemList.size()]), tookInMillis));
+            }
+        }
+
+        protected void onFailure(final Throwable e) {
+            if (failed.compareAndSet(false, true)) {
+                listener.onFailure(e);
+            }
+        }
+    }
+}
@@ -33,6 +33,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -200,6 +201,8 @@ public class FessEsClient implements Client {
 
     protected String scrollForDelete = "1m";
 
+    protected FessBulkProcessor bulkProcessor;
+
     public void addIndexConfig(final String path) {
         indexConfigList.add(path);
     }
@@ -289,6 +292,12 @@ public class FessEsClient implements Client {
             client = transportClient;
         }
 
+        bulkProcessor =
+                new FessBulkProcessor(client, fessConfig.getIndexBulkConcurrentRequestsAsInteger(),
+                        fessConfig.getIndexBulkMaxActionsAsInteger(), fessConfig.getIndexBulkMaxSizeAsLong(),
+                        TimeValue.timeValueMillis(fessConfig.getIndexBulkRetryInitialDelayAsInteger()),
+                        fessConfig.getIndexBulkRetryMaxCountAsInteger(), TimeValue.timeValueMillis(getBulkTimeoutMillis()));
+
         if (StringUtil.isBlank(transportAddressesValue)) {
             final StringBuilder buf = new StringBuilder();
             for (final TransportAddress transportAddress : transportAddressList) {
@@ -549,6 +558,12 @@ public class FessEsClient implements Client {
     @Override
     @PreDestroy
     public void close() {
+        if (bulkProcessor != null) {
+            if (!bulkProcessor.awaitCompletion(getBulkTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                logger.warn("Bulk requests are still in flight.");
+            }
+            bulkProcessor.close();
+        }
         try {
             client.admin().indices().prepareFlush().setForce(true).execute()
                     .actionGet(ComponentUtil.getFessConfig().getIndexIndicesTimeout());
@@ -855,17 +870,59 @@ public class FessEsClient implements Client {
     }
 
     public void addAll(final String index, final String type, final List<Map<String, Object>> docList) {
+        addAll(index, type, docList, Collections.emptyList());
+    }
+
+    public void addAll(final String index, final String type, final List<Map<String, Object>> docList, final List<String> deleteIdList) {
+        final BulkRequestBuilder bulkRequestBuilder = prepareBulkRequest(index, type, docList, deleteIdList);
+        final BulkResponse response = bulkRequestBuilder.execute().actionGet(ComponentUtil.getFessConfig().getIndexBulkTimeout());
+        checkBulkResponse(bulkRequestBuilder.request().requests(), response);
+    }
+
+    /**
+     * Sends documents and deletions asynchronously through the bulk processor.
+     * The listener receives FessEsClientException if any item failed.
+     */
+    public void addAllAsync(final String index, final String type, final List<Map<String, Object>> docList,
+            final List<String> deleteIdList, final ActionListener<BulkResponse> listener) {
+        @SuppressWarnings("rawtypes")
+        final List<ActionRequest> requests = prepareBulkRequest(index, type, docList, deleteIdList).request().requests();
+        bulkProcessor.execute(requests, new ActionListener<BulkResponse>() {
+            @Override
+            public void onResponse(final BulkResponse response) {
+                try {
+                    checkBulkResponse(requests, response);
+                } catch (final FessEsClientException e) {
+                    listener.onFailure(e);
+                    return;
+                }
+                listener.onResponse(response);
+            }
+
+            @Override
+            public void onFailure(final Throwable e) {
+                listener.onFailure(e);
+            }
+        });
+    }
+
+    protected BulkRequestBuilder prepareBulkRequest(final String index, final String type, final List<Map<String, Object>> docList,
+            final List<String> deleteIdList) {
         final FessConfig fessConfig = ComponentUtil.getFessConfig();
         final BulkRequestBuilder bulkRequestBuilder = client.prepareBulk();
+        for (final String id : deleteIdList) {
+            bulkRequestBuilder.add(client.prepareDelete(index, type, id));
+        }
         for (final Map<String, Object> doc : docList) {
             final Object id = doc.remove(fessConfig.getIndexFieldId());
             bulkRequestBuilder.add(client.prepareIndex(index, type, id.toString()).setSource(new DocMap(doc)));
         }
-        final BulkResponse response = bulkRequestBuilder.execute().actionGet(ComponentUtil.getFessConfig().getIndexBulkTimeout());
+        return bulkRequestBuilder;
+    }
+
+    protected void checkBulkResponse(@SuppressWarnings("rawtypes") final List<ActionRequest> requests, final BulkResponse response) {
         if (response.hasFailures()) {
             if (logger.isDebugEnabled()) {
-                @SuppressWarnings("rawtypes")
-                final List<ActionRequest> requests = bulkRequestBuilder.request().requests();
                 final BulkItemResponse[] items = response.getItems();
                 if (requests.size() == items.length) {
                     for (int i = 0; i < requests.size(); i++) {
@@ -883,6 +940,15 @@ public class FessEsClient implements Client {
         }
     }
 
+    protected long getBulkTimeoutMillis() {
+        final String timeout = ComponentUtil.getFessConfig().getIndexBulkTimeout();
+        return TimeValue.parseTimeValue(timeout, TimeValue.timeValueMinutes(3), "index.bulk.timeout").millis();
+    }
+
+    public FessBulkProcessor getBulkProcessor() {
+        return bulkProcessor;
+    }
+
     public static class SearchConditionBuilder {
         private final SearchRequestBuilder searchRequestBuilder;
         private String query;
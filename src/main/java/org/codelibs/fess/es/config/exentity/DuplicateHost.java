@@ -15,6 +15,8 @@
  */
 package org.codelibs.fess.es.config.exentity;
 
+import java.util.regex.Pattern;
+
 import org.codelibs.fess.es.config.bsentity.BsDuplicateHost;
 
 /**
@@ -24,6 +26,8 @@ public class DuplicateHost extends BsDuplicateHost {
 
     private static final long serialVersionUID = 1L;
 
+    private transient volatile HostPatterns hostPatterns;
+
     public String getId() {
         return asDocMeta().id();
     }
@@ -41,9 +45,13 @@ public class DuplicateHost extends BsDuplicateHost {
     }
 
     public String convert(final String url) {
-        final String targetStr = getDuplicateHostName().replaceAll("\\.", "\\\\.");
-        return url.replaceFirst("://" + targetStr + "$", "://" + getRegularName()).replaceFirst("://" + targetStr + "([:/])",
-                "://" + getRegularName() + "$1");
+        HostPatterns patterns = hostPatterns;
+        if (patterns == null) {
+            patterns = new HostPatterns(getDuplicateHostName().replaceAll("\\.", "\\\\."));
+            hostPatterns = patterns;
+        }
+        final String newUrl = patterns.lastHostPattern.matcher(url).replaceFirst("://" + getRegularName());
+        return patterns.hostPattern.matcher(newUrl).replaceFirst("://" + getRegularName() + "$1");
     }
 
     @Override
@@ -52,4 +60,15 @@ public class DuplicateHost extends BsDuplicateHost {
                 + ", regularName=" + regularName + ", sortOrder=" + sortOrder + ", updatedBy=" + updatedBy + ", updatedTime=" + updatedTime
                 + ", docMeta=" + docMeta + "]";
     }
+
+    private static class HostPatterns {
+        private final Pattern lastHostPattern;
+
+        private final Pattern hostPattern;
+
+        HostPatterns(final String targetStr) {
+            lastHostPattern = Pattern.compile("://" + targetStr + "$");
+            hostPattern = Pattern.compile("://" + targetStr + "([:/])");
+        }
+    }
 }
@@ -32,6 +32,8 @@ public class PathMapping extends BsPathMapping {
 
     private Pattern userAgentPattern;
 
+    private Pattern quotedValuePattern;
+
     public String getId() {
         return asDocMeta().id();
     }
@@ -55,6 +57,17 @@ public class PathMapping extends BsPathMapping {
         return regexPattern.matcher(input);
     }
 
+    public Matcher getQuotedValueMatcher(final CharSequence input) {
+        if (quotedValuePattern == null) {
+            quotedValuePattern = Pattern.compile("(\"[^\"]*)" + getRegex() + "([^\"]*\")");
+        }
+        return quotedValuePattern.matcher(input);
+    }
+
+    public String getQuotedValueReplacement() {
+        return "$1" + getReplacement() + "$2";
+    }
+
     public boolean hasUAMathcer() {
         return StringUtil.isNotBlank(getUserAgent());
     }
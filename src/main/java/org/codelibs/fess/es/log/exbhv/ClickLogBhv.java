@@ -22,4 +22,7 @@ import org.codelibs.fess.es.log.bsbhv.BsClickLogBhv;
  */
 public class ClickLogBhv extends BsClickLogBhv {
 
+    public String getSearchIndex() {
+        return asEsIndex();
+    }
 }
@@ -22,4 +22,7 @@ import org.codelibs.fess.es.log.bsbhv.BsFavoriteLogBhv;
  */
 public class FavoriteLogBhv extends BsFavoriteLogBhv {
 
+    public String getSearchIndex() {
+        return asEsIndex();
+    }
 }
@@ -16,10 +16,15 @@
 package org.codelibs.fess.es.log.exbhv;
 
 import org.codelibs.fess.es.log.bsbhv.BsSearchFieldLogBhv;
+import org.codelibs.fess.es.log.exentity.SearchFieldLog;
+import org.elasticsearch.action.index.IndexRequestBuilder;
 
 /**
  * @author FreeGen
  */
 public class SearchFieldLogBhv extends BsSearchFieldLogBhv {
 
+    public IndexRequestBuilder prepareInsertRequest(final SearchFieldLog entity) {
+        return createInsertRequest(entity);
+    }
 }
@@ -16,10 +16,15 @@
 package org.codelibs.fess.es.log.exbhv;
 
 import org.codelibs.fess.es.log.bsbhv.BsSearchLogBhv;
+import org.codelibs.fess.es.log.exentity.SearchLog;
+import org.elasticsearch.action.index.IndexRequestBuilder;
 
 /**
  * @author FreeGen
  */
 public class SearchLogBhv extends BsSearchLogBhv {
 
+    public IndexRequestBuilder prepareInsertRequest(final SearchLog entity) {
+        return createInsertRequest(entity);
+    }
 }
@@ -26,6 +26,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.annotation.Resource;
@@ -47,6 +48,7 @@ import org.codelibs.fess.helper.WebFsIndexHelper;
 import org.codelibs.fess.mylasta.direction.FessConfig;
 import org.codelibs.fess.mylasta.mail.CrawlerPostcard;
 import org.codelibs.fess.util.ComponentUtil;
+import org.codelibs.fess.util.GroovyUtil;
 import org.kohsuke.args4j.CmdLineException;
 import org.kohsuke.args4j.CmdLineParser;
 import org.kohsuke.args4j.Option;
@@ -57,6 +59,8 @@ import org.lastaflute.di.core.factory.SingletonLaContainerFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.cache.CacheStats;
+
 public class Crawler {
 
     private static final Logger logger = LoggerFactory.getLogger(Crawler.class);
@@ -422,6 +426,9 @@ public class Crawler {
 
             if (logger.isInfoEnabled()) {
                 logger.info("Finished Crawler");
+                final CacheStats scriptCacheStats = GroovyUtil.getCacheStats();
+                logger.info("[SCRIPT CACHE] hit: " + scriptCacheStats.hitCount() + ", miss: " + scriptCacheStats.missCount()
+                        + ", compile time: " + TimeUnit.NANOSECONDS.toMillis(scriptCacheStats.totalLoadTime()) + "ms");
             }
             completed = true;
 
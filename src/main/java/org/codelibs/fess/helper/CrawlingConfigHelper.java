@@ -15,26 +15,91 @@
  */
 package org.codelibs.fess.helper;
 
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
 
 import org.codelibs.fess.app.service.DataConfigService;
 import org.codelibs.fess.app.service.FileConfigService;
 import org.codelibs.fess.app.service.WebConfigService;
+import org.codelibs.fess.crawler.client.CrawlerClient;
+import org.codelibs.fess.crawler.client.CrawlerClientFactory;
 import org.codelibs.fess.es.config.exentity.CrawlingConfig;
 import org.codelibs.fess.es.config.exentity.CrawlingConfig.ConfigType;
+import org.codelibs.fess.exception.FessSystemException;
+import org.codelibs.fess.mylasta.direction.FessConfig;
 import org.codelibs.fess.util.ComponentUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
 public class CrawlingConfigHelper {
 
     private static final Logger logger = LoggerFactory.getLogger(CrawlingConfigHelper.class);
 
+    private static final String[] CLIENT_URL_PREFIXES = { "http://", "https://", "file:/", "smb://", "ftp://" };
+
     protected final Map<String, CrawlingConfig> crawlingConfigMap = new ConcurrentHashMap<>();
 
     protected int count = 1;
 
+    protected Cache<String, CrawlerClientFactoryEntry> crawlerClientFactoryCache;
+
+    @PostConstruct
+    public void init() {
+        final FessConfig fessConfig = ComponentUtil.getFessConfig();
+        crawlerClientFactoryCache =
+                CacheBuilder.newBuilder().maximumSize(fessConfig.getCrawlerClientFactoryCacheSizeAsInteger().longValue())
+                        .expireAfterAccess(fessConfig.getCrawlerClientFactoryCacheExpireAsLong().longValue(), TimeUnit.SECONDS)
+                        .<String, CrawlerClientFactoryEntry> removalListener(this::removeCrawlerClientFactory).build();
+    }
+
+    protected void removeCrawlerClientFactory(final RemovalNotification<String, CrawlerClientFactoryEntry> notification) {
+        final CrawlerClientFactoryEntry entry = notification.getValue();
+        if (entry == null) {
+            return;
+        }
+        final boolean unused;
+        synchronized (entry) {
+            entry.removed = true;
+            unused = entry.referenceCount == 0;
+        }
+        // a factory in use is closed when the last request releases it
+        if (unused) {
+            closeCrawlerClientFactory(entry.configId, entry.crawlerClientFactory);
+        }
+    }
+
+    protected void closeCrawlerClientFactory(final String configId, final CrawlerClientFactory crawlerClientFactory) {
+        try {
+            if (crawlerClientFactory instanceof AutoCloseable) {
+                ((AutoCloseable) crawlerClientFactory).close();
+            } else {
+                // clients are registered by url schemes
+                final Map<CrawlerClient, Boolean> clientMap = new IdentityHashMap<>();
+                for (final String prefix : CLIENT_URL_PREFIXES) {
+                    final CrawlerClient client = crawlerClientFactory.getClient(prefix);
+                    if (client instanceof AutoCloseable && clientMap.put(client, Boolean.TRUE) == null) {
+                        ((AutoCloseable) client).close();
+                    }
+                }
+            }
+            if (logger.isDebugEnabled()) {
+                logger.debug("Closed CrawlerClientFactory for " + configId);
+            }
+        } catch (final Exception e) {
+            logger.warn("Failed to close CrawlerClientFactory for " + configId, e);
+        }
+    }
+
     public ConfigType getConfigType(final String configId) {
         if (configId == null || configId.length() < 2) {
             return null;
@@ -81,6 +146,61 @@ public class CrawlingConfigHelper {
         }
     }
 
+    /**
+     * Returns a client factory initialized with the crawling config of the config id.
+     * Factories are cached until they are not accessed for a while or any crawling config is updated,
+     * and the returned entry must be released by {@link #releaseCrawlerClientFactory(CrawlerClientFactoryEntry)}.
+     */
+    public CrawlerClientFactoryEntry acquireCrawlerClientFactory(final String configId) {
+        while (true) {
+            final CrawlerClientFactoryEntry entry;
+            try {
+                entry = crawlerClientFactoryCache.get(configId, () -> new CrawlerClientFactoryEntry(configId,
+                        createCrawlerClientFactory(configId)));
+            } catch (final ExecutionException | UncheckedExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new FessSystemException("Failed to initialize CrawlerClientFactory for " + configId, e.getCause());
+            }
+            synchronized (entry) {
+                if (!entry.removed) {
+                    entry.referenceCount++;
+                    return entry;
+                }
+            }
+            // removed between get and acquisition, so a new factory is loaded
+        }
+    }
+
+    public void releaseCrawlerClientFactory(final CrawlerClientFactoryEntry entry) {
+        final boolean closing;
+        synchronized (entry) {
+            entry.referenceCount--;
+            closing = entry.removed && entry.referenceCount == 0;
+        }
+        if (closing) {
+            closeCrawlerClientFactory(entry.configId, entry.crawlerClientFactory);
+        }
+    }
+
+    protected CrawlerClientFactory createCrawlerClientFactory(final String configId) {
+        final CrawlingConfig config = getCrawlingConfig(configId);
+        if (config == null) {
+            throw new FessSystemException("No crawlingConfig: " + configId);
+        }
+        final CrawlerClientFactory crawlerClientFactory = ComponentUtil.getCrawlerClientFactory();
+        config.initializeClientFactory(crawlerClientFactory);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Initialized CrawlerClientFactory for " + configId);
+        }
+        return crawlerClientFactory;
+    }
+
+    public void clearCrawlerClientFactoryCache() {
+        crawlerClientFactoryCache.invalidateAll();
+    }
+
     public synchronized String store(final String sessionId, final CrawlingConfig crawlingConfig) {
         final String sessionCountId = sessionId + "-" + count;
         crawlingConfigMap.put(sessionCountId, crawlingConfig);
@@ -96,4 +216,24 @@ public class CrawlingConfigHelper {
         return crawlingConfigMap.get(sessionId);
     }
 
+    public static class CrawlerClientFactoryEntry {
+        protected final String configId;
+
+        protected final CrawlerClientFactory crawlerClientFactory;
+
+        // guarded by this entry
+        protected int referenceCount = 0;
+
+        protected boolean removed = false;
+
+        protected CrawlerClientFactoryEntry(final String configId, final CrawlerClientFactory crawlerClientFactory) {
+            this.configId = configId;
+            this.crawlerClientFactory = crawlerClientFactory;
+        }
+
+        public CrawlerClientFactory getCrawlerClientFactory() {
+            return crawlerClientFactory;
+        }
+    }
+
 }
@@ -90,7 +90,8 @@ public class DataIndexHelper {
 
         final long startTime = System.currentTimeMillis();
 
-        final IndexUpdateCallback indexUpdateCallback = ComponentUtil.getComponent(IndexUpdateCallback.class);
+        // each config commits its own pending documents and failures
+        final List<IndexUpdateCallback> indexUpdateCallbackList = new ArrayList<>();
 
         final List<String> sessionIdList = new ArrayList<>();
         final Map<String, String> initParamMap = new HashMap<>();
@@ -103,6 +104,9 @@ public class DataIndexHelper {
             initParamMap.put(Constants.SESSION_ID, sessionId);
             initParamMap.put(Constants.CRAWLING_INFO_ID, sid);
 
+            final IndexUpdateCallback indexUpdateCallback = ComponentUtil.getComponent(IndexUpdateCallback.class);
+            indexUpdateCallbackList.add(indexUpdateCallback);
+
             final DataCrawlingThread dataCrawlingThread = new DataCrawlingThread(dataConfig, indexUpdateCallback, initParamMap);
             dataCrawlingThread.setPriority(crawlerPriority);
             dataCrawlingThread.setName(sid);
@@ -184,8 +188,10 @@ public class DataIndexHelper {
             logger.info("[EXEC TIME] crawling time: " + execTime + "ms");
         }
 
-        crawlingInfoHelper.putToInfoMap(Constants.DATA_INDEX_EXEC_TIME, Long.toString(indexUpdateCallback.getExecuteTime()));
-        crawlingInfoHelper.putToInfoMap(Constants.DATA_INDEX_SIZE, Long.toString(indexUpdateCallback.getDocumentSize()));
+        crawlingInfoHelper.putToInfoMap(Constants.DATA_INDEX_EXEC_TIME,
+                Long.toString(indexUpdateCallbackList.stream().mapToLong(IndexUpdateCallback::getExecuteTime).sum()));
+        crawlingInfoHelper.putToInfoMap(Constants.DATA_INDEX_SIZE,
+                Long.toString(indexUpdateCallbackList.stream().mapToLong(IndexUpdateCallback::getDocumentSize).sum()));
 
         for (final String sid : sessionIdList) {
             // remove config
@@ -239,7 +245,13 @@ public class DataIndexHelper {
                     ComponentUtil.getComponent(FailureUrlService.class).store(dataConfig, e.getClass().getCanonicalName(),
                             dataConfig.getConfigId() + ":" + dataConfig.getName(), e);
                 } finally {
-                    indexUpdateCallback.commit();
+                    try {
+                        indexUpdateCallback.commit();
+                    } catch (final Throwable e) {
+                        logger.error("Failed to index documents: " + dataConfig.getName(), e);
+                        ComponentUtil.getComponent(FailureUrlService.class).store(dataConfig, e.getClass().getCanonicalName(),
+                                dataConfig.getConfigId() + ":" + dataConfig.getName(), e);
+                    }
                     deleteOldDocs();
                 }
             }
@@ -23,7 +23,6 @@ import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.lang3.StringUtils;
-import org.codelibs.core.io.SerializeUtil;
 import org.codelibs.core.lang.StringUtil;
 import org.codelibs.fess.crawler.builder.RequestDataBuilder;
 import org.codelibs.fess.crawler.client.CrawlerClient;
@@ -43,6 +42,7 @@ import org.codelibs.fess.crawler.util.TextUtil;
 import org.codelibs.fess.es.config.exentity.CrawlingConfig;
 import org.codelibs.fess.mylasta.direction.FessConfig;
 import org.codelibs.fess.util.ComponentUtil;
+import org.codelibs.fess.util.DocumentDataUtil;
 import org.lastaflute.di.core.SingletonLaContainer;
 
 public class DocumentHelper {
@@ -140,7 +140,7 @@ public class DocumentHelper {
                     if (data != null) {
                         try {
                             @SuppressWarnings("unchecked")
-                            final Map<String, Object> result = (Map<String, Object>) SerializeUtil.fromBinaryToObject(data);
+                            final Map<String, Object> result = (Map<String, Object>) DocumentDataUtil.fromBinary(data);
                             return result;
                         } catch (final Exception e) {
                             throw new CrawlerSystemException("Could not create an instance from bytes.", e);
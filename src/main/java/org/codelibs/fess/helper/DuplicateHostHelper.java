@@ -16,7 +16,10 @@
 package org.codelibs.fess.helper;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
 
 import javax.annotation.PostConstruct;
 
@@ -26,37 +29,113 @@ import org.codelibs.fess.util.ComponentUtil;
 
 public class DuplicateHostHelper {
 
+    private static final Pattern HOST_NAME_PATTERN = Pattern.compile("[^\\[\\](){}*+?^$|\\\\:/]+");
+
     protected List<DuplicateHost> duplicateHostList;
 
+    protected volatile DuplicateHostIndex duplicateHostIndex;
+
     @PostConstruct
     public void init() {
-        if (duplicateHostList == null) {
-            duplicateHostList = new ArrayList<>();
-        }
         final DuplicateHostService duplicateHostService = ComponentUtil.getComponent(DuplicateHostService.class);
-        duplicateHostList.addAll(duplicateHostService.getDuplicateHostList());
+        setDuplicateHostList(duplicateHostService.getDuplicateHostList());
     }
 
     public void setDuplicateHostList(final List<DuplicateHost> duplicateHostList) {
-        this.duplicateHostList = duplicateHostList;
+        final List<DuplicateHost> list = duplicateHostList == null ? new ArrayList<>() : new ArrayList<>(duplicateHostList);
+        this.duplicateHostList = list;
+        duplicateHostIndex = new DuplicateHostIndex(list);
     }
 
-    public void add(final DuplicateHost duplicateHost) {
-        if (duplicateHostList == null) {
-            duplicateHostList = new ArrayList<>();
-        }
-        duplicateHostList.add(duplicateHost);
+    public synchronized void add(final DuplicateHost duplicateHost) {
+        final List<DuplicateHost> list = duplicateHostList == null ? new ArrayList<>() : new ArrayList<>(duplicateHostList);
+        list.add(duplicateHost);
+        duplicateHostList = list;
+        duplicateHostIndex = new DuplicateHostIndex(list);
     }
 
     public String convert(final String url) {
-        if (duplicateHostList == null) {
+        if (duplicateHostIndex == null) {
             init();
         }
 
+        final DuplicateHostIndex index = duplicateHostIndex;
         String newUrl = url;
-        for (final DuplicateHost duplicateHost : duplicateHostList) {
-            newUrl = duplicateHost.convert(newUrl);
+        int position = 0;
+        while (true) {
+            final int next = index.nextRule(newUrl, position);
+            if (next == -1) {
+                break;
+            }
+            newUrl = index.getRule(next).convert(newUrl);
+            position = next + 1;
         }
         return newUrl;
     }
+
+    /**
+     * Keeps rules in their order and finds, by host names of a URL, the next rule which can change it.
+     */
+    protected static class DuplicateHostIndex {
+
+        private final List<DuplicateHost> ruleList;
+
+        private final Map<String, int[]> hostRuleMap = new HashMap<>();
+
+        private final int[] unindexedRules;
+
+        protected DuplicateHostIndex(final List<DuplicateHost> duplicateHostList) {
+            ruleList = duplicateHostList;
+            final Map<String, List<Integer>> ruleMap = new HashMap<>();
+            final List<Integer> unindexedList = new ArrayList<>();
+            for (int i = 0; i < ruleList.size(); i++) {
+                final String hostName = ruleList.get(i).getDuplicateHostName();
+                if (hostName != null && HOST_NAME_PATTERN.matcher(hostName).matches()) {
+                    ruleMap.computeIfAbsent(hostName, k -> new ArrayList<>()).add(i);
+                } else {
+                    unindexedList.add(i);
+                }
+            }
+            ruleMap.entrySet().forEach(e -> hostRuleMap.put(e.getKey(), toArray(e.getValue())));
+            unindexedRules = toArray(unindexedList);
+        }
+
+        private static int[] toArray(final List<Integer> list) {
+            return list.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        protected DuplicateHost getRule(final int index) {
+            return ruleList.get(index);
+        }
+
+        /**
+         * @return the smallest index of rules, not less than the position, which may match the URL, or -1.
+         */
+        protected int nextRule(final String url, final int position) {
+            int next = nextIndex(unindexedRules, position, -1);
+            int start = url.indexOf("://");
+            while (start != -1) {
+                start += 3;
+                int end = start;
+                while (end < url.length() && url.charAt(end) != ':' && url.charAt(end) != '/') {
+                    end++;
+                }
+                final int[] rules = hostRuleMap.get(url.substring(start, end));
+                if (rules != null) {
+                    next = nextIndex(rules, position, next);
+                }
+                start = url.indexOf("://", start);
+            }
+            return next;
+        }
+
+        private static int nextIndex(final int[] rules, final int position, final int current) {
+            for (final int rule : rules) {
+                if (rule >= position) {
+                    return current == -1 || rule < current ? rule : current;
+                }
+            }
+            return current;
+        }
+    }
 }
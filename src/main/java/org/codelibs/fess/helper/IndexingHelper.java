@@ -16,15 +16,21 @@
 package org.codelibs.fess.helper;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.codelibs.fess.es.client.FessEsClient;
 import org.codelibs.fess.mylasta.direction.FessConfig;
 import org.codelibs.fess.thumbnail.ThumbnailManager;
 import org.codelibs.fess.util.ComponentUtil;
 import org.codelibs.fess.util.DocList;
+import org.codelibs.fess.util.DocumentUtil;
 import org.codelibs.fess.util.MemoryUtil;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.count.CountResponse;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
@@ -34,6 +40,8 @@ import org.slf4j.LoggerFactory;
 public class IndexingHelper {
     private static final Logger logger = LoggerFactory.getLogger(IndexingHelper.class);
 
+    private static final char KEY_SEPARATOR = '\n';
+
     public int maxRetryCount = 5;
 
     public int defaultRowSize = 100;
@@ -50,33 +58,82 @@ public class IndexingHelper {
             logger.debug("Sending " + docList.size() + " documents to a server.");
         }
         try {
-            synchronized (fessEsClient) {
-                deleteOldDocuments(fessEsClient, docList);
-                fessEsClient.addAll(fessConfig.getIndexDocumentUpdateIndex(), fessConfig.getIndexDocumentType(), docList);
-            }
-            if (fessConfig.isThumbnailCrawlerEnabled()) {
-                final ThumbnailManager thumbnailManager = ComponentUtil.getThumbnailManager();
-                docList.stream().forEach(doc -> thumbnailManager.offer(doc));
-            }
-            if (logger.isInfoEnabled()) {
-                if (docList.getContentSize() > 0) {
-                    logger.info("Sent " + docList.size() + " docs (Doc:{process " + docList.getProcessingTime() + "ms, send "
-                            + (System.currentTimeMillis() - execTime) + "ms, size "
-                            + MemoryUtil.byteCountToDisplaySize(docList.getContentSize()) + "}, " + MemoryUtil.getMemoryUsageLog() + ")");
-                } else {
-                    logger.info("Sent " + docList.size() + " docs (Doc:{send " + (System.currentTimeMillis() - execTime) + "ms}, "
-                            + MemoryUtil.getMemoryUsageLog() + ")");
-                }
-            }
+            final List<String> oldIdList = getOldDocumentIdList(fessEsClient, docList);
+            fessEsClient.addAll(fessConfig.getIndexDocumentUpdateIndex(), fessConfig.getIndexDocumentType(), docList, oldIdList);
+            afterSendDocuments(docList, execTime);
         } finally {
             docList.clear();
         }
     }
 
-    private void deleteOldDocuments(final FessEsClient fessEsClient, final DocList docList) {
+    /**
+     * Sends documents without waiting for the bulk response.
+     * The document list is owned by this method and cleared after the response,
+     * so the caller must not reuse it.
+     */
+    public void sendDocumentsAsync(final FessEsClient fessEsClient, final DocList docList, final ActionListener<BulkResponse> listener) {
+        if (docList.isEmpty()) {
+            listener.onResponse(new BulkResponse(new BulkItemResponse[0], 0));
+            return;
+        }
+        final FessConfig fessConfig = ComponentUtil.getFessConfig();
+        final long execTime = System.currentTimeMillis();
+        if (logger.isDebugEnabled()) {
+            logger.debug("Sending " + docList.size() + " documents to a server asynchronously.");
+        }
+        final List<String> oldIdList;
+        try {
+            oldIdList = getOldDocumentIdList(fessEsClient, docList);
+        } catch (final Exception e) {
+            docList.clear();
+            listener.onFailure(e);
+            return;
+        }
+        fessEsClient.addAllAsync(fessConfig.getIndexDocumentUpdateIndex(), fessConfig.getIndexDocumentType(), docList, oldIdList,
+                new ActionListener<BulkResponse>() {
+                    @Override
+                    public void onResponse(final BulkResponse response) {
+                        try {
+                            afterSendDocuments(docList, execTime);
+                        } finally {
+                            docList.clear();
+                        }
+                        listener.onResponse(response);
+                    }
+
+                    @Override
+                    public void onFailure(final Throwable e) {
+                        docList.clear();
+                        listener.onFailure(e);
+                    }
+                });
+    }
+
+    protected void afterSendDocuments(final DocList docList, final long execTime) {
+        final FessConfig fessConfig = ComponentUtil.getFessConfig();
+        if (fessConfig.isThumbnailCrawlerEnabled()) {
+            final ThumbnailManager thumbnailManager = ComponentUtil.getThumbnailManager();
+            docList.stream().forEach(doc -> thumbnailManager.offer(doc));
+        }
+        if (logger.isInfoEnabled()) {
+            if (docList.getContentSize() > 0) {
+                logger.info("Sent " + docList.size() + " docs (Doc:{process " + docList.getProcessingTime() + "ms, send "
+                        + (System.currentTimeMillis() - execTime) + "ms, size "
+                        + MemoryUtil.byteCountToDisplaySize(docList.getContentSize()) + "}, " + MemoryUtil.getMemoryUsageLog() + ")");
+            } else {
+                logger.info("Sent " + docList.size() + " docs (Doc:{send " + (System.currentTimeMillis() - execTime) + "ms}, "
+                        + MemoryUtil.getMemoryUsageLog() + ")");
+            }
+        }
+    }
+
+    protected List<String> getOldDocumentIdList(final FessEsClient fessEsClient, final DocList docList) {
         final FessConfig fessConfig = ComponentUtil.getFessConfig();
 
-        final List<String> docIdList = new ArrayList<>();
+        final Set<String> idSet = new HashSet<>();
+        final Set<String> keySet = new HashSet<>();
+        final Set<String> urlSet = new HashSet<>();
+        final Set<String> configIdSet = new HashSet<>();
         for (final Map<String, Object> inputDoc : docList) {
             final Object idValue = inputDoc.get(fessConfig.getIndexFieldId());
             if (idValue == null) {
@@ -88,32 +145,40 @@ public class IndexingHelper {
                 continue;
             }
 
-            final QueryBuilder queryBuilder =
-                    QueryBuilders.boolQuery()
-                            .must(QueryBuilders.termQuery(fessConfig.getIndexFieldUrl(), inputDoc.get(fessConfig.getIndexFieldUrl())))
-                            .filter(QueryBuilders.termQuery(fessConfig.getIndexFieldConfigId(), configIdValue));
-
-            final List<Map<String, Object>> docs =
-                    getDocumentListByQuery(fessEsClient, queryBuilder,
-                            new String[] { fessConfig.getIndexFieldId(), fessConfig.getIndexFieldDocId() });
-            for (final Map<String, Object> doc : docs) {
-                final Object oldIdValue = doc.get(fessConfig.getIndexFieldId());
-                if (!idValue.equals(oldIdValue) && oldIdValue != null) {
-                    final Object oldDocIdValue = doc.get(fessConfig.getIndexFieldDocId());
-                    if (oldDocIdValue != null) {
-                        docIdList.add(oldDocIdValue.toString());
-                    }
-                }
-            }
-            if (logger.isDebugEnabled()) {
-                logger.debug(queryBuilder.toString() + " => " + docs);
+            final Object urlValue = inputDoc.get(fessConfig.getIndexFieldUrl());
+            if (urlValue == null) {
+                continue;
             }
+
+            idSet.add(idValue.toString());
+            urlSet.add(urlValue.toString());
+            configIdSet.add(configIdValue.toString());
+            keySet.add(urlValue.toString() + KEY_SEPARATOR + configIdValue.toString());
+        }
+
+        final List<String> oldIdList = new ArrayList<>();
+        if (keySet.isEmpty()) {
+            return oldIdList;
         }
-        if (!docIdList.isEmpty()) {
-            fessEsClient.deleteByQuery(fessConfig.getIndexDocumentUpdateIndex(), fessConfig.getIndexDocumentType(),
-                    QueryBuilders.idsQuery(fessConfig.getIndexDocumentType()).ids(docIdList.stream().toArray(n -> new String[n])));
 
+        final QueryBuilder queryBuilder =
+                QueryBuilders.boolQuery().filter(QueryBuilders.termsQuery(fessConfig.getIndexFieldUrl(), urlSet))
+                        .filter(QueryBuilders.termsQuery(fessConfig.getIndexFieldConfigId(), configIdSet));
+        final List<Map<String, Object>> docs =
+                getDocumentListByQuery(fessEsClient, queryBuilder, new String[] { fessConfig.getIndexFieldId(),
+                        fessConfig.getIndexFieldUrl(), fessConfig.getIndexFieldConfigId() });
+        for (final Map<String, Object> doc : docs) {
+            final String oldId = DocumentUtil.getValue(doc, fessConfig.getIndexFieldId(), String.class);
+            final String url = DocumentUtil.getValue(doc, fessConfig.getIndexFieldUrl(), String.class);
+            final String configId = DocumentUtil.getValue(doc, fessConfig.getIndexFieldConfigId(), String.class);
+            if (oldId != null && !idSet.contains(oldId) && keySet.contains(url + KEY_SEPARATOR + configId)) {
+                oldIdList.add(oldId);
+            }
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug(queryBuilder.toString() + " => " + oldIdList);
         }
+        return oldIdList;
     }
 
     public void deleteDocument(final FessEsClient fessEsClient, final String id) {
@@ -127,6 +192,12 @@ public class IndexingHelper {
                 QueryBuilders.termQuery(fessConfig.getIndexFieldUrl(), url));
     }
 
+    public int deleteDocumentsByUrl(final FessEsClient fessEsClient, final List<String> urlList) {
+        final FessConfig fessConfig = ComponentUtil.getFessConfig();
+        return fessEsClient.deleteByQuery(fessConfig.getIndexDocumentUpdateIndex(), fessConfig.getIndexDocumentType(),
+                QueryBuilders.termsQuery(fessConfig.getIndexFieldUrl(), urlList));
+    }
+
     public int deleteDocumentsByDocId(final FessEsClient fessEsClient, final List<String> docIdList) {
         final FessConfig fessConfig = ComponentUtil.getFessConfig();
         return fessEsClient.deleteByQuery(fessConfig.getIndexDocumentUpdateIndex(), fessConfig.getIndexDocumentType(), QueryBuilders
@@ -15,14 +15,23 @@
  */
 package org.codelibs.fess.helper;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
+import org.codelibs.core.lang.StringUtil;
 import org.codelibs.core.misc.Pair;
 import org.codelibs.fess.Constants;
 import org.codelibs.fess.app.service.KeyMatchService;
@@ -32,79 +41,265 @@ import org.codelibs.fess.es.client.FessEsClient.SearchConditionBuilder;
 import org.codelibs.fess.es.config.exentity.KeyMatch;
 import org.codelibs.fess.mylasta.direction.FessConfig;
 import org.codelibs.fess.util.ComponentUtil;
-import org.codelibs.fess.util.DocumentUtil;
+import org.elasticsearch.action.search.MultiSearchRequestBuilder;
+import org.elasticsearch.action.search.MultiSearchResponse;
+import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.elasticsearch.index.query.BoolQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.index.query.functionscore.FunctionScoreQueryBuilder;
 import org.elasticsearch.index.query.functionscore.ScoreFunctionBuilder;
 import org.elasticsearch.index.query.functionscore.ScoreFunctionBuilders;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHitField;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class KeyMatchHelper {
     private static final Logger logger = LoggerFactory.getLogger(KeyMatchHelper.class);
 
+    private static final int RELOAD_NONE = 0;
+
+    private static final int RELOAD_CHANGED = 1;
+
+    private static final int RELOAD_ALL = 2;
+
     protected volatile Map<String, Pair<QueryBuilder, ScoreFunctionBuilder>> keyMatchQueryMap = Collections.emptyMap();
 
+    protected volatile TermNode keyMatchTermTree = new TermNode();
+
+    protected volatile Map<String, KeyMatchEntry> keyMatchEntryMap = Collections.emptyMap();
+
     protected long reloadInterval = 1000L;
 
+    protected int reloadBatchSize = 20;
+
+    protected int reloadThreadSize = 2;
+
+    protected ExecutorService reloadExecutor;
+
+    protected ExecutorService searchExecutor;
+
+    protected final AtomicInteger pendingReload = new AtomicInteger(RELOAD_NONE);
+
+    protected volatile long lastReloadTime = 0;
+
+    protected volatile long lastReloadDuration = 0;
+
+    protected volatile int lastSearchedCount = 0;
+
+    protected volatile int lastReusedCount = 0;
+
     @PostConstruct
     public void init() {
-        reload(0);
+        reloadExecutor = Executors.newSingleThreadExecutor(r -> {
+            final Thread thread = new Thread(r, "KeyMatchReloader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final AtomicInteger threadNumber = new AtomicInteger(1);
+        searchExecutor = Executors.newFixedThreadPool(reloadThreadSize, r -> {
+            final Thread thread = new Thread(r, "KeyMatchSearcher-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        reload(true, 0);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (reloadExecutor != null) {
+            reloadExecutor.shutdownNow();
+        }
+        if (searchExecutor != null) {
+            searchExecutor.shutdownNow();
+        }
     }
 
+    /**
+     * Reloads all key matches in the background, for example after documents are crawled.
+     */
     public void update() {
-        new Thread(() -> reload(reloadInterval)).start();
+        requestReload(RELOAD_ALL);
     }
 
-    protected void reload(final long interval) {
-        final FessConfig fessConfig = ComponentUtil.getFessConfig();
+    /**
+     * Reloads added or modified key matches in the background, reusing the others.
+     */
+    public void updateChanged() {
+        requestReload(RELOAD_CHANGED);
+    }
+
+    protected void requestReload(final int mode) {
+        if (pendingReload.getAndAccumulate(mode, Math::max) == RELOAD_NONE) {
+            reloadExecutor.execute(() -> {
+                try {
+                    reload(pendingReload.getAndSet(RELOAD_NONE) == RELOAD_ALL, reloadInterval);
+                } catch (final Exception e) {
+                    logger.warn("Failed to reload key matches.", e);
+                }
+            });
+        }
+    }
+
+    protected void reload(final boolean all, final long interval) {
+        final long startTime = System.currentTimeMillis();
+        final List<KeyMatch> keyMatchList = getAvailableKeyMatchList();
+        final Map<String, KeyMatchEntry> currentEntryMap = keyMatchEntryMap;
+
+        final Map<String, KeyMatchEntry> entryMap = new HashMap<>(keyMatchList.size() * 2);
+        final List<KeyMatch> targetList = new ArrayList<>();
+        for (final KeyMatch keyMatch : keyMatchList) {
+            final KeyMatchEntry entry = currentEntryMap.get(keyMatch.getId());
+            if (!all && entry != null && entry.isSameVersion(keyMatch)) {
+                entryMap.put(keyMatch.getId(), entry);
+            } else {
+                targetList.add(keyMatch);
+            }
+        }
+        final int reusedCount = entryMap.size();
+
+        final List<Future<List<KeyMatchEntry>>> futureList = new ArrayList<>();
+        for (int i = 0; i < targetList.size(); i += reloadBatchSize) {
+            final List<KeyMatch> batchList = targetList.subList(i, Math.min(i + reloadBatchSize, targetList.size()));
+            futureList.add(searchExecutor.submit(() -> {
+                final List<KeyMatchEntry> entryList = searchKeyMatches(batchList);
+                if (interval > 0) {
+                    try {
+                        Thread.sleep(interval);
+                    } catch (final InterruptedException e) {
+                        if (logger.isDebugEnabled()) {
+                            logger.debug("Interrupted.", e);
+                        }
+                    }
+                }
+                return entryList;
+            }));
+        }
+        int searchedCount = 0;
+        for (final Future<List<KeyMatchEntry>> future : futureList) {
+            try {
+                for (final KeyMatchEntry entry : future.get()) {
+                    entryMap.put(entry.id, entry);
+                    searchedCount++;
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.warn("Interrupted while reloading key matches.");
+                return;
+            } catch (final Exception e) {
+                logger.warn("Failed to load key matches.", e);
+            }
+            if (logger.isDebugEnabled()) {
+                logger.debug("Loaded key matches: " + searchedCount + "/" + targetList.size());
+            }
+        }
+
+        // keep the previous queries of key matches that failed to be searched
+        int failedCount = 0;
+        for (final KeyMatch keyMatch : targetList) {
+            if (!entryMap.containsKey(keyMatch.getId())) {
+                failedCount++;
+                final KeyMatchEntry entry = currentEntryMap.get(keyMatch.getId());
+                if (entry != null) {
+                    entryMap.put(keyMatch.getId(), entry);
+                }
+            }
+        }
+
+        final Map<String, Pair<QueryBuilder, ScoreFunctionBuilder>> queryMap = new HashMap<>();
+        for (final KeyMatch keyMatch : keyMatchList) {
+            final KeyMatchEntry entry = entryMap.get(keyMatch.getId());
+            if (entry != null && entry.queryPair != null) {
+                queryMap.put(toLowerCase(keyMatch.getTerm()), entry.queryPair);
+            }
+        }
+        final TermNode termTree = new TermNode();
+        queryMap.entrySet().forEach(e -> termTree.add(splitTerm(e.getKey()), e.getValue()));
+
+        keyMatchEntryMap = entryMap;
+        keyMatchQueryMap = queryMap;
+        keyMatchTermTree = termTree;
+
+        lastReloadTime = startTime;
+        lastReloadDuration = System.currentTimeMillis() - startTime;
+        lastSearchedCount = searchedCount;
+        lastReusedCount = reusedCount;
+        logger.info("Reloaded key matches: " + queryMap.size() + " terms, " + searchedCount + " searched, " + reusedCount + " reused, "
+                + failedCount + " failed in " + lastReloadDuration + "ms");
+    }
+
+    protected List<KeyMatch> getAvailableKeyMatchList() {
         final KeyMatchService keyMatchService = ComponentUtil.getComponent(KeyMatchService.class);
-        final Map<String, Pair<QueryBuilder, ScoreFunctionBuilder>> keyMatchQueryMap = new HashMap<>();
-        keyMatchService
-                .getAvailableKeyMatchList()
-                .stream()
-                .forEach(
-                        keyMatch -> {
-                            final BoolQueryBuilder boolQuery = QueryBuilders.boolQuery();
-                            getDocumentList(keyMatch).stream().map(doc -> {
-                                return DocumentUtil.getValue(doc, fessConfig.getIndexFieldDocId(), String.class);
-                            }).forEach(docId -> {
-                                boolQuery.should(QueryBuilders.termQuery(fessConfig.getIndexFieldDocId(), docId));
-                            });
-
-                            if (boolQuery.hasClauses()) {
-                                keyMatchQueryMap.put(toLowerCase(keyMatch.getTerm()),
-                                        new Pair<>(boolQuery, ScoreFunctionBuilders.weightFactorFunction(keyMatch.getBoost())));
-                            }
-
-                            if (reloadInterval > 0) {
-                                try {
-                                    Thread.sleep(reloadInterval);
-                                } catch (final InterruptedException e) {
-                                    if (logger.isDebugEnabled()) {
-                                        logger.debug("Interrupted.", e);
-                                    }
-                                }
-                            }
-                        });
-        this.keyMatchQueryMap = keyMatchQueryMap;
-    }
-
-    protected List<Map<String, Object>> getDocumentList(final KeyMatch keyMatch) {
+        return keyMatchService.getAvailableKeyMatchList();
+    }
+
+    protected List<KeyMatchEntry> searchKeyMatches(final List<KeyMatch> keyMatchList) {
         final FessEsClient fessEsClient = ComponentUtil.getFessEsClient();
         final FessConfig fessConfig = ComponentUtil.getFessConfig();
-        final List<Map<String, Object>> documentList =
-                fessEsClient.getDocumentList(
-                        fessConfig.getIndexDocumentSearchIndex(),
-                        fessConfig.getIndexDocumentType(),
-                        searchRequestBuilder -> {
-                            return SearchConditionBuilder.builder(searchRequestBuilder.setPreference(Constants.SEARCH_PREFERENCE_PRIMARY))
-                                    .searchRequestType(SearchRequestType.ADMIN_SEARCH).size(keyMatch.getMaxSize())
-                                    .query(keyMatch.getQuery()).responseFields(new String[] { fessConfig.getIndexFieldDocId() }).build();
-                        });
-        return documentList;
+        final String docIdField = fessConfig.getIndexFieldDocId();
+        final List<KeyMatchEntry> entryList = new ArrayList<>(keyMatchList.size());
+        final List<KeyMatch> requestList = new ArrayList<>(keyMatchList.size());
+        final MultiSearchRequestBuilder multiSearchBuilder = fessEsClient.prepareMultiSearch();
+        for (final KeyMatch keyMatch : keyMatchList) {
+            final SearchRequestBuilder searchRequestBuilder =
+                    fessEsClient.prepareSearch(fessConfig.getIndexDocumentSearchIndex()).setTypes(fessConfig.getIndexDocumentType())
+                            .setPreference(Constants.SEARCH_PREFERENCE_PRIMARY);
+            try {
+                if (SearchConditionBuilder.builder(searchRequestBuilder).searchRequestType(SearchRequestType.ADMIN_SEARCH)
+                        .size(keyMatch.getMaxSize()).query(keyMatch.getQuery()).responseFields(new String[] { docIdField }).build()) {
+                    multiSearchBuilder.add(searchRequestBuilder);
+                    requestList.add(keyMatch);
+                } else {
+                    entryList.add(new KeyMatchEntry(keyMatch, null));
+                }
+            } catch (final Exception e) {
+                logger.warn("Failed to build a query of the key match: " + keyMatch.getTerm(), e);
+                entryList.add(new KeyMatchEntry(keyMatch, null));
+            }
+        }
+        if (requestList.isEmpty()) {
+            return entryList;
+        }
+
+        final MultiSearchResponse.Item[] items =
+                multiSearchBuilder.execute().actionGet(fessConfig.getIndexSearchTimeout()).getResponses();
+        for (int i = 0; i < items.length; i++) {
+            final KeyMatch keyMatch = requestList.get(i);
+            if (items[i].isFailure()) {
+                logger.warn("Failed to search documents of the key match: " + keyMatch.getTerm() + ", " + items[i].getFailureMessage());
+                continue;
+            }
+            final BoolQueryBuilder boolQuery = QueryBuilders.boolQuery();
+            for (final SearchHit hit : items[i].getResponse().getHits()) {
+                final String docId = getDocId(hit, docIdField);
+                if (docId != null) {
+                    boolQuery.should(QueryBuilders.termQuery(docIdField, docId));
+                }
+            }
+            if (boolQuery.hasClauses()) {
+                entryList.add(new KeyMatchEntry(keyMatch, new Pair<>(boolQuery, ScoreFunctionBuilders.weightFactorFunction(keyMatch
+                        .getBoost()))));
+            } else {
+                entryList.add(new KeyMatchEntry(keyMatch, null));
+            }
+        }
+        return entryList;
+    }
+
+    private String getDocId(final SearchHit hit, final String docIdField) {
+        final Map<String, SearchHitField> fields = hit.getFields();
+        if (fields != null) {
+            final SearchHitField field = fields.get(docIdField);
+            if (field != null && field.getValue() != null) {
+                return field.getValue().toString();
+            }
+        }
+        final Map<String, Object> source = hit.getSource();
+        if (source != null && source.get(docIdField) != null) {
+            return source.get(docIdField).toString();
+        }
+        return null;
     }
 
     public long getReloadInterval() {
@@ -115,17 +310,103 @@ public class KeyMatchHelper {
         this.reloadInterval = reloadInterval;
     }
 
+    public void setReloadBatchSize(final int reloadBatchSize) {
+        this.reloadBatchSize = reloadBatchSize;
+    }
+
+    public void setReloadThreadSize(final int reloadThreadSize) {
+        this.reloadThreadSize = reloadThreadSize;
+    }
+
+    public long getLastReloadTime() {
+        return lastReloadTime;
+    }
+
+    public long getLastReloadDuration() {
+        return lastReloadDuration;
+    }
+
+    public int getLastSearchedCount() {
+        return lastSearchedCount;
+    }
+
+    public int getLastReusedCount() {
+        return lastReusedCount;
+    }
+
+    public int getKeyMatchSize() {
+        return keyMatchQueryMap.size();
+    }
+
     public void buildQuery(final List<String> keywordList, final FunctionScoreQueryBuilder functionScoreQuery) {
-        keywordList.stream().forEach(keyword -> {
-            final Pair<QueryBuilder, ScoreFunctionBuilder> pair = keyMatchQueryMap.get(toLowerCase(keyword));
-            if (pair != null) {
-                functionScoreQuery.add(pair.getFirst(), pair.getSecond());
+        final TermNode termTree = keyMatchTermTree;
+        if (termTree.children.isEmpty()) {
+            return;
+        }
+
+        final List<String> tokenList = new ArrayList<>();
+        keywordList.stream().forEach(keyword -> Collections.addAll(tokenList, splitTerm(toLowerCase(keyword))));
+        final Set<Pair<QueryBuilder, ScoreFunctionBuilder>> addedSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < tokenList.size(); i++) {
+            TermNode node = termTree.children.get(tokenList.get(i));
+            for (int j = i + 1; node != null; j++) {
+                if (node.queryPair != null && addedSet.add(node.queryPair)) {
+                    functionScoreQuery.add(node.queryPair.getFirst(), node.queryPair.getSecond());
+                }
+                node = j < tokenList.size() ? node.children.get(tokenList.get(j)) : null;
             }
-        });
+        }
+    }
+
+    private String[] splitTerm(final String term) {
+        if (StringUtil.isBlank(term)) {
+            return new String[0];
+        }
+        return term.trim().split("\\s+");
     }
 
     private String toLowerCase(final String term) {
         return term != null ? term.toLowerCase(Locale.ROOT) : term;
     }
 
+    protected static class KeyMatchEntry {
+
+        protected final String id;
+
+        protected final Long versionNo;
+
+        protected final Pair<QueryBuilder, ScoreFunctionBuilder> queryPair;
+
+        protected KeyMatchEntry(final KeyMatch keyMatch, final Pair<QueryBuilder, ScoreFunctionBuilder> queryPair) {
+            this.id = keyMatch.getId();
+            this.versionNo = keyMatch.getVersionNo();
+            this.queryPair = queryPair;
+        }
+
+        protected boolean isSameVersion(final KeyMatch keyMatch) {
+            return versionNo != null && versionNo.equals(keyMatch.getVersionNo());
+        }
+    }
+
+    /**
+     * A tree of lower-cased term words, so that a term of several words matches consecutive keywords.
+     */
+    protected static class TermNode {
+
+        protected final Map<String, TermNode> children = new HashMap<>();
+
+        protected Pair<QueryBuilder, ScoreFunctionBuilder> queryPair;
+
+        protected void add(final String[] words, final Pair<QueryBuilder, ScoreFunctionBuilder> pair) {
+            if (words.length == 0) {
+                return;
+            }
+            TermNode node = this;
+            for (final String word : words) {
+                node = node.children.computeIfAbsent(word, k -> new TermNode());
+            }
+            node.queryPair = pair;
+        }
+    }
+
 }
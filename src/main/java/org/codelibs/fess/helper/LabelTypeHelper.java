@@ -21,6 +21,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -47,16 +48,18 @@ public class LabelTypeHelper {
 
     protected volatile List<LabelTypeItem> labelTypeItemList = new ArrayList<>();
 
-    protected volatile List<LabelTypePattern> labelTypePatternList;
+    protected volatile LabelTypePatternIndex labelTypePatternIndex;
 
     @PostConstruct
     public void init() {
         final List<LabelType> labelTypeList = ComponentUtil.getComponent(LabelTypeService.class).getLabelTypeList();
         buildLabelTypeItems(labelTypeList);
+        buildLabelTypePatternIndex(labelTypeList);
     }
 
     public void refresh(final List<LabelType> labelTypeList) {
         buildLabelTypeItems(labelTypeList);
+        buildLabelTypePatternIndex(labelTypeList);
     }
 
     private void buildLabelTypeItems(final List<LabelType> labelTypeList) {
@@ -105,36 +108,40 @@ public class LabelTypeHelper {
         return itemList;
     }
 
+    private void buildLabelTypePatternIndex(final List<LabelType> labelTypeList) {
+        final LabelTypePatternIndex index = new LabelTypePatternIndex();
+        for (final LabelType labelType : labelTypeList) {
+            final String includedPaths = labelType.getIncludedPaths();
+            final String excludedPaths = labelType.getExcludedPaths();
+            if (StringUtil.isNotBlank(includedPaths) || StringUtil.isNotBlank(excludedPaths)) {
+                try {
+                    index.add(new LabelTypePattern(labelType.getValue(), includedPaths, excludedPaths));
+                } catch (final Exception e) {
+                    logger.warn("Failed to create a matching pattern of a label: " + labelType.getValue() + ", includedPaths:"
+                            + includedPaths + ", excludedPaths:" + excludedPaths, e);
+                }
+            }
+        }
+        labelTypePatternIndex = index;
+    }
+
     public Set<String> getMatchedLabelValueSet(final String path) {
-        if (labelTypePatternList == null) {
+        if (labelTypePatternIndex == null) {
             synchronized (this) {
-                if (labelTypePatternList == null) {
-                    final List<LabelType> labelTypeList = ComponentUtil.getComponent(LabelTypeService.class).getLabelTypeList();
-                    final List<LabelTypePattern> list = new ArrayList<>();
-                    for (final LabelType labelType : labelTypeList) {
-                        final String includedPaths = labelType.getIncludedPaths();
-                        final String excludedPaths = labelType.getExcludedPaths();
-                        if (StringUtil.isNotBlank(includedPaths) || StringUtil.isNotBlank(excludedPaths)) {
-                            try {
-                                list.add(new LabelTypePattern(labelType.getValue(), includedPaths, excludedPaths));
-                            } catch (final Exception e) {
-                                logger.warn("Failed to create a matching pattern of a label: " + labelType.getValue() + ", includedPaths:"
-                                        + includedPaths + ", excludedPaths:" + excludedPaths, e);
-                            }
-                        }
-                    }
-                    labelTypePatternList = list;
+                if (labelTypePatternIndex == null) {
+                    buildLabelTypePatternIndex(ComponentUtil.getComponent(LabelTypeService.class).getLabelTypeList());
                 }
             }
         }
 
-        if (labelTypePatternList.isEmpty()) {
+        final LabelTypePatternIndex index = labelTypePatternIndex;
+        if (index.isEmpty()) {
             return Collections.emptySet();
         }
 
         final Set<String> valueSet = new HashSet<>();
-        for (final LabelTypePattern pattern : labelTypePatternList) {
-            if (pattern.match(path)) {
+        for (final LabelTypePattern pattern : index.getCandidates(path)) {
+            if (!valueSet.contains(pattern.getValue()) && pattern.match(path)) {
                 valueSet.add(pattern.getValue());
             }
         }
@@ -181,11 +188,14 @@ public class LabelTypeHelper {
 
         private Pattern excludedPaths;
 
+        private List<String> prefixList;
+
         public LabelTypePattern(final String value, final String includedPaths, final String excludedPaths) {
             this.value = value;
 
             if (StringUtil.isNotBlank(includedPaths)) {
                 final StringBuilder buf = new StringBuilder(100);
+                List<String> prefixes = new ArrayList<>();
                 char split = 0;
                 for (final String path : includedPaths.split("\n")) {
                     if (split == 0) {
@@ -194,8 +204,17 @@ public class LabelTypeHelper {
                         buf.append(split);
                     }
                     buf.append(path.trim());
+                    if (prefixes != null) {
+                        final String prefix = getLiteralPrefix(path.trim());
+                        if (StringUtil.isEmpty(prefix)) {
+                            prefixes = null;
+                        } else {
+                            prefixes.add(prefix);
+                        }
+                    }
                 }
                 this.includedPaths = Pattern.compile(buf.toString());
+                prefixList = prefixes;
             }
 
             if (StringUtil.isNotBlank(excludedPaths)) {
@@ -217,6 +236,13 @@ public class LabelTypeHelper {
             return value;
         }
 
+        /**
+         * @return literal prefixes one of which a matching path starts with, or null if any path can match.
+         */
+        public List<String> getPrefixList() {
+            return prefixList;
+        }
+
         public boolean match(final String path) {
             if (includedPaths != null) {
                 if (includedPaths.matcher(path).matches()) {
@@ -232,4 +258,88 @@ public class LabelTypeHelper {
         }
 
     }
+
+    protected static String getLiteralPrefix(final String regex) {
+        if (regex.indexOf('|') != -1) {
+            return null;
+        }
+        final StringBuilder buf = new StringBuilder(regex.length());
+        int i = regex.startsWith("^") ? 1 : 0;
+        for (; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                if (i + 1 >= regex.length()) {
+                    break;
+                }
+                c = regex.charAt(i + 1);
+                if (Character.isLetterOrDigit(c)) {
+                    // a character class such as \d or \Q
+                    break;
+                }
+                i++;
+            } else if ("[](){}.*+?^$".indexOf(c) != -1) {
+                break;
+            }
+            if (i + 1 < regex.length() && "?*{".indexOf(regex.charAt(i + 1)) != -1) {
+                // the character is optional
+                break;
+            }
+            buf.append(c);
+        }
+        return buf.toString();
+    }
+
+    /**
+     * Narrows label patterns to test for a path by a trie of their literal prefixes.
+     */
+    protected static class LabelTypePatternIndex {
+
+        private final List<LabelTypePattern> patternList = new ArrayList<>();
+
+        private final List<LabelTypePattern> unindexedPatternList = new ArrayList<>();
+
+        private final PrefixNode root = new PrefixNode();
+
+        public void add(final LabelTypePattern pattern) {
+            patternList.add(pattern);
+            final List<String> prefixList = pattern.getPrefixList();
+            if (prefixList == null) {
+                unindexedPatternList.add(pattern);
+                return;
+            }
+            for (final String prefix : prefixList) {
+                PrefixNode node = root;
+                for (int i = 0; i < prefix.length(); i++) {
+                    node = node.children.computeIfAbsent(prefix.charAt(i), c -> new PrefixNode());
+                }
+                if (!node.patternList.contains(pattern)) {
+                    node.patternList.add(pattern);
+                }
+            }
+        }
+
+        public boolean isEmpty() {
+            return patternList.isEmpty();
+        }
+
+        public Set<LabelTypePattern> getCandidates(final String path) {
+            final Set<LabelTypePattern> candidateSet = new LinkedHashSet<>(unindexedPatternList);
+            PrefixNode node = root;
+            for (int i = 0; i < path.length(); i++) {
+                node = node.children.get(path.charAt(i));
+                if (node == null) {
+                    break;
+                }
+                candidateSet.addAll(node.patternList);
+            }
+            return candidateSet;
+        }
+    }
+
+    protected static class PrefixNode {
+
+        protected final Map<Character, PrefixNode> children = new HashMap<>();
+
+        protected final List<LabelTypePattern> patternList = new ArrayList<>(1);
+    }
 }
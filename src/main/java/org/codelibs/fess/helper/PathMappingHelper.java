@@ -54,6 +54,10 @@ public class PathMappingHelper {
                 cb.query().setProcessType_InScope(ptList);
                 cb.fetchFirst(ComponentUtil.getFessConfig().getPagePathMappingMaxFetchSizeAsInteger());
             });
+            cachedPathMappingList.forEach(pathMapping -> {
+                pathMapping.getMatcher(StringUtil.EMPTY);
+                pathMapping.getQuotedValueMatcher(StringUtil.EMPTY);
+            });
         } catch (final Exception e) {
             logger.warn("Failed to load path mappings.", e);
         }
@@ -89,6 +93,19 @@ public class PathMappingHelper {
     }
 
     public String replaceUrls(final String text) {
+        final List<PathMapping> pathMappingList = getQuotedValueMappingList();
+        if (pathMappingList.isEmpty() || text == null) {
+            return text;
+        }
+
+        String result = text;
+        for (final PathMapping pathMapping : pathMappingList) {
+            result = pathMapping.getQuotedValueMatcher(result).replaceAll(pathMapping.getQuotedValueReplacement());
+        }
+        return result;
+    }
+
+    protected List<PathMapping> getQuotedValueMappingList() {
         if (cachedPathMappingList == null) {
             synchronized (this) {
                 if (cachedPathMappingList == null) {
@@ -96,14 +113,13 @@ public class PathMappingHelper {
                 }
             }
         }
-        String result = text;
+        final List<PathMapping> pathMappingList = new ArrayList<>(cachedPathMappingList.size());
         for (final PathMapping pathMapping : cachedPathMappingList) {
             if (matchUserAgent(pathMapping)) {
-                result =
-                        result.replaceAll("(\"[^\"]*)" + pathMapping.getRegex() + "([^\"]*\")", "$1" + pathMapping.getReplacement() + "$2");
+                pathMappingList.add(pathMapping);
             }
         }
-        return result;
+        return pathMappingList;
     }
 
     public String replaceUrl(final String url) {
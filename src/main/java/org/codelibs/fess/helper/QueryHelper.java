@@ -20,6 +20,8 @@ import static org.codelibs.core.stream.StreamUtil.stream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -27,6 +29,7 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.UUID;
 import java.util.function.Consumer;
+import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
 import javax.annotation.PostConstruct;
@@ -69,8 +72,15 @@ import org.elasticsearch.search.sort.SortBuilders;
 import org.elasticsearch.search.sort.SortOrder;
 import org.lastaflute.core.message.UserMessages;
 import org.lastaflute.web.util.LaRequestUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 
 public class QueryHelper {
+    private static final Logger logger = LoggerFactory.getLogger(QueryHelper.class);
 
     protected static final String SCORE_SORT_VALUE = "score";
 
@@ -78,6 +88,8 @@ public class QueryHelper {
 
     protected static final String INURL_FIELD = "inurl";
 
+    protected static final Pattern WHITESPACE_PATTERN = Pattern.compile("\\s+");
+
     @Resource
     protected FessConfig fessConfig;
 
@@ -134,6 +146,10 @@ public class QueryHelper {
 
     protected Map<String, String> fieldBoostMap = new HashMap<>();
 
+    protected Cache<String, CachedQueryContext> queryCache;
+
+    protected volatile String queryCacheSignature;
+
     @PostConstruct
     public void init() {
         if (responseFields == null) {
@@ -282,6 +298,10 @@ public class QueryHelper {
                     fessConfig.getIndexFieldUrl(), //
                     fessConfig.getIndexFieldVersion()));
         }
+        final int queryCacheSize = fessConfig.getQueryCacheSizeAsInteger().intValue();
+        if (queryCacheSize > 0) {
+            queryCache = CacheBuilder.newBuilder().maximumSize(queryCacheSize).recordStats().build();
+        }
     }
 
     public QueryContext build(final SearchRequestType searchRequestType, final String query, final Consumer<QueryContext> context) {
@@ -293,7 +313,7 @@ public class QueryHelper {
         }
 
         final QueryContext queryContext = new QueryContext(q, true);
-        buildBaseQuery(queryContext, context);
+        buildBaseQuery(queryContext, searchRequestType, context);
         buildBoostQuery(queryContext);
         buildRoleQuery(queryContext, searchRequestType);
 
@@ -328,19 +348,91 @@ public class QueryHelper {
     }
 
     public void buildBaseQuery(final QueryContext queryContext, final Consumer<QueryContext> context) {
+        buildBaseQuery(queryContext, null, context);
+    }
+
+    protected void buildBaseQuery(final QueryContext queryContext, final SearchRequestType searchRequestType,
+            final Consumer<QueryContext> context) {
+        getCachedQueryContext(queryContext.getQueryString(), searchRequestType).apply(queryContext);
+        // TODO options query
+        context.accept(queryContext);
+    }
+
+    protected CachedQueryContext getCachedQueryContext(final String queryString, final SearchRequestType searchRequestType) {
+        if (queryCache == null) {
+            return parseQuery(queryString);
+        }
+
+        final String signature = getQueryCacheSignature();
+        if (!signature.equals(queryCacheSignature)) {
+            if (queryCacheSignature != null) {
+                logger.info("Query boosts are changed. Clear the query cache.");
+            }
+            queryCache.invalidateAll();
+            queryCacheSignature = signature;
+        }
+
+        final String normalizedQuery = normalizeQuery(queryString);
+        final StringBuilder buf = new StringBuilder(normalizedQuery.length() + 50);
+        buf.append(searchRequestType != null ? searchRequestType.name() : StringUtil.EMPTY).append('\n');
+        getQueryLanguages().ifPresent(langs -> buf.append(String.join(",", langs)));
+        buf.append('\n').append(normalizedQuery);
+        final String key = buf.toString();
+
+        CachedQueryContext cachedContext = queryCache.getIfPresent(key);
+        if (cachedContext == null) {
+            cachedContext = parseQuery(normalizedQuery);
+            queryCache.put(key, cachedContext);
+        }
+        return cachedContext;
+    }
+
+    protected CachedQueryContext parseQuery(final String queryString) {
+        final CachedQueryContext cachedContext = new CachedQueryContext(queryString);
         try {
-            final Query query = getQueryParser().parse(queryContext.getQueryString());
-            final QueryBuilder queryBuilder = convertQuery(queryContext, query, 1.0f);
+            final Query query = getQueryParser().parse(queryString);
+            final QueryBuilder queryBuilder = convertQuery(cachedContext, query, 1.0f);
             if (queryBuilder != null) {
-                queryContext.setQueryBuilder(queryBuilder);
+                cachedContext.setQueryBuilder(queryBuilder);
             } else {
-                queryContext.setQueryBuilder(QueryBuilders.matchAllQuery());
+                cachedContext.setQueryBuilder(QueryBuilders.matchAllQuery());
             }
-            // TODO options query
-            context.accept(queryContext);
+            return cachedContext;
         } catch (final ParseException e) {
             throw new InvalidQueryException(messages -> messages.addErrorsInvalidQueryParseError(UserMessages.GLOBAL_PROPERTY_KEY),
-                    "Invalid query: " + queryContext.getQueryString(), e);
+                    "Invalid query: " + queryString, e);
+        }
+    }
+
+    protected String normalizeQuery(final String queryString) {
+        if (queryString == null) {
+            return StringUtil.EMPTY;
+        }
+        return WHITESPACE_PATTERN.matcher(queryString.trim()).replaceAll(" ");
+    }
+
+    protected String getQueryCacheSignature() {
+        return fessConfig.getQueryBoostTitle() + "," + fessConfig.getQueryBoostTitleLang() + "," + fessConfig.getQueryBoostContent() + ","
+                + fessConfig.getQueryBoostContentLang() + "," + fessConfig.getQueryReplaceTermWithPrefixQuery();
+    }
+
+    public CacheStats getQueryCacheStats() {
+        if (queryCache == null) {
+            return new CacheStats(0, 0, 0, 0, 0, 0);
+        }
+        return queryCache.stats();
+    }
+
+    public long getQueryCacheSize() {
+        if (queryCache == null) {
+            return 0;
+        }
+        return queryCache.size();
+    }
+
+    public void clearQueryCache() {
+        if (queryCache != null) {
+            queryCache.invalidateAll();
         }
     }
 
@@ -594,7 +686,7 @@ public class QueryHelper {
         QueryBuilder apply(String field, float boost);
     }
 
-    protected OptionalThing<String[]> getQueryLanguages() {
+    public OptionalThing<String[]> getQueryLanguages() {
         return LaRequestUtil.getOptionalRequest()
                 .map(request -> fessConfig.getQueryLanguages(request.getLocales(),
                         (String[]) request.getAttribute(Constants.REQUEST_LANGUAGES)));
@@ -884,4 +976,50 @@ public class QueryHelper {
         this.lowercaseWildcard = lowercaseWildcard;
     }
 
+
+    /**
+     * Keeps the result of parsing and converting a query string.
+     * Built query and sort builders are shared between requests and must not be modified.
+     */
+    protected static class CachedQueryContext extends QueryContext {
+        private final List<SortBuilder> sortBuilderList = new ArrayList<>();
+
+        private final Set<String> highlightedQuerySet = new LinkedHashSet<>();
+
+        private final Map<String, List<String>> fieldLogMap = new LinkedHashMap<>();
+
+        protected CachedQueryContext(final String queryString) {
+            super(queryString, false);
+        }
+
+        @Override
+        public void addSorts(final SortBuilder... sortBuilders) {
+            super.addSorts(sortBuilders);
+            stream(sortBuilders).of(stream -> stream.forEach(sortBuilder -> sortBuilderList.add(sortBuilder)));
+        }
+
+        @Override
+        public void addFieldLog(final String field, final String text) {
+            List<String> list = fieldLogMap.get(field);
+            if (list == null) {
+                list = new ArrayList<>();
+                fieldLogMap.put(field, list);
+            }
+            list.add(text);
+        }
+
+        @Override
+        public void addHighlightedQuery(final String text) {
+            highlightedQuerySet.add(text);
+        }
+
+        protected void apply(final QueryContext queryContext) {
+            queryContext.setQueryBuilder(getQueryBuilder());
+            if (!sortBuilderList.isEmpty()) {
+                queryContext.addSorts(sortBuilderList.toArray(new SortBuilder[sortBuilderList.size()]));
+            }
+            highlightedQuerySet.stream().forEach(queryContext::addHighlightedQuery);
+            fieldLogMap.entrySet().stream().forEach(e -> e.getValue().stream().forEach(text -> queryContext.addFieldLog(e.getKey(), text)));
+        }
+    }
 }
@@ -19,13 +19,21 @@ import static org.codelibs.core.stream.StreamUtil.stream;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.servlet.http.HttpServletRequest;
 
 import org.apache.commons.lang3.StringUtils;
@@ -34,6 +42,8 @@ import org.codelibs.core.lang.StringUtil;
 import org.codelibs.fess.Constants;
 import org.codelibs.fess.app.service.SearchService;
 import org.codelibs.fess.entity.SearchRequestParams;
+import org.codelibs.fess.es.log.bsentity.dbmeta.ClickLogDbm;
+import org.codelibs.fess.es.log.bsentity.dbmeta.FavoriteLogDbm;
 import org.codelibs.fess.es.log.exbhv.ClickLogBhv;
 import org.codelibs.fess.es.log.exbhv.FavoriteLogBhv;
 import org.codelibs.fess.es.log.exbhv.SearchFieldLogBhv;
@@ -49,12 +59,21 @@ import org.codelibs.fess.util.ComponentUtil;
 import org.codelibs.fess.util.DocumentUtil;
 import org.codelibs.fess.util.QueryResponseList;
 import org.dbflute.optional.OptionalThing;
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.script.Script;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.bucket.terms.Terms;
 import org.lastaflute.web.util.LaRequestUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 public class SearchLogHelper {
     private static final Logger logger = LoggerFactory.getLogger(SearchLogHelper.class);
 
@@ -62,15 +81,73 @@ public class SearchLogHelper {
 
     public int userInfoCacheSize = 1000;
 
-    protected volatile Queue<SearchLog> searchLogQueue = new ConcurrentLinkedQueue<>();
+    public long countCacheSize = 100000;
+
+    public long countCacheExpire = 60 * 60 * 1000L;// 1 hour
+
+    public int searchLogQueueStripeSize = 8;
+
+    public int searchLogQueueCapacity = 10000;
+
+    public int searchLogOverloadSamplingRate = 10;
+
+    public int searchLogFlushSize = 100;
+
+    public long searchLogFlushInterval = 1000L;
+
+    public int clickLogChunkSize = 1000;
+
+    public long recentQueryIdCacheSize = 100000;
+
+    public long recentQueryIdCacheExpire = 10 * 60 * 1000L;// 10 min
+
+    protected Queue<SearchLog>[] searchLogQueues;
+
+    protected final AtomicInteger searchLogQueueDepth = new AtomicInteger();
+
+    protected final AtomicLong searchLogOverloadCount = new AtomicLong();
+
+    protected final AtomicLong droppedSearchLogCount = new AtomicLong();
+
+    protected final AtomicLong searchLogFlushCount = new AtomicLong();
+
+    protected final AtomicLong searchLogFlushTime = new AtomicLong();
+
+    protected volatile long maxSearchLogFlushTime = 0;
+
+    protected final Object flushLock = new Object();
+
+    protected final Object flusherMonitor = new Object();
 
-    protected volatile Queue<ClickLog> clickLogQueue = new ConcurrentLinkedQueue<>();
+    protected volatile boolean flusherRunning = true;
+
+    protected volatile Thread flusherThread;
+
+    protected final Queue<ClickLog> clickLogQueue = new ConcurrentLinkedQueue<>();
 
     protected Map<String, Long> userInfoCache;
 
+    protected Cache<String, Long> clickCountCache;
+
+    protected Cache<String, Long> favoriteCountCache;
+
+    protected Cache<String, Boolean> recentQueryIdCache;
+
+    @SuppressWarnings("unchecked")
     @PostConstruct
     public void init() {
+        searchLogQueues = new Queue[searchLogQueueStripeSize > 0 ? searchLogQueueStripeSize : 1];
+        for (int i = 0; i < searchLogQueues.length; i++) {
+            searchLogQueues[i] = new ConcurrentLinkedQueue<>();
+        }
         userInfoCache = new LruHashMap<>(userInfoCacheSize);
+        clickCountCache =
+                CacheBuilder.newBuilder().maximumSize(countCacheSize).expireAfterWrite(countCacheExpire, TimeUnit.MILLISECONDS).build();
+        favoriteCountCache =
+                CacheBuilder.newBuilder().maximumSize(countCacheSize).expireAfterWrite(countCacheExpire, TimeUnit.MILLISECONDS).build();
+        recentQueryIdCache =
+                CacheBuilder.newBuilder().maximumSize(recentQueryIdCacheSize)
+                        .expireAfterWrite(recentQueryIdCacheExpire, TimeUnit.MILLISECONDS).build();
     }
 
     public void addSearchLog(final SearchRequestParams params, final LocalDateTime requestedTime, final String queryId, final String query,
@@ -132,7 +209,157 @@ public class SearchLogHelper {
             }
         }
 
-        searchLogQueue.add(searchLog);
+        offerSearchLog(searchLog);
+    }
+
+    protected void offerSearchLog(final SearchLog searchLog) {
+        final int depth = searchLogQueueDepth.get();
+        if (depth >= searchLogQueueCapacity) {
+            // overloaded: keep 1 of searchLogOverloadSamplingRate logs up to twice the capacity
+            final long overloadCount = searchLogOverloadCount.incrementAndGet();
+            if (depth >= searchLogQueueCapacity * 2L || searchLogOverloadSamplingRate <= 0
+                    || overloadCount % searchLogOverloadSamplingRate != 0) {
+                if (droppedSearchLogCount.getAndIncrement() % 1000 == 0) {
+                    logger.warn("Search log queue is full(" + depth + "). Dropped " + droppedSearchLogCount.get() + " search logs.");
+                }
+                wakeUpFlusher();
+                return;
+            }
+        }
+
+        if (flusherThread == null) {
+            startFlusher();
+        }
+        final int stripe = (int) (Thread.currentThread().getId() % searchLogQueues.length);
+        searchLogQueues[stripe].add(searchLog);
+        if (searchLogQueueDepth.incrementAndGet() >= searchLogFlushSize) {
+            wakeUpFlusher();
+        }
+    }
+
+    protected synchronized void startFlusher() {
+        // started on the first search log so that crawler and job processes do not run it
+        if (flusherThread == null && flusherRunning) {
+            final Thread thread = new Thread(this::flushSearchLogs, "SearchLogFlusher");
+            thread.setDaemon(true);
+            thread.start();
+            flusherThread = thread;
+        }
+    }
+
+    protected void requeueSearchLogs(final List<SearchLog> searchLogList) {
+        int dropped = 0;
+        for (final SearchLog searchLog : searchLogList) {
+            if (searchLogQueueDepth.get() >= searchLogQueueCapacity) {
+                dropped++;
+                continue;
+            }
+            final int stripe = (int) (Thread.currentThread().getId() % searchLogQueues.length);
+            searchLogQueues[stripe].add(searchLog);
+            searchLogQueueDepth.incrementAndGet();
+        }
+        if (dropped > 0) {
+            droppedSearchLogCount.addAndGet(dropped);
+            logger.warn("Search log queue is full. Dropped " + dropped + " search logs.");
+        }
+    }
+
+    protected void wakeUpFlusher() {
+        synchronized (flusherMonitor) {
+            flusherMonitor.notifyAll();
+        }
+    }
+
+    protected void flushSearchLogs() {
+        while (flusherRunning) {
+            try {
+                synchronized (flusherMonitor) {
+                    if (searchLogQueueDepth.get() < searchLogFlushSize) {
+                        flusherMonitor.wait(searchLogFlushInterval);
+                    }
+                }
+                if (searchLogQueueDepth.get() > 0) {
+                    storeSearchLogQueue();
+                }
+            } catch (final InterruptedException e) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Interrupted the search log flusher.");
+                }
+            } catch (final Exception e) {
+                logger.warn("Failed to store search logs.", e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        flusherRunning = false;
+        if (flusherThread != null) {
+            wakeUpFlusher();
+            try {
+                flusherThread.join(searchLogFlushInterval * 2);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            storeSearchLogQueue();
+        } catch (final Exception e) {
+            logger.warn("Failed to store search logs.", e);
+        }
+    }
+
+    protected List<SearchLog> drainSearchLogQueues() {
+        final List<SearchLog> searchLogList = new ArrayList<>();
+        for (final Queue<SearchLog> queue : searchLogQueues) {
+            SearchLog searchLog;
+            while ((searchLog = queue.poll()) != null) {
+                searchLogQueueDepth.decrementAndGet();
+                searchLogList.add(searchLog);
+            }
+        }
+        return searchLogList;
+    }
+
+    protected void storeSearchLogQueue() {
+        synchronized (flushLock) {
+            final List<SearchLog> searchLogList = drainSearchLogQueues();
+            if (searchLogList.isEmpty()) {
+                return;
+            }
+            final long startTime = System.currentTimeMillis();
+            processSearchLogQueue(searchLogList);
+            final long flushTime = System.currentTimeMillis() - startTime;
+            searchLogFlushCount.incrementAndGet();
+            searchLogFlushTime.addAndGet(flushTime);
+            if (flushTime > maxSearchLogFlushTime) {
+                maxSearchLogFlushTime = flushTime;
+            }
+            if (logger.isDebugEnabled()) {
+                logger.debug("Stored " + searchLogList.size() + " search logs in " + flushTime + "ms.");
+            }
+        }
+    }
+
+    public int getSearchLogQueueDepth() {
+        return searchLogQueueDepth.get();
+    }
+
+    public long getDroppedSearchLogCount() {
+        return droppedSearchLogCount.get();
+    }
+
+    public long getSearchLogFlushCount() {
+        return searchLogFlushCount.get();
+    }
+
+    public long getAverageSearchLogFlushTime() {
+        final long count = searchLogFlushCount.get();
+        return count > 0 ? searchLogFlushTime.get() / count : 0;
+    }
+
+    public long getMaxSearchLogFlushTime() {
+        return maxSearchLogFlushTime;
     }
 
     public void addClickLog(final ClickLog clickLog) {
@@ -140,31 +367,104 @@ public class SearchLogHelper {
     }
 
     public void storeSearchLog() {
-        if (!searchLogQueue.isEmpty()) {
-            final Queue<SearchLog> queue = searchLogQueue;
-            searchLogQueue = new ConcurrentLinkedQueue<>();
-            processSearchLogQueue(queue);
-        }
+        storeSearchLogQueue();
 
-        if (!clickLogQueue.isEmpty()) {
-            final Queue<ClickLog> queue = clickLogQueue;
-            clickLogQueue = new ConcurrentLinkedQueue<>();
+        final Queue<ClickLog> queue = new ConcurrentLinkedQueue<>();
+        ClickLog clickLog;
+        while ((clickLog = clickLogQueue.poll()) != null) {
+            queue.add(clickLog);
+        }
+        if (!queue.isEmpty()) {
             processClickLogQueue(queue);
         }
     }
 
     public int getClickCount(final String url) {
+        final Long cachedCount = clickCountCache.getIfPresent(url);
+        if (cachedCount != null) {
+            return cachedCount.intValue();
+        }
         final ClickLogBhv clickLogBhv = ComponentUtil.getComponent(ClickLogBhv.class);
-        return clickLogBhv.selectCount(cb -> {
+        final int count = clickLogBhv.selectCount(cb -> {
             cb.query().setUrl_Equal(url);
         });
+        clickCountCache.put(url, Long.valueOf(count));
+        return count;
     }
 
     public long getFavoriteCount(final String url) {
+        final Long cachedCount = favoriteCountCache.getIfPresent(url);
+        if (cachedCount != null) {
+            return cachedCount.longValue();
+        }
         final FavoriteLogBhv favoriteLogBhv = ComponentUtil.getComponent(FavoriteLogBhv.class);
-        return favoriteLogBhv.selectCount(cb -> {
+        final long count = favoriteLogBhv.selectCount(cb -> {
             cb.query().setUrl_Equal(url);
         });
+        favoriteCountCache.put(url, Long.valueOf(count));
+        return count;
+    }
+
+    public void loadClickCounts(final Collection<String> urls) {
+        final List<String> urlList = getUncachedUrlList(clickCountCache, urls);
+        if (urlList.isEmpty()) {
+            return;
+        }
+        try {
+            final ClickLogBhv clickLogBhv = ComponentUtil.getComponent(ClickLogBhv.class);
+            final Map<String, Long> countMap =
+                    selectCountMapByUrl(clickLogBhv.getSearchIndex(), clickLogBhv.asEsSearchType(), ClickLogDbm.getInstance().columnUrl()
+                            .getColumnDbName(), urlList);
+            urlList.stream().forEach(url -> clickCountCache.put(url, countMap.getOrDefault(url, 0L)));
+        } catch (final Exception e) {
+            logger.warn("Failed to load click counts.", e);
+        }
+    }
+
+    public void loadFavoriteCounts(final Collection<String> urls) {
+        final List<String> urlList = getUncachedUrlList(favoriteCountCache, urls);
+        if (urlList.isEmpty()) {
+            return;
+        }
+        try {
+            final FavoriteLogBhv favoriteLogBhv = ComponentUtil.getComponent(FavoriteLogBhv.class);
+            final Map<String, Long> countMap =
+                    selectCountMapByUrl(favoriteLogBhv.getSearchIndex(), favoriteLogBhv.asEsSearchType(), FavoriteLogDbm.getInstance()
+                            .columnUrl().getColumnDbName(), urlList);
+            urlList.stream().forEach(url -> favoriteCountCache.put(url, countMap.getOrDefault(url, 0L)));
+        } catch (final Exception e) {
+            logger.warn("Failed to load favorite counts.", e);
+        }
+    }
+
+    public void incrementFavoriteCount(final String url) {
+        if (url != null) {
+            favoriteCountCache.asMap().computeIfPresent(url, (k, v) -> v + 1);
+        }
+    }
+
+    protected Map<String, Long> selectCountMapByUrl(final String index, final String type, final String urlField,
+            final Collection<String> urls) {
+        final Map<String, Long> countMap = new HashMap<>(urls.size());
+        if (urls.isEmpty()) {
+            return countMap;
+        }
+
+        final SearchResponse response =
+                ComponentUtil.getFessEsClient().prepareSearch(index).setTypes(type).setSize(0)
+                        .setQuery(QueryBuilders.termsQuery(urlField, urls))
+                        .addAggregation(AggregationBuilders.terms(urlField).field(urlField).size(urls.size())).execute()
+                        .actionGet(ComponentUtil.getFessConfig().getIndexSearchTimeout());
+        final Terms terms = response.getAggregations().get(urlField);
+        for (final Terms.Bucket bucket : terms.getBuckets()) {
+            countMap.put(bucket.getKeyAsString(), bucket.getDocCount());
+        }
+        return countMap;
+    }
+
+    protected List<String> getUncachedUrlList(final Cache<String, Long> cache, final Collection<String> urls) {
+        return urls.stream().filter(url -> StringUtil.isNotBlank(url) && cache.getIfPresent(url) == null).distinct()
+                .collect(Collectors.toList());
     }
 
     public void updateUserInfo(final String userCode) {
@@ -191,7 +491,7 @@ public class SearchLogHelper {
         }
     }
 
-    protected void processSearchLogQueue(final Queue<SearchLog> queue) {
+    protected void processSearchLogQueue(final Collection<SearchLog> queue) {
         final FessConfig fessConfig = ComponentUtil.getFessConfig();
         final String value = fessConfig.getPurgeByBots();
         String[] botNames;
@@ -246,8 +546,7 @@ public class SearchLogHelper {
             });
         }
 
-        if (!searchLogList.isEmpty()) {
-            storeSearchLogList(searchLogList);
+        if (!searchLogList.isEmpty() && storeSearchLogList(searchLogList)) {
             if (fessConfig.isSuggestSearchLog()) {
                 final SuggestHelper suggestHelper = ComponentUtil.getSuggestHelper();
                 suggestHelper.indexFromSearchLog(searchLogList);
@@ -255,80 +554,163 @@ public class SearchLogHelper {
         }
     }
 
-    private void storeSearchLogList(final List<SearchLog> searchLogList) {
+    private boolean storeSearchLogList(final List<SearchLog> searchLogList) {
+        final FessConfig fessConfig = ComponentUtil.getFessConfig();
         final SearchLogBhv searchLogBhv = ComponentUtil.getComponent(SearchLogBhv.class);
         final SearchFieldLogBhv searchFieldLogBhv = ComponentUtil.getComponent(SearchFieldLogBhv.class);
-        searchLogBhv.batchUpdate(searchLogList, op -> {
-            op.setRefresh(true);
-        });
-        searchLogList.stream().forEach(searchLog -> {
-            final List<SearchFieldLog> fieldLogList = new ArrayList<>();
+        final QueryHelper queryHelper = ComponentUtil.getQueryHelper();
+        final BulkRequestBuilder bulkRequestBuilder = ComponentUtil.getFessEsClient().prepareBulk();
+        final int[] itemPositions = new int[searchLogList.size()];
+        for (int i = 0; i < searchLogList.size(); i++) {
+            final SearchLog searchLog = searchLogList.get(i);
+            if (searchLog.getId() == null) {
+                searchLog.setId(queryHelper.generateId());
+            }
+            itemPositions[i] = bulkRequestBuilder.numberOfActions();
+            bulkRequestBuilder.add(searchLogBhv.prepareInsertRequest(searchLog));
             searchLog.getSearchFieldLogList().stream().forEach(fieldLog -> {
                 fieldLog.setSearchLogId(searchLog.getId());
-                fieldLogList.add(fieldLog);
+                bulkRequestBuilder.add(searchFieldLogBhv.prepareInsertRequest(fieldLog));
             });
-            searchFieldLogBhv.batchInsert(fieldLogList);
-        });
+        }
+        final BulkResponse response;
+        try {
+            response = bulkRequestBuilder.execute().actionGet(fessConfig.getIndexBulkTimeout());
+        } catch (final Exception e) {
+            logger.warn("Failed to store " + searchLogList.size() + " search logs. They are queued again.", e);
+            requeueSearchLogs(searchLogList);
+            return false;
+        }
+        if (response.hasFailures()) {
+            logger.warn("Failed to store search logs: " + response.buildFailureMessage());
+        }
+        int failedCount = 0;
+        for (int i = 0; i < searchLogList.size(); i++) {
+            if (response.getItems()[itemPositions[i]].isFailed()) {
+                failedCount++;
+                continue;
+            }
+            final String queryId = searchLogList.get(i).getQueryId();
+            if (queryId != null) {
+                recentQueryIdCache.put(queryId, Boolean.TRUE);
+            }
+        }
+        if (failedCount > 0) {
+            droppedSearchLogCount.addAndGet(failedCount);
+        }
+        return true;
     }
 
     protected void processClickLogQueue(final Queue<ClickLog> queue) {
         final Map<String, Integer> clickCountMap = new HashMap<>();
-        final List<ClickLog> clickLogList = new ArrayList<>();
+        final List<ClickLog> chunk = new ArrayList<>(clickLogChunkSize);
         for (final ClickLog clickLog : queue) {
-            try {
-                final SearchLogBhv searchLogBhv = ComponentUtil.getComponent(SearchLogBhv.class);
-                searchLogBhv.selectEntity(cb -> {
-                    cb.query().setQueryId_Equal(clickLog.getQueryId());
-                }).ifPresent(entity -> {
-                    clickLogList.add(clickLog);
-                    final String docId = clickLog.getDocId();
-                    Integer countObj = clickCountMap.get(docId);
-                    if (countObj == null) {
-                        countObj = Integer.valueOf(1);
-                    } else {
-                        countObj = countObj.intValue() + 1;
-                    }
-                    clickCountMap.put(docId, countObj);
-                }).orElse(() -> {
-                    logger.warn("Not Found for SearchLog: " + clickLog);
-                });
-            } catch (final Exception e) {
-                logger.warn("Failed to process: " + clickLog, e);
+            chunk.add(clickLog);
+            if (chunk.size() >= clickLogChunkSize) {
+                processClickLogChunk(chunk, clickCountMap);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            processClickLogChunk(chunk, clickCountMap);
+        }
+
+        if (!clickCountMap.isEmpty()) {
+            updateClickCounts(clickCountMap);
+        }
+    }
+
+    protected void processClickLogChunk(final List<ClickLog> chunk, final Map<String, Integer> clickCountMap) {
+        final Set<String> queryIdSet;
+        try {
+            queryIdSet = resolveQueryIds(chunk);
+        } catch (final Exception e) {
+            logger.warn("Failed to resolve search logs for " + chunk.size() + " click logs.", e);
+            return;
+        }
+
+        final List<ClickLog> clickLogList = new ArrayList<>(chunk.size());
+        for (final ClickLog clickLog : chunk) {
+            if (queryIdSet.contains(clickLog.getQueryId())) {
+                clickLogList.add(clickLog);
+                final String docId = clickLog.getDocId();
+                if (docId != null) {
+                    clickCountMap.merge(docId, 1, Integer::sum);
+                }
+            } else {
+                logger.warn("Not Found for SearchLog: " + clickLog);
             }
         }
+
         if (!clickLogList.isEmpty()) {
             try {
                 final ClickLogBhv clickLogBhv = ComponentUtil.getComponent(ClickLogBhv.class);
                 clickLogBhv.batchInsert(clickLogList);
+                clickLogList.stream().filter(clickLog -> clickLog.getUrl() != null).forEach(clickLog -> {
+                    clickCountCache.asMap().computeIfPresent(clickLog.getUrl(), (k, v) -> v + 1);
+                });
             } catch (final Exception e) {
                 logger.warn("Failed to insert: " + clickLogList, e);
             }
         }
+    }
 
-        if (!clickCountMap.isEmpty()) {
-            final SearchService searchService = ComponentUtil.getComponent(SearchService.class);
-            try {
-                searchService.bulkUpdate(builder -> {
-                    final FessConfig fessConfig = ComponentUtil.getFessConfig();
-                    searchService.getDocumentListByDocIds(clickCountMap.keySet().toArray(new String[clickCountMap.size()]),
-                            new String[] { fessConfig.getIndexFieldDocId() }, OptionalThing.of(FessUserBean.empty())).forEach(
-                            doc -> {
-                                final String id = DocumentUtil.getValue(doc, fessConfig.getIndexFieldId(), String.class);
-                                final String docId = DocumentUtil.getValue(doc, fessConfig.getIndexFieldDocId(), String.class);
-                                if (id != null && docId != null && clickCountMap.containsKey(docId)) {
-                                    final Integer count = clickCountMap.get(docId);
-                                    final Script script =
-                                            new Script("ctx._source." + fessConfig.getIndexFieldClickCount() + "+=" + count.toString());
-                                    final Map<String, Object> upsertMap = new HashMap<>();
-                                    upsertMap.put(fessConfig.getIndexFieldClickCount(), count);
-                                    builder.add(new UpdateRequest(fessConfig.getIndexDocumentUpdateIndex(), fessConfig
-                                            .getIndexDocumentType(), id).script(script).upsert(upsertMap));
-                                }
-                            });
+    protected Set<String> resolveQueryIds(final List<ClickLog> clickLogList) {
+        final Set<String> queryIdSet = new HashSet<>();
+        final Set<String> lookupSet = new HashSet<>();
+        clickLogList.stream().map(ClickLog::getQueryId).filter(StringUtil::isNotBlank).forEach(queryId -> {
+            if (recentQueryIdCache.getIfPresent(queryId) != null) {
+                queryIdSet.add(queryId);
+            } else {
+                lookupSet.add(queryId);
+            }
+        });
+
+        if (!lookupSet.isEmpty()) {
+            final SearchLogBhv searchLogBhv = ComponentUtil.getComponent(SearchLogBhv.class);
+            searchLogBhv.selectList(cb -> {
+                cb.specify().columnQueryId();
+                cb.query().setQueryId_InScope(lookupSet);
+                cb.fetchFirst(lookupSet.size());
+            }).forEach(searchLog -> {
+                final String queryId = searchLog.getQueryId();
+                if (queryId != null) {
+                    queryIdSet.add(queryId);
+                    recentQueryIdCache.put(queryId, Boolean.TRUE);
+                }
+            });
+        }
+        return queryIdSet;
+    }
+
+    protected void updateClickCounts(final Map<String, Integer> clickCountMap) {
+        final FessConfig fessConfig = ComponentUtil.getFessConfig();
+        final SearchService searchService = ComponentUtil.getComponent(SearchService.class);
+        final int pageSize = fessConfig.getPagingSearchPageMaxSizeAsInteger().intValue();
+        final List<String> docIdList = new ArrayList<>(clickCountMap.keySet());
+        final List<UpdateRequest> requestList = new ArrayList<>();
+        try {
+            for (int i = 0; i < docIdList.size(); i += pageSize) {
+                final List<String> docIds = docIdList.subList(i, Math.min(i + pageSize, docIdList.size()));
+                searchService.getDocumentListByDocIds(docIds.toArray(new String[docIds.size()]),
+                        new String[] { fessConfig.getIndexFieldDocId() }, OptionalThing.of(FessUserBean.empty())).forEach(doc -> {
+                    final String id = DocumentUtil.getValue(doc, fessConfig.getIndexFieldId(), String.class);
+                    final String docId = DocumentUtil.getValue(doc, fessConfig.getIndexFieldDocId(), String.class);
+                    if (id != null && docId != null && clickCountMap.containsKey(docId)) {
+                        final Integer count = clickCountMap.get(docId);
+                        final Script script = searchService.createIncrementScript(fessConfig.getIndexFieldClickCount(), count);
+                        final Map<String, Object> upsertMap = new HashMap<>();
+                        upsertMap.put(fessConfig.getIndexFieldClickCount(), count);
+                        requestList.add(new UpdateRequest(fessConfig.getIndexDocumentUpdateIndex(), fessConfig.getIndexDocumentType(), id)
+                                .script(script).upsert(upsertMap));
+                    }
                 });
-            } catch (final Exception e) {
-                logger.warn("Failed to update clickCounts", e);
             }
+            if (!requestList.isEmpty()) {
+                searchService.bulkUpdate(builder -> requestList.stream().forEach(builder::add));
+            }
+        } catch (final Exception e) {
+            logger.warn("Failed to update clickCounts", e);
         }
     }
 }
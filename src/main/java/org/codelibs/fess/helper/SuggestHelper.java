@@ -24,8 +24,13 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 import javax.annotation.PostConstruct;
@@ -39,21 +44,30 @@ import org.codelibs.fess.es.config.exentity.BadWord;
 import org.codelibs.fess.es.config.exentity.ElevateWord;
 import org.codelibs.fess.es.log.exentity.SearchFieldLog;
 import org.codelibs.fess.es.log.exentity.SearchLog;
+import org.codelibs.fess.exception.FessSystemException;
 import org.codelibs.fess.mylasta.direction.FessConfig;
 import org.codelibs.fess.suggest.Suggester;
 import org.codelibs.fess.suggest.constants.FieldNames;
 import org.codelibs.fess.suggest.entity.SuggestItem;
 import org.codelibs.fess.suggest.index.contents.document.ESSourceReader;
+import org.codelibs.fess.suggest.request.suggest.SuggestRequestBuilder;
+import org.codelibs.fess.suggest.request.suggest.SuggestResponse;
 import org.codelibs.fess.suggest.settings.SuggestSettings;
 import org.codelibs.fess.suggest.util.SuggestUtil;
 import org.codelibs.fess.util.ComponentUtil;
 import org.elasticsearch.index.query.BoolQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
 public class SuggestHelper {
 
     private static final String TEXT_SEP = " ";
 
+    private static final char CACHE_KEY_SPLITTER = '\n';
+
     @Resource
     protected ElevateWordBhv elevateWordBhv;
 
@@ -75,9 +89,22 @@ public class SuggestHelper {
 
     private List<String> contentFieldList;
 
+    protected Cache<String, SuggestResponse> suggestResponseCache;
+
+    protected volatile long searchLogRefreshTime = 0;
+
     @PostConstruct
     public void init() {
         fessConfig = ComponentUtil.getFessConfig();
+        final long cacheSize = fessConfig.getSuggestResponseCacheMaxSizeAsInteger().longValue();
+        if (cacheSize > 0) {
+            suggestResponseCache =
+                    CacheBuilder.newBuilder().maximumWeight(cacheSize)
+                            .weigher((final String key, final SuggestResponse value) -> key.length() * 2 + getResponseSize(value))
+                            .expireAfterWrite(fessConfig.getSuggestResponseCacheExpireAsInteger().longValue(), TimeUnit.SECONDS).build();
+        } else {
+            suggestResponseCache = null;
+        }
         split(fessConfig.getSuggestFieldContents(), ",").of(
                 stream -> stream.filter(StringUtil::isNotBlank).forEach(contentFieldNameSet::add));
         split(fessConfig.getSuggestFieldTags(), ",").of(stream -> stream.filter(StringUtil::isNotBlank).forEach(tagFieldNameSet::add));
@@ -98,7 +125,82 @@ public class SuggestHelper {
         return suggester;
     }
 
+    public SuggestResponse suggest(final String query, final String[] fields, final Set<String> roles, final String[] langs,
+            final String[] kinds, final int size) {
+        final Callable<SuggestResponse> loader = () -> {
+            final SuggestRequestBuilder builder = suggester.suggest();
+            builder.setQuery(query);
+            stream(fields).of(stream -> stream.forEach(builder::addField));
+            roles.stream().forEach(builder::addRole);
+            builder.setSize(size);
+            stream(langs).of(stream -> stream.forEach(builder::addLang));
+            stream(kinds).of(stream -> stream.forEach(builder::addKind));
+            return builder.execute().getResponse();
+        };
+
+        if (suggestResponseCache == null) {
+            try {
+                return loader.call();
+            } catch (final RuntimeException e) {
+                throw e;
+            } catch (final Exception e) {
+                throw new FessSystemException("Failed to get suggest words for " + query, e);
+            }
+        }
+
+        // concurrent requests for the same key wait for one request to the suggest index
+        try {
+            return suggestResponseCache.get(getSuggestCacheKey(query, fields, roles, langs, kinds, size), loader);
+        } catch (final ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new FessSystemException("Failed to get suggest words for " + query, e.getCause());
+        }
+    }
+
+    protected String getSuggestCacheKey(final String query, final String[] fields, final Set<String> roles, final String[] langs,
+            final String[] kinds, final int size) {
+        final StringBuilder buf = new StringBuilder(100);
+        // a trailing space is kept because it changes the suggested words
+        if (query != null) {
+            buf.append(query.replaceAll("^\\s+", StringUtil.EMPTY).replaceAll("\\s+", TEXT_SEP));
+        }
+        buf.append(CACHE_KEY_SPLITTER);
+        stream(fields).of(stream -> stream.sorted().forEach(v -> buf.append(v).append(',')));
+        buf.append(CACHE_KEY_SPLITTER);
+        roles.stream().sorted().forEach(v -> buf.append(v).append(','));
+        buf.append(CACHE_KEY_SPLITTER);
+        stream(langs).of(stream -> stream.sorted().forEach(v -> buf.append(v).append(',')));
+        buf.append(CACHE_KEY_SPLITTER);
+        stream(kinds).of(stream -> stream.sorted().forEach(v -> buf.append(v).append(',')));
+        buf.append(CACHE_KEY_SPLITTER).append(size);
+        return buf.toString();
+    }
+
+    protected int getResponseSize(final SuggestResponse response) {
+        int size = 100;
+        for (final SuggestItem item : response.getItems()) {
+            size += 50 + getTextSize(item.getText());
+            size += stream(item.getTags()).get(stream -> stream.mapToInt(this::getTextSize).sum());
+            size += stream(item.getRoles()).get(stream -> stream.mapToInt(this::getTextSize).sum());
+            size += stream(item.getFields()).get(stream -> stream.mapToInt(this::getTextSize).sum());
+        }
+        return size;
+    }
+
+    private int getTextSize(final String text) {
+        return text == null ? 0 : text.length() * 2 + 40;
+    }
+
+    public void clearSuggestCache() {
+        if (suggestResponseCache != null) {
+            suggestResponseCache.invalidateAll();
+        }
+    }
+
     public void indexFromSearchLog(final List<SearchLog> searchLogList) {
+        final Map<String, SearchWord> searchWordMap = new LinkedHashMap<>();
         searchLogList.stream().forEach(
                 searchLog -> {
                     if (searchLog.getHitCount() == null
@@ -130,12 +232,23 @@ public class SuggestHelper {
                         final String[] langs = searchLog.getLanguages() == null ? new String[] {} : searchLog.getLanguages().split(",");
                         stream(searchLog.getRoles()).of(stream -> stream.forEach(role -> roles.add(role)));
                         if (fessConfig.isValidSearchLogPermissions(roles.toArray(new String[roles.size()]))) {
-                            suggester.indexer().indexFromSearchWord(sb.toString(), fields.toArray(new String[fields.size()]),
-                                    tags.toArray(new String[tags.size()]), roles.toArray(new String[roles.size()]), 1, langs);
+                            final SearchWord searchWord =
+                                    new SearchWord(sb.toString(), fields.toArray(new String[fields.size()]), tags.toArray(new String[tags
+                                            .size()]), roles.toArray(new String[roles.size()]), langs);
+                            searchWordMap.computeIfAbsent(searchWord.getKey(), k -> searchWord).count++;
                         }
                     }
                 });
-        suggester.refresh();
+
+        searchWordMap.values().forEach(
+                searchWord -> suggester.indexer().indexFromSearchWord(searchWord.text, searchWord.fields, searchWord.tags, searchWord.roles,
+                        searchWord.count, searchWord.langs));
+
+        final long now = System.currentTimeMillis();
+        if (!searchWordMap.isEmpty() && now - searchLogRefreshTime >= fessConfig.getSuggestSearchLogRefreshIntervalAsInteger().longValue()) {
+            suggester.refresh();
+            searchLogRefreshTime = now;
+        }
     }
 
     public void indexFromDocuments(final Consumer<Boolean> success, final Consumer<Throwable> error) {
@@ -197,6 +310,7 @@ public class SuggestHelper {
                     elevateWord.getPermissions(), elevateWord.getBoost(), false);
         }
         suggester.refresh();
+        clearSuggestCache();
     }
 
     public void deleteAllElevateWord() {
@@ -209,11 +323,13 @@ public class SuggestHelper {
             suggester.indexer().deleteElevateWord(elevateWord.getSuggestWord());
         }
         suggester.refresh();
+        clearSuggestCache();
     }
 
     public void deleteElevateWord(final String word) {
         suggester.indexer().deleteElevateWord(word);
         suggester.refresh();
+        clearSuggestCache();
     }
 
     public void addElevateWord(final String word, final String reading, final String[] tags, final String[] permissions, final Float boost) {
@@ -234,10 +350,12 @@ public class SuggestHelper {
         suggester.indexer().addElevateWord(
                 new org.codelibs.fess.suggest.entity.ElevateWord(word, boost, Collections.singletonList(reading), contentFieldList,
                         labelList, roleList));
+        clearSuggestCache();
     }
 
     public void deleteAllBadWords() {
         suggester.settings().badword().deleteAll();
+        clearSuggestCache();
     }
 
     public void storeAllBadWords() {
@@ -250,14 +368,49 @@ public class SuggestHelper {
             final String word = badWord.getSuggestWord();
             suggester.indexer().addBadWord(word);
         }
+        clearSuggestCache();
     }
 
     public void addBadWord(final String badWord) {
         suggester.indexer().addBadWord(badWord);
+        clearSuggestCache();
     }
 
     public void deleteBadWord(final String badWord) {
         suggester.indexer().deleteBadWord(badWord);
+        clearSuggestCache();
+    }
+
+    protected static class SearchWord {
+        protected final String text;
+
+        protected final String[] fields;
+
+        protected final String[] tags;
+
+        protected final String[] roles;
+
+        protected final String[] langs;
+
+        protected int count = 0;
+
+        protected SearchWord(final String text, final String[] fields, final String[] tags, final String[] roles, final String[] langs) {
+            this.text = text;
+            this.fields = fields;
+            this.tags = tags;
+            this.roles = roles;
+            this.langs = langs;
+        }
+
+        protected String getKey() {
+            final StringBuilder buf = new StringBuilder(100);
+            buf.append(text).append(CACHE_KEY_SPLITTER);
+            buf.append(String.join(",", fields)).append(CACHE_KEY_SPLITTER);
+            buf.append(String.join(",", tags)).append(CACHE_KEY_SPLITTER);
+            buf.append(String.join(",", roles)).append(CACHE_KEY_SPLITTER);
+            buf.append(String.join(",", langs));
+            return buf.toString();
+        }
     }
 
 }
@@ -15,13 +15,16 @@
  */
 package org.codelibs.fess.helper;
 
-import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
 import java.net.URLEncoder;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
@@ -36,6 +39,7 @@ import java.util.regex.Pattern;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
+import javax.servlet.http.HttpServletResponse;
 
 import org.apache.catalina.connector.ClientAbortException;
 import org.apache.commons.lang3.StringEscapeUtils;
@@ -45,18 +49,13 @@ import org.codelibs.core.lang.StringUtil;
 import org.codelibs.core.misc.Base64Util;
 import org.codelibs.core.misc.DynamicProperties;
 import org.codelibs.fess.Constants;
-import org.codelibs.fess.app.service.DataConfigService;
-import org.codelibs.fess.app.service.FileConfigService;
-import org.codelibs.fess.app.service.WebConfigService;
 import org.codelibs.fess.crawler.builder.RequestDataBuilder;
 import org.codelibs.fess.crawler.client.CrawlerClient;
-import org.codelibs.fess.crawler.client.CrawlerClientFactory;
 import org.codelibs.fess.crawler.entity.ResponseData;
 import org.codelibs.fess.crawler.util.CharUtil;
 import org.codelibs.fess.entity.FacetQueryView;
-import org.codelibs.fess.es.config.exentity.CrawlingConfig;
-import org.codelibs.fess.es.config.exentity.CrawlingConfig.ConfigType;
 import org.codelibs.fess.exception.FessSystemException;
+import org.codelibs.fess.helper.CrawlingConfigHelper.CrawlerClientFactoryEntry;
 import org.codelibs.fess.helper.UserAgentHelper.UserAgentType;
 import org.codelibs.fess.mylasta.direction.FessConfig;
 import org.codelibs.fess.util.ComponentUtil;
@@ -88,6 +87,10 @@ public class ViewHelper {
 
     private static final Pattern SHARED_FOLDER_PATTERN = Pattern.compile("^file:/+[^/]\\.");
 
+    private static final Pattern HTML_TAG_PATTERN = Pattern.compile("<[^>]+>");
+
+    private static final long[] UNSATISFIABLE_RANGE = new long[0];
+
     private static final Logger logger = LoggerFactory.getLogger(ViewHelper.class);
 
     @Resource
@@ -123,6 +126,10 @@ public class ViewHelper {
 
     protected boolean useSession = true;
 
+    protected int contentBufferSize = 65536;
+
+    protected final ThreadLocal<byte[]> contentBuffer = ThreadLocal.withInitial(() -> new byte[contentBufferSize]);
+
     private final Map<String, String> pageCacheMap = new ConcurrentHashMap<>();
 
     private final Map<String, String> initFacetParamMap = new HashMap<>();
@@ -460,36 +467,47 @@ public class ViewHelper {
     }
 
     protected String replaceHighlightQueries(final String cache, final String[] queries) {
-        final StringBuffer buf = new StringBuffer(cache.length() + 100);
-        final StringBuffer segBuf = new StringBuffer(1000);
-        final Pattern p = Pattern.compile("<[^>]+>");
-        final Matcher m = p.matcher(cache);
-        final String[] regexQueries = new String[queries.length];
+        if (queries.length == 0) {
+            return cache;
+        }
+        final StringBuilder buf = new StringBuilder(cache.length() + 100);
+        final StringBuilder regexBuf = new StringBuilder(100);
         final String[] hlQueries = new String[queries.length];
         for (int i = 0; i < queries.length; i++) {
-            regexQueries[i] = Pattern.quote(queries[i]);
+            if (i > 0) {
+                regexBuf.append('|');
+            }
+            regexBuf.append('(').append(Pattern.quote(queries[i])).append(')');
             hlQueries[i] = highlightTagPre + queries[i] + highlightTagPost;
         }
+        final Pattern queryPattern = Pattern.compile(regexBuf.toString(), Pattern.CASE_INSENSITIVE);
+        final Matcher queryMatcher = queryPattern.matcher(cache);
+        final Matcher m = HTML_TAG_PATTERN.matcher(cache);
+        int pos = 0;
         while (m.find()) {
-            segBuf.setLength(0);
-            m.appendReplacement(segBuf, StringUtil.EMPTY);
-            String segment = segBuf.toString();
-            for (int i = 0; i < queries.length; i++) {
-                segment = Pattern.compile(regexQueries[i], Pattern.CASE_INSENSITIVE).matcher(segment).replaceAll(hlQueries[i]);
-            }
-            buf.append(segment);
+            appendHighlightQueries(buf, cache, queryMatcher.region(pos, m.start()), hlQueries);
             buf.append(m.group(0));
+            pos = m.end();
         }
-        segBuf.setLength(0);
-        m.appendTail(segBuf);
-        String segment = segBuf.toString();
-        for (int i = 0; i < queries.length; i++) {
-            segment = Pattern.compile(regexQueries[i], Pattern.CASE_INSENSITIVE).matcher(segment).replaceAll(hlQueries[i]);
-        }
-        buf.append(segment);
+        appendHighlightQueries(buf, cache, queryMatcher.region(pos, cache.length()), hlQueries);
         return buf.toString();
     }
 
+    protected void appendHighlightQueries(final StringBuilder buf, final String text, final Matcher matcher, final String[] hlQueries) {
+        int pos = matcher.regionStart();
+        while (matcher.find()) {
+            buf.append(text, pos, matcher.start());
+            for (int i = 0; i < hlQueries.length; i++) {
+                if (matcher.start(i + 1) != -1) {
+                    buf.append(hlQueries[i]);
+                    break;
+                }
+            }
+            pos = matcher.end();
+        }
+        buf.append(text, pos, matcher.regionEnd());
+    }
+
     public Object getSitePath(final Map<String, Object> docMap) {
         final FessConfig fessConfig = ComponentUtil.getFessConfig();
         final Object urlLink = docMap.get(fessConfig.getResponseFieldUrlLink());
@@ -521,53 +539,169 @@ public class ViewHelper {
         if (configId.length() < 2) {
             throw new FessSystemException("Invalid configId: " + configId);
         }
-        final ConfigType configType = crawlingConfigHelper.getConfigType(configId);
-        CrawlingConfig config = null;
-        if (logger.isDebugEnabled()) {
-            logger.debug("configType: " + configType + ", configId: " + configId);
+        final String url = DocumentUtil.getValue(doc, fessConfig.getIndexFieldUrl(), String.class);
+        final CrawlerClientFactoryEntry crawlerClientFactoryEntry = crawlingConfigHelper.acquireCrawlerClientFactory(configId);
+        boolean streaming = false;
+        try {
+            final CrawlerClient client = crawlerClientFactoryEntry.getCrawlerClientFactory().getClient(url);
+            if (client == null) {
+                throw new FessSystemException("No CrawlerClient: " + configId + ", url: " + url);
+            }
+            final ResponseData responseData = client.execute(RequestDataBuilder.newRequestData().get().url(url).build());
+            final StreamResponse response = new StreamResponse(StringUtil.EMPTY);
+            writeFileName(response, responseData);
+            writeContentType(response, responseData);
+            writeNoCache(response, responseData);
+            if (responseData.getHttpStatusCode() == 404) {
+                response.httpStatus(responseData.getHttpStatusCode());
+                closeResponseData(responseData);
+                return response;
+            }
+            if (isNotModified(response, responseData)) {
+                response.httpStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                closeResponseData(responseData);
+                return response;
+            }
+            final long[] range = getContentRange(response, responseData);
+            if (range == UNSATISFIABLE_RANGE) {
+                response.httpStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                closeResponseData(responseData);
+                return response;
+            }
+            response.stream(out -> {
+                // the factory is kept open until the content is written
+                try (final InputStream is = responseData.getResponseBody()) {
+                    if (range != null) {
+                        writeContent(is, out.stream(), range[0], range[1] - range[0] + 1);
+                    } else {
+                        writeContent(is, out.stream(), 0, -1);
+                    }
+                } catch (final IOException e) {
+                    if (!(e.getCause() instanceof ClientAbortException)) {
+                        throw new FessSystemException("Failed to write a content. configId: " + configId + ", url: " + url, e);
+                    }
+                } finally {
+                    crawlingConfigHelper.releaseCrawlerClientFactory(crawlerClientFactoryEntry);
+                }
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Finished to write " + url);
+                }
+            });
+            streaming = true;
+            return response;
+        } finally {
+            if (!streaming) {
+                crawlingConfigHelper.releaseCrawlerClientFactory(crawlerClientFactoryEntry);
+            }
+        }
+    }
+
+    protected void closeResponseData(final ResponseData responseData) {
+        try {
+            responseData.close();
+        } catch (final Exception e) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Failed to close " + responseData.getUrl(), e);
+            }
         }
-        if (ConfigType.WEB == configType) {
-            final WebConfigService webConfigService = ComponentUtil.getComponent(WebConfigService.class);
-            config = webConfigService.getWebConfig(crawlingConfigHelper.getId(configId)).get();
-        } else if (ConfigType.FILE == configType) {
-            final FileConfigService fileConfigService = ComponentUtil.getComponent(FileConfigService.class);
-            config = fileConfigService.getFileConfig(crawlingConfigHelper.getId(configId)).get();
-        } else if (ConfigType.DATA == configType) {
-            final DataConfigService dataConfigService = ComponentUtil.getComponent(DataConfigService.class);
-            config = dataConfigService.getDataConfig(crawlingConfigHelper.getId(configId)).get();
+    }
+
+    protected boolean isNotModified(final StreamResponse response, final ResponseData responseData) {
+        final Date lastModified = responseData.getLastModified();
+        if (lastModified == null) {
+            return false;
         }
-        if (config == null) {
-            throw new FessSystemException("No crawlingConfig: " + configId);
+        response.header("Last-Modified", formatHttpDate(lastModified));
+        return LaRequestUtil.getOptionalRequest().map(request -> {
+            try {
+                final long ifModifiedSince = request.getDateHeader("If-Modified-Since");
+                return ifModifiedSince != -1 && lastModified.getTime() / 1000 <= ifModifiedSince / 1000;
+            } catch (final IllegalArgumentException e) {
+                return false;
+            }
+        }).orElse(false);
+    }
+
+    /**
+     * @return a pair of the first and last byte positions, null for the whole content, or UNSATISFIABLE_RANGE.
+     */
+    protected long[] getContentRange(final StreamResponse response, final ResponseData responseData) {
+        final long contentLength = responseData.getContentLength();
+        if (contentLength <= 0) {
+            return null;
+        }
+        response.header("Accept-Ranges", "bytes");
+
+        final String rangeHeader = LaRequestUtil.getOptionalRequest().map(request -> {
+            final String ifRange = request.getHeader("If-Range");
+            if (ifRange != null
+                    && (responseData.getLastModified() == null || !ifRange.equals(formatHttpDate(responseData.getLastModified())))) {
+                return null;
+            }
+            return request.getHeader("Range");
+        }).orElse(null);
+        if (rangeHeader == null || !rangeHeader.startsWith("bytes=") || rangeHeader.indexOf(',') != -1) {
+            return null;
         }
-        final String url = DocumentUtil.getValue(doc, fessConfig.getIndexFieldUrl(), String.class);
-        final CrawlerClientFactory crawlerClientFactory = ComponentUtil.getComponent(CrawlerClientFactory.class);
-        config.initializeClientFactory(crawlerClientFactory);
-        final CrawlerClient client = crawlerClientFactory.getClient(url);
-        if (client == null) {
-            throw new FessSystemException("No CrawlerClient: " + configId + ", url: " + url);
-        }
-        final ResponseData responseData = client.execute(RequestDataBuilder.newRequestData().get().url(url).build());
-        final StreamResponse response = new StreamResponse(StringUtil.EMPTY);
-        writeFileName(response, responseData);
-        writeContentType(response, responseData);
-        writeNoCache(response, responseData);
-        if (responseData.getHttpStatusCode() == 404) {
-            response.httpStatus(responseData.getHttpStatusCode());
-            return response;
+
+        final String spec = rangeHeader.substring(6).trim();
+        final int pos = spec.indexOf('-');
+        if (pos == -1) {
+            return null;
         }
-        response.stream(out -> {
-            try (final InputStream is = new BufferedInputStream(responseData.getResponseBody())) {
-                out.write(is);
-            } catch (final IOException e) {
-                if (!(e.getCause() instanceof ClientAbortException)) {
-                    throw new FessSystemException("Failed to write a content. configId: " + configId + ", url: " + url, e);
-                }
+        long start;
+        long end;
+        try {
+            if (pos == 0) {
+                final long suffixLength = Long.parseLong(spec.substring(1).trim());
+                start = Math.max(contentLength - suffixLength, 0);
+                end = contentLength - 1;
+            } else {
+                start = Long.parseLong(spec.substring(0, pos).trim());
+                final String endValue = spec.substring(pos + 1).trim();
+                end = endValue.isEmpty() ? contentLength - 1 : Math.min(Long.parseLong(endValue), contentLength - 1);
             }
-            if (logger.isDebugEnabled()) {
-                logger.debug("Finished to write " + url);
+        } catch (final NumberFormatException e) {
+            return null;
+        }
+        if (start >= contentLength || start > end) {
+            response.header("Content-Range", "bytes */" + contentLength);
+            return UNSATISFIABLE_RANGE;
+        }
+
+        response.httpStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        response.header("Content-Range", "bytes " + start + "-" + end + "/" + contentLength);
+        response.header("Content-Length", Long.toString(end - start + 1));
+        return new long[] { start, end };
+    }
+
+    protected void writeContent(final InputStream is, final OutputStream os, final long offset, final long length) throws IOException {
+        final byte[] buffer = contentBuffer.get();
+        long skip = offset;
+        while (skip > 0) {
+            final long skipped = is.skip(skip);
+            if (skipped > 0) {
+                skip -= skipped;
+            } else if (is.read() != -1) {
+                skip--;
+            } else {
+                return;
             }
-        });
-        return response;
+        }
+        long remaining = length < 0 ? Long.MAX_VALUE : length;
+        while (remaining > 0) {
+            final int read = is.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read == -1) {
+                break;
+            }
+            os.write(buffer, 0, read);
+            remaining -= read;
+        }
+        os.flush();
+    }
+
+    protected String formatHttpDate(final Date date) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.ofInstant(date.toInstant(), ZoneOffset.UTC));
     }
 
     protected void writeNoCache(final StreamResponse response, final ResponseData responseData) {
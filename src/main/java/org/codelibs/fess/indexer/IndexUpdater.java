@@ -18,7 +18,18 @@ package org.codelibs.fess.indexer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
@@ -97,6 +108,26 @@ public class IndexUpdater extends Thread {
 
     protected List<String> finishedSessionIdList = new ArrayList<>();
 
+    protected ExecutorService transformerExecutor;
+
+    protected ExecutorService senderExecutor;
+
+    protected Semaphore senderSemaphore;
+
+    protected final AtomicReference<Exception> sendFailure = new AtomicReference<>();
+
+    protected int maxInflightRequests = 1;
+
+    protected final AtomicLong transformedDocCount = new AtomicLong();
+
+    protected final AtomicLong transformTime = new AtomicLong();
+
+    protected final AtomicLong sentDocCount = new AtomicLong();
+
+    protected final AtomicLong sentRequestCount = new AtomicLong();
+
+    protected final AtomicLong sendTime = new AtomicLong();
+
     private final List<DocBoostMatcher> docBoostMatcherList = new ArrayList<>();
 
     private List<Crawler> crawlerList;
@@ -157,6 +188,11 @@ public class IndexUpdater extends Thread {
         final long updateInterval = fessConfig.getIndexerWebfsUpdateIntervalAsInteger().longValue();
         final int maxEmptyListCount = fessConfig.getIndexerWebfsMaxEmptyListCountAsInteger().intValue();
         final IntervalControlHelper intervalControlHelper = ComponentUtil.getIntervalControlHelper();
+        final int transformerThreadSize = fessConfig.getIndexerWebfsTransformerThreadSizeAsInteger().intValue();
+        maxInflightRequests = Math.max(fessConfig.getIndexerWebfsMaxInflightRequestsAsInteger().intValue(), 1);
+        transformerExecutor = newFixedThreadPool("IndexTransformer", transformerThreadSize < 1 ? 1 : transformerThreadSize);
+        senderExecutor = newFixedThreadPool("IndexSender", maxInflightRequests);
+        senderSemaphore = new Semaphore(maxInflightRequests);
         try {
             final Consumer<SearchRequestBuilder> cb =
                     builder -> {
@@ -225,14 +261,17 @@ public class IndexUpdater extends Thread {
                             cleanupTime = -1;
                         } else {
                             processAccessResults(docList, accessResultList, arList);
+                            // access results are marked as done only after their documents are indexed
+                            waitForSentDocuments();
                             cleanupTime = cleanupAccessResults(accessResultList);
                         }
                         arList = getAccessResultList(cb, cleanupTime);
                         hitCount = ((EsResultList<EsAccessResult>) arList).getTotalHits();
                     }
                     if (!docList.isEmpty()) {
-                        indexingHelper.sendDocuments(fessEsClient, docList);
+                        sendDocuments(docList);
                     }
+                    waitForSentDocuments();
 
                     synchronized (finishedSessionIdList) {
                         if (sessionIdListSize != 0 && sessionIdListSize == finishedSessionIdList.size()) {
@@ -248,7 +287,7 @@ public class IndexUpdater extends Thread {
                     // reset count
                     errorCount = 0;
                 } catch (final Exception e) {
-                    if (errorCount > maxErrorCount) {
+                    if (errorCount > maxErrorCount || Thread.currentThread().isInterrupted()) {
                         throw e;
                     }
                     errorCount++;
@@ -302,6 +341,7 @@ public class IndexUpdater extends Thread {
             }
             forceStop();
         } finally {
+            shutdownExecutors();
             intervalControlHelper.setCrawlerRunning(true);
         }
 
@@ -324,6 +364,8 @@ public class IndexUpdater extends Thread {
     private void processAccessResults(final DocList docList, final List<EsAccessResult> accessResultList, final List<EsAccessResult> arList) {
         final FessConfig fessConfig = ComponentUtil.getFessConfig();
         final long maxDocumentRequestSize = fessConfig.getIndexerWebfsMaxDocumentRequestSizeAsInteger().longValue();
+        final List<EsAccessResult> targetList = new ArrayList<>(arList.size());
+        final List<AccessResultData<?>> accessResultDataList = new ArrayList<>(arList.size());
         for (final EsAccessResult accessResult : arList) {
             if (logger.isDebugEnabled()) {
                 logger.debug("Indexing " + accessResult.getUrl());
@@ -339,65 +381,205 @@ public class IndexUpdater extends Thread {
                 continue;
             }
 
-            final long startTime = System.currentTimeMillis();
             final AccessResultData<?> accessResultData = accessResult.getAccessResultData();
             if (accessResultData != null) {
                 accessResult.setAccessResultData(null);
-                try {
-                    final Transformer transformer = ComponentUtil.getComponent(accessResultData.getTransformerName());
-                    if (transformer == null) {
-                        // no transformer
-                        logger.warn("No transformer: " + accessResultData.getTransformerName());
-                        continue;
-                    }
-                    @SuppressWarnings("unchecked")
-                    final Map<String, Object> map = (Map<String, Object>) transformer.getData(accessResultData);
-                    if (map.isEmpty()) {
-                        // no transformer
-                        logger.warn("No data: " + accessResult.getUrl());
-                        continue;
-                    }
+                targetList.add(accessResult);
+                accessResultDataList.add(accessResultData);
+            } else {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Skipped. No content. ");
+                }
+            }
+        }
 
-                    if (Constants.FALSE.equals(map.get(Constants.INDEXING_TARGET))) {
-                        if (logger.isDebugEnabled()) {
-                            logger.debug("Skipped. " + "This document is not a index target. ");
-                        }
-                        continue;
-                    } else {
-                        map.remove(Constants.INDEXING_TARGET);
-                    }
+        final List<Future<DocList>> futureList = new ArrayList<>(targetList.size());
+        for (int i = 0; i < targetList.size(); i++) {
+            final EsAccessResult accessResult = targetList.get(i);
+            final AccessResultData<?> accessResultData = accessResultDataList.get(i);
+            futureList.add(transformerExecutor.submit(() -> transformDocument(accessResult, accessResultData)));
+        }
+
+        final List<DocList> transformedDocLists = new ArrayList<>(futureList.size());
+        for (int i = 0; i < futureList.size(); i++) {
+            final EsAccessResult accessResult = targetList.get(i);
+            DocList transformedDocList = null;
+            try {
+                transformedDocList = futureList.get(i).get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futureList.forEach(f -> f.cancel(true));
+                throw new FessSystemException("Interrupted index update.", e);
+            } catch (final ExecutionException e) {
+                logger.warn("Could not add a doc: " + accessResult.getUrl(), e.getCause());
+            }
+            transformedDocLists.add(transformedDocList);
+        }
 
-                    updateDocument(map);
+        // counts are looked up by the url field of a document, which may differ from the crawled url,
+        // so documents are updated after the counts of the whole batch are loaded
+        loadCounts(transformedDocLists);
 
-                    docList.add(map);
-                    final long processingTime = System.currentTimeMillis() - startTime;
-                    docList.addProcessingTime(processingTime);
-                    if (logger.isDebugEnabled()) {
-                        logger.debug("Added the document(" + MemoryUtil.byteCountToDisplaySize(docList.getContentSize()) + ", "
-                                + processingTime + "ms). " + "The number of a document cache is " + docList.size() + ".");
-                    }
+        for (int i = 0; i < transformedDocLists.size(); i++) {
+            final EsAccessResult accessResult = targetList.get(i);
+            try {
+                final DocList transformedDocList = transformedDocLists.get(i);
+                if (transformedDocList == null || transformedDocList.isEmpty()) {
+                    continue;
+                }
+                transformedDocList.forEach(this::updateDocument);
 
-                    if (accessResult.getContentLength() == null) {
-                        indexingHelper.sendDocuments(fessEsClient, docList);
-                    } else {
-                        docList.addContentSize(accessResult.getContentLength().longValue());
-                        if (docList.getContentSize() >= maxDocumentRequestSize) {
-                            indexingHelper.sendDocuments(fessEsClient, docList);
-                        }
-                    }
-                    documentSize++;
-                    if (logger.isDebugEnabled()) {
-                        logger.debug("The number of an added document is " + documentSize + ".");
+                docList.addAll(transformedDocList);
+                docList.addProcessingTime(transformedDocList.getProcessingTime());
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Added the document(" + MemoryUtil.byteCountToDisplaySize(docList.getContentSize()) + ", "
+                            + transformedDocList.getProcessingTime() + "ms). " + "The number of a document cache is " + docList.size()
+                            + ".");
+                }
+
+                if (accessResult.getContentLength() == null) {
+                    sendDocuments(docList);
+                } else {
+                    docList.addContentSize(accessResult.getContentLength().longValue());
+                    if (docList.getContentSize() >= maxDocumentRequestSize) {
+                        sendDocuments(docList);
                     }
-                } catch (final Exception e) {
-                    logger.warn("Could not add a doc: " + accessResult.getUrl(), e);
                 }
-            } else {
+                documentSize++;
                 if (logger.isDebugEnabled()) {
-                    logger.debug("Skipped. No content. ");
+                    logger.debug("The number of an added document is " + documentSize + ".");
                 }
+            } catch (final Exception e) {
+                logger.warn("Could not add a doc: " + accessResult.getUrl(), e);
+            }
+        }
+    }
+
+    protected DocList transformDocument(final EsAccessResult accessResult, final AccessResultData<?> accessResultData) {
+        final DocList transformedDocList = new DocList();
+        final long startTime = System.currentTimeMillis();
+        try {
+            final Transformer transformer = ComponentUtil.getComponent(accessResultData.getTransformerName());
+            if (transformer == null) {
+                // no transformer
+                logger.warn("No transformer: " + accessResultData.getTransformerName());
+                return transformedDocList;
+            }
+            @SuppressWarnings("unchecked")
+            final Map<String, Object> map = (Map<String, Object>) transformer.getData(accessResultData);
+            if (map.isEmpty()) {
+                // no transformer
+                logger.warn("No data: " + accessResult.getUrl());
+                return transformedDocList;
             }
 
+            if (Constants.FALSE.equals(map.get(Constants.INDEXING_TARGET))) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Skipped. " + "This document is not a index target. ");
+                }
+                return transformedDocList;
+            } else {
+                map.remove(Constants.INDEXING_TARGET);
+            }
+
+            transformedDocList.add(map);
+        } catch (final Exception e) {
+            logger.warn("Could not add a doc: " + accessResult.getUrl(), e);
+        } finally {
+            final long processingTime = System.currentTimeMillis() - startTime;
+            transformedDocList.addProcessingTime(processingTime);
+            transformedDocCount.incrementAndGet();
+            transformTime.addAndGet(processingTime);
+        }
+        return transformedDocList;
+    }
+
+    protected void sendDocuments(final DocList docList) {
+        if (docList.isEmpty()) {
+            return;
+        }
+
+        final DocList sendingDocList = new DocList();
+        sendingDocList.addAll(docList);
+        sendingDocList.addContentSize(docList.getContentSize());
+        sendingDocList.addProcessingTime(docList.getProcessingTime());
+        docList.clear();
+
+        if (!senderSemaphore.tryAcquire()) {
+            // all senders are busy, so pause crawler threads until one of them is available
+            final IntervalControlHelper intervalControlHelper = ComponentUtil.getIntervalControlHelper();
+            final boolean crawlerRunning = intervalControlHelper.isCrawlerRunning();
+            intervalControlHelper.setCrawlerRunning(false);
+            try {
+                senderSemaphore.acquireUninterruptibly();
+            } finally {
+                intervalControlHelper.setCrawlerRunning(crawlerRunning);
+            }
+        }
+
+        try {
+            senderExecutor.execute(() -> {
+                final int size = sendingDocList.size();
+                final long startTime = System.currentTimeMillis();
+                try {
+                    indexingHelper.sendDocuments(fessEsClient, sendingDocList);
+                } catch (final Exception e) {
+                    logger.warn("Failed to send " + size + " docs.", e);
+                    sendFailure.compareAndSet(null, e);
+                } finally {
+                    sentDocCount.addAndGet(size);
+                    sentRequestCount.incrementAndGet();
+                    sendTime.addAndGet(System.currentTimeMillis() - startTime);
+                    senderSemaphore.release();
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            senderSemaphore.release();
+            throw e;
+        }
+    }
+
+    protected void waitForSentDocuments() {
+        senderSemaphore.acquireUninterruptibly(maxInflightRequests);
+        senderSemaphore.release(maxInflightRequests);
+        final Exception e = sendFailure.getAndSet(null);
+        if (e != null) {
+            throw new FessSystemException("Failed to send documents.", e);
+        }
+    }
+
+    protected ExecutorService newFixedThreadPool(final String name, final int nThreads) {
+        if (logger.isDebugEnabled()) {
+            logger.debug(name + " Thread Pool: " + nThreads);
+        }
+        final AtomicInteger threadNumber = new AtomicInteger(1);
+        return Executors.newFixedThreadPool(nThreads, r -> {
+            final Thread thread = new Thread(r, name + "-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private void shutdownExecutors() {
+        if (senderSemaphore != null) {
+            try {
+                waitForSentDocuments();
+            } catch (final Exception e) {
+                logger.warn("Failed to send documents.", e);
+            }
+        }
+        if (transformerExecutor != null) {
+            transformerExecutor.shutdownNow();
+        }
+        if (senderExecutor != null) {
+            senderExecutor.shutdown();
+            try {
+                senderExecutor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (final InterruptedException e) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Interrupted.", e);
+                }
+            }
         }
     }
 
@@ -429,6 +611,28 @@ public class IndexUpdater extends Thread {
         }
     }
 
+    protected void loadCounts(final List<DocList> docLists) {
+        final FessConfig fessConfig = ComponentUtil.getFessConfig();
+        if (!fessConfig.getIndexerClickCountEnabledAsBoolean() && !fessConfig.getIndexerFavoriteCountEnabledAsBoolean()) {
+            return;
+        }
+
+        final List<String> urlList =
+                docLists.stream().filter(docs -> docs != null).flatMap(docs -> docs.stream())
+                        .map(doc -> (String) doc.get(fessConfig.getIndexFieldUrl())).filter(StringUtil::isNotBlank)
+                        .collect(Collectors.toList());
+        if (urlList.isEmpty()) {
+            return;
+        }
+        final SearchLogHelper searchLogHelper = ComponentUtil.getSearchLogHelper();
+        if (fessConfig.getIndexerClickCountEnabledAsBoolean()) {
+            searchLogHelper.loadClickCounts(urlList);
+        }
+        if (fessConfig.getIndexerFavoriteCountEnabledAsBoolean()) {
+            searchLogHelper.loadFavoriteCounts(urlList);
+        }
+    }
+
     protected void addBoostValue(final Map<String, Object> map, final float documentBoost) {
         final FessConfig fessConfig = ComponentUtil.getFessConfig();
         map.put(fessConfig.getIndexFieldBoost(), documentBoost);
@@ -506,6 +710,7 @@ public class IndexUpdater extends Thread {
             if (cleanupTime >= 0) {
                 buf.append(", cleanup ").append(cleanupTime).append("ms");
             }
+            appendPipelineStats(buf);
             buf.append("}, ");
             buf.append(MemoryUtil.getMemoryUsageLog());
             buf.append(')');
@@ -523,6 +728,21 @@ public class IndexUpdater extends Thread {
         return arList;
     }
 
+    private void appendPipelineStats(final StringBuilder buf) {
+        final long transformedDocs = transformedDocCount.getAndSet(0);
+        if (transformedDocs > 0) {
+            buf.append(", transform ").append(transformedDocs).append(" docs/").append(transformTime.getAndSet(0)).append("ms");
+        }
+        final long sentRequests = sentRequestCount.getAndSet(0);
+        if (sentRequests > 0) {
+            buf.append(", send ").append(sentDocCount.getAndSet(0)).append(" docs/").append(sentRequests).append(" reqs/")
+                    .append(sendTime.getAndSet(0)).append("ms");
+        }
+        if (senderSemaphore != null) {
+            buf.append(", inflight ").append(maxInflightRequests - senderSemaphore.availablePermits());
+        }
+    }
+
     private void cleanupFinishedSessionData() {
         final long execTime = System.currentTimeMillis();
         // cleanup
@@ -15,6 +15,7 @@
  */
 package org.codelibs.fess.job;
 
+import org.codelibs.fess.thumbnail.ThumbnailManager;
 import org.codelibs.fess.util.ComponentUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,16 +24,32 @@ public class GenerateThumbnailJob {
     private static final Logger logger = LoggerFactory.getLogger(GenerateThumbnailJob.class);
 
     public String execute() {
+        final ThumbnailManager thumbnailManager = ComponentUtil.getThumbnailManager();
+        final long startTime = System.currentTimeMillis();
+        final long generatedCount = thumbnailManager.getGeneratedCount();
+        final long failureCount = thumbnailManager.getFailureCount();
         int totalCount = 0;
         int count = 1;
+        long maxQueueLag = 0;
         try {
             while (count != 0) {
-                count = ComponentUtil.getThumbnailManager().generate();
+                count = thumbnailManager.generate();
                 totalCount += count;
+                maxQueueLag = Math.max(maxQueueLag, thumbnailManager.getLastQueueLag());
             }
-            return "Created " + totalCount + " thumbnail files.";
+            final long execTime = System.currentTimeMillis() - startTime;
+            final long failures = thumbnailManager.getFailureCount() - failureCount;
+            final StringBuilder buf = new StringBuilder(100);
+            buf.append("Created ").append(thumbnailManager.getGeneratedCount() - generatedCount).append(" thumbnail files");
+            buf.append(" from ").append(totalCount).append(" queued tasks in ").append(execTime).append("ms");
+            if (execTime > 0) {
+                buf.append(" (").append(totalCount * 1000L / execTime).append(" tasks/sec)");
+            }
+            buf.append(", failure rate: ").append(totalCount > 0 ? failures * 100 / totalCount : 0).append('%');
+            buf.append(", max queue lag: ").append(maxQueueLag).append("ms.");
+            return buf.toString();
         } catch (final Exception e) {
-            logger.error("Failed to purge user info.", e);
+            logger.error("Failed to generate thumbnails.", e);
             return e.getMessage();
         }
     }
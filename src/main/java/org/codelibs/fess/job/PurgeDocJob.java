@@ -17,6 +17,7 @@ package org.codelibs.fess.job;
 
 import java.util.Date;
 
+import org.codelibs.fess.app.service.SearchService;
 import org.codelibs.fess.es.client.FessEsClient;
 import org.codelibs.fess.mylasta.direction.FessConfig;
 import org.codelibs.fess.util.ComponentUtil;
@@ -39,6 +40,7 @@ public class PurgeDocJob {
         final QueryBuilder queryBuilder = QueryBuilders.rangeQuery(fessConfig.getIndexFieldExpires()).to(new Date());
         try {
             fessEsClient.deleteByQuery(fessConfig.getIndexDocumentUpdateIndex(), fessConfig.getIndexDocumentType(), queryBuilder);
+            ComponentUtil.getComponent(SearchService.class).clearSearchResultCache();
 
         } catch (final Exception e) {
             logger.error("Could not delete expired documents: " + queryBuilder.toString(), e);
@@ -1691,6 +1691,12 @@ public class FessLabels extends UserMessages {
     /** The key of the message: Properties for Bug Report */
     public static final String LABELS_system_info_bug_report_title = "{labels.system_info_bug_report_title}";
 
+    /** The key of the message: Cache Statistics */
+    public static final String LABELS_system_info_cache_title = "{labels.system_info_cache_title}";
+
+    /** The key of the message: Search Log Statistics */
+    public static final String LABELS_system_info_search_log_title = "{labels.system_info_search_log_title}";
+
     /** The key of the message: system.properties does not exist. Default values are applied. */
     public static final String LABELS_system_info_system_properties_does_not_exist =
             "{labels.system_info_system_properties_does_not_exist}";
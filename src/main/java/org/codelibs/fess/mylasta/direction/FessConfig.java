@@ -122,6 +122,9 @@ public interface FessConfig extends FessEnv, org.codelibs.fess.mylasta.direction
     /** The key of the configuration. e.g. false */
     String API_ACCESS_TOKEN_REQUIRED = "api.access.token.required";
 
+    /** The key of the configuration. e.g. 1000 */
+    String SCRIPT_GROOVY_CACHE_SIZE = "script.groovy.cache.size";
+
     /** The key of the configuration. e.g. 50 */
     String CRAWLER_DOCUMENT_MAX_SITE_LENGTH = "crawler.document.max.site.length";
 
@@ -152,6 +155,18 @@ public interface FessConfig extends FessEnv, org.codelibs.fess.mylasta.direction
     /** The key of the configuration. e.g. UTF-8 */
     String CRAWLER_CRAWLING_DATA_ENCODING = "crawler.crawling.data.encoding";
 
+    /** The key of the configuration. e.g. binary */
+    String CRAWLER_CRAWLING_DATA_FORMAT = "crawler.crawling.data.format";
+
+    /** The key of the configuration. e.g. 4096 */
+    String CRAWLER_CRAWLING_DATA_COMPRESSION_THRESHOLD = "crawler.crawling.data.compression.threshold";
+
+    /** The key of the configuration. e.g. 100 */
+    String CRAWLER_CLIENT_FACTORY_CACHE_SIZE = "crawler.client.factory.cache.size";
+
+    /** The key of the configuration. e.g. 600 */
+    String CRAWLER_CLIENT_FACTORY_CACHE_EXPIRE = "crawler.client.factory.cache.expire";
+
     /** The key of the configuration. e.g. http,https */
     String CRAWLER_WEB_PROTOCOLS = "crawler.web.protocols";
 
@@ -253,12 +268,27 @@ public interface FessConfig extends FessEnv, org.codelibs.fess.mylasta.direction
     /** The key of the configuration. e.g. 10485760 */
     String INDEXER_WEBFS_MAX_DOCUMENT_REQUEST_SIZE = "indexer.webfs.max.document.request.size";
 
+    /** The key of the configuration. e.g. 2 */
+    String INDEXER_WEBFS_TRANSFORMER_THREAD_SIZE = "indexer.webfs.transformer.thread.size";
+
+    /** The key of the configuration. e.g. 2 */
+    String INDEXER_WEBFS_MAX_INFLIGHT_REQUESTS = "indexer.webfs.max.inflight.requests";
+
     /** The key of the configuration. e.g. 5 */
     String INDEXER_DATA_MAX_DOCUMENT_CACHE_SIZE = "indexer.data.max.document.cache.size";
 
     /** The key of the configuration. e.g. 10485760 */
     String INDEXER_DATA_MAX_DOCUMENT_REQUEST_SIZE = "indexer.data.max.document.request.size";
 
+    /** The key of the configuration. e.g. 52428800 */
+    String INDEXER_DATA_MAX_INFLIGHT_REQUEST_SIZE = "indexer.data.max.inflight.request.size";
+
+    /** The key of the configuration. e.g. 4 */
+    String INDEXER_DATA_BUFFER_STRIPE_SIZE = "indexer.data.buffer.stripe.size";
+
+    /** The key of the configuration. e.g. 2 */
+    String INDEXER_DATA_SENDER_THREAD_SIZE = "indexer.data.sender.thread.size";
+
     /** The key of the configuration. e.g. favorite_count */
     String INDEX_FIELD_favorite_count = "index.field.favorite_count";
 
@@ -409,6 +439,21 @@ public interface FessConfig extends FessEnv, org.codelibs.fess.mylasta.direction
     /** The key of the configuration. e.g. 3m */
     String INDEX_BULK_TIMEOUT = "index.bulk.timeout";
 
+    /** The key of the configuration. e.g. 2 */
+    String INDEX_BULK_CONCURRENT_REQUESTS = "index.bulk.concurrent.requests";
+
+    /** The key of the configuration. e.g. 1000 */
+    String INDEX_BULK_MAX_ACTIONS = "index.bulk.max.actions";
+
+    /** The key of the configuration. e.g. 10485760 */
+    String INDEX_BULK_MAX_SIZE = "index.bulk.max.size";
+
+    /** The key of the configuration. e.g. 100 */
+    String INDEX_BULK_RETRY_INITIAL_DELAY = "index.bulk.retry.initial.delay";
+
+    /** The key of the configuration. e.g. 5 */
+    String INDEX_BULK_RETRY_MAX_COUNT = "index.bulk.retry.max.count";
+
     /** The key of the configuration. e.g. 3m */
     String INDEX_DELETE_TIMEOUT = "index.delete.timeout";
 
@@ -427,6 +472,21 @@ public interface FessConfig extends FessEnv, org.codelibs.fess.mylasta.direction
     /** The key of the configuration. e.g. true */
     String QUERY_REPLACE_TERM_WITH_PREFIX_QUERY = "query.replace.term.with.prefix.query";
 
+    /** The key of the configuration. e.g. 1000 */
+    String QUERY_CACHE_SIZE = "query.cache.size";
+
+    /** The key of the configuration. e.g. false */
+    String QUERY_RESULT_CACHE_ENABLED = "query.result.cache.enabled";
+
+    /** The key of the configuration. e.g. 52428800 */
+    String QUERY_RESULT_CACHE_MAX_SIZE = "query.result.cache.max.size";
+
+    /** The key of the configuration. e.g. 60 */
+    String QUERY_RESULT_CACHE_EXPIRE = "query.result.cache.expire";
+
+    /** The key of the configuration. e.g. 1000 */
+    String QUERY_RESULT_CACHE_CHECK_INTERVAL = "query.result.cache.check.interval";
+
     /** The key of the configuration. e.g.  */
     String QUERY_ADDITIONAL_RESPONSE_FIELDS = "query.additional.response.fields";
 
@@ -664,6 +724,9 @@ public interface FessConfig extends FessEnv, org.codelibs.fess.mylasta.direction
     /** The key of the configuration. e.g. false */
     String THUMBNAIL_CRAWLER_ENABLED = "thumbnail.crawler.enabled";
 
+    /** The key of the configuration. e.g. 4 */
+    String THUMBNAIL_GENERATOR_THREAD_SIZE = "thumbnail.generator.thread.size";
+
     /** The key of the configuration. e.g. Administrator */
     String MAIL_FROM_NAME = "mail.from.name";
 
@@ -844,9 +907,18 @@ public interface FessConfig extends FessEnv, org.codelibs.fess.mylasta.direction
     /** The key of the configuration. e.g. 60 */
     String SUGGEST_POPULAR_WORD_CACHE_EXPIRE = "suggest.popular.word.cache.expire";
 
+    /** The key of the configuration. e.g. 10485760 */
+    String SUGGEST_RESPONSE_CACHE_MAX_SIZE = "suggest.response.cache.max.size";
+
+    /** The key of the configuration. e.g. 10 */
+    String SUGGEST_RESPONSE_CACHE_EXPIRE = "suggest.response.cache.expire";
+
     /** The key of the configuration. e.g. {user}guest,{role}guest */
     String SUGGEST_SEARCH_LOG_PERMISSIONS = "suggest.search.log.permissions";
 
+    /** The key of the configuration. e.g. 60000 */
+    String SUGGEST_SEARCH_LOG_REFRESH_INTERVAL = "suggest.search.log.refresh.interval";
+
     /** The key of the configuration. e.g. false */
     String LDAP_ADMIN_ENABLED = "ldap.admin.enabled";
 
@@ -1310,6 +1382,21 @@ public interface FessConfig extends FessEnv, org.codelibs.fess.mylasta.direction
      */
     boolean isApiAccessTokenRequired();
 
+    /**
+     * Get the value for the key 'script.groovy.cache.size'. <br>
+     * The value is, e.g. 1000 <br>
+     * @return The value of found property. (NotNull: if not found, exception but basically no way)
+     */
+    String getScriptGroovyCacheSize();
+
+    /**
+     * Get the value for the key 'script.groovy.cache.size' as {@link Integer}. <br>
+     * The value is, e.g. 1000 <br>
+     * @return The value of found property. (NotNull: if not found, exception but basically no way)
+     * @throws NumberFormatException When the property is not integer.
+     */
+    Integer getScriptGroovyCacheSizeAsInteger();
+
     /**
      * Get the value for the key 'crawler.document.max.site.length'. <br>
      * The value is, e.g. 50 <br>
@@ -1427,6 +1514,58 @@ public interface FessConfig extends FessEnv, org.codelibs.fess.mylasta.direction
      */
     String getCrawlerCrawlingDataEncoding();
 
+    /**
+     * Get the value for the key 'crawler.crawling.data.format'. <br>
+     * The value is, e.g. binary <br>
+     * @return The value of found property. (NotNull: if not found, exception but basically no way)
+     */
+    String getCrawlerCrawlingDataFormat();
+
+    /**
+     * Get the value for the key 'crawler.crawling.data.compression.threshold'. <br>
+     * The value is, e.g. 4096 <br>
+     * @return The value of found property. (NotNull: if not found, exception but basically no way)
+     */
+    String getCrawlerCrawlingDataCompressionThreshold();
+
+    /**
+     * Get the value for the key 'crawler.crawling.data.compression.threshold' as {@link Integer}. <br>
+     * The value is, e.g. 4096 <br>
+     * @return The value of found property. (NotNull: if not found, exception but basically no way)
+     * @throws NumberFormatException When the property is not integer.
+     */
+    Integer getCrawlerCrawlingDataCompressionThresholdAsInteger();
+
+    /**
+     * Get the value for the key 'crawler.client.factory.cache.size'. <br>
+     * The value is, e.g. 100 <br>
+     * @return The value of found property. (NotNull: if not found, exception but basically no way)
+     */
+    String getCrawlerClientFactoryCacheSize();
+
+    /**
+     * Get the value for the key 'crawler.client.factory.cache.size' as {@link Integer}. <br>
+     * The value is, e.g. 100 <br>
+     * @return The value of found property. (NotNull: if not found, exception but basically no way)
+     * @throws NumberFormatException When the property is not integer.
+     */
+    Integer getCrawlerClientFactoryCacheSizeAsInteger();
+
+    /**
+     * Get the value for the key 'crawler.client.factory.cache.expire'. <br>
+     * The value is, e.g. 600 <br>
+     * @return The value of found property. (NotNull: if not found, exception but basically no way)
+     */
+    String getCrawlerClientFactoryCacheExpire();
+
+    /**
+     * Get the value for the key 'crawler.client.factory.cache.expire' as {@link Long}. <br>
+     * The value is, e.g. 600 <br>
+     * @return The value of found property. (NotNull: if not found, exception but basically no way)
+     * @throws NumberFormatException When the property is not long.
+     */
+    Long getCrawlerClientFactoryCacheExpireAsLong();
+
     /**
      * Get the value for the key 'crawler.web.protocols'. <br>
      * The value is, e.g. http,https <br>
@@ -1827,6 +1966,36 @@ public interface FessConfig extends FessEnv, org.codelibs.fess.mylasta.direction
      */
     Integer getIndexerWebfsMaxDocumentRequestSizeAsInteger();
 
+    /**
+     * Get the value for the key 'indexer.webfs.transformer.thread.size'. <br>
+     * The value is, e.g. 2 <br>
+     * @return The value of found property. (NotNull: if not found, exception but basically no way)
+     */
+    String getIndexerWebfsTransformerThreadSize();
+
+    /**
+     * Get the value for the key 'indexer.webfs.transformer.thread.size' as {@link Integer}. <br>
+     * The value is, e.g. 2 <br>
+     * @return The value of found property. (NotNull: if not found, exception but basically no way)
+     * @throws NumberFormatException When the property is not integer.
+     */
+    Integer getIndexerWebfsTransformerThreadSizeAsInteger();
+
+    /**
+     * Get the value for the key 'indexer.webfs.max.inflight.requests'. <br>
+     * The value is, e.g. 2 <br>
+     * @return The value of found property. (NotNull: if not found, exception but basically no way)
+     */
+    String getIndexerWebfsMaxInflightRequests();
+
+    /**
+     * Get the value for the key 'indexer.webfs.max.inflight.requests' as {@link Integer}. <br>
+     * The value is, e.g. 2 <br>
+     * @return The value of found property. (NotNull: if not found, exception but basically no way)
+     * @throws NumberFormatException When the property is not integer.
+     */
+    Integer getIndexerWebfsMaxInflightRequestsAsInteger();
+
     /**
      * Get the value for the key 'indexer.data.max.document.cache.size'. <br>
      * The value is, e.g. 5 <br>
@@ -1857,6 +2026,51 @@ public interface FessConfig extends FessEnv, org.codelibs.fess.mylasta.direction
      */
     Integer getIndexerDataMaxDocumentRequestSizeAsInteger();
 
+    /**
+     * Get the value for the key 'indexer.data.max.inflight.request.size'. <br>
+     * The value is, e.g. 52428800 <br>
+     * @return The value of found property. (NotNull: if not found, exception but basically no way)
+     */
+    String getIndexerDataMaxInflightRequestSize();
+
+    /**
+     * Get the value for the key 'indexer.data.max.inflight.request.size' as {@link Long}. <br>
+     * The value is, e.g. 52428800 <br>
+     * @return The value of found property. (NotNull: if not found, exception but basically no way)
+     * @throws NumberFormatException When the property is not long.
+     */
+    Long getIndexerDataMaxInflightRequestSizeAsLong();
+
+    /**
+     * Get the value for the key 'indexer.data.buffer.stripe.size'. <br>
+     * The value is, e.g. 4 <br>
+     * @return The value of found property. (NotNull: if not found, exception but basically no way)
+     */
+    String getIndexerDataBufferStripeSize();
+
+    /**
+     * Get the value for the key 'indexer.data.buffer.stripe.size' as {@link Integer}. <br>
+     * The value is, e.g. 4 <br>
+     * @return The value of found property. (NotNull: if not found, exception but basically no way)
+     * @throws NumberFormatException When the property is not integer.
+     */
+    Integer getIndexerDataBufferStripeSizeAsInteger();
+
+    /**
+     * Get the value for the key 'indexer.data.sender.thread.size'. <br>
+     * The value is, e.g. 2 <br>
+     * @return The value of found property. (NotNull: if not found, exception but basically no way)
+     */
+    String getIndexerDataSenderThreadSize();
+
+    /**
+     * Get the value for the key 'indexer.data.sender.thread.size' as {@link Integer}. <br>
+     * The value is, e.g. 2 <br>
+     * @return The value of found property. (NotNull: if not found, exception but basically no way)
+     * @throws NumberFormatException When the property is not integer.
+     */
+    Integer getIndexerDataSenderThreadSizeAsInteger();
+
     /**
      * Get the value for the key 'index.field.favorite_count'. <br>
      * The value is, e.g. favorite_count <br>
@@ -2227,6 +2441,81 @@ public interface FessConfig extends FessEnv, org.codelibs.fess.mylasta.direction
      */
     String getIndexBulkTimeout();
 
+    /**
+     * Get the value for the key 'index.bulk.concurrent.requests'. <br>
+     * The value is, e.g. 2 <br>
+     * @return The value of found property. (NotNull: if not found, exception but basically no way)
+     */
+    String getIndexBulkConcurrentRequests();
+
+    /**
+     * Get the value for the key 'index.bulk.concurrent.requests' as {@link Integer}. <br>
+     * The value is, e.g. 2 <br>
+     * @return The value of found property. (NotNull: if not found, exception but basically no way)
+     * @throws NumberFormatException When the property is not integer.
+     */
+    Integer getIndexBulkConcurrentRequestsAsInteger();
+
+    /**
+     * Get the value for the key 'index.bulk.max.actions'. <br>
+     * The value is, e.g. 1000 <br>
+     * @return The value of found property. (NotNull: if not found, exception but basically no way)
+     */
+    String getIndexBulkMaxActions();
+
+    /**
+     * Get the value for the key 'index.bulk.max.actions' as {@link Integer}. <br>
+     * The value is, e.g. 1000 <br>
+     * @return The value of found property. (NotNull: if not found, exception but basically no way)
+     * @throws NumberFormatException When the property is not integer.
+     */
+    Integer getIndexBulkMaxActionsAsInteger();
+
+    /**
+     * Get the value for the key 'index.bulk.max.size'. <br>
+     * The value is, e.g. 10485760 <br>
+     * @return The value of found property. (NotNull: if not found, exception but basically no way)
+     */
+    String getIndexBulkMaxSize();
+
+    /**
+     * Get the value for the key 'index.bulk.max.size' as {@link Long}. <br>
+     * The value is, e.g. 10485760 <br>
+     * @return The value of found property. (NotNull: if not found, exception but basically no way)
+     * @throws NumberFormatException When the property is not long.
+     */
+    Long getIndexBulkMaxSizeAsLong();
+
+    /**
+     * Get the value for the key 'index.bulk.retry.initial.delay'. <br>
+     * The value is, e.g. 100 <br>
+     * @return The value of found property. (NotNull: if not found, exception but basically no way)
+     */
+    String getIndexBulkRetryInitialDelay();
+
+    /**
+     * Get the value for the key 'index.bulk.retry.initial.delay' as {@link Integer}. <br>
+     * The value is, e.g. 100 <br>
+     * @return The value of found property. (NotNull: if not found, exception but basically no way)
+     * @throws NumberFormatException When the property is not integer.
+     */
+    Integer getIndexBulkRetryInitialDelayAsInteger();
+
+    /**
+     * Get the value for the key 'index.bulk.retry.max.count'. <br>
+     * The value is, e.g. 5 <br>
+     * @return The value of found property. (NotNull: if not found, exception but basically no way)
+     */
+    String getIndexBulkRetryMaxCount();
+
+    /**
+     * Get the value for the key 'index.bulk.retry.max.count' as {@link Integer}. <br>
+     * The value is, e.g. 5 <br>
+     * @return The value of found property. (NotNull: if not found, exception but basically no way)
+     * @throws NumberFormatException When the property is not integer.
+     */
+    Integer getIndexBulkRetryMaxCountAsInteger();
+
     /**
      * Get the value for the key 'index.delete.timeout'. <br>
      * The value is, e.g. 3m <br>
@@ -2286,6 +2575,80 @@ public interface FessConfig extends FessEnv, org.codelibs.fess.mylasta.direction
      */
     boolean isQueryReplaceTermWithPrefixQuery();
 
+    /**
+     * Get the value for the key 'query.cache.size'. <br>
+     * The value is, e.g. 1000 <br>
+     * @return The value of found property. (NotNull: if not found, exception but basically no way)
+     */
+    String getQueryCacheSize();
+
+    /**
+     * Get the value for the key 'query.cache.size' as {@link Integer}. <br>
+     * The value is, e.g. 1000 <br>
+     * @return The value of found property. (NotNull: if not found, exception but basically no way)
+     * @throws NumberFormatException When the property is not integer.
+     */
+    Integer getQueryCacheSizeAsInteger();
+
+    /**
+     * Get the value for the key 'query.result.cache.enabled'. <br>
+     * The value is, e.g. false <br>
+     * @return The value of found property. (NotNull: if not found, exception but basically no way)
+     */
+    String getQueryResultCacheEnabled();
+
+    /**
+     * Is the property for the key 'query.result.cache.enabled' true? <br>
+     * The value is, e.g. false <br>
+     * @return The determination, true or false. (if not found, exception but basically no way)
+     */
+    boolean isQueryResultCacheEnabled();
+
+    /**
+     * Get the value for the key 'query.result.cache.max.size'. <br>
+     * The value is, e.g. 52428800 <br>
+     * @return The value of found property. (NotNull: if not found, exception but basically no way)
+     */
+    String getQueryResultCacheMaxSize();
+
+    /**
+     * Get the value for the key 'query.result.cache.max.size' as {@link Integer}. <br>
+     * The value is, e.g. 52428800 <br>
+     * @return The value of found property. (NotNull: if not found, exception but basically no way)
+     * @throws NumberFormatException When the property is not integer.
+     */
+    Integer getQueryResultCacheMaxSizeAsInteger();
+
+    /**
+     * Get the value for the key 'query.result.cache.expire'. <br>
+     * The value is, e.g. 60 <br>
+     * @return The value of found property. (NotNull: if not found, exception but basically no way)
+     */
+    String getQueryResultCacheExpire();
+
+    /**
+     * Get the value for the key 'query.result.cache.expire' as {@link Integer}. <br>
+     * The value is, e.g. 60 <br>
+     * @return The value of found property. (NotNull: if not found, exception but basically no way)
+     * @throws NumberFormatException When the property is not integer.
+     */
+    Integer getQueryResultCacheExpireAsInteger();
+
+    /**
+     * Get the value for the key 'query.result.cache.check.interval'. <br>
+     * The value is, e.g. 1000 <br>
+     * @return The value of found property. (NotNull: if not found, exception but basically no way)
+     */
+    String getQueryResultCacheCheckInterval();
+
+    /**
+     * Get the value for the key 'query.result.cache.check.interval' as {@link Integer}. <br>
+     * The value is, e.g. 1000 <br>
+     * @return The value of found property. (NotNull: if not found, exception but basically no way)
+     * @throws NumberFormatException When the property is not integer.
+     */
+    Integer getQueryResultCacheCheckIntervalAsInteger();
+
     /**
      * Get the value for the key 'query.additional.response.fields'. <br>
      * The value is, e.g.  <br>
@@ -3217,6 +3580,21 @@ public interface FessConfig extends FessEnv, org.codelibs.fess.mylasta.direction
      */
     boolean isThumbnailCrawlerEnabled();
 
+    /**
+     * Get the value for the key 'thumbnail.generator.thread.size'. <br>
+     * The value is, e.g. 4 <br>
+     * @return The value of found property. (NotNull: if not found, exception but basically no way)
+     */
+    String getThumbnailGeneratorThreadSize();
+
+    /**
+     * Get the value for the key 'thumbnail.generator.thread.size' as {@link Integer}. <br>
+     * The value is, e.g. 4 <br>
+     * @return The value of found property. (NotNull: if not found, exception but basically no way)
+     * @throws NumberFormatException When the property is not integer.
+     */
+    Integer getThumbnailGeneratorThreadSizeAsInteger();
+
     /**
      * Get the value for the key 'mail.from.name'. <br>
      * The value is, e.g. Administrator <br>
@@ -3747,6 +4125,36 @@ public interface FessConfig extends FessEnv, org.codelibs.fess.mylasta.direction
      */
     Integer getSuggestPopularWordCacheExpireAsInteger();
 
+    /**
+     * Get the value for the key 'suggest.response.cache.max.size'. <br>
+     * The value is, e.g. 10485760 <br>
+     * @return The value of found property. (NotNull: if not found, exception but basically no way)
+     */
+    String getSuggestResponseCacheMaxSize();
+
+    /**
+     * Get the value for the key 'suggest.response.cache.max.size' as {@link Integer}. <br>
+     * The value is, e.g. 10485760 <br>
+     * @return The value of found property. (NotNull: if not found, exception but basically no way)
+     * @throws NumberFormatException When the property is not integer.
+     */
+    Integer getSuggestResponseCacheMaxSizeAsInteger();
+
+    /**
+     * Get the value for the key 'suggest.response.cache.expire'. <br>
+     * The value is, e.g. 10 <br>
+     * @return The value of found property. (NotNull: if not found, exception but basically no way)
+     */
+    String getSuggestResponseCacheExpire();
+
+    /**
+     * Get the value for the key 'suggest.response.cache.expire' as {@link Integer}. <br>
+     * The value is, e.g. 10 <br>
+     * @return The value of found property. (NotNull: if not found, exception but basically no way)
+     * @throws NumberFormatException When the property is not integer.
+     */
+    Integer getSuggestResponseCacheExpireAsInteger();
+
     /**
      * Get the value for the key 'suggest.search.log.permissions'. <br>
      * The value is, e.g. {user}guest,{role}guest <br>
@@ -3754,6 +4162,21 @@ public interface FessConfig extends FessEnv, org.codelibs.fess.mylasta.direction
      */
     String getSuggestSearchLogPermissions();
 
+    /**
+     * Get the value for the key 'suggest.search.log.refresh.interval'. <br>
+     * The value is, e.g. 60000 <br>
+     * @return The value of found property. (NotNull: if not found, exception but basically no way)
+     */
+    String getSuggestSearchLogRefreshInterval();
+
+    /**
+     * Get the value for the key 'suggest.search.log.refresh.interval' as {@link Integer}. <br>
+     * The value is, e.g. 60000 <br>
+     * @return The value of found property. (NotNull: if not found, exception but basically no way)
+     * @throws NumberFormatException When the property is not integer.
+     */
+    Integer getSuggestSearchLogRefreshIntervalAsInteger();
+
     /**
      * Get the value for the key 'ldap.admin.enabled'. <br>
      * The value is, e.g. false <br>
@@ -4476,6 +4899,14 @@ public interface FessConfig extends FessEnv, org.codelibs.fess.mylasta.direction
             return is(FessConfig.API_ACCESS_TOKEN_REQUIRED);
         }
 
+        public String getScriptGroovyCacheSize() {
+            return get(FessConfig.SCRIPT_GROOVY_CACHE_SIZE);
+        }
+
+        public Integer getScriptGroovyCacheSizeAsInteger() {
+            return getAsInteger(FessConfig.SCRIPT_GROOVY_CACHE_SIZE);
+        }
+
         public String getCrawlerDocumentMaxSiteLength() {
             return get(FessConfig.CRAWLER_DOCUMENT_MAX_SITE_LENGTH);
         }
@@ -4540,6 +4971,34 @@ public interface FessConfig extends FessEnv, org.codelibs.fess.mylasta.direction
             return get(FessConfig.CRAWLER_CRAWLING_DATA_ENCODING);
         }
 
+        public String getCrawlerCrawlingDataFormat() {
+            return get(FessConfig.CRAWLER_CRAWLING_DATA_FORMAT);
+        }
+
+        public String getCrawlerCrawlingDataCompressionThreshold() {
+            return get(FessConfig.CRAWLER_CRAWLING_DATA_COMPRESSION_THRESHOLD);
+        }
+
+        public Integer getCrawlerCrawlingDataCompressionThresholdAsInteger() {
+            return getAsInteger(FessConfig.CRAWLER_CRAWLING_DATA_COMPRESSION_THRESHOLD);
+        }
+
+        public String getCrawlerClientFactoryCacheSize() {
+            return get(FessConfig.CRAWLER_CLIENT_FACTORY_CACHE_SIZE);
+        }
+
+        public Integer getCrawlerClientFactoryCacheSizeAsInteger() {
+            return getAsInteger(FessConfig.CRAWLER_CLIENT_FACTORY_CACHE_SIZE);
+        }
+
+        public String getCrawlerClientFactoryCacheExpire() {
+            return get(FessConfig.CRAWLER_CLIENT_FACTORY_CACHE_EXPIRE);
+        }
+
+        public Long getCrawlerClientFactoryCacheExpireAsLong() {
+            return getAsLong(FessConfig.CRAWLER_CLIENT_FACTORY_CACHE_EXPIRE);
+        }
+
         public String getCrawlerWebProtocols() {
             return get(FessConfig.CRAWLER_WEB_PROTOCOLS);
         }
@@ -4756,6 +5215,22 @@ public interface FessConfig extends FessEnv, org.codelibs.fess.mylasta.direction
             return getAsInteger(FessConfig.INDEXER_WEBFS_MAX_DOCUMENT_REQUEST_SIZE);
         }
 
+        public String getIndexerWebfsTransformerThreadSize() {
+            return get(FessConfig.INDEXER_WEBFS_TRANSFORMER_THREAD_SIZE);
+        }
+
+        public Integer getIndexerWebfsTransformerThreadSizeAsInteger() {
+            return getAsInteger(FessConfig.INDEXER_WEBFS_TRANSFORMER_THREAD_SIZE);
+        }
+
+        public String getIndexerWebfsMaxInflightRequests() {
+            return get(FessConfig.INDEXER_WEBFS_MAX_INFLIGHT_REQUESTS);
+        }
+
+        public Integer getIndexerWebfsMaxInflightRequestsAsInteger() {
+            return getAsInteger(FessConfig.INDEXER_WEBFS_MAX_INFLIGHT_REQUESTS);
+        }
+
         public String getIndexerDataMaxDocumentCacheSize() {
             return get(FessConfig.INDEXER_DATA_MAX_DOCUMENT_CACHE_SIZE);
         }
@@ -4772,6 +5247,30 @@ public interface FessConfig extends FessEnv, org.codelibs.fess.mylasta.direction
             return getAsInteger(FessConfig.INDEXER_DATA_MAX_DOCUMENT_REQUEST_SIZE);
         }
 
+        public String getIndexerDataMaxInflightRequestSize() {
+            return get(FessConfig.INDEXER_DATA_MAX_INFLIGHT_REQUEST_SIZE);
+        }
+
+        public Long getIndexerDataMaxInflightRequestSizeAsLong() {
+            return getAsLong(FessConfig.INDEXER_DATA_MAX_INFLIGHT_REQUEST_SIZE);
+        }
+
+        public String getIndexerDataBufferStripeSize() {
+            return get(FessConfig.INDEXER_DATA_BUFFER_STRIPE_SIZE);
+        }
+
+        public Integer getIndexerDataBufferStripeSizeAsInteger() {
+            return getAsInteger(FessConfig.INDEXER_DATA_BUFFER_STRIPE_SIZE);
+        }
+
+        public String getIndexerDataSenderThreadSize() {
+            return get(FessConfig.INDEXER_DATA_SENDER_THREAD_SIZE);
+        }
+
+        public Integer getIndexerDataSenderThreadSizeAsInteger() {
+            return getAsInteger(FessConfig.INDEXER_DATA_SENDER_THREAD_SIZE);
+        }
+
         public String getIndexFieldFavoriteCount() {
             return get(FessConfig.INDEX_FIELD_favorite_count);
         }
@@ -4980,6 +5479,46 @@ public interface FessConfig extends FessEnv, org.codelibs.fess.mylasta.direction
             return get(FessConfig.INDEX_BULK_TIMEOUT);
         }
 
+        public String getIndexBulkConcurrentRequests() {
+            return get(FessConfig.INDEX_BULK_CONCURRENT_REQUESTS);
+        }
+
+        public Integer getIndexBulkConcurrentRequestsAsInteger() {
+            return getAsInteger(FessConfig.INDEX_BULK_CONCURRENT_REQUESTS);
+        }
+
+        public String getIndexBulkMaxActions() {
+            return get(FessConfig.INDEX_BULK_MAX_ACTIONS);
+        }
+
+        public Integer getIndexBulkMaxActionsAsInteger() {
+            return getAsInteger(FessConfig.INDEX_BULK_MAX_ACTIONS);
+        }
+
+        public String getIndexBulkMaxSize() {
+            return get(FessConfig.INDEX_BULK_MAX_SIZE);
+        }
+
+        public Long getIndexBulkMaxSizeAsLong() {
+            return getAsLong(FessConfig.INDEX_BULK_MAX_SIZE);
+        }
+
+        public String getIndexBulkRetryInitialDelay() {
+            return get(FessConfig.INDEX_BULK_RETRY_INITIAL_DELAY);
+        }
+
+        public Integer getIndexBulkRetryInitialDelayAsInteger() {
+            return getAsInteger(FessConfig.INDEX_BULK_RETRY_INITIAL_DELAY);
+        }
+
+        public String getIndexBulkRetryMaxCount() {
+            return get(FessConfig.INDEX_BULK_RETRY_MAX_COUNT);
+        }
+
+        public Integer getIndexBulkRetryMaxCountAsInteger() {
+            return getAsInteger(FessConfig.INDEX_BULK_RETRY_MAX_COUNT);
+        }
+
         public String getIndexDeleteTimeout() {
             return get(FessConfig.INDEX_DELETE_TIMEOUT);
         }
@@ -5012,6 +5551,46 @@ public interface FessConfig extends FessEnv, org.codelibs.fess.mylasta.direction
             return is(FessConfig.QUERY_REPLACE_TERM_WITH_PREFIX_QUERY);
         }
 
+        public String getQueryCacheSize() {
+            return get(FessConfig.QUERY_CACHE_SIZE);
+        }
+
+        public Integer getQueryCacheSizeAsInteger() {
+            return getAsInteger(FessConfig.QUERY_CACHE_SIZE);
+        }
+
+        public String getQueryResultCacheEnabled() {
+            return get(FessConfig.QUERY_RESULT_CACHE_ENABLED);
+        }
+
+        public boolean isQueryResultCacheEnabled() {
+            return is(FessConfig.QUERY_RESULT_CACHE_ENABLED);
+        }
+
+        public String getQueryResultCacheMaxSize() {
+            return get(FessConfig.QUERY_RESULT_CACHE_MAX_SIZE);
+        }
+
+        public Integer getQueryResultCacheMaxSizeAsInteger() {
+            return getAsInteger(FessConfig.QUERY_RESULT_CACHE_MAX_SIZE);
+        }
+
+        public String getQueryResultCacheExpire() {
+            return get(FessConfig.QUERY_RESULT_CACHE_EXPIRE);
+        }
+
+        public Integer getQueryResultCacheExpireAsInteger() {
+            return getAsInteger(FessConfig.QUERY_RESULT_CACHE_EXPIRE);
+        }
+
+        public String getQueryResultCacheCheckInterval() {
+            return get(FessConfig.QUERY_RESULT_CACHE_CHECK_INTERVAL);
+        }
+
+        public Integer getQueryResultCacheCheckIntervalAsInteger() {
+            return getAsInteger(FessConfig.QUERY_RESULT_CACHE_CHECK_INTERVAL);
+        }
+
         public String getQueryAdditionalResponseFields() {
             return get(FessConfig.QUERY_ADDITIONAL_RESPONSE_FIELDS);
         }
@@ -5476,6 +6055,14 @@ public interface FessConfig extends FessEnv, org.codelibs.fess.mylasta.direction
             return is(FessConfig.THUMBNAIL_CRAWLER_ENABLED);
         }
 
+        public String getThumbnailGeneratorThreadSize() {
+            return get(FessConfig.THUMBNAIL_GENERATOR_THREAD_SIZE);
+        }
+
+        public Integer getThumbnailGeneratorThreadSizeAsInteger() {
+            return getAsInteger(FessConfig.THUMBNAIL_GENERATOR_THREAD_SIZE);
+        }
+
         public String getMailFromName() {
             return get(FessConfig.MAIL_FROM_NAME);
         }
@@ -5768,10 +6355,34 @@ public interface FessConfig extends FessEnv, org.codelibs.fess.mylasta.direction
             return getAsInteger(FessConfig.SUGGEST_POPULAR_WORD_CACHE_EXPIRE);
         }
 
+        public String getSuggestResponseCacheMaxSize() {
+            return get(FessConfig.SUGGEST_RESPONSE_CACHE_MAX_SIZE);
+        }
+
+        public Integer getSuggestResponseCacheMaxSizeAsInteger() {
+            return getAsInteger(FessConfig.SUGGEST_RESPONSE_CACHE_MAX_SIZE);
+        }
+
+        public String getSuggestResponseCacheExpire() {
+            return get(FessConfig.SUGGEST_RESPONSE_CACHE_EXPIRE);
+        }
+
+        public Integer getSuggestResponseCacheExpireAsInteger() {
+            return getAsInteger(FessConfig.SUGGEST_RESPONSE_CACHE_EXPIRE);
+        }
+
         public String getSuggestSearchLogPermissions() {
             return get(FessConfig.SUGGEST_SEARCH_LOG_PERMISSIONS);
         }
 
+        public String getSuggestSearchLogRefreshInterval() {
+            return get(FessConfig.SUGGEST_SEARCH_LOG_REFRESH_INTERVAL);
+        }
+
+        public Integer getSuggestSearchLogRefreshIntervalAsInteger() {
+            return getAsInteger(FessConfig.SUGGEST_SEARCH_LOG_REFRESH_INTERVAL);
+        }
+
         public String getLdapAdminEnabled() {
             return get(FessConfig.LDAP_ADMIN_ENABLED);
         }
@@ -28,5 +28,7 @@ public interface ThumbnailGenerator {
 
     boolean isAvailable();
 
+    int getMaxConcurrency();
+
     void destroy();
 }
@@ -15,20 +15,39 @@
  */
 package org.codelibs.fess.thumbnail;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileVisitResult;
 import java.nio.file.FileVisitor;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
@@ -60,10 +79,29 @@ public class ThumbnailManager {
 
     private static final String NOIMAGE_FILE_SUFFIX = ".txt";
 
+    private static final String SPILL_FILE_NAME = "thumbnail_queue.spill";
+
+    private static final String SPILL_FILE_SUFFIX = ".spill";
+
+    private static final String REPLAY_FILE_SUFFIX = ".replay";
+
+    private static final String LOCK_FILE_SUFFIX = ".lock";
+
+    private static final long SPILL_LOCK_POSITION = 0L;
+
+    private static final long REPLAY_LOCK_POSITION = 1L;
+
     private static final Logger logger = LoggerFactory.getLogger(ThumbnailManager.class);
 
     protected File baseDir;
 
+    protected File spillFile;
+
+    protected final Object spillLock = new Object();
+
+    // one channel per process, because closing any channel of a file releases all locks of the process on it
+    protected FileChannel lockChannel;
+
     private final List<ThumbnailGenerator> generatorList = new ArrayList<>();
 
     private BlockingQueue<Tuple3<String, String, String>> thumbnailTaskQueue;
@@ -86,6 +124,20 @@ public class ThumbnailManager {
 
     protected long noImageExpired = 24 * 60 * 60 * 1000L; // 24 hours
 
+    protected final Map<String, ExecutorService> generatorExecutorMap = new ConcurrentHashMap<>();
+
+    protected final AtomicLong generatedCount = new AtomicLong();
+
+    protected final AtomicLong failureCount = new AtomicLong();
+
+    protected final AtomicLong skippedCount = new AtomicLong();
+
+    protected volatile long lastQueueLag = 0;
+
+    protected final AtomicLong spilledTaskCount = new AtomicLong();
+
+    protected final AtomicLong droppedTaskCount = new AtomicLong();
+
     @PostConstruct
     public void init() {
         final String thumbnailPath = System.getProperty(FESS_THUMBNAIL_PATH);
@@ -110,21 +162,29 @@ public class ThumbnailManager {
             logger.debug("Thumbnail Directory: " + baseDir.getAbsolutePath());
         }
 
+        final String varPath = System.getProperty(FESS_VAR_PATH);
+        if (varPath != null) {
+            spillFile = new File(varPath, SPILL_FILE_NAME);
+        } else {
+            spillFile = new File(baseDir.getAbsolutePath() + SPILL_FILE_SUFFIX);
+        }
+
         thumbnailTaskQueue = new LinkedBlockingQueue<>(thumbnailTaskQueueSize);
         generating = true;
         thumbnailQueueThread = new Thread((Runnable) () -> {
-            final List<Tuple3<String, String, String>> taskList = new ArrayList<>();
+            final Map<String, Tuple3<String, String, String>> taskMap = new LinkedHashMap<>();
             while (generating) {
                 try {
                     final Tuple3<String, String, String> task = thumbnailTaskQueue.poll(thumbnailTaskQueueTimeout, TimeUnit.MILLISECONDS);
                     if (task == null) {
-                        if (!taskList.isEmpty()) {
-                            storeQueue(taskList);
+                        if (!taskMap.isEmpty()) {
+                            storeQueue(taskMap);
                         }
-                    } else if (!taskList.contains(task)) {
-                        taskList.add(task);
-                        if (taskList.size() > thumbnailTaskBulkSize) {
-                            storeQueue(taskList);
+                        replaySpillFile();
+                    } else {
+                        taskMap.putIfAbsent(getTaskKey(task), task);
+                        if (taskMap.size() > thumbnailTaskBulkSize) {
+                            storeQueue(taskMap);
                         }
                     }
                 } catch (final InterruptedException e) {
@@ -135,6 +195,14 @@ public class ThumbnailManager {
                     }
                 }
             }
+            // keep pending tasks for the next start
+            final List<Tuple3<String, String, String>> taskList = new ArrayList<>(taskMap.values());
+            thumbnailTaskQueue.drainTo(taskList);
+            taskList.forEach(task -> {
+                if (!spill(task)) {
+                    droppedTaskCount.incrementAndGet();
+                }
+            });
         }, "ThumbnailGenerator");
         thumbnailQueueThread.start();
     }
@@ -148,6 +216,7 @@ public class ThumbnailManager {
         } catch (final InterruptedException e) {
             logger.warn("Thumbnail thread is timeouted.", e);
         }
+        generatorExecutorMap.values().forEach(executor -> executor.shutdownNow());
         generatorList.forEach(g -> {
             try {
                 g.destroy();
@@ -155,18 +224,36 @@ public class ThumbnailManager {
                 logger.warn("Failed to stop thumbnail generator.", e);
             }
         });
+        if (spilledTaskCount.get() > 0 || droppedTaskCount.get() > 0) {
+            logger.info("Thumbnail tasks: spilled " + spilledTaskCount.get() + ", dropped " + droppedTaskCount.get() + ", spill file "
+                    + getSpillFileSize() + " bytes");
+        }
+        synchronized (spillLock) {
+            if (lockChannel != null) {
+                try {
+                    lockChannel.close();
+                } catch (final IOException e) {
+                    logger.warn("Failed to close " + spillFile.getAbsolutePath() + LOCK_FILE_SUFFIX, e);
+                }
+                lockChannel = null;
+            }
+        }
     }
 
     public String getThumbnailPathOption() {
         return "-D" + FESS_THUMBNAIL_PATH + "=" + baseDir.getAbsolutePath();
     }
 
-    protected void storeQueue(final List<Tuple3<String, String, String>> taskList) {
+    protected String getTaskKey(final Tuple3<String, String, String> task) {
+        return task.getValue1() + '\n' + task.getValue2() + '\n' + task.getValue3();
+    }
+
+    protected void storeQueue(final Map<String, Tuple3<String, String, String>> taskMap) {
         final FessConfig fessConfig = ComponentUtil.getFessConfig();
         final SystemHelper systemHelper = ComponentUtil.getSystemHelper();
         final String[] targets = fessConfig.getThumbnailGeneratorTargetsAsArray();
         final List<ThumbnailQueue> list = new ArrayList<>();
-        taskList.stream().filter(entity -> entity != null).forEach(task -> {
+        taskMap.values().stream().filter(entity -> entity != null).forEach(task -> {
             for (final String target : targets) {
                 final ThumbnailQueue entity = new ThumbnailQueue();
                 entity.setGenerator(task.getValue1());
@@ -178,16 +265,145 @@ public class ThumbnailManager {
                 list.add(entity);
             }
         });
-        taskList.clear();
+        taskMap.clear();
         final ThumbnailQueueBhv thumbnailQueueBhv = ComponentUtil.getComponent(ThumbnailQueueBhv.class);
         thumbnailQueueBhv.batchInsert(list);
     }
 
+    protected boolean spill(final Tuple3<String, String, String> task) {
+        final String[] values = new String[] { task.getValue1(), task.getValue2(), task.getValue3() };
+        for (final String value : values) {
+            if (value == null || value.indexOf('\t') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                return false;
+            }
+        }
+        synchronized (spillLock) {
+            // the spill file is shared with crawler and job processes
+            try (FileLock lock = getLockChannel().lock(SPILL_LOCK_POSITION, 1L, false);
+                    BufferedWriter writer =
+                            Files.newBufferedWriter(spillFile.toPath(), StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                                    StandardOpenOption.APPEND)) {
+                writer.write(String.join("\t", values));
+                writer.write('\n');
+            } catch (final IOException e) {
+                logger.warn("Failed to write a thumbnail task to " + spillFile.getAbsolutePath(), e);
+                return false;
+            }
+        }
+        spilledTaskCount.incrementAndGet();
+        return true;
+    }
+
+    protected void replaySpillFile() throws IOException {
+        final File replayFile = new File(spillFile.getAbsolutePath() + REPLAY_FILE_SUFFIX);
+        if (!spillFile.isFile() && !replayFile.isFile()) {
+            return;
+        }
+
+        try (FileLock replayLock = getLockChannel().tryLock(REPLAY_LOCK_POSITION, 1L, false)) {
+            if (replayLock == null) {
+                // replayed by another process
+                return;
+            }
+
+            synchronized (spillLock) {
+                try (FileLock lock = getLockChannel().lock(SPILL_LOCK_POSITION, 1L, false)) {
+                    if (!replayFile.exists()) {
+                        if (!spillFile.isFile()) {
+                            return;
+                        }
+                        Files.move(spillFile.toPath(), replayFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                    }
+                }
+            }
+
+            final int count = replayTasks(replayFile);
+            Files.delete(replayFile.toPath());
+            if (logger.isDebugEnabled()) {
+                logger.debug("Replayed " + count + " thumbnail tasks from " + replayFile.getAbsolutePath());
+            }
+        }
+    }
+
+    protected int replayTasks(final File replayFile) throws IOException {
+        final List<Long> batchOffsetList = new ArrayList<>();
+        batchOffsetList.add(0L);
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(replayFile.toPath()))) {
+            long offset = 0;
+            int lines = 0;
+            int b;
+            while ((b = in.read()) != -1) {
+                offset++;
+                if (b == '\n' && ++lines % thumbnailTaskBulkSize == 0) {
+                    batchOffsetList.add(offset);
+                }
+            }
+        }
+
+        // stored from the tail and truncated after each batch, so a retry does not store them again
+        int count = 0;
+        try (FileChannel channel = FileChannel.open(replayFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            for (int i = batchOffsetList.size() - 1; i >= 0; i--) {
+                final long start = batchOffsetList.get(i);
+                final long end = channel.size();
+                if (end <= start) {
+                    continue;
+                }
+                final ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+                while (buffer.hasRemaining() && channel.read(buffer, start + buffer.position()) != -1) {
+                    // read a batch
+                }
+                final Map<String, Tuple3<String, String, String>> taskMap = new LinkedHashMap<>();
+                for (final String line : new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8).split("\n")) {
+                    final String[] values = line.split("\t", -1);
+                    if (values.length != 3) {
+                        continue;
+                    }
+                    final Tuple3<String, String, String> task = new Tuple3<>(values[0], values[1], values[2]);
+                    taskMap.putIfAbsent(getTaskKey(task), task);
+                    count++;
+                }
+                if (!taskMap.isEmpty()) {
+                    storeQueue(taskMap);
+                }
+                channel.truncate(start);
+            }
+        }
+        return count;
+    }
+
+    protected FileChannel getLockChannel() throws IOException {
+        synchronized (spillLock) {
+            // spill and replay lock their own regions of the same lock file
+            if (lockChannel == null || !lockChannel.isOpen()) {
+                lockChannel =
+                        FileChannel.open(new File(spillFile.getAbsolutePath() + LOCK_FILE_SUFFIX).toPath(), StandardOpenOption.CREATE,
+                                StandardOpenOption.WRITE);
+            }
+            return lockChannel;
+        }
+    }
+
+    public int getThumbnailTaskQueueDepth() {
+        return thumbnailTaskQueue.size();
+    }
+
+    public long getSpilledTaskCount() {
+        return spilledTaskCount.get();
+    }
+
+    public long getDroppedTaskCount() {
+        return droppedTaskCount.get();
+    }
+
+    public long getSpillFileSize() {
+        return spillFile.length();
+    }
+
     public int generate() {
         final FessConfig fessConfig = ComponentUtil.getFessConfig();
-        final List<String> idList = new ArrayList<>();
         final ThumbnailQueueBhv thumbnailQueueBhv = ComponentUtil.getComponent(ThumbnailQueueBhv.class);
-        thumbnailQueueBhv.selectList(cb -> {
+        final List<ThumbnailQueue> entityList = thumbnailQueueBhv.selectList(cb -> {
             if (StringUtil.isBlank(fessConfig.getSchedulerTargetName())) {
                 cb.query().setTarget_Equal(Constants.DEFAULT_JOB_TARGET);
             } else {
@@ -195,36 +411,127 @@ public class ThumbnailManager {
             }
             cb.query().addOrderBy_CreatedTime_Asc();
             cb.fetchFirst(fessConfig.getPageThumbnailQueueMaxFetchSizeAsInteger());
-        }).forEach(entity -> {
-            idList.add(entity.getId());
-            final String generatorName = entity.getGenerator();
-            try {
-                final ThumbnailGenerator generator = ComponentUtil.getComponent(generatorName);
-                final File outputFile = new File(baseDir, entity.getPath());
-                final File noImageFile = new File(outputFile.getAbsolutePath() + NOIMAGE_FILE_SUFFIX);
-                if (!noImageFile.isFile() || System.currentTimeMillis() - noImageFile.lastModified() > noImageExpired) {
-                    if (noImageFile.isFile() && !noImageFile.delete()) {
-                        logger.warn("Failed to delete " + noImageFile.getAbsolutePath());
-                    }
-                    if (!generator.generate(entity.getUrl(), outputFile)) {
-                        new File(outputFile.getAbsolutePath() + NOIMAGE_FILE_SUFFIX).setLastModified(System.currentTimeMillis());
-                    }
-                } else if (logger.isDebugEnabled()) {
-                    logger.debug("No image file exists: " + noImageFile.getAbsolutePath());
+        });
+        if (entityList.isEmpty()) {
+            lastQueueLag = 0;
+            return 0;
+        }
+
+        final Long createdTime = entityList.get(0).getCreatedTime();
+        if (createdTime != null) {
+            lastQueueLag = ComponentUtil.getSystemHelper().getCurrentTimeAsLong() - createdTime.longValue();
+        }
+
+        final Queue<String> processedIdQueue = new ConcurrentLinkedQueue<>();
+        final List<Future<?>> futureList = new ArrayList<>(entityList.size());
+        for (final ThumbnailQueue entity : entityList) {
+            final Runnable task = () -> {
+                try {
+                    generate(entity);
+                } finally {
+                    processedIdQueue.add(entity.getId());
                 }
-            } catch (final Exception e) {
-                logger.warn("Failed to create thumbnail for " + entity, e);
+            };
+            final ExecutorService executor = getGeneratorExecutor(entity.getGenerator());
+            if (executor == null) {
+                task.run();
+            } else {
+                futureList.add(executor.submit(task));
             }
-        });
+        }
+
+        try {
+            for (final Future<?> future : futureList) {
+                future.get();
+            }
+        } catch (final InterruptedException e) {
+            futureList.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+        } catch (final ExecutionException e) {
+            logger.warn("Failed to generate thumbnails.", e);
+        }
+
+        final List<String> idList = new ArrayList<>(processedIdQueue);
         if (!idList.isEmpty()) {
             thumbnailQueueBhv.queryDelete(cb -> {
                 cb.query().setId_InScope(idList);
             });
             thumbnailQueueBhv.refresh();
         }
+        if (Thread.currentThread().isInterrupted()) {
+            throw new JobProcessingException("Interrupted while generating thumbnails.");
+        }
         return idList.size();
     }
 
+    protected void generate(final ThumbnailQueue entity) {
+        final String generatorName = entity.getGenerator();
+        try {
+            final ThumbnailGenerator generator = ComponentUtil.getComponent(generatorName);
+            final File outputFile = new File(baseDir, entity.getPath());
+            final File noImageFile = new File(outputFile.getAbsolutePath() + NOIMAGE_FILE_SUFFIX);
+            if (!noImageFile.isFile() || System.currentTimeMillis() - noImageFile.lastModified() > noImageExpired) {
+                if (noImageFile.isFile() && !noImageFile.delete()) {
+                    logger.warn("Failed to delete " + noImageFile.getAbsolutePath());
+                }
+                if (generator.generate(entity.getUrl(), outputFile)) {
+                    generatedCount.incrementAndGet();
+                } else {
+                    new File(outputFile.getAbsolutePath() + NOIMAGE_FILE_SUFFIX).setLastModified(System.currentTimeMillis());
+                    failureCount.incrementAndGet();
+                }
+            } else {
+                skippedCount.incrementAndGet();
+                if (logger.isDebugEnabled()) {
+                    logger.debug("No image file exists: " + noImageFile.getAbsolutePath());
+                }
+            }
+        } catch (final Exception e) {
+            failureCount.incrementAndGet();
+            logger.warn("Failed to create thumbnail for " + entity, e);
+        }
+    }
+
+    protected ExecutorService getGeneratorExecutor(final String generatorName) {
+        final int threadSize = ComponentUtil.getFessConfig().getThumbnailGeneratorThreadSizeAsInteger().intValue();
+        if (threadSize <= 1 || StringUtil.isBlank(generatorName)) {
+            return null;
+        }
+        return generatorExecutorMap.computeIfAbsent(generatorName, name -> {
+            int nThreads = threadSize;
+            for (final ThumbnailGenerator generator : generatorList) {
+                if (name.equals(generator.getName()) && generator.getMaxConcurrency() > 0) {
+                    nThreads = Math.min(nThreads, generator.getMaxConcurrency());
+                }
+            }
+            if (logger.isDebugEnabled()) {
+                logger.debug(name + " Thread Pool: " + nThreads);
+            }
+            final AtomicInteger threadNumber = new AtomicInteger(1);
+            return Executors.newFixedThreadPool(nThreads, r -> {
+                final Thread thread = new Thread(r, "ThumbnailGenerator-" + name + "-" + threadNumber.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+        });
+    }
+
+    public long getGeneratedCount() {
+        return generatedCount.get();
+    }
+
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+
+    public long getSkippedCount() {
+        return skippedCount.get();
+    }
+
+    public long getLastQueueLag() {
+        return lastQueueLag;
+    }
+
     public void offer(final Map<String, Object> docMap) {
         final FessConfig fessConfig = ComponentUtil.getFessConfig();
         for (final ThumbnailGenerator generator : generatorList) {
@@ -232,7 +539,11 @@ public class ThumbnailManager {
                 final String url = DocumentUtil.getValue(docMap, fessConfig.getIndexFieldUrl(), String.class);
                 final String path = getImageFilename(docMap);
                 final Tuple3<String, String, String> task = new Tuple3<>(generator.getName(), url, path);
-                thumbnailTaskQueue.offer(task);
+                if (!thumbnailTaskQueue.offer(task) && !spill(task)) {
+                    if (droppedTaskCount.getAndIncrement() % 1000 == 0) {
+                        logger.warn("Thumbnail task queue is full. Dropped " + droppedTaskCount.get() + " tasks.");
+                    }
+                }
                 break;
             }
         }
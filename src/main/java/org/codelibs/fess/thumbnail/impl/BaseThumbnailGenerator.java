@@ -37,6 +37,8 @@ public abstract class BaseThumbnailGenerator implements ThumbnailGenerator {
 
     protected String name;
 
+    protected int maxConcurrency = 0;
+
     public void addCondition(final String key, final String regex) {
         conditionMap.put(key, regex);
     }
@@ -108,4 +110,13 @@ public abstract class BaseThumbnailGenerator implements ThumbnailGenerator {
         this.name = name;
     }
 
+    @Override
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public void setMaxConcurrency(final int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+    }
+
 }
\ No newline at end of file
@@ -72,6 +72,11 @@ public class WebDriverGenerator extends BaseThumbnailGenerator {
 
     protected long previousCheckTime = 0;
 
+    public WebDriverGenerator() {
+        // screenshots are taken through one WebDriver session
+        maxConcurrency = 1;
+    }
+
     @PostConstruct
     public void init() {
         final FessConfig fessConfig = ComponentUtil.getFessConfig();
@@ -0,0 +1,440 @@
+/*
+ * Copyright 2012-2016 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.util;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.codelibs.core.io.SerializeUtil;
+import org.codelibs.core.lang.StringUtil;
+import org.codelibs.fess.es.config.exentity.CrawlingConfig;
+import org.codelibs.fess.es.config.exentity.CrawlingConfig.ConfigName;
+import org.codelibs.fess.exception.FessSystemException;
+import org.codelibs.fess.mylasta.direction.FessConfig;
+
+/**
+ * Converts crawled document data to bytes stored in access results and back.
+ * The binary format starts with a header and a version, and bytes without the header are read as Java serialization.
+ */
+public final class DocumentDataUtil {
+
+    public static final String FORMAT_BINARY = "binary";
+
+    public static final String FORMAT_JAVA = "java";
+
+    public static final String DATA_FORMAT = "data.format";
+
+    private static final byte HEADER_0 = 'F';
+
+    private static final byte HEADER_1 = 'D';
+
+    private static final byte VERSION = 1;
+
+    private static final int MAX_SHARED_STRING_LENGTH = 64;
+
+    private static final byte TYPE_NULL = 0;
+
+    private static final byte TYPE_STRING = 1;
+
+    private static final byte TYPE_STRING_REF = 2;
+
+    private static final byte TYPE_DEFLATED_STRING = 3;
+
+    private static final byte TYPE_TRUE = 4;
+
+    private static final byte TYPE_FALSE = 5;
+
+    private static final byte TYPE_INTEGER = 6;
+
+    private static final byte TYPE_LONG = 7;
+
+    private static final byte TYPE_FLOAT = 8;
+
+    private static final byte TYPE_DOUBLE = 9;
+
+    private static final byte TYPE_DATE = 10;
+
+    private static final byte TYPE_BYTES = 11;
+
+    private static final byte TYPE_LIST = 12;
+
+    private static final byte TYPE_SET = 13;
+
+    private static final byte TYPE_STRING_ARRAY = 14;
+
+    private static final byte TYPE_OBJECT_ARRAY = 15;
+
+    private static final byte TYPE_MAP = 16;
+
+    private static final byte TYPE_SERIALIZED = 17;
+
+    private DocumentDataUtil() {
+    }
+
+    public static String getDataFormat(final CrawlingConfig crawlingConfig) {
+        if (crawlingConfig != null) {
+            final String format = crawlingConfig.getConfigParameterMap(ConfigName.CONFIG).get(DATA_FORMAT);
+            if (StringUtil.isNotBlank(format)) {
+                return format.trim();
+            }
+        }
+        return ComponentUtil.getFessConfig().getCrawlerCrawlingDataFormat();
+    }
+
+    public static byte[] toBinary(final Map<String, Object> dataMap, final CrawlingConfig crawlingConfig) {
+        final FessConfig fessConfig = ComponentUtil.getFessConfig();
+        return toBinary(dataMap, getDataFormat(crawlingConfig), fessConfig.getCrawlerCrawlingDataCompressionThresholdAsInteger()
+                .intValue());
+    }
+
+    public static byte[] toBinary(final Map<String, Object> dataMap, final String format, final int compressionThreshold) {
+        if (FORMAT_JAVA.equals(format)) {
+            return SerializeUtil.fromObjectToBinary(dataMap);
+        } else if (!FORMAT_BINARY.equals(format)) {
+            throw new FessSystemException("Unknown data format: " + format);
+        }
+
+        final Encoder encoder = new Encoder(compressionThreshold);
+        encoder.out.write(HEADER_0);
+        encoder.out.write(HEADER_1);
+        encoder.out.write(VERSION);
+        encoder.writeValue(dataMap);
+        return encoder.out.toByteArray();
+    }
+
+    public static Object fromBinary(final byte[] data) {
+        if (!isBinaryFormat(data)) {
+            return SerializeUtil.fromBinaryToObject(data);
+        }
+        if (data[2] != VERSION) {
+            throw new FessSystemException("Unsupported data version: " + data[2]);
+        }
+        final Decoder decoder = new Decoder(data, 3);
+        return decoder.readValue();
+    }
+
+    public static boolean isBinaryFormat(final byte[] data) {
+        return data != null && data.length > 2 && data[0] == HEADER_0 && data[1] == HEADER_1;
+    }
+
+    protected static class Encoder {
+
+        protected final ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+
+        protected final Map<String, Integer> stringTable = new HashMap<>();
+
+        protected final int compressionThreshold;
+
+        protected Encoder(final int compressionThreshold) {
+            this.compressionThreshold = compressionThreshold;
+        }
+
+        protected void writeValue(final Object value) {
+            if (value == null) {
+                out.write(TYPE_NULL);
+            } else if (value instanceof String) {
+                writeString((String) value);
+            } else if (value instanceof Boolean) {
+                out.write(((Boolean) value).booleanValue() ? TYPE_TRUE : TYPE_FALSE);
+            } else if (value instanceof Integer) {
+                out.write(TYPE_INTEGER);
+                writeVarLong(encodeZigZag(((Integer) value).longValue()));
+            } else if (value instanceof Long) {
+                out.write(TYPE_LONG);
+                writeVarLong(encodeZigZag(((Long) value).longValue()));
+            } else if (value instanceof Float) {
+                out.write(TYPE_FLOAT);
+                writeFixed(Float.floatToIntBits(((Float) value).floatValue()), 4);
+            } else if (value instanceof Double) {
+                out.write(TYPE_DOUBLE);
+                writeFixed(Double.doubleToLongBits(((Double) value).doubleValue()), 8);
+            } else if (value.getClass() == Date.class) {
+                out.write(TYPE_DATE);
+                writeVarLong(encodeZigZag(((Date) value).getTime()));
+            } else if (value instanceof byte[]) {
+                out.write(TYPE_BYTES);
+                writeBytes((byte[]) value);
+            } else if (value instanceof List || value instanceof Set) {
+                final Collection<?> collection = (Collection<?>) value;
+                out.write(value instanceof List ? TYPE_LIST : TYPE_SET);
+                writeVarLong(collection.size());
+                for (final Object item : collection) {
+                    writeValue(item);
+                }
+            } else if (value instanceof String[] || value.getClass() == Object[].class) {
+                final Object[] array = (Object[]) value;
+                out.write(value instanceof String[] ? TYPE_STRING_ARRAY : TYPE_OBJECT_ARRAY);
+                writeVarLong(array.length);
+                for (final Object item : array) {
+                    writeValue(item);
+                }
+            } else if (value instanceof Map) {
+                final Map<?, ?> map = (Map<?, ?>) value;
+                out.write(TYPE_MAP);
+                writeVarLong(map.size());
+                for (final Map.Entry<?, ?> entry : map.entrySet()) {
+                    writeValue(entry.getKey());
+                    writeValue(entry.getValue());
+                }
+            } else {
+                out.write(TYPE_SERIALIZED);
+                writeBytes(SerializeUtil.fromObjectToBinary(value));
+            }
+        }
+
+        protected void writeString(final String value) {
+            if (value.length() <= MAX_SHARED_STRING_LENGTH) {
+                final Integer index = stringTable.get(value);
+                if (index != null) {
+                    out.write(TYPE_STRING_REF);
+                    writeVarLong(index.intValue());
+                    return;
+                }
+                stringTable.put(value, stringTable.size());
+            }
+
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (compressionThreshold > 0 && bytes.length >= compressionThreshold) {
+                final byte[] deflated = deflate(bytes);
+                if (deflated != null) {
+                    out.write(TYPE_DEFLATED_STRING);
+                    writeVarLong(bytes.length);
+                    writeBytes(deflated);
+                    return;
+                }
+            }
+            out.write(TYPE_STRING);
+            writeBytes(bytes);
+        }
+
+        protected byte[] deflate(final byte[] bytes) {
+            final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try {
+                deflater.setInput(bytes);
+                deflater.finish();
+                final byte[] buf = new byte[bytes.length];
+                int size = 0;
+                while (!deflater.finished() && size < buf.length) {
+                    size += deflater.deflate(buf, size, buf.length - size);
+                }
+                if (!deflater.finished()) {
+                    // not smaller than the original
+                    return null;
+                }
+                final byte[] deflated = new byte[size];
+                System.arraycopy(buf, 0, deflated, 0, size);
+                return deflated;
+            } finally {
+                deflater.end();
+            }
+        }
+
+        protected void writeBytes(final byte[] bytes) {
+            writeVarLong(bytes.length);
+            out.write(bytes, 0, bytes.length);
+        }
+
+        protected void writeVarLong(final long value) {
+            long v = value;
+            while ((v & ~0x7FL) != 0) {
+                out.write((int) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            out.write((int) v);
+        }
+
+        protected void writeFixed(final long value, final int size) {
+            for (int i = size - 1; i >= 0; i--) {
+                out.write((int) (value >>> (i * 8)));
+            }
+        }
+
+        private static long encodeZigZag(final long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+    }
+
+    protected static class Decoder {
+
+        protected final byte[] data;
+
+        protected int pos;
+
+        protected final List<String> stringTable = new ArrayList<>();
+
+        protected Decoder(final byte[] data, final int pos) {
+            this.data = data;
+            this.pos = pos;
+        }
+
+        protected Object readValue() {
+            final byte type = data[pos++];
+            switch (type) {
+            case TYPE_NULL:
+                return null;
+            case TYPE_STRING: {
+                final int length = readLength();
+                final String value = new String(data, pos, length, StandardCharsets.UTF_8);
+                pos += length;
+                return addString(value);
+            }
+            case TYPE_STRING_REF:
+                return stringTable.get(readLength());
+            case TYPE_DEFLATED_STRING: {
+                final int length = readLength();
+                final int deflatedLength = readLength();
+                final String value = new String(inflate(deflatedLength, length), StandardCharsets.UTF_8);
+                pos += deflatedLength;
+                return addString(value);
+            }
+            case TYPE_TRUE:
+                return Boolean.TRUE;
+            case TYPE_FALSE:
+                return Boolean.FALSE;
+            case TYPE_INTEGER:
+                return Integer.valueOf((int) decodeZigZag(readVarLong()));
+            case TYPE_LONG:
+                return Long.valueOf(decodeZigZag(readVarLong()));
+            case TYPE_FLOAT:
+                return Float.valueOf(Float.intBitsToFloat((int) readFixed(4)));
+            case TYPE_DOUBLE:
+                return Double.valueOf(Double.longBitsToDouble(readFixed(8)));
+            case TYPE_DATE:
+                return new Date(decodeZigZag(readVarLong()));
+            case TYPE_BYTES:
+                return readBytes();
+            case TYPE_LIST: {
+                final int size = readLength();
+                final List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue());
+                }
+                return list;
+            }
+            case TYPE_SET: {
+                final int size = readLength();
+                final Set<Object> set = new LinkedHashSet<>(size * 2);
+                for (int i = 0; i < size; i++) {
+                    set.add(readValue());
+                }
+                return set;
+            }
+            case TYPE_STRING_ARRAY:
+            case TYPE_OBJECT_ARRAY: {
+                final int size = readLength();
+                final Object[] array = type == TYPE_STRING_ARRAY ? new String[size] : new Object[size];
+                for (int i = 0; i < size; i++) {
+                    array[i] = readValue();
+                }
+                return array;
+            }
+            case TYPE_MAP: {
+                final int size = readLength();
+                final Map<Object, Object> map = new LinkedHashMap<>(size * 2);
+                for (int i = 0; i < size; i++) {
+                    final Object key = readValue();
+                    map.put(key, readValue());
+                }
+                return map;
+            }
+            case TYPE_SERIALIZED:
+                return SerializeUtil.fromBinaryToObject(readBytes());
+            default:
+                throw new FessSystemException("Unknown value type " + type + " at " + (pos - 1));
+            }
+        }
+
+        protected String addString(final String value) {
+            if (value.length() <= MAX_SHARED_STRING_LENGTH) {
+                stringTable.add(value);
+            }
+            return value;
+        }
+
+        protected byte[] inflate(final int deflatedLength, final int length) {
+            final Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(data, pos, deflatedLength);
+                final byte[] bytes = new byte[length];
+                int size = 0;
+                while (size < length) {
+                    final int n = inflater.inflate(bytes, size, length - size);
+                    if (n == 0 && (inflater.finished() || inflater.needsInput())) {
+                        throw new FessSystemException("Deflated data is truncated at " + pos);
+                    }
+                    size += n;
+                }
+                return bytes;
+            } catch (final DataFormatException e) {
+                throw new FessSystemException("Invalid deflated data at " + pos, e);
+            } finally {
+                inflater.end();
+            }
+        }
+
+        protected byte[] readBytes() {
+            final int length = readLength();
+            final byte[] bytes = new byte[length];
+            System.arraycopy(data, pos, bytes, 0, length);
+            pos += length;
+            return bytes;
+        }
+
+        protected int readLength() {
+            final long value = readVarLong();
+            if (value < 0 || value > Integer.MAX_VALUE) {
+                throw new FessSystemException("Invalid length " + value + " at " + pos);
+            }
+            return (int) value;
+        }
+
+        protected long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                final byte b = data[pos++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new FessSystemException("Invalid variable-length number at " + pos);
+        }
+
+        protected long readFixed(final int size) {
+            long value = 0;
+            for (int i = 0; i < size; i++) {
+                value = (value << 8) | (data[pos++] & 0xFF);
+            }
+            return value;
+        }
+
+        private static long decodeZigZag(final long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+}
@@ -18,17 +18,26 @@ package org.codelibs.fess.util;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.codehaus.groovy.runtime.InvokerHelper;
 import org.lastaflute.di.core.factory.SingletonLaContainerFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
 import groovy.lang.Binding;
-import groovy.lang.GroovyClassLoader;
 import groovy.lang.GroovyShell;
+import groovy.lang.Script;
 
 public final class GroovyUtil {
     private static final Logger logger = LoggerFactory.getLogger(GroovyUtil.class);
 
+    private static final long DEFAULT_CACHE_SIZE = 1000L;
+
+    private static volatile Cache<String, Class<? extends Script>> scriptCache;
+
     private GroovyUtil() {
         // nothing
     }
@@ -36,22 +45,61 @@ public final class GroovyUtil {
     public static Object evaluate(final String template, final Map<String, Object> paramMap) {
         final Map<String, Object> bindingMap = new HashMap<>(paramMap);
         bindingMap.put("container", SingletonLaContainerFactory.getContainer());
-        final GroovyShell groovyShell = new GroovyShell(new Binding(bindingMap));
         try {
-            return groovyShell.evaluate(template);
+            final Class<? extends Script> scriptClass = getScriptCache().get(template, () -> compile(template));
+            return InvokerHelper.createScript(scriptClass, new Binding(bindingMap)).run();
         } catch (final Exception e) {
             logger.warn("Failed to evalue groovy script: " + template + " => " + paramMap, e);
             return null;
-        } finally {
-            final GroovyClassLoader loader = groovyShell.getClassLoader();
-            //            StreamUtil.of(loader.getLoadedClasses()).forEach(c -> {
-            //                try {
-            //                    GroovySystem.getMetaClassRegistry().removeMetaClass(c);
-            //                } catch (Throwable t) {
-            //                    logger.warn("Failed to delete " + c, t);
-            //                }
-            //            });
-            loader.clearCache();
         }
     }
+
+    public static CacheStats getCacheStats() {
+        return getScriptCache().stats();
+    }
+
+    public static long getCacheSize() {
+        return getScriptCache().size();
+    }
+
+    public static void clearCache() {
+        final Cache<String, Class<? extends Script>> cache = scriptCache;
+        if (cache != null) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Clear groovy script cache: " + cache.stats());
+            }
+            cache.invalidateAll();
+        }
+    }
+
+    protected static Class<? extends Script> compile(final String template) {
+        final long startTime = System.currentTimeMillis();
+        // a class loader per script, so that an evicted script class can be unloaded
+        final Class<? extends Script> scriptClass = new GroovyShell().parse(template).getClass();
+        if (logger.isDebugEnabled()) {
+            logger.debug("Compiled groovy script in " + (System.currentTimeMillis() - startTime) + "ms: " + template);
+        }
+        return scriptClass;
+    }
+
+    private static Cache<String, Class<? extends Script>> getScriptCache() {
+        Cache<String, Class<? extends Script>> cache = scriptCache;
+        if (cache == null) {
+            synchronized (GroovyUtil.class) {
+                cache = scriptCache;
+                if (cache == null) {
+                    cache = CacheBuilder.newBuilder().maximumSize(getCacheMaxSize()).recordStats().build();
+                    scriptCache = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    private static long getCacheMaxSize() {
+        if (ComponentUtil.available()) {
+            return ComponentUtil.getFessConfig().getScriptGroovyCacheSizeAsInteger().longValue();
+        }
+        return DEFAULT_CACHE_SIZE;
+    }
 }
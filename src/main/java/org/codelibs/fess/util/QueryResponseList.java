@@ -151,6 +151,23 @@ public class QueryResponseList implements List<Map<String, Object>> {
         calculatePageInfo(start, pageSize);
     }
 
+    public void init(final QueryResponseList queryResponseList) {
+        queryResponseList.parent.stream().forEach(doc -> parent.add(new HashMap<>(doc)));
+        pageSize = queryResponseList.pageSize;
+        currentPageNumber = queryResponseList.currentPageNumber;
+        allRecordCount = queryResponseList.allRecordCount;
+        allPageCount = queryResponseList.allPageCount;
+        existNextPage = queryResponseList.existNextPage;
+        existPrevPage = queryResponseList.existPrevPage;
+        currentStartRecordNumber = queryResponseList.currentStartRecordNumber;
+        currentEndRecordNumber = queryResponseList.currentEndRecordNumber;
+        pageNumberList = queryResponseList.pageNumberList != null ? new ArrayList<>(queryResponseList.pageNumberList) : null;
+        searchQuery = queryResponseList.searchQuery;
+        facetResponse = queryResponseList.facetResponse;
+        partialResults = queryResponseList.partialResults;
+        queryTime = queryResponseList.queryTime;
+    }
+
     protected void calculatePageInfo(final int start, final int size) {
         pageSize = size;
         allPageCount = (int) ((allRecordCount - 1) / pageSize) + 1;
@@ -96,6 +96,44 @@
 								<textarea id="bugReportData" class="systemInfoData form-control"
 									readonly>
 <c:forEach var="item" items="${bugReportItems}">${f:h(item.label)}=${f:h(item.value)}
+</c:forEach>
+								</textarea>
+							</div>
+							<!-- /.box-body -->
+						</div>
+					</div>
+				</div>
+				<div class="row">
+					<div class="col-md-6">
+						<div class="box box-info">
+							<div class="box-header with-border">
+								<h3 class="box-title">
+									<la:message key="labels.system_info_cache_title" />
+								</h3>
+							</div>
+							<!-- /.box-header -->
+							<div class="box-body">
+								<textarea id="cacheData" class="systemInfoData form-control"
+									readonly>
+<c:forEach var="item" items="${cacheItems}">${f:h(item.label)}=${f:h(item.value)}
+</c:forEach>
+								</textarea>
+							</div>
+							<!-- /.box-body -->
+						</div>
+					</div>
+					<div class="col-md-6">
+						<div class="box box-default">
+							<div class="box-header with-border">
+								<h3 class="box-title">
+									<la:message key="labels.system_info_search_log_title" />
+								</h3>
+							</div>
+							<!-- /.box-header -->
+							<div class="box-body">
+								<textarea id="searchLogData" class="systemInfoData form-control"
+									readonly>
+<c:forEach var="item" items="${searchLogItems}">${f:h(item.label)}=${f:h(item.value)}
 </c:forEach>
 								</textarea>
 							</div>
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2012-2016 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.ds.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.codelibs.core.io.FileUtil;
+import org.codelibs.fess.Constants;
+import org.codelibs.fess.ds.IndexUpdateCallback;
+import org.codelibs.fess.es.config.exentity.DataConfig;
+import org.codelibs.fess.unit.UnitFessTestCase;
+
+import com.orangesignal.csv.CsvConfig;
+
+public class CsvDataStoreImplTest extends UnitFessTestCase {
+    public CsvDataStoreImpl csvDataStore;
+
+    private final AtomicInteger chunkCount = new AtomicInteger();
+
+    private final List<String> threadNameList = Collections.synchronizedList(new ArrayList<>());
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        csvDataStore = new CsvDataStoreImpl() {
+            @Override
+            protected void processCsvChunk(final CsvFileContext context, final CsvConfig csvConfig, final String csvFileEncoding,
+                    final long offset, final long length, final boolean skipHeaderLine, final String urlPrefix) throws IOException {
+                chunkCount.incrementAndGet();
+                super.processCsvChunk(context, csvConfig, csvFileEncoding, offset, length, skipHeaderLine, urlPrefix);
+            }
+        };
+    }
+
+    public void test_getChunkOffsetList() throws Exception {
+        final File file = createCsvFile("aaa\nbbbb\ncc\ndddddd\ne\n");
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            assertEquals(Arrays.asList(0L, 9L, 19L, 21L), csvDataStore.getChunkOffsetList(channel, 5));
+            assertEquals(Arrays.asList(0L, 4L, 9L, 12L, 19L, 21L), csvDataStore.getChunkOffsetList(channel, 1));
+            assertEquals(Arrays.asList(0L, 21L), csvDataStore.getChunkOffsetList(channel, 21));
+            assertEquals(Arrays.asList(0L, 21L), csvDataStore.getChunkOffsetList(channel, 100));
+        }
+
+        final File noLfFile = createCsvFile("aaa\nbbbbbbbbbbbbbbbbbbbbbb");
+        try (FileChannel channel = FileChannel.open(noLfFile.toPath(), StandardOpenOption.READ)) {
+            assertEquals(Arrays.asList(0L, 4L, 26L), csvDataStore.getChunkOffsetList(channel, 2));
+        }
+    }
+
+    public void test_CsvRecordMap() throws Exception {
+        final File file = createCsvFile("name,value\n");
+        final Map<String, String> paramMap = new HashMap<>();
+        paramMap.put("name", "param-name");
+        paramMap.put("cell2", "param-cell2");
+        paramMap.put("cell3", "param-cell3");
+        paramMap.put("extra", "param-extra");
+        final CsvDataStoreImpl.CsvFileContext context =
+                new CsvDataStoreImpl.CsvFileContext(new DataConfig(), null, paramMap, Collections.emptyMap(), Collections.emptyMap(),
+                        file, 0);
+        context.bindColumns(Arrays.asList("name", "value"));
+
+        final CsvDataStoreImpl.CsvRecordMap recordMap = new CsvDataStoreImpl.CsvRecordMap(context, Arrays.asList("a", null));
+        assertEquals("a", recordMap.get("name"));
+        assertEquals("a", recordMap.get("cell1"));
+        assertEquals("", recordMap.get("cell2"));
+        assertEquals("", recordMap.get("value"));
+        assertEquals("param-cell3", recordMap.get("cell3"));
+        assertEquals("param-extra", recordMap.get("extra"));
+        assertEquals(file.getName(), recordMap.get("csvfilename"));
+        assertNull(recordMap.get("cell0"));
+        assertNull(recordMap.get("cell01"));
+        assertNull(recordMap.get("unknown"));
+        assertTrue(recordMap.containsKey("cell2"));
+        assertFalse(recordMap.containsKey("unknown"));
+
+        recordMap.put("name", "extra-name");
+        recordMap.put("cell1", "extra-cell1");
+        assertEquals("extra-name", recordMap.get("name"));
+        assertEquals("extra-cell1", recordMap.get("cell1"));
+        assertEquals("", recordMap.get("value"));
+        assertEquals("extra-name", recordMap.entrySet().stream().filter(e -> "name".equals(e.getKey())).findFirst().get().getValue());
+    }
+
+    public void test_storeData() throws Exception {
+        final File file = createCsvFile(createCsvContent("# comment\nname,value\n", "row", 10));
+        final Map<String, String> paramMap = createParamMap(file);
+        paramMap.put("hasHeaderLine", "true");
+        paramMap.put("skipLines", "1");
+
+        final List<Map<String, Object>> docList = storeData(paramMap);
+        assertRows(docList, "row", 10);
+        assertEquals(0, chunkCount.get());
+    }
+
+    public void test_storeData_chunks() throws Exception {
+        final File file = createCsvFile(createCsvContent("# comment\nname,value\n", "row", 1000));
+        final Map<String, String> paramMap = createParamMap(file);
+        paramMap.put("hasHeaderLine", "true");
+        paramMap.put("skipLines", "1");
+        paramMap.put("quoteDisabled", "true");
+        paramMap.put("numOfReadThreads", "4");
+        paramMap.put("chunkSize", "1000");
+
+        final List<Map<String, Object>> docList = storeData(paramMap);
+        assertRows(docList, "row", 1000);
+        assertTrue(chunkCount.get() > 1);
+        assertTrue(threadNameList.stream().allMatch(name -> name.contains("-csv-")));
+    }
+
+    public void test_storeData_chunksWithoutHeader() throws Exception {
+        final File file = createCsvFile(createCsvContent("", "row", 500));
+        final Map<String, String> paramMap = createParamMap(file);
+        paramMap.put("quoteDisabled", "true");
+        paramMap.put("numOfReadThreads", "3");
+        paramMap.put("chunkSize", "100");
+
+        final Map<String, String> scriptMap = new HashMap<>();
+        scriptMap.put("title", "cell1");
+        scriptMap.put("value", "cell2");
+        final List<Map<String, Object>> docList = storeData(paramMap, scriptMap);
+        assertRows(docList, "row", 500);
+        assertTrue(chunkCount.get() > 1);
+    }
+
+    public void test_storeData_quotedFile() throws Exception {
+        final File file = createCsvFile(createCsvContent("name,value\n", "row", 100));
+        final Map<String, String> paramMap = createParamMap(file);
+        paramMap.put("hasHeaderLine", "true");
+        paramMap.put("quoteDisabled", "false");
+        paramMap.put("numOfReadThreads", "4");
+        paramMap.put("chunkSize", "100");
+
+        final List<Map<String, Object>> docList = storeData(paramMap);
+        assertRows(docList, "row", 100);
+        assertEquals(0, chunkCount.get());
+    }
+
+    public void test_storeData_files() throws Exception {
+        final List<String> pathList = new ArrayList<>();
+        for (final String prefix : new String[] { "a", "b", "c" }) {
+            pathList.add(createCsvFile(createCsvContent("name,value\n", prefix, 10)).getAbsolutePath());
+        }
+        final Map<String, String> paramMap = new HashMap<>();
+        paramMap.put("files", pathList.stream().collect(Collectors.joining(",")));
+        paramMap.put("hasHeaderLine", "true");
+        paramMap.put("numOfReadThreads", "2");
+
+        final Map<String, String> scriptMap = new HashMap<>();
+        scriptMap.put("title", "name");
+        scriptMap.put("value", "value");
+        scriptMap.put("filename", "csvfilename");
+        final List<Map<String, Object>> docList = storeData(paramMap, scriptMap);
+        assertEquals(30, docList.size());
+        for (final String prefix : new String[] { "a", "b", "c" }) {
+            assertRows(docList.stream().filter(doc -> doc.get("title").toString().startsWith(prefix)).collect(Collectors.toList()), prefix,
+                    10);
+        }
+        assertEquals(3, docList.stream().map(doc -> doc.get("filename")).distinct().count());
+        assertTrue(threadNameList.stream().allMatch(name -> name.contains("-csv-")));
+    }
+
+    private void assertRows(final List<Map<String, Object>> docList, final String prefix, final int size) {
+        assertEquals(size, docList.size());
+        assertEquals(size, docList.stream().map(doc -> doc.get("title")).distinct().count());
+        for (final Map<String, Object> doc : docList) {
+            assertEquals(prefix + doc.get("value"), doc.get("title"));
+        }
+    }
+
+    private String createCsvContent(final String header, final String prefix, final int size) {
+        final StringBuilder buf = new StringBuilder(header);
+        for (int i = 0; i < size; i++) {
+            buf.append(prefix).append(i).append(',').append(i).append('\n');
+        }
+        return buf.toString();
+    }
+
+    private File createCsvFile(final String content) throws IOException {
+        final File file = File.createTempFile("csvtest", ".csv");
+        file.deleteOnExit();
+        FileUtil.writeBytes(file.getAbsolutePath(), content.getBytes(Constants.UTF_8));
+        return file;
+    }
+
+    private Map<String, String> createParamMap(final File file) {
+        final Map<String, String> paramMap = new HashMap<>();
+        paramMap.put("files", file.getAbsolutePath());
+        return paramMap;
+    }
+
+    private List<Map<String, Object>> storeData(final Map<String, String> paramMap) {
+        final Map<String, String> scriptMap = new HashMap<>();
+        scriptMap.put("title", "name");
+        scriptMap.put("value", "value");
+        return storeData(paramMap, scriptMap);
+    }
+
+    private List<Map<String, Object>> storeData(final Map<String, String> paramMap, final Map<String, String> scriptMap) {
+        final List<Map<String, Object>> docList = Collections.synchronizedList(new ArrayList<>());
+        final IndexUpdateCallback callback = new IndexUpdateCallback() {
+            @Override
+            public void store(final Map<String, String> paramMap, final Map<String, Object> dataMap) {
+                threadNameList.add(Thread.currentThread().getName());
+                docList.add(dataMap);
+            }
+
+            @Override
+            public long getDocumentSize() {
+                return docList.size();
+            }
+
+            @Override
+            public long getExecuteTime() {
+                return 0;
+            }
+
+            @Override
+            public void commit() {
+            }
+        };
+        csvDataStore.storeData(new DataConfig(), callback, paramMap, scriptMap, new HashMap<>());
+        return docList;
+    }
+}
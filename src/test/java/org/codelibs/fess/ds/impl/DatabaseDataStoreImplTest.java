@@ -15,18 +15,38 @@
  */
 package org.codelibs.fess.ds.impl;
 
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.codelibs.fess.Constants;
+import org.codelibs.fess.ds.IndexUpdateCallback;
+import org.codelibs.fess.es.config.exentity.DataConfig;
+import org.codelibs.fess.exception.DataStoreException;
 import org.codelibs.fess.unit.UnitFessTestCase;
 
 public class DatabaseDataStoreImplTest extends UnitFessTestCase {
     public DatabaseDataStoreImpl databaseDataStore;
 
+    private long storedRowCount;
+
     @Override
     public void setUp() throws Exception {
         super.setUp();
-        databaseDataStore = new DatabaseDataStoreImpl();
+        storedRowCount = -1;
+        databaseDataStore = new DatabaseDataStoreImpl() {
+            @Override
+            protected void storeStats(final DataConfig config, final long rowCount, final long time) {
+                storedRowCount = rowCount;
+            }
+        };
     }
 
     public void test_convertValue() {
@@ -57,4 +77,143 @@ public class DatabaseDataStoreImplTest extends UnitFessTestCase {
         value = " ";
         assertNull(databaseDataStore.convertValue(value, paramMap));
     }
+
+    public void test_storeData() throws Exception {
+        final Map<String, String> paramMap = createH2ParamMap("test_storeData");
+        assertEquals(101, storeData(paramMap).size());
+        assertEquals(101, storedRowCount);
+    }
+
+    public void test_storeData_threads() throws Exception {
+        final Map<String, String> paramMap = createH2ParamMap("test_storeData_threads");
+        paramMap.put(Constants.NUM_OF_THREADS, "4");
+        paramMap.put("queue.size", "5");
+        paramMap.put("fetch.size", "10");
+        final List<Map<String, Object>> docList = storeData(paramMap);
+        assertEquals(101, docList.size());
+        assertEquals(101, storedRowCount);
+        assertEquals(101, docList.stream().map(doc -> doc.get("url")).distinct().count());
+    }
+
+    public void test_storeData_partition() throws Exception {
+        final Map<String, String> paramMap = createH2ParamMap("test_storeData_partition");
+        paramMap.put(Constants.NUM_OF_THREADS, "2");
+        paramMap.put("partition.column", "ID");
+        paramMap.put("partition.count", "3");
+        final List<Map<String, Object>> docList = storeData(paramMap);
+        assertEquals(101, docList.size());
+        assertEquals(101, docList.stream().map(doc -> doc.get("url")).distinct().count());
+        assertEquals(1, docList.stream().filter(doc -> "http://example.com/null".equals(doc.get("url"))).count());
+    }
+
+    public void test_storeData_partitionThreads() throws Exception {
+        final AtomicInteger readerCount = new AtomicInteger();
+        final AtomicInteger maxReaderCount = new AtomicInteger();
+        databaseDataStore = new DatabaseDataStoreImpl() {
+            @Override
+            protected void readRows(final Map<String, String> paramMap, final String sql, final List<Object> params,
+                    final RowProcessor processor, final RowConsumer consumer) throws Exception {
+                maxReaderCount.accumulateAndGet(readerCount.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(10L);
+                    super.readRows(paramMap, sql, params, processor, consumer);
+                } finally {
+                    readerCount.decrementAndGet();
+                }
+            }
+
+            @Override
+            protected void storeStats(final DataConfig config, final long rowCount, final long time) {
+                storedRowCount = rowCount;
+            }
+        };
+        final Map<String, String> paramMap = createH2ParamMap("test_storeData_partitionThreads");
+        paramMap.put(Constants.NUM_OF_THREADS, "2");
+        paramMap.put("partition.column", "ID");
+        paramMap.put("partition.count", "10");
+        paramMap.put("partition.threads", "2");
+        final List<Map<String, Object>> docList = storeData(paramMap);
+        assertEquals(101, docList.size());
+        assertEquals(101, storedRowCount);
+        assertTrue(maxReaderCount.get() <= 2);
+    }
+
+    public void test_storeData_streaming() throws Exception {
+        final List<Boolean> transactionList = Collections.synchronizedList(new ArrayList<>());
+        databaseDataStore = new DatabaseDataStoreImpl() {
+            @Override
+            protected void endTransaction(final Connection con, final boolean completed) throws SQLException {
+                if (!con.getAutoCommit()) {
+                    transactionList.add(completed);
+                }
+                super.endTransaction(con, completed);
+            }
+
+            @Override
+            protected void storeStats(final DataConfig config, final long rowCount, final long time) {
+                storedRowCount = rowCount;
+            }
+        };
+        final Map<String, String> paramMap = createH2ParamMap("test_storeData_streaming");
+        paramMap.put("streaming", "true");
+        assertEquals(101, storeData(paramMap).size());
+        assertEquals(Collections.singletonList(Boolean.TRUE), transactionList);
+
+        transactionList.clear();
+        paramMap.put("sql", "SELECT ID, URL, TITLE FROM NO_SUCH_TABLE");
+        try {
+            storeData(paramMap);
+            fail();
+        } catch (final DataStoreException e) {
+            // ok
+        }
+        assertEquals(Collections.singletonList(Boolean.FALSE), transactionList);
+    }
+
+    private Map<String, String> createH2ParamMap(final String name) throws Exception {
+        final Map<String, String> paramMap = new HashMap<>();
+        paramMap.put("driver", "org.h2.Driver");
+        paramMap.put("url", "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        paramMap.put("sql", "SELECT ID, URL, TITLE FROM DOC");
+
+        Class.forName("org.h2.Driver");
+        try (Connection con = DriverManager.getConnection(paramMap.get("url")); Statement stmt = con.createStatement()) {
+            stmt.execute("CREATE TABLE DOC (ID INT, URL VARCHAR(100), TITLE VARCHAR(100))");
+            for (int i = 0; i < 100; i++) {
+                stmt.execute("INSERT INTO DOC VALUES (" + i + ", 'http://example.com/" + i + "', 'Title " + i + "')");
+            }
+            stmt.execute("INSERT INTO DOC VALUES (NULL, 'http://example.com/null', 'Title null')");
+        }
+        return paramMap;
+    }
+
+    private List<Map<String, Object>> storeData(final Map<String, String> paramMap) {
+        final List<Map<String, Object>> docList = Collections.synchronizedList(new ArrayList<>());
+        final IndexUpdateCallback callback = new IndexUpdateCallback() {
+            @Override
+            public void store(final Map<String, String> paramMap, final Map<String, Object> dataMap) {
+                docList.add(dataMap);
+            }
+
+            @Override
+            public long getDocumentSize() {
+                return docList.size();
+            }
+
+            @Override
+            public long getExecuteTime() {
+                return 0;
+            }
+
+            @Override
+            public void commit() {
+            }
+        };
+        final Map<String, String> scriptMap = new HashMap<>();
+        scriptMap.put("url", "URL");
+        scriptMap.put("title", "TITLE");
+        final Map<String, Object> defaultDataMap = new HashMap<>();
+        databaseDataStore.storeData(new DataConfig(), callback, paramMap, scriptMap, defaultDataMap);
+        return docList;
+    }
 }
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2012-2016 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.helper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.codelibs.fess.crawler.client.CrawlerClientFactory;
+import org.codelibs.fess.helper.CrawlingConfigHelper.CrawlerClientFactoryEntry;
+import org.codelibs.fess.unit.UnitFessTestCase;
+
+public class CrawlingConfigHelperTest extends UnitFessTestCase {
+
+    private CrawlingConfigHelper crawlingConfigHelper;
+
+    private final List<CrawlerClientFactory> closedList = Collections.synchronizedList(new ArrayList<>());
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        crawlingConfigHelper = new CrawlingConfigHelper() {
+            @Override
+            protected CrawlerClientFactory createCrawlerClientFactory(final String configId) {
+                return new CrawlerClientFactory();
+            }
+
+            @Override
+            protected void closeCrawlerClientFactory(final String configId, final CrawlerClientFactory crawlerClientFactory) {
+                closedList.add(crawlerClientFactory);
+            }
+        };
+        crawlingConfigHelper.init();
+    }
+
+    public void test_acquireCrawlerClientFactory() {
+        final CrawlerClientFactoryEntry entry1 = crawlingConfigHelper.acquireCrawlerClientFactory("W1");
+        final CrawlerClientFactoryEntry entry2 = crawlingConfigHelper.acquireCrawlerClientFactory("W1");
+        assertSame(entry1, entry2);
+        final CrawlerClientFactoryEntry entry3 = crawlingConfigHelper.acquireCrawlerClientFactory("F1");
+        assertNotSame(entry1.getCrawlerClientFactory(), entry3.getCrawlerClientFactory());
+
+        crawlingConfigHelper.releaseCrawlerClientFactory(entry1);
+        crawlingConfigHelper.releaseCrawlerClientFactory(entry2);
+        crawlingConfigHelper.releaseCrawlerClientFactory(entry3);
+        assertTrue(closedList.isEmpty());
+    }
+
+    public void test_releaseCrawlerClientFactory_removedInUse() {
+        final CrawlerClientFactoryEntry entry1 = crawlingConfigHelper.acquireCrawlerClientFactory("W1");
+        final CrawlerClientFactoryEntry entry2 = crawlingConfigHelper.acquireCrawlerClientFactory("W1");
+
+        crawlingConfigHelper.clearCrawlerClientFactoryCache();
+        assertTrue(closedList.isEmpty());
+
+        final CrawlerClientFactoryEntry entry3 = crawlingConfigHelper.acquireCrawlerClientFactory("W1");
+        assertNotSame(entry1.getCrawlerClientFactory(), entry3.getCrawlerClientFactory());
+
+        crawlingConfigHelper.releaseCrawlerClientFactory(entry1);
+        assertTrue(closedList.isEmpty());
+        crawlingConfigHelper.releaseCrawlerClientFactory(entry2);
+        assertEquals(Arrays.asList(entry1.getCrawlerClientFactory()), closedList);
+
+        crawlingConfigHelper.releaseCrawlerClientFactory(entry3);
+        assertEquals(1, closedList.size());
+    }
+
+    public void test_clearCrawlerClientFactoryCache_unused() {
+        final CrawlerClientFactoryEntry entry = crawlingConfigHelper.acquireCrawlerClientFactory("W1");
+        crawlingConfigHelper.releaseCrawlerClientFactory(entry);
+
+        crawlingConfigHelper.clearCrawlerClientFactoryCache();
+        assertEquals(Arrays.asList(entry.getCrawlerClientFactory()), closedList);
+    }
+}
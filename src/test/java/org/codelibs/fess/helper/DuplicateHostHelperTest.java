@@ -27,16 +27,16 @@ public class DuplicateHostHelperTest extends UnitFessTestCase {
     public void setUp() throws Exception {
         super.setUp();
         duplicateHostHelper = new DuplicateHostHelper();
-        duplicateHostHelper.duplicateHostList = new ArrayList<DuplicateHost>();
+        duplicateHostHelper.setDuplicateHostList(new ArrayList<DuplicateHost>());
 
         DuplicateHost foo = new DuplicateHost();
         foo.setRegularName("www.foo.com");
         foo.setDuplicateHostName("foo.com");
-        duplicateHostHelper.duplicateHostList.add(foo);
+        duplicateHostHelper.add(foo);
         DuplicateHost bar = new DuplicateHost();
         bar.setRegularName("www.bar.com");
         bar.setDuplicateHostName("mail.bar.com");
-        duplicateHostHelper.duplicateHostList.add(bar);
+        duplicateHostHelper.add(bar);
     }
 
     public void test_convert() {
@@ -86,4 +86,15 @@ public class DuplicateHostHelperTest extends UnitFessTestCase {
         assertEquals(result, duplicateHostHelper.convert(url));
     }
 
+    public void test_convert_chain() {
+        DuplicateHost baz = new DuplicateHost();
+        baz.setRegularName("baz.foo.com");
+        baz.setDuplicateHostName("www.foo.com");
+        duplicateHostHelper.add(baz);
+
+        assertEquals("http://baz.foo.com/", duplicateHostHelper.convert("http://foo.com/"));
+        assertEquals("http://baz.foo.com/?u=http://www.bar.com/", duplicateHostHelper.convert("http://www.foo.com/?u=http://mail.bar.com/"));
+        assertEquals("http://foo.com.example/", duplicateHostHelper.convert("http://foo.com.example/"));
+        assertEquals("http://foo.com?q=1", duplicateHostHelper.convert("http://foo.com?q=1"));
+    }
 }
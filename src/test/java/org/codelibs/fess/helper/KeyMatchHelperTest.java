@@ -0,0 +1,185 @@
+/*
+ * Copyright 2012-2016 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.helper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.codelibs.core.misc.Pair;
+import org.codelibs.fess.es.config.exentity.KeyMatch;
+import org.codelibs.fess.unit.UnitFessTestCase;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.query.functionscore.FunctionScoreQueryBuilder;
+import org.elasticsearch.index.query.functionscore.ScoreFunctionBuilder;
+import org.elasticsearch.index.query.functionscore.ScoreFunctionBuilders;
+
+public class KeyMatchHelperTest extends UnitFessTestCase {
+
+    private KeyMatchHelper keyMatchHelper;
+
+    private final List<KeyMatch> keyMatchList = new ArrayList<>();
+
+    private final List<String> searchedIdList = Collections.synchronizedList(new ArrayList<>());
+
+    private final Set<String> failedIdSet = Collections.synchronizedSet(new HashSet<>());
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        keyMatchHelper = new KeyMatchHelper() {
+            @Override
+            protected List<KeyMatch> getAvailableKeyMatchList() {
+                return new ArrayList<>(keyMatchList);
+            }
+
+            @Override
+            protected List<KeyMatchEntry> searchKeyMatches(final List<KeyMatch> batchList) {
+                final List<KeyMatchEntry> entryList = new ArrayList<>();
+                for (final KeyMatch keyMatch : batchList) {
+                    if (failedIdSet.contains(keyMatch.getId())) {
+                        throw new IllegalStateException("Failed to search " + keyMatch.getId());
+                    }
+                    searchedIdList.add(keyMatch.getId());
+                    entryList.add(new KeyMatchEntry(keyMatch, new Pair<>(QueryBuilders.termQuery("doc_id", keyMatch.getId()),
+                            ScoreFunctionBuilders.weightFactorFunction(keyMatch.getBoost()))));
+                }
+                return entryList;
+            }
+        };
+        keyMatchHelper.setReloadBatchSize(1);
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        keyMatchHelper.destroy();
+        super.tearDown();
+    }
+
+    public void test_buildQuery_multiWordTerms() {
+        addKeyMatch("1", "Fess", 10.0f);
+        addKeyMatch("2", "open source", 20.0f);
+        addKeyMatch("3", "open source search", 30.0f);
+        addKeyMatch("4", "search engine", 40.0f);
+        keyMatchHelper.init();
+        assertEquals(4, keyMatchHelper.getKeyMatchSize());
+
+        assertBoosted(Arrays.asList("Open", "Source"), "2");
+        assertBoosted(Arrays.asList("open source", "search"), "2", "3");
+        assertBoosted(Arrays.asList("fess", "open", "source", "search", "engine"), "1", "2", "3", "4");
+        assertBoosted(Arrays.asList("source", "open"));
+        assertBoosted(Arrays.asList("engine", "search"));
+    }
+
+    public void test_buildQuery_appliedOnce() {
+        addKeyMatch("1", "fess", 10.0f);
+        addKeyMatch("2", "open source", 20.0f);
+        keyMatchHelper.init();
+
+        assertBoosted(Arrays.asList("fess", "FESS", "fess"), "1");
+        assertBoosted(Arrays.asList("open", "source", "fess", "open", "source"), "1", "2");
+    }
+
+    public void test_updateChanged() {
+        addKeyMatch("1", "fess", 10.0f);
+        addKeyMatch("2", "solr", 20.0f);
+        keyMatchHelper.init();
+        assertEquals(2, keyMatchHelper.getLastSearchedCount());
+        assertEquals(0, keyMatchHelper.getLastReusedCount());
+
+        searchedIdList.clear();
+        keyMatchList.get(1).setVersionNo(2L);
+        addKeyMatch("3", "elasticsearch", 30.0f);
+        keyMatchHelper.reload(false, 0);
+        assertEquals(2, keyMatchHelper.getLastSearchedCount());
+        assertEquals(1, keyMatchHelper.getLastReusedCount());
+        assertEquals(Arrays.asList("2", "3"), sorted(searchedIdList));
+        assertEquals(3, keyMatchHelper.getKeyMatchSize());
+
+        searchedIdList.clear();
+        keyMatchHelper.reload(true, 0);
+        assertEquals(3, keyMatchHelper.getLastSearchedCount());
+        assertEquals(0, keyMatchHelper.getLastReusedCount());
+        assertEquals(Arrays.asList("1", "2", "3"), sorted(searchedIdList));
+    }
+
+    public void test_reload_failure() {
+        addKeyMatch("1", "fess", 10.0f);
+        addKeyMatch("2", "solr", 20.0f);
+        keyMatchHelper.init();
+        final QueryBuilder query = keyMatchHelper.keyMatchEntryMap.get("2").queryPair.getFirst();
+
+        failedIdSet.add("2");
+        addKeyMatch("3", "lucene", 30.0f);
+        failedIdSet.add("3");
+        keyMatchHelper.reload(true, 0);
+        assertEquals(1, keyMatchHelper.getLastSearchedCount());
+        assertEquals(2, keyMatchHelper.getKeyMatchSize());
+        assertSame(query, keyMatchHelper.keyMatchEntryMap.get("2").queryPair.getFirst());
+        assertNull(keyMatchHelper.keyMatchEntryMap.get("3"));
+        assertBoosted(Arrays.asList("solr", "lucene"), "2");
+
+        failedIdSet.clear();
+        keyMatchHelper.reload(true, 0);
+        assertEquals(3, keyMatchHelper.getLastSearchedCount());
+        assertEquals(3, keyMatchHelper.getKeyMatchSize());
+    }
+
+    private void addKeyMatch(final String id, final String term, final float boost) {
+        final KeyMatch keyMatch = new KeyMatch();
+        keyMatch.setId(id);
+        keyMatch.setVersionNo(1L);
+        keyMatch.setTerm(term);
+        keyMatch.setQuery("content:" + term);
+        keyMatch.setMaxSize(10);
+        keyMatch.setBoost(boost);
+        keyMatchList.add(keyMatch);
+    }
+
+    private void assertBoosted(final List<String> keywordList, final String... expectedIds) {
+        final List<QueryBuilder> filterList = new ArrayList<>();
+        final FunctionScoreQueryBuilder functionScoreQuery = new FunctionScoreQueryBuilder(QueryBuilders.matchAllQuery()) {
+            @Override
+            public FunctionScoreQueryBuilder add(final QueryBuilder filter, final ScoreFunctionBuilder scoreFunctionBuilder) {
+                filterList.add(filter);
+                return super.add(filter, scoreFunctionBuilder);
+            }
+        };
+        keyMatchHelper.buildQuery(keywordList, functionScoreQuery);
+
+        final List<String> idList = new ArrayList<>();
+        for (final QueryBuilder filter : filterList) {
+            for (final String id : Arrays.asList("1", "2", "3", "4")) {
+                final KeyMatchHelper.KeyMatchEntry entry = keyMatchHelper.keyMatchEntryMap.get(id);
+                if (entry != null && entry.queryPair.getFirst() == filter) {
+                    idList.add(id);
+                }
+            }
+        }
+        assertEquals(filterList.size(), idList.size());
+        assertEquals(Arrays.asList(expectedIds), sorted(idList));
+    }
+
+    private List<String> sorted(final List<String> list) {
+        final List<String> sortedList = new ArrayList<>(list);
+        Collections.sort(sortedList);
+        return sortedList;
+    }
+}
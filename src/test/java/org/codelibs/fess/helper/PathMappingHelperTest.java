@@ -82,4 +82,61 @@ public class PathMappingHelperTest extends UnitFessTestCase {
         text = "aaa\"file:///home/user/\"bbb";
         assertEquals("aaa\"http://localhost/user/\"bbb", pathMappingHelper.replaceUrls(text));
     }
+
+    public void test_replaceUrls_multiple() {
+        final List<PathMapping> pathMappingList = new ArrayList<PathMapping>();
+        PathMapping pathMapping = new PathMapping();
+        pathMapping.setRegex("file:///home/");
+        pathMapping.setReplacement("http://localhost/");
+        pathMappingList.add(pathMapping);
+        pathMapping = new PathMapping();
+        pathMapping.setRegex("localhost/user/");
+        pathMapping.setReplacement("server/");
+        pathMappingList.add(pathMapping);
+
+        pathMappingHelper.cachedPathMappingList = pathMappingList;
+
+        String text = "<a href=\"file:///home/user/a.txt\">file:///home/user/</a> <a href=\"file:///home/b.txt\">b</a>";
+        assertEquals("<a href=\"http://server/a.txt\">file:///home/user/</a> <a href=\"http://localhost/b.txt\">b</a>",
+                pathMappingHelper.replaceUrls(text));
+
+        text = "\"file:///home/user/\" \"file:///home/user/";
+        assertEquals("\"http://server/\" \"file:///home/user/", pathMappingHelper.replaceUrls(text));
+
+        text = "no quoted value";
+        assertEquals("no quoted value", pathMappingHelper.replaceUrls(text));
+    }
+
+    public void test_replaceUrls_regexMatchingQuotes() {
+        final String text = "<a href=\"file:///home/a.txt\">a</a> <img src=\"file:///home/b.png\">";
+
+        pathMappingHelper.cachedPathMappingList = createPathMappingList(createPathMapping(".*", "x"));
+        assertEquals("<a href=\"file:///home/a.txtx\">", pathMappingHelper.replaceUrls(text));
+
+        pathMappingHelper.cachedPathMappingList = createPathMappingList(createPathMapping("\\S+", "x"));
+        assertEquals("<a href=\"file:///home/a.txtx <img src=\"file:///home/b.png\">", pathMappingHelper.replaceUrls(text));
+
+        pathMappingHelper.cachedPathMappingList = createPathMappingList(createPathMapping("^file:", "http:"));
+        assertEquals(text, pathMappingHelper.replaceUrls(text));
+        assertEquals("\"file:///home/\"", pathMappingHelper.replaceUrls("\"file:///home/\""));
+
+        pathMappingHelper.cachedPathMappingList =
+                createPathMappingList(createPathMapping("file:///home/", "http://localhost/"), createPathMapping("\\S+", "x"));
+        assertEquals("<a href=\"http://localhost/a.txtx <img src=\"http://localhost/b.png\">", pathMappingHelper.replaceUrls(text));
+    }
+
+    private PathMapping createPathMapping(final String regex, final String replacement) {
+        final PathMapping pathMapping = new PathMapping();
+        pathMapping.setRegex(regex);
+        pathMapping.setReplacement(replacement);
+        return pathMapping;
+    }
+
+    private List<PathMapping> createPathMappingList(final PathMapping... pathMappings) {
+        final List<PathMapping> pathMappingList = new ArrayList<PathMapping>();
+        for (final PathMapping pathMapping : pathMappings) {
+            pathMappingList.add(pathMapping);
+        }
+        return pathMappingList;
+    }
 }
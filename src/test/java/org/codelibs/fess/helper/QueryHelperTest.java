@@ -71,6 +71,31 @@ public class QueryHelperTest extends UnitFessTestCase {
                 buildQuery("QUERY1 OR QUERY2"));
     }
 
+    public void test_build_cache() {
+        float titleBoost = 0.2f;
+        float contentBoost = 0.1f;
+
+        queryHelper.clearQueryCache();
+        final long hitCount = queryHelper.getQueryCacheStats().hitCount();
+        assertQuery(
+                functionScoreQuery(andQuery(simpleQuery("QUERY1", titleBoost, contentBoost),
+                        simpleQuery("QUERY2", titleBoost, contentBoost))), buildQuery("QUERY1 QUERY2"));
+        assertEquals(hitCount, queryHelper.getQueryCacheStats().hitCount());
+        assertEquals(1, queryHelper.getQueryCacheSize());
+
+        assertQuery(
+                functionScoreQuery(andQuery(simpleQuery("QUERY1", titleBoost, contentBoost),
+                        simpleQuery("QUERY2", titleBoost, contentBoost))), buildQuery(" QUERY1  QUERY2 "));
+        assertEquals(hitCount + 1, queryHelper.getQueryCacheStats().hitCount());
+        assertEquals(1, queryHelper.getQueryCacheSize());
+
+        assertQuery(functionScoreQuery(simpleQuery("QUERY", titleBoost, contentBoost)), buildQuery("QUERY"));
+        assertEquals(2, queryHelper.getQueryCacheSize());
+
+        queryHelper.clearQueryCache();
+        assertEquals(0, queryHelper.getQueryCacheSize());
+    }
+
     private QueryBuilder andQuery(QueryBuilder... queries) {
         BoolQueryBuilder boolQuery = QueryBuilders.boolQuery();
         for (QueryBuilder query : queries) {
@@ -15,12 +15,15 @@
  */
 package org.codelibs.fess.helper;
 
+import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.codelibs.fess.crawler.entity.ResponseData;
 import org.codelibs.fess.mylasta.direction.FessConfig;
 import org.codelibs.fess.unit.UnitFessTestCase;
 import org.codelibs.fess.util.ComponentUtil;
+import org.lastaflute.web.response.StreamResponse;
 
 public class ViewHelperTest extends UnitFessTestCase {
     public ViewHelper viewHelper;
@@ -79,6 +82,10 @@ public class ViewHelperTest extends UnitFessTestCase {
         text = "1ABC2";
         queries = new String[] { "abc" };
         assertEquals("1<strong>abc</strong>2", viewHelper.replaceHighlightQueries(text, queries));
+
+        text = "<p>strong</p>Strong";
+        queries = new String[] { "strong", "on" };
+        assertEquals("<p><strong>strong</strong></p><strong>strong</strong>", viewHelper.replaceHighlightQueries(text, queries));
     }
 
     public void test_escapeHighlight() {
@@ -158,4 +165,94 @@ public class ViewHelperTest extends UnitFessTestCase {
         docMap.put(fieldName, urlLink);
         assertEquals(sitePath, viewHelper.getSitePath(docMap));
     }
+
+    public void test_getContentRange_none() {
+        final StreamResponse response = new StreamResponse("test.txt");
+        assertNull(viewHelper.getContentRange(response, createResponseData(100, null)));
+        assertEquals("bytes", response.getHeaderMap().get("Accept-Ranges")[0]);
+    }
+
+    public void test_getContentRange_bounded() {
+        getMockRequest().addHeader("Range", "bytes=10-19");
+        final StreamResponse response = new StreamResponse("test.txt");
+        final long[] range = viewHelper.getContentRange(response, createResponseData(100, null));
+        assertEquals(10L, range[0]);
+        assertEquals(19L, range[1]);
+        assertEquals("bytes 10-19/100", response.getHeaderMap().get("Content-Range")[0]);
+    }
+
+    public void test_getContentRange_suffix() {
+        getMockRequest().addHeader("Range", "bytes=-10");
+        final long[] range = viewHelper.getContentRange(new StreamResponse("test.txt"), createResponseData(100, null));
+        assertEquals(90L, range[0]);
+        assertEquals(99L, range[1]);
+    }
+
+    public void test_getContentRange_suffixLargerThanContent() {
+        getMockRequest().addHeader("Range", "bytes=-500");
+        final long[] range = viewHelper.getContentRange(new StreamResponse("test.txt"), createResponseData(100, null));
+        assertEquals(0L, range[0]);
+        assertEquals(99L, range[1]);
+    }
+
+    public void test_getContentRange_openEnded() {
+        getMockRequest().addHeader("Range", "bytes=50-");
+        final long[] range = viewHelper.getContentRange(new StreamResponse("test.txt"), createResponseData(100, null));
+        assertEquals(50L, range[0]);
+        assertEquals(99L, range[1]);
+    }
+
+    public void test_getContentRange_endBeyondContent() {
+        getMockRequest().addHeader("Range", "bytes=90-200");
+        final long[] range = viewHelper.getContentRange(new StreamResponse("test.txt"), createResponseData(100, null));
+        assertEquals(90L, range[0]);
+        assertEquals(99L, range[1]);
+    }
+
+    public void test_getContentRange_outOfRange() {
+        getMockRequest().addHeader("Range", "bytes=100-150");
+        final StreamResponse response = new StreamResponse("test.txt");
+        final long[] range = viewHelper.getContentRange(response, createResponseData(100, null));
+        assertEquals(0, range.length);
+        assertEquals("bytes */100", response.getHeaderMap().get("Content-Range")[0]);
+    }
+
+    public void test_getContentRange_multiRange() {
+        getMockRequest().addHeader("Range", "bytes=0-9,20-29");
+        assertNull(viewHelper.getContentRange(new StreamResponse("test.txt"), createResponseData(100, null)));
+    }
+
+    public void test_getContentRange_invalid() {
+        getMockRequest().addHeader("Range", "bytes=abc-def");
+        assertNull(viewHelper.getContentRange(new StreamResponse("test.txt"), createResponseData(100, null)));
+    }
+
+    public void test_getContentRange_ifRange() {
+        final Date lastModified = new Date(1400000000000L);
+        getMockRequest().addHeader("Range", "bytes=10-19");
+        getMockRequest().addHeader("If-Range", viewHelper.formatHttpDate(lastModified));
+        final long[] range = viewHelper.getContentRange(new StreamResponse("test.txt"), createResponseData(100, lastModified));
+        assertEquals(10L, range[0]);
+        assertEquals(19L, range[1]);
+    }
+
+    public void test_getContentRange_mismatchedIfRange() {
+        final Date lastModified = new Date(1400000000000L);
+        getMockRequest().addHeader("Range", "bytes=10-19");
+        getMockRequest().addHeader("If-Range", viewHelper.formatHttpDate(new Date(1300000000000L)));
+        assertNull(viewHelper.getContentRange(new StreamResponse("test.txt"), createResponseData(100, lastModified)));
+    }
+
+    public void test_getContentRange_ifRangeWithoutLastModified() {
+        getMockRequest().addHeader("Range", "bytes=10-19");
+        getMockRequest().addHeader("If-Range", "\"etag\"");
+        assertNull(viewHelper.getContentRange(new StreamResponse("test.txt"), createResponseData(100, null)));
+    }
+
+    private ResponseData createResponseData(final long contentLength, final Date lastModified) {
+        final ResponseData responseData = new ResponseData();
+        responseData.setContentLength(contentLength);
+        responseData.setLastModified(lastModified);
+        return responseData;
+    }
 }
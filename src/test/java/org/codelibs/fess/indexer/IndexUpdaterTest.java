@@ -0,0 +1,87 @@
+/*
+ * Copyright 2012-2016 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.indexer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.codelibs.fess.unit.UnitFessTestCase;
+
+public class IndexUpdaterTest extends UnitFessTestCase {
+
+    private IndexUpdater indexUpdater;
+
+    private final Map<String, Integer> clickCountMap = new HashMap<>();
+
+    private final Map<String, Long> favoriteCountMap = new HashMap<>();
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        indexUpdater = new IndexUpdater() {
+            @Override
+            protected void addClickCountField(final Map<String, Object> doc) {
+                doc.put("click_count", clickCountMap.getOrDefault(doc.get("url"), 0));
+            }
+
+            @Override
+            protected void addFavoriteCountField(final Map<String, Object> map) {
+                map.put("favorite_count", favoriteCountMap.getOrDefault(map.get("url"), 0L));
+            }
+        };
+
+        final DocBoostMatcher clickBoostMatcher = new DocBoostMatcher();
+        clickBoostMatcher.setMatchExpression("click_count > 5");
+        clickBoostMatcher.setBoostExpression("click_count * 2");
+        indexUpdater.addDocBoostMatcher(clickBoostMatcher);
+
+        final DocBoostMatcher favoriteBoostMatcher = new DocBoostMatcher();
+        favoriteBoostMatcher.setMatchExpression("favorite_count > 0");
+        favoriteBoostMatcher.setBoostExpression("100");
+        indexUpdater.addDocBoostMatcher(favoriteBoostMatcher);
+    }
+
+    public void test_updateDocument_countBoost() {
+        clickCountMap.put("http://example.com/click", 10);
+        favoriteCountMap.put("http://example.com/favorite", 1L);
+
+        final Map<String, Object> clickDoc = createDoc("http://example.com/click");
+        indexUpdater.updateDocument(clickDoc);
+        assertEquals(10, clickDoc.get("click_count"));
+        assertEquals(0L, clickDoc.get("favorite_count"));
+        assertEquals(20.0f, clickDoc.get("boost"));
+
+        final Map<String, Object> favoriteDoc = createDoc("http://example.com/favorite");
+        indexUpdater.updateDocument(favoriteDoc);
+        assertEquals(0, favoriteDoc.get("click_count"));
+        assertEquals(1L, favoriteDoc.get("favorite_count"));
+        assertEquals(100.0f, favoriteDoc.get("boost"));
+
+        final Map<String, Object> noCountDoc = createDoc("http://example.com/none");
+        indexUpdater.updateDocument(noCountDoc);
+        assertEquals(0, noCountDoc.get("click_count"));
+        assertEquals(0L, noCountDoc.get("favorite_count"));
+        assertNull(noCountDoc.get("boost"));
+        assertEquals("id", noCountDoc.get("doc_id"));
+    }
+
+    private Map<String, Object> createDoc(final String url) {
+        final Map<String, Object> doc = new HashMap<>();
+        doc.put("url", url);
+        doc.put("doc_id", "id");
+        return doc;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2012-2016 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.util;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.codelibs.core.io.SerializeUtil;
+import org.codelibs.fess.unit.UnitFessTestCase;
+
+public class DocumentDataUtilTest extends UnitFessTestCase {
+
+    public void test_toBinary_binary() {
+        final Map<String, Object> dataMap = createDataMap();
+        final byte[] data = DocumentDataUtil.toBinary(dataMap, DocumentDataUtil.FORMAT_BINARY, 1024);
+        assertTrue(DocumentDataUtil.isBinaryFormat(data));
+        assertTrue(data.length < SerializeUtil.fromObjectToBinary(dataMap).length);
+        assertDataMap(dataMap, DocumentDataUtil.fromBinary(data));
+    }
+
+    public void test_toBinary_noCompression() {
+        final Map<String, Object> dataMap = createDataMap();
+        final byte[] data = DocumentDataUtil.toBinary(dataMap, DocumentDataUtil.FORMAT_BINARY, 0);
+        assertTrue(DocumentDataUtil.isBinaryFormat(data));
+        assertDataMap(dataMap, DocumentDataUtil.fromBinary(data));
+    }
+
+    public void test_toBinary_java() {
+        final Map<String, Object> dataMap = createDataMap();
+        final byte[] data = DocumentDataUtil.toBinary(dataMap, DocumentDataUtil.FORMAT_JAVA, 1024);
+        assertFalse(DocumentDataUtil.isBinaryFormat(data));
+        assertDataMap(dataMap, DocumentDataUtil.fromBinary(data));
+    }
+
+    public void test_fromBinary_serialized() {
+        final Map<String, Object> dataMap = createDataMap();
+        assertDataMap(dataMap, DocumentDataUtil.fromBinary(SerializeUtil.fromObjectToBinary(dataMap)));
+    }
+
+    private Map<String, Object> createDataMap() {
+        final StringBuilder buf = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            buf.append("<p>content ").append(i).append("</p>\n");
+        }
+        final List<String> labels = new ArrayList<>();
+        labels.add("foo");
+        labels.add("bar");
+        labels.add("foo");
+
+        final Map<String, Object> dataMap = new LinkedHashMap<>();
+        dataMap.put("url", "http://example.com/");
+        dataMap.put("title", "Example");
+        dataMap.put("content", buf.toString());
+        dataMap.put("cache", buf.toString());
+        dataMap.put("role", new String[] { "Rguest" });
+        dataMap.put("label", labels);
+        dataMap.put("boost", Float.valueOf(1.5f));
+        dataMap.put("content_length", Long.valueOf(12345L));
+        dataMap.put("last_modified", new Date(1000L));
+        dataMap.put("has_cache", Boolean.TRUE);
+        dataMap.put("empty", null);
+        return dataMap;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void assertDataMap(final Map<String, Object> expected, final Object actual) {
+        final Map<String, Object> dataMap = (Map<String, Object>) actual;
+        assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(dataMap.keySet()));
+        assertEquals(expected.get("url"), dataMap.get("url"));
+        assertEquals(expected.get("content"), dataMap.get("content"));
+        assertEquals(expected.get("cache"), dataMap.get("cache"));
+        assertEquals("Rguest", ((String[]) dataMap.get("role"))[0]);
+        assertEquals(expected.get("label"), dataMap.get("label"));
+        assertEquals(expected.get("boost"), dataMap.get("boost"));
+        assertEquals(expected.get("content_length"), dataMap.get("content_length"));
+        assertEquals(expected.get("last_modified"), dataMap.get("last_modified"));
+        assertEquals(Boolean.TRUE, dataMap.get("has_cache"));
+        assertNull(dataMap.get("empty"));
+    }
+}
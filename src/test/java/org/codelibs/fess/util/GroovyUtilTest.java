@@ -0,0 +1,62 @@
+/*
+ * Copyright 2012-2016 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.fess.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.codelibs.fess.unit.UnitFessTestCase;
+
+public class GroovyUtilTest extends UnitFessTestCase {
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        GroovyUtil.clearCache();
+    }
+
+    public void test_evaluate() {
+        final Map<String, Object> params = new HashMap<>();
+        assertNull(GroovyUtil.evaluate("", params));
+        assertEquals("", GroovyUtil.evaluate("return ''", params));
+        assertEquals(1, GroovyUtil.evaluate("return 1", params));
+
+        params.put("test", "123");
+        assertEquals("123", GroovyUtil.evaluate("return test", params));
+        params.put("test", "456");
+        assertEquals("456", GroovyUtil.evaluate("return test", params));
+    }
+
+    public void test_evaluate_cached() {
+        final Map<String, Object> params = new HashMap<>();
+        final long missCount = GroovyUtil.getCacheStats().missCount();
+        final long hitCount = GroovyUtil.getCacheStats().hitCount();
+        for (int i = 0; i < 10; i++) {
+            params.put("num", i);
+            assertEquals(i * 2, GroovyUtil.evaluate("num * 2", params));
+        }
+        assertEquals(missCount + 1, GroovyUtil.getCacheStats().missCount());
+        assertEquals(hitCount + 9, GroovyUtil.getCacheStats().hitCount());
+    }
+
+    public void test_evaluate_binding() {
+        final Map<String, Object> params = new HashMap<>();
+        params.put("value", "a");
+        assertEquals("b", GroovyUtil.evaluate("value = 'b'; return value", params));
+        assertEquals("a", params.get("value"));
+        assertEquals("a", GroovyUtil.evaluate("return value", params));
+    }
+}